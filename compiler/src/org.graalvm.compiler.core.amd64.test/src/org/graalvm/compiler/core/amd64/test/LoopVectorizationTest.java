@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.amd64.test;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ListIterator;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.loop.phases.LoopVectorizationPhase;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.extended.ArrayElementwiseNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.Phase;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests {@link LoopVectorizationPhase} and the code emitted for {@link ArrayElementwiseNode}: the
+ * vectorized loops must compute the same arrays as the original loops for all element kinds,
+ * vector tails and aliasing arrays, and null or out-of-bounds arrays must take the original loop.
+ */
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    /** Covers several vectors of every element kind, each with every possible tail. */
+    private static final int MAX_LENGTH = 70;
+
+    /** The number of {@link ArrayElementwiseNode}s after {@link LoopVectorizationPhase}. */
+    private int elementwiseNodes;
+
+    @Before
+    public void checkAMD64() {
+        assumeTrue("skipping AMD64 specific test", getTarget().arch instanceof AMD64);
+        assumeTrue("skipping because loop vectorization is disabled",
+                        GraalOptions.OptLoopTransform.getValue(getInitialOptions()) && GraalOptions.LoopVectorization.getValue(getInitialOptions()));
+    }
+
+    public static int[] copyInt(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i];
+        }
+        return dst;
+    }
+
+    public static int[] fillInt(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = 42;
+        }
+        return dst;
+    }
+
+    public static int[] addInt(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] + y[i];
+        }
+        return dst;
+    }
+
+    public static int[] subInt(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] - y[i];
+        }
+        return dst;
+    }
+
+    public static int[] mulIntInvariant(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] * 31;
+        }
+        return dst;
+    }
+
+    public static int[] andInt(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] & y[i];
+        }
+        return dst;
+    }
+
+    public static int[] orIntInvariant(int[] dst, int[] x, int[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = 0x0F0F0F0F | x[i];
+        }
+        return dst;
+    }
+
+    public static long[] copyLong(long[] dst, long[] x, long[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i];
+        }
+        return dst;
+    }
+
+    public static long[] addLong(long[] dst, long[] x, long[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] + y[i];
+        }
+        return dst;
+    }
+
+    public static long[] mulLong(long[] dst, long[] x, long[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] * y[i];
+        }
+        return dst;
+    }
+
+    public static long[] xorLongInvariant(long[] dst, long[] x, long[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] ^ 0x5555555555555555L;
+        }
+        return dst;
+    }
+
+    public static float[] addFloat(float[] dst, float[] x, float[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] + y[i];
+        }
+        return dst;
+    }
+
+    public static float[] mulFloatInvariant(float[] dst, float[] x, float[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] * 1.5f;
+        }
+        return dst;
+    }
+
+    public static double[] subDouble(double[] dst, double[] x, double[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = x[i] - y[i];
+        }
+        return dst;
+    }
+
+    public static double[] fillDouble(double[] dst, double[] x, double[] y, int start, int end) {
+        for (int i = start; i < end; i++) {
+            dst[i] = -0.0;
+        }
+        return dst;
+    }
+
+    @Test
+    public void testInt() {
+        testElementwise("copyInt", JavaKind.Int);
+        testElementwise("fillInt", JavaKind.Int);
+        testElementwise("addInt", JavaKind.Int);
+        testElementwise("subInt", JavaKind.Int);
+        testElementwise("mulIntInvariant", JavaKind.Int);
+        testElementwise("andInt", JavaKind.Int);
+        testElementwise("orIntInvariant", JavaKind.Int);
+    }
+
+    @Test
+    public void testLong() {
+        testElementwise("copyLong", JavaKind.Long);
+        testElementwise("addLong", JavaKind.Long);
+        testElementwise("mulLong", JavaKind.Long);
+        testElementwise("xorLongInvariant", JavaKind.Long);
+    }
+
+    @Test
+    public void testFloat() {
+        testElementwise("addFloat", JavaKind.Float);
+        testElementwise("mulFloatInvariant", JavaKind.Float);
+    }
+
+    @Test
+    public void testDouble() {
+        testElementwise("subDouble", JavaKind.Double);
+        testElementwise("fillDouble", JavaKind.Double);
+    }
+
+    /** The destination is also a source, so every iteration reads the element it writes. */
+    @Test
+    public void testAliasing() {
+        for (String name : new String[]{"copyInt", "addInt", "subInt", "andInt"}) {
+            ResolvedJavaMethod method = compile(name);
+            for (int length = 0; length <= MAX_LENGTH; length++) {
+                for (int start = 0; start < 3; start++) {
+                    int[] expected = (int[]) array(JavaKind.Int, length, 1);
+                    int[] actual = (int[]) array(JavaKind.Int, length, 1);
+                    int[] other = (int[]) array(JavaKind.Int, length, 2);
+                    run(method, new Object[]{expected, expected, expected, start, length}, new Object[]{actual, actual, actual, start, length});
+                    run(method, new Object[]{expected, other.clone(), expected, start, length}, new Object[]{actual, other.clone(), actual, start, length});
+                    run(method, new Object[]{expected, expected, other.clone(), start, length}, new Object[]{actual, actual, other.clone(), start, length});
+                }
+            }
+        }
+        ResolvedJavaMethod method = compile("subDouble");
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            double[] expected = (double[]) array(JavaKind.Double, length, 3);
+            double[] actual = (double[]) array(JavaKind.Double, length, 3);
+            run(method, new Object[]{expected, expected, expected, 1, length}, new Object[]{actual, actual, actual, 1, length});
+        }
+    }
+
+    /**
+     * Null arrays and ranges outside of the arrays must run the original loop, which throws the
+     * exception at the same iteration as the interpreter after writing the same elements.
+     */
+    @Test
+    public void testOriginalLoop() {
+        ResolvedJavaMethod method = compile("addInt");
+        runWithArrays(method, JavaKind.Int, null, 20, 20, 0, 10);
+        runWithArrays(method, JavaKind.Int, 20, null, 20, 0, 10);
+        runWithArrays(method, JavaKind.Int, 20, 20, null, 0, 10);
+        runWithArrays(method, JavaKind.Int, null, 20, 20, 10, 10);
+        runWithArrays(method, JavaKind.Int, 20, 20, 20, 0, 21);
+        runWithArrays(method, JavaKind.Int, 20, 13, 20, 0, 20);
+        runWithArrays(method, JavaKind.Int, 20, 20, 13, 5, 20);
+        runWithArrays(method, JavaKind.Int, 13, 20, 20, 0, 20);
+        runWithArrays(method, JavaKind.Int, 20, 20, 20, -1, 20);
+        runWithArrays(method, JavaKind.Int, 20, 20, 20, Integer.MIN_VALUE, 20);
+        runWithArrays(method, JavaKind.Int, 20, 20, 20, 0, Integer.MAX_VALUE);
+        runWithArrays(method, JavaKind.Int, 20, 20, 20, 15, 5);
+
+        method = compile("copyLong");
+        runWithArrays(method, JavaKind.Long, 40, null, 40, 0, 40);
+        runWithArrays(method, JavaKind.Long, 40, 33, 40, 0, 40);
+
+        method = compile("fillDouble");
+        runWithArrays(method, JavaKind.Double, 40, null, null, 3, 41);
+    }
+
+    private void testElementwise(String name, JavaKind kind) {
+        ResolvedJavaMethod method = compile(name);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            // Starting after 0 makes the vector accesses unaligned.
+            for (int start = 0; start < 4; start++) {
+                runWithArrays(method, kind, length, length, length, start, length);
+                runWithArrays(method, kind, length + 5, length + 3, length + 1, start, length);
+            }
+        }
+    }
+
+    /** Compiles a snippet and checks that its loop was vectorized. */
+    private ResolvedJavaMethod compile(String name) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(name);
+        elementwiseNodes = 0;
+        getCode(method);
+        assertDeepEquals(name + " was not vectorized", 1, elementwiseNodes);
+        return method;
+    }
+
+    /**
+     * Runs the snippet on new arrays of the given lengths, where a null length stands for a null
+     * array.
+     */
+    private void runWithArrays(ResolvedJavaMethod method, JavaKind kind, Integer dstLength, Integer xLength, Integer yLength, int start, int end) {
+        Object[] expectedArgs = {array(kind, dstLength, 1), array(kind, xLength, 2), array(kind, yLength, 3), start, end};
+        Object[] actualArgs = {array(kind, dstLength, 1), array(kind, xLength, 2), array(kind, yLength, 3), start, end};
+        run(method, expectedArgs, actualArgs);
+    }
+
+    private void run(ResolvedJavaMethod method, Object[] expectedArgs, Object[] actualArgs) {
+        Result expected = executeExpected(method, null, expectedArgs);
+        Result actual = executeActual(method, null, actualArgs);
+        assertEquals(expected, actual);
+        assertDeepEquals("destination array", expectedArgs[0], actualArgs[0]);
+    }
+
+    private static Object array(JavaKind kind, Integer length, int seed) {
+        if (length == null) {
+            return null;
+        }
+        switch (kind) {
+            case Int:
+                int[] ints = new int[length];
+                for (int i = 0; i < length; i++) {
+                    ints[i] = seed * 0x9E3779B9 + i * 0x61C88647;
+                }
+                return ints;
+            case Long:
+                long[] longs = new long[length];
+                for (int i = 0; i < length; i++) {
+                    longs[i] = seed * 0x9E3779B97F4A7C15L + i * 0x61C8864680B583EBL;
+                }
+                return longs;
+            case Float:
+                float[] floats = new float[length];
+                for (int i = 0; i < length; i++) {
+                    floats[i] = seed * 1.25f + i * 0.1f;
+                }
+                return floats;
+            case Double:
+                double[] doubles = new double[length];
+                for (int i = 0; i < length; i++) {
+                    doubles[i] = seed * 1.25 - i * 0.1;
+                }
+                return doubles;
+            default:
+                throw new IllegalArgumentException(kind.toString());
+        }
+    }
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts).copy();
+        ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(LoopVectorizationPhase.class);
+        assertTrue("LoopVectorizationPhase is not in the high tier", position != null);
+        position.add(new Phase() {
+            @Override
+            protected void run(StructuredGraph graph) {
+                elementwiseNodes = graph.getNodes().filter(ArrayElementwiseNode.class).count();
+            }
+        });
+        return suites;
+    }
+}
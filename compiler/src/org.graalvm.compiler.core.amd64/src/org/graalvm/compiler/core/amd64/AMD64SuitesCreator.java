@@ -24,12 +24,22 @@
  */
 package org.graalvm.compiler.core.amd64;
 
+import static org.graalvm.compiler.core.common.GraalOptions.LoopVectorization;
+import static org.graalvm.compiler.core.common.GraalOptions.OptLoopTransform;
+
+import java.util.ListIterator;
+
 import org.graalvm.compiler.java.DefaultSuitesCreator;
 import org.graalvm.compiler.lir.amd64.phases.StackMoveOptimizationPhase;
 import org.graalvm.compiler.lir.phases.LIRSuites;
+import org.graalvm.compiler.loop.phases.LoopVectorizationPhase;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.common.LoweringPhase;
 import org.graalvm.compiler.phases.tiers.CompilerConfiguration;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
 
 public class AMD64SuitesCreator extends DefaultSuitesCreator {
 
@@ -37,6 +47,18 @@ public class AMD64SuitesCreator extends DefaultSuitesCreator {
         super(compilerConfiguration, plugins);
     }
 
+    @Override
+    public Suites createSuites(OptionValues options) {
+        Suites suites = super.createSuites(options);
+        if (OptLoopTransform.getValue(options) && LoopVectorization.getValue(options)) {
+            /* Vectorize before lowering, while array accesses are still LoadIndexed/StoreIndexed */
+            ListIterator<BasePhase<? super HighTierContext>> highTierLowering = suites.getHighTier().findPhase(LoweringPhase.class);
+            highTierLowering.previous();
+            highTierLowering.add(new LoopVectorizationPhase());
+        }
+        return suites;
+    }
+
     @Override
     public LIRSuites createLIRSuites(OptionValues options) {
         LIRSuites lirSuites = super.createLIRSuites(options);
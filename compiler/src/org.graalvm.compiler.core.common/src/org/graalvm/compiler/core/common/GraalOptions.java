@@ -80,6 +80,9 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Integer> EscapeAnalysisLoopCutoff = new OptionKey<>(20);
 
+    @Option(help = "Keep objects that are allocated in a loop and passed to the next iteration through a loop phi virtual.", type = OptionType.Debug)
+    public static final OptionKey<Boolean> EscapeAnalysisLoopCarriedAllocations = new OptionKey<>(true);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<String> EscapeAnalyzeOnly = new OptionKey<>(null);
 
@@ -92,6 +95,10 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Expert)
     public static final OptionKey<Double> TailDuplicationProbability = new OptionKey<>(0.5);
 
+    @Option(help = "Blocks that are executed less often than this fraction of method entries, as well as exception handlers, " +
+                    "are emitted after all other blocks of a method. A negative value disables this.", type = OptionType.Expert)
+    public static final OptionKey<Double> ColdBlockFrequency = new OptionKey<>(0.001);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionKey<Integer> TailDuplicationTrivialSize = new OptionKey<>(1);
 
@@ -113,6 +120,18 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Boolean> PartialUnroll = new OptionKey<>(true);
 
+    @Option(help = "Replace counted loops that compute array elements independently of each other with vectorized array operations where the target supports them.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> LoopVectorization = new OptionKey<>(true);
+
+    @Option(help = "Replace array bounds checks in counted loops by a speculative check of the whole index range before the loop.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> LoopPredication = new OptionKey<>(true);
+
+    @Option(help = "Split long running counted loops into an inner loop without safepoint and an outer loop with a safepoint.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> LoopStripMining = new OptionKey<>(true);
+
+    @Option(help = "Maximum number of iterations of the inner loop of a strip mined loop.", type = OptionType.Expert)
+    public static final OptionKey<Integer> LoopStripMiningIterations = new OptionKey<>(1000);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionKey<Float> MinimumPeelProbability = new OptionKey<>(0.35f);
 
@@ -45,7 +45,9 @@ import org.graalvm.compiler.core.common.cfg.Loop;
  * The machine code generator order includes reordering of loop headers such that the backward jump
  * is a conditional jump if there is only one loop end block. Additionally, the target of loop
  * backward jumps are always marked as aligned. Aligning the target of conditional jumps does not
- * bring a measurable benefit and is therefore avoided to keep the code size small.
+ * bring a measurable benefit and is therefore avoided to keep the code size small. Optionally,
+ * {@linkplain #isColdBlock cold blocks} are moved to the end of the machine code generator order,
+ * so that the frequently executed code of a method is contiguous.
  *
  * The linear scan register allocator order has an additional mechanism that prevents merge nodes
  * from being scheduled if there is at least one highly likely predecessor still unscheduled. This
@@ -88,21 +90,54 @@ public final class ComputeBlockOrder {
      * @return sorted list of blocks
      */
     public static <T extends AbstractBlockBase<T>> AbstractBlockBase<?>[] computeCodeEmittingOrder(int blockCount, T startBlock) {
+        return computeCodeEmittingOrder(blockCount, startBlock, -1);
+    }
+
+    /**
+     * Computes the block order used for code emission. Unless {@code coldBlockFrequency} is
+     * negative, {@linkplain #isColdBlock cold blocks} and the paths starting at them are only added
+     * after all other blocks.
+     *
+     * @return sorted list of blocks
+     */
+    public static <T extends AbstractBlockBase<T>> AbstractBlockBase<?>[] computeCodeEmittingOrder(int blockCount, T startBlock, double coldBlockFrequency) {
         List<T> order = new ArrayList<>();
         BitSet visitedBlocks = new BitSet(blockCount);
         PriorityQueue<T> worklist = initializeWorklist(startBlock, visitedBlocks);
-        computeCodeEmittingOrder(order, worklist, visitedBlocks);
+        if (coldBlockFrequency < 0) {
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, null, coldBlockFrequency);
+        } else {
+            PriorityQueue<T> coldBlocks = new PriorityQueue<>(INITIAL_WORKLIST_CAPACITY, new BlockOrderComparator<>());
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, coldBlocks, coldBlockFrequency);
+            computeCodeEmittingOrder(order, coldBlocks, visitedBlocks, null, coldBlockFrequency);
+        }
         assert checkOrder(order, blockCount);
         return order.toArray(new AbstractBlockBase<?>[0]);
     }
 
     /**
-     * Iteratively adds paths to the code emission block order.
+     * Determines if a block should be emitted after the frequently executed code of its method. A
+     * block is cold if it is an exception handler entry or if it is executed less often than
+     * {@code coldBlockFrequency} times per method entry. Uncommon traps usually fall into the
+     * latter category. Loop headers and loop ends are never cold so that loops keep the layout
+     * described in {@link ComputeBlockOrder}.
      */
-    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    public static boolean isColdBlock(AbstractBlockBase<?> block, double coldBlockFrequency) {
+        if (coldBlockFrequency < 0 || block.getPredecessorCount() == 0 || block.isLoopHeader() || block.isLoopEnd()) {
+            return false;
+        }
+        return block.isExceptionEntry() || block.getRelativeFrequency() < coldBlockFrequency;
+    }
+
+    /**
+     * Iteratively adds paths to the code emission block order. Cold blocks are moved to
+     * {@code coldBlocks} instead if it is not null.
+     */
+    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks, PriorityQueue<T> coldBlocks,
+                    double coldBlockFrequency) {
         while (!worklist.isEmpty()) {
             T nextImportantPath = worklist.poll();
-            addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks);
+            addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks, coldBlocks, coldBlockFrequency);
         }
     }
 
@@ -161,9 +196,16 @@ public final class ComputeBlockOrder {
     /**
      * Add a linear path to the code emission order greedily following the most likely successor.
      */
-    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks, PriorityQueue<T> coldBlocks,
+                    double coldBlockFrequency) {
         T block = initialBlock;
         while (block != null) {
+            if (coldBlocks != null && isColdBlock(block, coldBlockFrequency)) {
+                // The rest of this path is added once all hot blocks are placed.
+                coldBlocks.add(block);
+                return;
+            }
+
             // Skip loop headers if there is only a single loop end block to
             // make the backward jump be a conditional jump.
             if (!skipLoopHeader(block)) {
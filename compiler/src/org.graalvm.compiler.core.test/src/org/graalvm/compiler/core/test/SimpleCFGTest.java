@@ -24,6 +24,9 @@
  */
 package org.graalvm.compiler.core.test;
 
+import org.graalvm.compiler.api.directives.GraalDirectives;
+import org.graalvm.compiler.core.common.alloc.ComputeBlockOrder;
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.nodes.AbstractBeginNode;
 import org.graalvm.compiler.nodes.AbstractMergeNode;
@@ -37,6 +40,8 @@ import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
 import org.graalvm.compiler.nodes.cfg.Block;
 import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
 import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.tiers.PhaseContext;
 import org.graalvm.compiler.printer.GraalDebugHandlersFactory;
 import org.junit.Assert;
 import org.junit.Test;
@@ -108,6 +113,46 @@ public class SimpleCFGTest extends GraalCompilerTest {
         assertPostdominator(blocks[3], null);
     }
 
+    static int coldSideEffect;
+
+    public static int coldBlockInLoopSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; GraalDirectives.injectBranchProbability(0.9, i < n); i++) {
+            if (GraalDirectives.injectBranchProbability(0.00001, i == 1234)) {
+                coldSideEffect = i;
+            }
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testColdBlocksLast() {
+        StructuredGraph graph = parseEager("coldBlockInLoopSnippet", AllowAssumptions.YES);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+        Block[] blocks = cfg.getBlocks();
+        double coldBlockFrequency = 0.001;
+
+        AbstractBlockBase<?>[] order = ComputeBlockOrder.computeCodeEmittingOrder(blocks.length, cfg.getStartBlock(), coldBlockFrequency);
+        Block returnBlock = cfg.blockFor(graph.getNodes(ReturnNode.TYPE).first());
+        int returnIndex = -1;
+        int firstColdIndex = -1;
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] == returnBlock) {
+                returnIndex = i;
+            }
+            if (firstColdIndex < 0 && ComputeBlockOrder.isColdBlock(order[i], coldBlockFrequency)) {
+                firstColdIndex = i;
+            }
+        }
+        Assert.assertTrue("no cold block found", firstColdIndex >= 0);
+        Assert.assertTrue("return block must be emitted before the first cold block", returnIndex >= 0 && returnIndex < firstColdIndex);
+        for (int i = firstColdIndex; i < order.length; i++) {
+            Assert.assertTrue("hot block " + order[i] + " emitted after a cold block", order[i].getRelativeFrequency() < coldBlockFrequency);
+        }
+    }
+
     public static void assertDominator(Block block, Block expectedDominator) {
         Assert.assertEquals("dominator of " + block, expectedDominator, block.getDominator());
     }
@@ -250,6 +250,42 @@ public class PartialEscapeAnalysisTest extends EATestBase {
         testPartialEscapeAnalysis("testBoxLoopSnippet", 0, 0, BoxNode.class, UnboxNode.class);
     }
 
+    public static int testLoopCarriedSnippet(int n) {
+        TestObject obj = new TestObject(0, 1);
+        for (int i = 0; i < n; i++) {
+            obj = new TestObject(obj.y, obj.x + obj.y);
+        }
+        return obj.x;
+    }
+
+    /**
+     * Tests that an object that is replaced by a new allocation in every iteration stays virtual.
+     */
+    @Test
+    public void testLoopCarried() {
+        testPartialEscapeAnalysis("testLoopCarriedSnippet", 0, 0);
+        test("testLoopCarriedSnippet", 0);
+        test("testLoopCarriedSnippet", 10);
+    }
+
+    public static boolean testLoopCarriedIdentitySnippet(int n) {
+        TestObject first = new TestObject(0, 1);
+        TestObject obj = first;
+        for (int i = 0; i < n; i++) {
+            obj = new TestObject(obj.y, obj.x + obj.y);
+        }
+        return obj == first;
+    }
+
+    /**
+     * The loop entry value is still referenced after the loop, so it must not lose its identity.
+     */
+    @Test
+    public void testLoopCarriedIdentity() {
+        test("testLoopCarriedIdentitySnippet", 0);
+        test("testLoopCarriedIdentitySnippet", 10);
+    }
+
     static volatile int staticField;
     static boolean executedDeoptimizeDirective;
 
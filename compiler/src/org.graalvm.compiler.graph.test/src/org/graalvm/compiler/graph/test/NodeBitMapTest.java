@@ -62,7 +62,7 @@ public class NodeBitMapTest extends GraphTest {
         // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
         Graal.getRuntime();
 
-        OptionValues options = getOptions();
+        OptionValues options = new OptionValues(getOptions(), Graph.Options.ReuseNodeStorage, true);
         graph = new Graph(options, getDebug(options));
         for (int i = 0; i < nodes.length; i++) {
             nodes[i] = graph.add(new TestNode());
@@ -99,6 +99,23 @@ public class NodeBitMapTest extends GraphTest {
         Assert.assertFalse(iter.hasNext());
     }
 
+    @Test
+    public void reuseReleasedStorage() {
+        map.mark(nodes[3]);
+        map.mark(nodes[64]);
+        map.release();
+
+        NodeBitMap other = graph.createNodeBitMap();
+        for (Node n : other) {
+            Assert.fail("no elements expected: " + n);
+        }
+        other.mark(nodes[5]);
+        Assert.assertEquals(1, other.count());
+        other.invert();
+        Assert.assertFalse(other.isMarked(nodes[5]));
+        Assert.assertEquals(nodes.length - 1, other.snapshot().size());
+    }
+
     @Test
     public void deleteNodeWhileIterating() {
         map.mark(nodes[99]);
@@ -31,6 +31,7 @@ import static org.graalvm.compiler.graph.Graph.SourcePositionTracking.UpdateOnly
 import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_IGNORED;
 import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_IGNORED;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -67,6 +68,8 @@ public class Graph {
         public static final OptionKey<Boolean> VerifyGraalGraphEdges = new OptionKey<>(false);
         @Option(help = "Graal graph compression is performed when percent of live nodes falls below this value", type = OptionType.Debug)//
         public static final OptionKey<Integer> GraphCompressionThreshold = new OptionKey<>(70);
+        @Option(help = "Reuse the storage of released node bit maps and work lists within a graph", type = OptionType.Debug)//
+        public static final OptionKey<Boolean> ReuseNodeStorage = new OptionKey<>(false);
     }
 
     private enum FreezeState {
@@ -129,6 +132,24 @@ public class Graph {
 
     NodeEventListener nodeEventListener;
 
+    /**
+     * Storage of a {@linkplain NodeBitMap#release() released} {@link NodeBitMap}, which is reused
+     * by the next bit map created for this graph.
+     */
+    private long[] cachedBitMapStorage;
+
+    /**
+     * Queue of a {@linkplain NodeWorkList#release() released} {@link NodeWorkList} or
+     * {@link NodeFlood}, which is reused by the next one created for this graph.
+     */
+    private ArrayDeque<Node> cachedWorkListQueue;
+
+    /**
+     * Whether {@link #cachedBitMapStorage} and {@link #cachedWorkListQueue} are used, see
+     * {@link Options#ReuseNodeStorage}.
+     */
+    private final boolean reuseNodeStorage;
+
     /**
      * Used to global value number {@link ValueNumberable} {@linkplain NodeClass#isLeafNode() leaf}
      * nodes.
@@ -283,6 +304,7 @@ public class Graph {
         this.name = name;
         this.options = options;
         this.trackNodeSourcePosition = trackNodeSourcePositionDefault(options, debug);
+        this.reuseNodeStorage = Options.ReuseNodeStorage.getValue(options);
         assert debug != null;
         this.debug = debug;
 
@@ -1094,6 +1116,59 @@ public class Graph {
         return new NodeWorkList.IterativeNodeWorkList(this, fill, iterationLimitPerNode);
     }
 
+    long[] takeBitMapStorage(int length) {
+        // frozen graphs can be shared between threads
+        if (!reuseNodeStorage || isFrozen()) {
+            return new long[length];
+        }
+        long[] storage = cachedBitMapStorage;
+        // don't clear much more memory than a fresh array would need
+        if (storage != null && storage.length >= length && storage.length <= length * 2) {
+            cachedBitMapStorage = null;
+            Arrays.fill(storage, 0);
+            return storage;
+        }
+        return new long[length];
+    }
+
+    void releaseBitMapStorage(long[] storage) {
+        // frozen graphs can be shared between threads
+        if (reuseNodeStorage && !isFrozen() && (cachedBitMapStorage == null || cachedBitMapStorage.length < storage.length)) {
+            cachedBitMapStorage = storage;
+        }
+    }
+
+    ArrayDeque<Node> takeWorkListQueue() {
+        if (!reuseNodeStorage || isFrozen()) {
+            return new ArrayDeque<>();
+        }
+        ArrayDeque<Node> queue = cachedWorkListQueue;
+        if (queue != null) {
+            cachedWorkListQueue = null;
+            return queue;
+        }
+        return new ArrayDeque<>();
+    }
+
+    void releaseWorkListQueue(ArrayDeque<Node> queue) {
+        queue.clear();
+        if (reuseNodeStorage && !isFrozen()) {
+            cachedWorkListQueue = queue;
+        }
+    }
+
+    /**
+     * Makes sure that {@code additionalNodes} nodes can be added without growing {@link #nodes}.
+     * The array grows at least geometrically so that repeated calls, e.g. when many snippets are
+     * inlined into one graph, take amortized constant time per node.
+     */
+    private void ensureNodeCapacity(int additionalNodes) {
+        int capacity = nodesSize + additionalNodes;
+        if (capacity > nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(capacity, nodes.length * 2));
+        }
+    }
+
     void register(Node node) {
         assert !isFrozen();
         assert node.id() == Node.INITIAL_ID;
@@ -1284,6 +1359,7 @@ public class Graph {
     @SuppressWarnings({"all", "try"})
     public EconomicMap<Node, Node> addDuplicates(Iterable<? extends Node> newNodes, final Graph oldGraph, int estimatedNodeCount, DuplicationReplacement replacements) {
         try (DebugCloseable s = DuplicateGraph.start(getDebug())) {
+            ensureNodeCapacity(estimatedNodeCount);
             return NodeClass.addGraphDuplicate(this, oldGraph, estimatedNodeCount, newNodes, replacements);
         }
     }
@@ -1294,6 +1370,9 @@ public class Graph {
 
     public void freeze() {
         this.freezeState = FreezeState.DeepFreeze;
+        // the storage must not be handed out to the threads that share this graph
+        cachedBitMapStorage = null;
+        cachedWorkListQueue = null;
     }
 
     public void temporaryFreeze() {
@@ -41,7 +41,7 @@ public final class NodeBitMap extends NodeIdAccessor implements NodeIterable<Nod
     public NodeBitMap(Graph graph) {
         super(graph);
         this.nodeCount = graph.nodeIdCount();
-        this.bits = new long[sizeForNodeCount(nodeCount)];
+        this.bits = graph.takeBitMapStorage(sizeForNodeCount(nodeCount));
     }
 
     private static int sizeForNodeCount(int nodeCount) {
@@ -163,7 +163,9 @@ public final class NodeBitMap extends NodeIdAccessor implements NodeIterable<Nod
     }
 
     public void invert() {
-        for (int i = 0; i < bits.length; i++) {
+        // the storage may be longer than needed if it was reused, see Graph.takeBitMapStorage
+        int length = Math.min(bits.length, sizeForNodeCount(nodeCount));
+        for (int i = 0; i < length; i++) {
             bits[i] = ~bits[i];
         }
     }
@@ -290,6 +292,15 @@ public final class NodeBitMap extends NodeIdAccessor implements NodeIterable<Nod
         return new NodeBitMap(this);
     }
 
+    /**
+     * Hands the storage of this bit map back to the graph so that the next bit map created for
+     * the graph can reuse it. This bit map must not be used afterwards.
+     */
+    public void release() {
+        graph.releaseBitMapStorage(bits);
+        bits = null;
+    }
+
     @Override
     public int count() {
         int count = 0;
@@ -924,6 +924,10 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
                     Node newNode = node.clone(graph, WithAllEdges);
                     assert newNode.getNodeClass().isLeafNode() || newNode.hasNoUsages();
                     assert newNode.getClass() == node.getClass();
+                    if (node.extraUsagesCount > 0 && newNode.hasNoUsages()) {
+                        // the duplicate usually gets as many usages as the original
+                        newNode.extraUsages = new Node[node.extraUsagesCount];
+                    }
                     newNodes.put(node, newNode);
                 }
             }
@@ -31,12 +31,12 @@ import java.util.Queue;
 public final class NodeFlood implements Iterable<Node> {
 
     private final NodeBitMap visited;
-    private final Queue<Node> worklist;
+    private final ArrayDeque<Node> worklist;
     private int totalMarkedCount;
 
     public NodeFlood(Graph graph) {
         visited = graph.createNodeBitMap();
-        worklist = new ArrayDeque<>();
+        worklist = graph.takeWorkListQueue();
     }
 
     public void add(Node node) {
@@ -69,6 +69,15 @@ public final class NodeFlood implements Iterable<Node> {
         return visited.isNew(node);
     }
 
+    /**
+     * Hands the storage of this flood back to the graph for reuse, see
+     * {@link NodeBitMap#release()}. This flood must not be used afterwards.
+     */
+    public void release() {
+        visited.graph().releaseWorkListQueue(worklist);
+        visited.release();
+    }
+
     private static class QueueConsumingIterator implements Iterator<Node> {
 
         private final Queue<Node> queue;
@@ -27,23 +27,21 @@ package org.graalvm.compiler.graph;
 import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Queue;
 
 import org.graalvm.compiler.debug.DebugContext;
 
 public abstract class NodeWorkList implements Iterable<Node> {
 
-    protected final Queue<Node> worklist;
+    protected final Graph graph;
+    protected final ArrayDeque<Node> worklist;
 
     private NodeWorkList(Graph graph, boolean fill) {
+        this.graph = graph;
+        this.worklist = graph.takeWorkListQueue();
         if (fill) {
-            ArrayDeque<Node> deque = new ArrayDeque<>(graph.getNodeCount());
             for (Node node : graph.getNodes()) {
-                deque.add(node);
+                worklist.add(node);
             }
-            worklist = deque;
-        } else {
-            worklist = new ArrayDeque<>();
         }
     }
 
@@ -59,6 +57,14 @@ public abstract class NodeWorkList implements Iterable<Node> {
 
     public abstract boolean contains(Node node);
 
+    /**
+     * Hands the storage of this work list back to the graph so that the next work list created
+     * for the graph can reuse it. This work list must not be used afterwards.
+     */
+    public void release() {
+        graph.releaseWorkListQueue(worklist);
+    }
+
     private abstract class QueueConsumingIterator implements Iterator<Node> {
 
         protected void dropDeleted() {
@@ -132,7 +138,7 @@ public abstract class NodeWorkList implements Iterable<Node> {
         public void add(Node node) {
             if (node != null) {
                 if (inQueue == null && worklist.size() > EXPLICIT_BITMAP_THRESHOLD) {
-                    inflateToBitMap(node.graph());
+                    inflateToBitMap();
                 }
 
                 if (inQueue != null) {
@@ -184,7 +190,16 @@ public abstract class NodeWorkList implements Iterable<Node> {
             return true;
         }
 
-        private void inflateToBitMap(Graph graph) {
+        @Override
+        public void release() {
+            super.release();
+            if (inQueue != null) {
+                inQueue.release();
+                inQueue = null;
+            }
+        }
+
+        private void inflateToBitMap() {
             assert inQueue == null;
             inQueue = graph.createNodeBitMap();
             for (Node queuedNode : worklist) {
@@ -218,6 +233,12 @@ public abstract class NodeWorkList implements Iterable<Node> {
             return visited.isMarked(node);
         }
 
+        @Override
+        public void release() {
+            super.release();
+            visited.release();
+        }
+
         @Override
         public Iterator<Node> iterator() {
             return new QueueConsumingIterator() {
@@ -53,6 +53,7 @@ import org.junit.Test;
 
 import jdk.vm.ci.aarch64.AArch64;
 import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
 import jdk.vm.ci.code.Architecture;
 import jdk.vm.ci.hotspot.HotSpotVMConfigStore;
 import jdk.vm.ci.hotspot.VMIntrinsicMethod;
@@ -254,11 +255,7 @@ public class CheckGraalIntrinsics extends GraalTest {
                         "java/lang/String.indexOf(Ljava/lang/String;)I",
                         // Can share most implementation parts with with
                         // Unsafe.allocateUninitializedArray0
-                        "java/lang/reflect/Array.newArray(Ljava/lang/Class;I)Ljava/lang/Object;",
-                        // HotSpot MacroAssembler-based intrinsic
-                        "sun/nio/cs/ISO_8859_1$Encoder.encodeISOArray([CI[BII)I",
-                        // Stub based intrinsics but implementation seems complex in C2
-                        "sun/security/provider/DigestBase.implCompressMultiBlock([BII)I");
+                        "java/lang/reflect/Array.newArray(Ljava/lang/Class;I)Ljava/lang/Object;");
 
         if (isJDK9OrHigher()) {
             // Relevant for Java flight recorder
@@ -268,20 +265,8 @@ public class CheckGraalIntrinsics extends GraalTest {
                             "jdk/jfr/internal/JVM.getClassId(Ljava/lang/Class;)J");
 
             add(toBeInvestigated,
-                            // Some logic and a stub call
-                            "com/sun/crypto/provider/CounterMode.implCrypt([BII[BI)I",
-                            // Stub and very little logic
-                            "com/sun/crypto/provider/GHASH.processBlocks([BII[J[J)V",
-                            // HotSpot MacroAssembler-based intrinsic
-                            "java/lang/Math.fma(DDD)D",
-                            // HotSpot MacroAssembler-based intrinsic
-                            "java/lang/Math.fma(FFF)F",
-                            // Emit pause instruction if os::is_MP()
-                            "java/lang/Thread.onSpinWait()V",
                             // Just check if the argument is a compile time constant
                             "java/lang/invoke/MethodHandleImpl.isCompileConstant(Ljava/lang/Object;)Z",
-                            // Some logic and a runtime call
-                            "java/util/ArraysSupport.vectorizedMismatch(Ljava/lang/Object;JLjava/lang/Object;JII)I",
                             // Only used as a marker for vectorization?
                             "java/util/stream/Streams$RangeIntSpliterator.forEachRemaining(Ljava/util/function/IntConsumer;)V",
                             // Only implemented on non-AMD64 platforms (some logic and runtime call)
@@ -292,11 +277,7 @@ public class CheckGraalIntrinsics extends GraalTest {
                             "jdk/internal/misc/Unsafe.allocateUninitializedArray0(Ljava/lang/Class;I)Ljava/lang/Object;",
 
                             // Control flow, deopts, and a cast
-                            "jdk/internal/util/Preconditions.checkIndex(IILjava/util/function/BiFunction;)I",
-                            // HotSpot MacroAssembler-based intrinsic
-                            "sun/nio/cs/ISO_8859_1$Encoder.implEncodeISOArray([CI[BII)I",
-                            // Runtime call and some complex compiler logic
-                            "sun/security/provider/DigestBase.implCompressMultiBlock0([BII)I");
+                            "jdk/internal/util/Preconditions.checkIndex(IILjava/util/function/BiFunction;)I");
 
             /*
              * Per default, all these operations are mapped to some generic method for which we
@@ -365,8 +346,7 @@ public class CheckGraalIntrinsics extends GraalTest {
 
         if (isJDK10OrHigher()) {
             add(toBeInvestigated,
-                            "java/lang/Math.multiplyHigh(JJ)J",
-                            "jdk/internal/util/ArraysSupport.vectorizedMismatch(Ljava/lang/Object;JLjava/lang/Object;JII)I");
+                            "java/lang/Math.multiplyHigh(JJ)J");
         }
 
         if (isJDK11OrHigher()) {
@@ -383,7 +363,33 @@ public class CheckGraalIntrinsics extends GraalTest {
             add(ignore, "java/lang/Object.notifyAll()V");
         }
 
+        if (!(arch instanceof AMD64) && !(arch instanceof AArch64)) {
+            if (isJDK10OrHigher()) {
+                add(toBeInvestigated,
+                                "jdk/internal/util/ArraysSupport.vectorizedMismatch(Ljava/lang/Object;JLjava/lang/Object;JII)I");
+            } else if (isJDK9OrHigher()) {
+                add(toBeInvestigated,
+                                "java/util/ArraysSupport.vectorizedMismatch(Ljava/lang/Object;JLjava/lang/Object;JII)I");
+            }
+        }
+
         if (!(arch instanceof AMD64)) {
+            if (isJDK9OrHigher()) {
+                add(toBeInvestigated,
+                                // HotSpot MacroAssembler-based intrinsic
+                                "java/lang/Math.fma(DDD)D",
+                                // HotSpot MacroAssembler-based intrinsic
+                                "java/lang/Math.fma(FFF)F",
+                                // Emit pause instruction if os::is_MP()
+                                "java/lang/Thread.onSpinWait()V",
+                                // HotSpot MacroAssembler-based intrinsic
+                                "sun/nio/cs/ISO_8859_1$Encoder.implEncodeISOArray([CI[BII)I");
+            } else {
+                add(toBeInvestigated,
+                                // HotSpot MacroAssembler-based intrinsic
+                                "sun/nio/cs/ISO_8859_1$Encoder.encodeISOArray([CI[BII)I");
+            }
+
             // Can we implement these on non-AMD64 platforms? C2 seems to.
             add(toBeInvestigated,
                             "java/lang/String.compareTo(Ljava/lang/String;)I",
@@ -432,6 +438,13 @@ public class CheckGraalIntrinsics extends GraalTest {
          * them if the HotSpot config tells us that they can't be used.
          */
 
+        // FMA intrinsics
+        if (arch instanceof AMD64 && !((AMD64) arch).getFeatures().contains(CPUFeature.FMA) && isJDK9OrHigher()) {
+            add(ignore,
+                            "java/lang/Math.fma(DDD)D",
+                            "java/lang/Math.fma(FFF)F");
+        }
+
         // CRC32 intrinsics
         if (!config.useCRC32Intrinsics) {
             add(ignore, "java/util/zip/CRC32.update(II)I");
@@ -470,6 +483,16 @@ public class CheckGraalIntrinsics extends GraalTest {
             }
         }
 
+        // AES-CTR and GHASH intrinsics
+        if (isJDK9OrHigher()) {
+            if (!config.useAESCTRIntrinsics()) {
+                add(ignore, "com/sun/crypto/provider/CounterMode.implCrypt([BII[BI)I");
+            }
+            if (!config.useGHASHIntrinsics()) {
+                add(ignore, "com/sun/crypto/provider/GHASH.processBlocks([BII[J[J)V");
+            }
+        }
+
         // BigInteger intrinsics
         if (!config.useMultiplyToLenIntrinsic()) {
             if (isJDK9OrHigher()) {
@@ -513,6 +536,13 @@ public class CheckGraalIntrinsics extends GraalTest {
                 add(ignore, "sun/security/provider/SHA5.implCompress([BI)V");
             }
         }
+        if (!config.useMultiBlockSHAIntrinsics()) {
+            if (isJDK9OrHigher()) {
+                add(ignore, "sun/security/provider/DigestBase.implCompressMultiBlock0([BII)I");
+            } else {
+                add(ignore, "sun/security/provider/DigestBase.implCompressMultiBlock([BII)I");
+            }
+        }
     }
 
     private static boolean isJDK9OrHigher() {
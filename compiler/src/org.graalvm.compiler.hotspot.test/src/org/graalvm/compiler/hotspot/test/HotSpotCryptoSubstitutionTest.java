@@ -30,10 +30,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.AlgorithmParameters;
 import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -60,6 +64,9 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
     byte[] input;
     ByteArrayOutputStream aesExpected = new ByteArrayOutputStream();
     ByteArrayOutputStream desExpected = new ByteArrayOutputStream();
+    byte[] iv = new byte[16];
+    byte[] ctrExpected;
+    byte[] gcmExpected;
 
     public HotSpotCryptoSubstitutionTest() throws Exception {
         byte[] seed = {0x4, 0x7, 0x1, 0x1};
@@ -77,6 +84,10 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
 
         desExpected.write(runEncryptDecrypt(desKey, "DESede/CBC/NoPadding"));
         desExpected.write(runEncryptDecrypt(desKey, "DESede/CBC/PKCS5Padding"));
+
+        random.nextBytes(iv);
+        ctrExpected = runEncryptDecrypt(aesKey, "AES/CTR/NoPadding", new IvParameterSpec(iv));
+        gcmExpected = runEncryptDecrypt(aesKey, "AES/GCM/NoPadding", new GCMParameterSpec(128, iv));
     }
 
     @Test
@@ -104,6 +115,20 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
         }
     }
 
+    @Test
+    public void testCounterModeIntrinsics() throws Exception {
+        if (runtime().getVMConfig().useAESCTRIntrinsics() && compileAndInstall("com.sun.crypto.provider.CounterMode", "implCrypt")) {
+            Assert.assertArrayEquals(ctrExpected, runEncryptDecrypt(aesKey, "AES/CTR/NoPadding", new IvParameterSpec(iv)));
+        }
+    }
+
+    @Test
+    public void testGHASHIntrinsics() throws Exception {
+        if (runtime().getVMConfig().useGHASHIntrinsics() && compileAndInstall("com.sun.crypto.provider.GHASH", "processBlocks")) {
+            Assert.assertArrayEquals(gcmExpected, runEncryptDecrypt(aesKey, "AES/GCM/NoPadding", new GCMParameterSpec(128, iv)));
+        }
+    }
+
     /**
      * Compiles and installs the substitution for some specified methods. Once installed, the next
      * execution of the methods will use the newly installed code.
@@ -186,4 +211,34 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
         Assert.assertArrayEquals(indata, plain);
         return plain;
     }
+
+    /**
+     * Encrypts and decrypts an input whose length is not a multiple of the block size, in two
+     * chunks that are not block aligned either, and returns the cipher text.
+     */
+    public byte[] runEncryptDecrypt(SecretKey key, String algorithm, AlgorithmParameterSpec params) throws Exception {
+        byte[] indata = Arrays.copyOf(input, input.length - 3);
+        byte[] cipher = crypt(indata, key, algorithm, Cipher.ENCRYPT_MODE, params);
+        byte[] plain = crypt(cipher, key, algorithm, Cipher.DECRYPT_MODE, params);
+        Assert.assertArrayEquals(indata, plain);
+        return cipher;
+    }
+
+    private static byte[] crypt(byte[] indata, SecretKey key, String algorithm, int mode, AlgorithmParameterSpec params) throws Exception {
+        Cipher c = Cipher.getInstance(algorithm);
+        c.init(mode, key, params);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        int split = 7;
+        byte[] r1 = c.update(indata, 0, split);
+        if (r1 != null) {
+            result.write(r1);
+        }
+        byte[] r2 = c.update(indata, split, indata.length - split);
+        if (r2 != null) {
+            result.write(r2);
+        }
+        result.write(c.doFinal());
+        return result.toByteArray();
+    }
 }
@@ -34,6 +34,7 @@ import org.junit.internal.AssumptionViolatedException;
 import org.graalvm.compiler.api.test.Graal;
 import org.graalvm.compiler.hotspot.GraalHotSpotVMConfig;
 import org.graalvm.compiler.hotspot.HotSpotGraalRuntimeProvider;
+import org.graalvm.compiler.hotspot.replacements.DigestBaseSubstitutions;
 import org.graalvm.compiler.hotspot.replacements.SHA2Substitutions;
 import org.graalvm.compiler.hotspot.replacements.SHA5Substitutions;
 import org.graalvm.compiler.hotspot.replacements.SHASubstitutions;
@@ -118,4 +119,25 @@ public class TestSHASubstitutions extends HotSpotGraalCompilerTest {
         }
     }
 
+    @Test
+    public void testSha1MultiBlock() {
+        if (getConfig().useSHA1MultiBlockIntrinsics()) {
+            testWithInstalledIntrinsic("sun.security.provider.DigestBase", DigestBaseSubstitutions.implCompressMultiBlockName, "testDigest", "SHA-1", getData());
+        }
+    }
+
+    @Test
+    public void testSha256MultiBlock() {
+        if (getConfig().useSHA256MultiBlockIntrinsics()) {
+            testWithInstalledIntrinsic("sun.security.provider.DigestBase", DigestBaseSubstitutions.implCompressMultiBlockName, "testDigest", "SHA-256", getData());
+        }
+    }
+
+    @Test
+    public void testSha512MultiBlock() {
+        if (getConfig().useSHA512MultiBlockIntrinsics()) {
+            testWithInstalledIntrinsic("sun.security.provider.DigestBase", DigestBaseSubstitutions.implCompressMultiBlockName, "testDigest", "SHA-512", getData());
+        }
+    }
+
 }
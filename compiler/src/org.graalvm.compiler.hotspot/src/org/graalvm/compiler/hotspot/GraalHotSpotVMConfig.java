@@ -104,6 +104,8 @@ public class GraalHotSpotVMConfig extends GraalHotSpotVMConfigBase {
     private final boolean useMontgomerySquareIntrinsic = getFlag("UseMontgomerySquareIntrinsic", Boolean.class, false);
     private final boolean useMulAddIntrinsic = getFlag("UseMulAddIntrinsic", Boolean.class, false);
     private final boolean useSquareToLenIntrinsic = getFlag("UseSquareToLenIntrinsic", Boolean.class, false);
+    private final boolean useAESCTRIntrinsics = getFlag("UseAESCTRIntrinsics", Boolean.class, false);
+    private final boolean useGHASHIntrinsics = getFlag("UseGHASHIntrinsics", Boolean.class, false);
 
     /*
      * These are methods because in some JDKs the flags are visible but the stubs themselves haven't
@@ -125,6 +127,30 @@ public class GraalHotSpotVMConfig extends GraalHotSpotVMConfigBase {
         return useSHA512Intrinsics && sha512ImplCompress != 0;
     }
 
+    public boolean useSHA1MultiBlockIntrinsics() {
+        return useSHA1Intrinsics && sha1ImplCompressMB != 0;
+    }
+
+    public boolean useSHA256MultiBlockIntrinsics() {
+        return useSHA256Intrinsics && sha256ImplCompressMB != 0;
+    }
+
+    public boolean useSHA512MultiBlockIntrinsics() {
+        return useSHA512Intrinsics && sha512ImplCompressMB != 0;
+    }
+
+    public boolean useMultiBlockSHAIntrinsics() {
+        return useSHA1MultiBlockIntrinsics() || useSHA256MultiBlockIntrinsics() || useSHA512MultiBlockIntrinsics();
+    }
+
+    public boolean useAESCTRIntrinsics() {
+        return useAESCTRIntrinsics && counterModeAESCrypt != 0;
+    }
+
+    public boolean useGHASHIntrinsics() {
+        return useGHASHIntrinsics && ghashProcessBlocks != 0;
+    }
+
     public boolean useMontgomeryMultiplyIntrinsic() {
         return useMontgomeryMultiplyIntrinsic && montgomeryMultiply != 0;
     }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.replacements;
+
+import static org.graalvm.compiler.hotspot.GraalHotSpotVMConfig.INJECTED_VMCONFIG;
+import static org.graalvm.compiler.hotspot.GraalHotSpotVMConfigBase.INJECTED_METAACCESS;
+import static org.graalvm.compiler.hotspot.replacements.HotSpotReplacementsUtil.getArrayBaseOffset;
+import static org.graalvm.compiler.serviceprovider.GraalServices.Java8OrEarlier;
+
+import org.graalvm.compiler.api.replacements.ClassSubstitution;
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.api.replacements.Fold.InjectedParameter;
+import org.graalvm.compiler.api.replacements.MethodSubstitution;
+import org.graalvm.compiler.hotspot.GraalHotSpotVMConfig;
+import org.graalvm.compiler.hotspot.HotSpotBackend;
+import org.graalvm.compiler.hotspot.nodes.ComputeObjectAddressNode;
+import org.graalvm.compiler.nodes.extended.RawLoadNode;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.WordFactory;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code sun.security.provider.DigestBase} methods.
+ */
+@ClassSubstitution(className = "sun.security.provider.DigestBase", optional = true)
+public class DigestBaseSubstitutions {
+
+    public static final String implCompressMultiBlockName = Java8OrEarlier ? "implCompressMultiBlock" : "implCompressMultiBlock0";
+
+    @Fold
+    static boolean useSHA1MultiBlock(@InjectedParameter GraalHotSpotVMConfig config) {
+        return config.useSHA1MultiBlockIntrinsics();
+    }
+
+    @Fold
+    static boolean useSHA256MultiBlock(@InjectedParameter GraalHotSpotVMConfig config) {
+        return config.useSHA256MultiBlockIntrinsics();
+    }
+
+    @Fold
+    static boolean useSHA512MultiBlock(@InjectedParameter GraalHotSpotVMConfig config) {
+        return config.useSHA512MultiBlockIntrinsics();
+    }
+
+    @Fold
+    static Class<?> getSHAClass() {
+        return SHASubstitutions.shaClass;
+    }
+
+    @Fold
+    static Class<?> getSHA2Class() {
+        return SHA2Substitutions.shaClass;
+    }
+
+    @Fold
+    static Class<?> getSHA5Class() {
+        return SHA5Substitutions.shaClass;
+    }
+
+    /**
+     * Compresses all complete blocks of {@code buf} between {@code ofs} and {@code limit} with a
+     * single stub call when the receiver is one of the SHA digests the VM has a multi-block stub
+     * for. The stub returns the offset after the last compressed block, exactly like the Java
+     * code.
+     */
+    @MethodSubstitution(isStatic = false)
+    static int implCompressMultiBlock0(Object receiver, byte[] buf, int ofs, int limit) {
+        if (useSHA1MultiBlock(INJECTED_VMCONFIG) && getSHAClass().isInstance(receiver)) {
+            Object sha = getSHAClass().cast(receiver);
+            Object state = RawLoadNode.load(sha, SHASubstitutions.stateOffset, JavaKind.Object, LocationIdentity.any());
+            Word bufAddr = WordFactory.unsigned(ComputeObjectAddressNode.get(buf, getArrayBaseOffset(INJECTED_METAACCESS, JavaKind.Byte) + ofs));
+            Word stateAddr = WordFactory.unsigned(ComputeObjectAddressNode.get(state, getArrayBaseOffset(INJECTED_METAACCESS, JavaKind.Int)));
+            return HotSpotBackend.shaImplCompressMBStub(bufAddr, stateAddr, ofs, limit);
+        } else if (useSHA256MultiBlock(INJECTED_VMCONFIG) && getSHA2Class().isInstance(receiver)) {
+            Object sha = getSHA2Class().cast(receiver);
+            Object state = RawLoadNode.load(sha, SHA2Substitutions.stateOffset, JavaKind.Object, LocationIdentity.any());
+            Word bufAddr = WordFactory.unsigned(ComputeObjectAddressNode.get(buf, getArrayBaseOffset(INJECTED_METAACCESS, JavaKind.Byte) + ofs));
+            Word stateAddr = WordFactory.unsigned(ComputeObjectAddressNode.get(state, getArrayBaseOffset(INJECTED_METAACCESS, JavaKind.Int)));
+            return HotSpotBackend.sha2ImplCompressMBStub(bufAddr, stateAddr, ofs, limit);
+        } else if (useSHA512MultiBlock(INJECTED_VMCONFIG) && getSHA5Class().isInstance(receiver)) {
+            Object sha = getSHA5Class().cast(receiver);
+            Object state = RawLoadNode.load(sha, SHA5Substitutions.stateOffset, JavaKind.Object, LocationIdentity.any());
+            Word bufAddr = WordFactory.unsigned(ComputeObjectAddressNode.get(buf, getArrayBaseOffset(INJECTED_METAACCESS, JavaKind.Byte) + ofs));
+            Word stateAddr = WordFactory.unsigned(ComputeObjectAddressNode.get(state, getArrayBaseOffset(INJECTED_METAACCESS, JavaKind.Long)));
+            return HotSpotBackend.sha5ImplCompressMBStub(bufAddr, stateAddr, ofs, limit);
+        } else {
+            return implCompressMultiBlock0(receiver, buf, ofs, limit);
+        }
+    }
+}
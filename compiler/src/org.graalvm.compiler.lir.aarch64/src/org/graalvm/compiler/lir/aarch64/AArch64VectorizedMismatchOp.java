@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.aarch64;
+
+import static jdk.vm.ci.aarch64.AArch64.zr;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.aarch64.AArch64Address;
+import org.graalvm.compiler.asm.aarch64.AArch64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.aarch64.AArch64MacroAssembler;
+import org.graalvm.compiler.asm.aarch64.AArch64MacroAssembler.ScratchRegister;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which finds the index of the first mismatching element of two memory regions, as
+ * specified by {@code ArraysSupport.vectorizedMismatch}. The regions are given as an object (which
+ * may be {@code null} for off-heap memory) and a byte offset. The whole range is compared, so if
+ * there is no mismatch the result is always {@code -1}.
+ */
+@Opcode("VECTORIZED_MISMATCH")
+public final class AArch64VectorizedMismatchOp extends AArch64LIRInstruction {
+    public static final LIRInstructionClass<AArch64VectorizedMismatchOp> TYPE = LIRInstructionClass.create(AArch64VectorizedMismatchOp.class);
+
+    private final int log2ArrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value offset1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value offset2Value;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+
+    public AArch64VectorizedMismatchOp(LIRGeneratorTool tool, Value result, Value array1, Value offset1, Value array2, Value offset2, Value length, int log2ArrayIndexScale) {
+        super(TYPE);
+        assert 0 <= log2ArrayIndexScale && log2ArrayIndexScale <= 3 : log2ArrayIndexScale;
+        this.log2ArrayIndexScale = log2ArrayIndexScale;
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.offset1Value = offset1;
+        this.array2Value = array2;
+        this.offset2Value = offset2;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AArch64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register address1 = asRegister(temp1);
+        Register address2 = asRegister(temp2);
+        Register length = asRegister(temp3);
+        Register index = asRegister(temp4);
+        Register temp = asRegister(temp5);
+
+        Label wordMismatch = new Label();
+        Label byteMismatch = new Label();
+        Label noMismatch = new Label();
+        Label done = new Label();
+
+        try (ScratchRegister sc1 = masm.getScratchRegister()) {
+            Register rscratch1 = sc1.getRegister();
+
+            // Load the start addresses, a null object denotes an absolute address.
+            masm.add(64, address1, asRegister(array1Value), asRegister(offset1Value));
+            masm.add(64, address2, asRegister(array2Value), asRegister(offset2Value));
+
+            // Get the length in bytes.
+            masm.mov(32, length, asRegister(lengthValue));
+            if (log2ArrayIndexScale > 0) {
+                masm.shl(64, length, length, log2ArrayIndexScale);
+            }
+            masm.mov(64, index, zr);
+
+            emit8ByteCompare(crb, masm, address1, address2, length, index, temp, rscratch1, wordMismatch);
+            emitByteCompare(masm, address1, address2, length, index, temp, rscratch1, byteMismatch, noMismatch);
+
+            // The differing bits of the first mismatching 8 bytes are in temp.
+            masm.bind(wordMismatch);
+            masm.rbit(64, temp, temp);
+            masm.clz(64, temp, temp);
+            masm.add(64, index, index, temp, AArch64MacroAssembler.ShiftType.LSR, 3);
+
+            // index is the byte offset of the first mismatch, convert it to an element index.
+            masm.bind(byteMismatch);
+            if (log2ArrayIndexScale > 0) {
+                masm.lshr(64, index, index, log2ArrayIndexScale);
+            }
+            masm.mov(32, result, index);
+            masm.jmp(done);
+
+            // All elements were compared, so nothing is left for the caller.
+            masm.bind(noMismatch);
+            masm.mov(result, -1);
+
+            masm.bind(done);
+        }
+    }
+
+    /**
+     * Vector size used in {@link #emit8ByteCompare}.
+     */
+    private static final int VECTOR_SIZE = 8;
+
+    /**
+     * Emits code that uses 8-byte vector compares. On a mismatch, the code branches to
+     * {@code wordMismatch} with the xor of the two words in {@code temp}.
+     */
+    private static void emit8ByteCompare(CompilationResultBuilder crb, AArch64MacroAssembler masm, Register address1, Register address2, Register length, Register index, Register temp,
+                    Register rscratch1, Label wordMismatch) {
+        Label loop = new Label();
+        Label loopEnd = new Label();
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.add(64, temp, index, VECTOR_SIZE);
+        masm.cmp(64, temp, length);
+        masm.branchConditionally(ConditionFlag.GT, loopEnd);
+        masm.ldr(64, temp, AArch64Address.createRegisterOffsetAddress(address1, index, false));
+        masm.ldr(64, rscratch1, AArch64Address.createRegisterOffsetAddress(address2, index, false));
+        masm.eor(64, temp, temp, rscratch1);
+        masm.cbnz(64, temp, wordMismatch);
+        masm.add(64, index, index, VECTOR_SIZE);
+        masm.jmp(loop);
+
+        masm.bind(loopEnd);
+    }
+
+    /**
+     * Emits code to compare the remaining 1 to 7 bytes.
+     */
+    private static void emitByteCompare(AArch64MacroAssembler masm, Register address1, Register address2, Register length, Register index, Register temp, Register rscratch1,
+                    Label byteMismatch, Label noMismatch) {
+        Label loop = new Label();
+
+        masm.bind(loop);
+        masm.cmp(64, index, length);
+        masm.branchConditionally(ConditionFlag.GE, noMismatch);
+        masm.ldr(8, temp, AArch64Address.createRegisterOffsetAddress(address1, index, false));
+        masm.ldr(8, rscratch1, AArch64Address.createRegisterOffsetAddress(address2, index, false));
+        masm.cmp(32, temp, rscratch1);
+        masm.branchConditionally(ConditionFlag.NE, byteMismatch);
+        masm.add(64, index, index, 1);
+        masm.jmp(loop);
+    }
+}
@@ -54,5 +54,11 @@ public interface AMD64ArithmeticLIRGeneratorTool extends ArithmeticLIRGeneratorT
 
     Value emitRound(Value value, RoundingMode mode);
 
+    /**
+     * Emits {@code a * b + c} with a single rounding, as specified by {@code Math.fma}. Requires
+     * {@link jdk.vm.ci.amd64.AMD64.CPUFeature#FMA}.
+     */
+    Value emitFusedMultiplyAdd(Value a, Value b, Value c);
+
     void emitCompareOp(AMD64Kind cmpKind, Variable left, Value right);
 }
@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static jdk.vm.ci.code.ValueUtil.isIllegal;
+import static org.graalvm.compiler.asm.amd64.AVXKind.AVXSize.XMM;
+import static org.graalvm.compiler.asm.amd64.AVXKind.AVXSize.YMM;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.AMD64RMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.SSEOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64BaseAssembler.OperandSize;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.ArrayElementwiseOperation;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which applies an {@link ArrayElementwiseOperation} to the elements
+ * {@code [start, end)} of one or two source operands and stores the results into a destination
+ * array. An operand that is not an array is applied to every element. If the CPU supports AVX2,
+ * the bulk of the elements is processed with unaligned 32-byte vectors, and a scalar loop handles
+ * the remaining elements.
+ */
+@Opcode("ARRAY_ELEMENTWISE")
+public final class AMD64ArrayElementwiseOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayElementwiseOp> TYPE = LIRInstructionClass.create(AMD64ArrayElementwiseOp.class);
+
+    /**
+     * Vector size used in {@link #emitVectorLoop}.
+     */
+    private static final int AVX_VECTOR_SIZE = 32;
+
+    private final JavaKind kind;
+    private final ArrayElementwiseOperation operation;
+    private final boolean xIsArray;
+    private final boolean yIsArray;
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Alive({REG}) protected Value dstValue;
+    @Alive({REG}) protected Value xValue;
+    @Alive({REG, ILLEGAL}) protected Value yValue;
+    @Alive({REG}) protected Value startValue;
+    @Alive({REG}) protected Value endValue;
+
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value limitTemp;
+    @Temp({REG}) protected Value elementTemp;
+
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp1;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp2;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp3;
+
+    public AMD64ArrayElementwiseOp(LIRGeneratorTool tool, JavaKind kind, ArrayElementwiseOperation operation, Value dst, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start,
+                    Value end) {
+        super(TYPE);
+        assert kind == JavaKind.Int || kind == JavaKind.Long || kind == JavaKind.Float || kind == JavaKind.Double : kind;
+        assert (operation == ArrayElementwiseOperation.COPY) == isIllegal(y);
+        this.kind = kind;
+        this.operation = operation;
+        this.xIsArray = xIsArray;
+        this.yIsArray = yIsArray;
+
+        this.arrayBaseOffset = tool.getProviders().getArrayOffsetProvider().arrayBaseOffset(kind);
+        this.arrayIndexScale = Scale.fromInt(tool.getProviders().getArrayOffsetProvider().arrayScalingFactor(kind));
+
+        this.dstValue = dst;
+        this.xValue = x;
+        this.yValue = y;
+        this.startValue = start;
+        this.endValue = end;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.limitTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.elementTemp = tool.newVariable(LIRKind.value(scalarKind(kind)));
+
+        // We only need the vector temporaries if we generate AVX2 code.
+        if (supportsAVX2(tool.target()) && (operation == ArrayElementwiseOperation.COPY || vectorOpcode(kind, operation) != null)) {
+            AMD64Kind vectorKind = vectorKind(kind);
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(vectorKind));
+            this.vectorTemp2 = operation != ArrayElementwiseOperation.COPY && !yIsArray ? tool.newVariable(LIRKind.value(vectorKind)) : Value.ILLEGAL;
+            this.vectorTemp3 = operation != ArrayElementwiseOperation.COPY ? tool.newVariable(LIRKind.value(vectorKind)) : Value.ILLEGAL;
+        } else {
+            this.vectorTemp1 = Value.ILLEGAL;
+            this.vectorTemp2 = Value.ILLEGAL;
+            this.vectorTemp3 = Value.ILLEGAL;
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register index = asRegister(indexTemp);
+        Register limit = asRegister(limitTemp);
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        // The caller guarantees 0 <= start, so the index can be used as a 64-bit value.
+        masm.movslq(index, asRegister(startValue));
+
+        if (!isIllegal(vectorTemp1)) {
+            emitVectorLoop(crb, masm, index, limit);
+        }
+
+        // Process the remaining elements one at a time.
+        masm.movslq(limit, asRegister(endValue));
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.GreaterEqual, done);
+
+        masm.bind(loop);
+        emitScalarElement(masm, index);
+        masm.addq(index, 1);
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.Less, loop);
+
+        masm.bind(done);
+    }
+
+    private void emitVectorLoop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register index, Register limit) {
+        assert supportsAVX2(crb.target);
+
+        int lanes = AVX_VECTOR_SIZE / kind.getByteCount();
+        VexMoveOp move = vectorMove(kind);
+        Register vectorX = asRegister(vectorTemp1);
+        Register vectorY = isIllegal(vectorTemp2) ? null : asRegister(vectorTemp2);
+        Register vectorResult = operation == ArrayElementwiseOperation.COPY ? vectorX : asRegister(vectorTemp3);
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        // Loop-invariant operands are broadcast into all lanes once.
+        if (!xIsArray) {
+            emitBroadcast(masm, vectorX, asRegister(xValue));
+        }
+        if (vectorY != null) {
+            emitBroadcast(masm, vectorY, asRegister(yValue));
+        }
+
+        // The last index at which a whole vector still fits.
+        masm.movslq(limit, asRegister(endValue));
+        masm.subq(limit, lanes);
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.Greater, done);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        if (xIsArray) {
+            move.emit(masm, YMM, vectorX, elementAddress(xValue, index));
+        }
+        if (operation != ArrayElementwiseOperation.COPY) {
+            VexRVMOp opcode = vectorOpcode(kind, operation);
+            if (yIsArray) {
+                opcode.emit(masm, YMM, vectorResult, vectorX, elementAddress(yValue, index));
+            } else {
+                opcode.emit(masm, YMM, vectorResult, vectorX, vectorY);
+            }
+        }
+        move.emit(masm, YMM, elementAddress(dstValue, index), vectorResult);
+        masm.addq(index, lanes);
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.LessEqual, loop);
+
+        masm.bind(done);
+    }
+
+    private void emitBroadcast(AMD64MacroAssembler masm, Register vector, Register value) {
+        switch (kind) {
+            case Int:
+                VexMoveOp.VMOVD.emit(masm, XMM, vector, value);
+                VexRMOp.VPBROADCASTD.emit(masm, YMM, vector, vector);
+                break;
+            case Long:
+                VexMoveOp.VMOVQ.emit(masm, XMM, vector, value);
+                VexRMOp.VPBROADCASTQ.emit(masm, YMM, vector, vector);
+                break;
+            case Float:
+                VexRMOp.VBROADCASTSS.emit(masm, YMM, vector, value);
+                break;
+            case Double:
+                VexRMOp.VBROADCASTSD.emit(masm, YMM, vector, value);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private void emitScalarElement(AMD64MacroAssembler masm, Register index) {
+        Register element = asRegister(elementTemp);
+        AMD64Address dstAddress = elementAddress(dstValue, index);
+        if (kind.isNumericFloat()) {
+            boolean isFloat = kind == JavaKind.Float;
+            if (xIsArray) {
+                AMD64Address xAddress = elementAddress(xValue, index);
+                if (isFloat) {
+                    masm.movflt(element, xAddress);
+                } else {
+                    masm.movdbl(element, xAddress);
+                }
+            } else if (isFloat) {
+                masm.movflt(element, asRegister(xValue));
+            } else {
+                masm.movdbl(element, asRegister(xValue));
+            }
+            if (operation != ArrayElementwiseOperation.COPY) {
+                OperandSize size = isFloat ? OperandSize.SS : OperandSize.SD;
+                SSEOp opcode = scalarFloatOpcode(operation);
+                if (yIsArray) {
+                    opcode.emit(masm, size, element, elementAddress(yValue, index));
+                } else {
+                    opcode.emit(masm, size, element, asRegister(yValue));
+                }
+            }
+            if (isFloat) {
+                masm.movflt(dstAddress, element);
+            } else {
+                masm.movdbl(dstAddress, element);
+            }
+        } else {
+            boolean isLong = kind == JavaKind.Long;
+            if (xIsArray) {
+                AMD64Address xAddress = elementAddress(xValue, index);
+                if (isLong) {
+                    masm.movq(element, xAddress);
+                } else {
+                    masm.movl(element, xAddress);
+                }
+            } else if (isLong) {
+                masm.movq(element, asRegister(xValue));
+            } else {
+                masm.movl(element, asRegister(xValue));
+            }
+            if (operation != ArrayElementwiseOperation.COPY) {
+                OperandSize size = isLong ? OperandSize.QWORD : OperandSize.DWORD;
+                AMD64RMOp opcode = scalarIntegerOpcode(operation, size);
+                if (yIsArray) {
+                    opcode.emit(masm, size, element, elementAddress(yValue, index));
+                } else {
+                    opcode.emit(masm, size, element, asRegister(yValue));
+                }
+            }
+            if (isLong) {
+                masm.movq(dstAddress, element);
+            } else {
+                masm.movl(dstAddress, element);
+            }
+        }
+    }
+
+    private AMD64Address elementAddress(Value array, Register index) {
+        return new AMD64Address(asRegister(array), index, arrayIndexScale, arrayBaseOffset);
+    }
+
+    private static AMD64Kind scalarKind(JavaKind kind) {
+        switch (kind) {
+            case Int:
+                return AMD64Kind.DWORD;
+            case Long:
+                return AMD64Kind.QWORD;
+            case Float:
+                return AMD64Kind.SINGLE;
+            case Double:
+                return AMD64Kind.DOUBLE;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static AMD64Kind vectorKind(JavaKind kind) {
+        switch (kind) {
+            case Int:
+                return AMD64Kind.V256_DWORD;
+            case Long:
+                return AMD64Kind.V256_QWORD;
+            case Float:
+                return AMD64Kind.V256_SINGLE;
+            case Double:
+                return AMD64Kind.V256_DOUBLE;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static VexMoveOp vectorMove(JavaKind kind) {
+        switch (kind) {
+            case Float:
+                return VexMoveOp.VMOVUPS;
+            case Double:
+                return VexMoveOp.VMOVUPD;
+            default:
+                return VexMoveOp.VMOVDQU;
+        }
+    }
+
+    /**
+     * Returns the AVX2 instruction for {@code operation} on elements of {@code kind}, or null if
+     * there is none (e.g., a 64-bit integer multiplication). Such operations are only emitted as a
+     * scalar loop.
+     */
+    private static VexRVMOp vectorOpcode(JavaKind kind, ArrayElementwiseOperation operation) {
+        switch (kind) {
+            case Int:
+                switch (operation) {
+                    case ADD:
+                        return VexRVMOp.VPADDD;
+                    case SUB:
+                        return VexRVMOp.VPSUBD;
+                    case MUL:
+                        return VexRVMOp.VPMULLD;
+                    case AND:
+                        return VexRVMOp.VPAND;
+                    case OR:
+                        return VexRVMOp.VPOR;
+                    case XOR:
+                        return VexRVMOp.VPXOR;
+                    default:
+                        return null;
+                }
+            case Long:
+                switch (operation) {
+                    case ADD:
+                        return VexRVMOp.VPADDQ;
+                    case SUB:
+                        return VexRVMOp.VPSUBQ;
+                    case AND:
+                        return VexRVMOp.VPAND;
+                    case OR:
+                        return VexRVMOp.VPOR;
+                    case XOR:
+                        return VexRVMOp.VPXOR;
+                    default:
+                        return null;
+                }
+            case Float:
+                switch (operation) {
+                    case ADD:
+                        return VexRVMOp.VADDPS;
+                    case SUB:
+                        return VexRVMOp.VSUBPS;
+                    case MUL:
+                        return VexRVMOp.VMULPS;
+                    default:
+                        return null;
+                }
+            case Double:
+                switch (operation) {
+                    case ADD:
+                        return VexRVMOp.VADDPD;
+                    case SUB:
+                        return VexRVMOp.VSUBPD;
+                    case MUL:
+                        return VexRVMOp.VMULPD;
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private static SSEOp scalarFloatOpcode(ArrayElementwiseOperation operation) {
+        switch (operation) {
+            case ADD:
+                return SSEOp.ADD;
+            case SUB:
+                return SSEOp.SUB;
+            case MUL:
+                return SSEOp.MUL;
+            default:
+                throw GraalError.shouldNotReachHere(operation.toString());
+        }
+    }
+
+    private static AMD64RMOp scalarIntegerOpcode(ArrayElementwiseOperation operation, OperandSize size) {
+        switch (operation) {
+            case ADD:
+                return AMD64BinaryArithmetic.ADD.getRMOpcode(size);
+            case SUB:
+                return AMD64BinaryArithmetic.SUB.getRMOpcode(size);
+            case MUL:
+                return AMD64RMOp.IMUL;
+            case AND:
+                return AMD64BinaryArithmetic.AND.getRMOpcode(size);
+            case OR:
+                return AMD64BinaryArithmetic.OR.getRMOpcode(size);
+            case XOR:
+                return AMD64BinaryArithmetic.XOR.getRMOpcode(size);
+            default:
+                throw GraalError.shouldNotReachHere(operation.toString());
+        }
+    }
+
+    /**
+     * Returns if the underlying AMD64 architecture supports AVX2 instructions.
+     *
+     * @param target target description of the underlying architecture
+     * @return true if the underlying architecture supports AVX2
+     */
+    private static boolean supportsAVX2(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.AVX2);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which encodes the chars of a {@code char[]} range to ISO-8859-1 bytes in a
+ * {@code byte[]}, as specified by {@code sun.nio.cs.ISO_8859_1$Encoder.encodeISOArray}. Encoding
+ * stops at the first char that is not representable in ISO-8859-1, and the result is the number
+ * of chars encoded. If the CPU supports SSE 4.1, 16 chars are checked and compressed at a time.
+ */
+@Opcode("ENCODE_ISO_ARRAY")
+public final class AMD64EncodeISOArrayOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64EncodeISOArrayOp> TYPE = LIRInstructionClass.create(AMD64EncodeISOArrayOp.class);
+
+    private final int charArrayBaseOffset;
+    private final int byteArrayBaseOffset;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value srcValue;
+    @Alive({REG}) protected Value srcIndexValue;
+    @Alive({REG}) protected Value dstValue;
+    @Alive({REG}) protected Value dstIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp1;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp2;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp3;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp4;
+
+    public AMD64EncodeISOArrayOp(LIRGeneratorTool tool, Value result, Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        super(TYPE);
+        this.charArrayBaseOffset = tool.getProviders().getArrayOffsetProvider().arrayBaseOffset(JavaKind.Char);
+        this.byteArrayBaseOffset = tool.getProviders().getArrayOffsetProvider().arrayBaseOffset(JavaKind.Byte);
+
+        this.resultValue = result;
+        this.srcValue = src;
+        this.srcIndexValue = srcIndex;
+        this.dstValue = dst;
+        this.dstIndexValue = dstIndex;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+
+        // We only need the vector temporaries if we generate SSE code.
+        if (supportsSSE41(tool.target())) {
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp3 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp4 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        } else {
+            this.vectorTemp1 = Value.ILLEGAL;
+            this.vectorTemp2 = Value.ILLEGAL;
+            this.vectorTemp3 = Value.ILLEGAL;
+            this.vectorTemp4 = Value.ILLEGAL;
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register src = asRegister(temp1);
+        Register dst = asRegister(temp2);
+        Register length = asRegister(temp3);
+        Register index = asRegister(temp4);
+        Register temp = asRegister(temp5);
+
+        Label done = new Label();
+
+        // Load the start addresses. The indexes are ints, so zero-extend them first.
+        masm.movl(temp, asRegister(srcIndexValue));
+        masm.leaq(src, new AMD64Address(asRegister(srcValue), temp, Scale.Times2, charArrayBaseOffset));
+        masm.movl(temp, asRegister(dstIndexValue));
+        masm.leaq(dst, new AMD64Address(asRegister(dstValue), temp, Scale.Times1, byteArrayBaseOffset));
+
+        masm.movl(length, asRegister(lengthValue));
+        masm.xorl(index, index);
+
+        if (supportsSSE41(crb.target)) {
+            emitVectorEncode(crb, masm, src, dst, length, index, temp);
+        }
+
+        // Encode the remaining chars one by one.
+        Label loop = new Label();
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.cmpq(index, length);
+        masm.jccb(ConditionFlag.GreaterEqual, done);
+        masm.movzwl(temp, new AMD64Address(src, index, Scale.Times2, 0));
+        masm.cmpl(temp, 0xFF);
+        masm.jccb(ConditionFlag.Above, done);
+        masm.movb(new AMD64Address(dst, index, Scale.Times1, 0), temp);
+        masm.incq(index);
+        masm.jmpb(loop);
+
+        masm.bind(done);
+        masm.movl(asRegister(resultValue), index);
+    }
+
+    /**
+     * Returns if the underlying AMD64 architecture supports SSE 4.1 instructions.
+     *
+     * @param target target description of the underlying architecture
+     * @return true if the underlying architecture supports SSE 4.1
+     */
+    private static boolean supportsSSE41(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.SSE4_1);
+    }
+
+    /**
+     * Number of chars encoded per iteration in {@link #emitVectorEncode}.
+     */
+    private static final int VECTOR_CHARS = 16;
+
+    /**
+     * Emits code that encodes blocks of {@link #VECTOR_CHARS} chars. The code stops at the first
+     * block that contains a char above {@code 0xFF}, which is then handled by the scalar loop.
+     */
+    private void emitVectorEncode(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register src, Register dst, Register length, Register index, Register temp) {
+        Register mask = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector1 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp3, AMD64Kind.DOUBLE);
+        Register vector3 = asRegister(vectorTemp4, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label loopEnd = new Label();
+
+        // The high byte of every char must be zero.
+        masm.movl(temp, 0xFF00FF00);
+        masm.movdl(mask, temp);
+        masm.pshufd(mask, mask, 0);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.leaq(temp, new AMD64Address(index, VECTOR_CHARS));
+        masm.cmpq(temp, length);
+        masm.jcc(ConditionFlag.Greater, loopEnd);
+        // Each register holds 8 chars.
+        masm.movdqu(vector1, new AMD64Address(src, index, Scale.Times2, 0));
+        masm.movdqu(vector2, new AMD64Address(src, index, Scale.Times2, 16));
+        masm.movdqu(vector3, vector1);
+        masm.por(vector3, vector2);
+        masm.ptest(vector3, mask);
+        masm.jcc(ConditionFlag.NotZero, loopEnd);
+        // All chars fit in a byte, so the saturating pack is exact.
+        masm.packuswb(vector1, vector2);
+        masm.movdqu(new AMD64Address(dst, index, Scale.Times1, 0), vector1);
+        masm.movq(index, temp);
+        masm.jmp(loop);
+
+        masm.bind(loopEnd);
+    }
+}
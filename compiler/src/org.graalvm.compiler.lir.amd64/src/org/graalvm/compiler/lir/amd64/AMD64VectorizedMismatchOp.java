@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64BaseAssembler.OperandSize;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which finds the index of the first mismatching element of two memory regions, as
+ * specified by {@code ArraysSupport.vectorizedMismatch}. The regions are given as an object (which
+ * may be {@code null} for off-heap memory) and a byte offset. Unlike the Java implementation, the
+ * whole range is compared, so if there is no mismatch the result is always {@code -1}, i.e., no
+ * elements are left for the caller to check. If the CPU supports any vector instructions
+ * specialized code is emitted to leverage these instructions.
+ */
+@Opcode("VECTORIZED_MISMATCH")
+public final class AMD64VectorizedMismatchOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64VectorizedMismatchOp> TYPE = LIRInstructionClass.create(AMD64VectorizedMismatchOp.class);
+
+    private final int log2ArrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value offset1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value offset2Value;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp1;
+    @Temp({REG, ILLEGAL}) protected Value vectorTemp2;
+
+    public AMD64VectorizedMismatchOp(LIRGeneratorTool tool, Value result, Value array1, Value offset1, Value array2, Value offset2, Value length, int log2ArrayIndexScale) {
+        super(TYPE);
+        assert 0 <= log2ArrayIndexScale && log2ArrayIndexScale <= 3 : log2ArrayIndexScale;
+        this.log2ArrayIndexScale = log2ArrayIndexScale;
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.offset1Value = offset1;
+        this.array2Value = array2;
+        this.offset2Value = offset2;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+
+        // We only need the vector temporaries if we generate SSE code.
+        if (supportsSSE41(tool.target())) {
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        } else {
+            this.vectorTemp1 = Value.ILLEGAL;
+            this.vectorTemp2 = Value.ILLEGAL;
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register address1 = asRegister(temp1);
+        Register address2 = asRegister(temp2);
+        Register length = asRegister(temp3);
+        Register index = asRegister(temp4);
+        Register temp = asRegister(temp5);
+
+        Label wordMismatch = new Label();
+        Label byteMismatch = new Label();
+        Label noMismatch = new Label();
+        Label done = new Label();
+
+        // Load the start addresses, a null object denotes an absolute address.
+        masm.leaq(address1, new AMD64Address(asRegister(array1Value), asRegister(offset1Value), Scale.Times1, 0));
+        masm.leaq(address2, new AMD64Address(asRegister(array2Value), asRegister(offset2Value), Scale.Times1, 0));
+
+        // Get the length in bytes.
+        masm.movl(length, asRegister(lengthValue));
+        if (log2ArrayIndexScale > 0) {
+            masm.shlq(length, log2ArrayIndexScale);
+        }
+        masm.xorl(index, index);
+
+        if (supportsAVX2(crb.target)) {
+            emitVectorCompare(crb, masm, address1, address2, length, index, temp, AVX_VECTOR_SIZE);
+        } else if (supportsSSE41(crb.target)) {
+            // this code is used for AVX as well because our backend correctly ensures that
+            // VEX-prefixed instructions are emitted if AVX is supported
+            emitVectorCompare(crb, masm, address1, address2, length, index, temp, SSE4_1_VECTOR_SIZE);
+        }
+
+        emit8ByteCompare(crb, masm, address1, address2, length, index, temp, wordMismatch);
+        emitByteCompare(masm, result, address1, address2, length, index, temp, byteMismatch, noMismatch);
+
+        // The differing bits of the first mismatching 8 bytes are in temp.
+        masm.bind(wordMismatch);
+        masm.bsfq(temp, temp);
+        masm.shrq(temp, 3);
+        masm.addq(index, temp);
+
+        // index is the byte offset of the first mismatch, convert it to an element index.
+        masm.bind(byteMismatch);
+        if (log2ArrayIndexScale > 0) {
+            masm.shrq(index, log2ArrayIndexScale);
+        }
+        masm.movl(result, index);
+        masm.jmpb(done);
+
+        // All elements were compared, so nothing is left for the caller.
+        masm.bind(noMismatch);
+        masm.movl(result, -1);
+
+        masm.bind(done);
+    }
+
+    /**
+     * Returns if the underlying AMD64 architecture supports SSE 4.1 instructions.
+     *
+     * @param target target description of the underlying architecture
+     * @return true if the underlying architecture supports SSE 4.1
+     */
+    private static boolean supportsSSE41(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.SSE4_1);
+    }
+
+    /**
+     * Returns if the underlying AMD64 architecture supports AVX instructions.
+     *
+     * @param target target description of the underlying architecture
+     * @return true if the underlying architecture supports AVX
+     */
+    private static boolean supportsAVX2(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    /**
+     * Vector size used in {@link #emitVectorCompare} if SSE 4.1 is supported.
+     */
+    private static final int SSE4_1_VECTOR_SIZE = 16;
+
+    /**
+     * Vector size used in {@link #emitVectorCompare} if AVX2 is supported.
+     */
+    private static final int AVX_VECTOR_SIZE = 32;
+
+    /**
+     * Emits code that skips equal vectors of {@code vectorSize} bytes. The code stops at the first
+     * vector that contains a mismatch, which is then located by {@link #emit8ByteCompare}.
+     */
+    private void emitVectorCompare(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register address1, Register address2, Register length, Register index, Register temp,
+                    int vectorSize) {
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label loopEnd = new Label();
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.leaq(temp, new AMD64Address(index, vectorSize));
+        masm.cmpq(temp, length);
+        masm.jcc(ConditionFlag.Greater, loopEnd);
+        if (vectorSize == AVX_VECTOR_SIZE) {
+            masm.vmovdqu(vector1, new AMD64Address(address1, index, Scale.Times1, 0));
+            masm.vmovdqu(vector2, new AMD64Address(address2, index, Scale.Times1, 0));
+            masm.vpxor(vector1, vector1, vector2);
+            masm.vptest(vector1, vector1);
+        } else {
+            masm.movdqu(vector1, new AMD64Address(address1, index, Scale.Times1, 0));
+            masm.movdqu(vector2, new AMD64Address(address2, index, Scale.Times1, 0));
+            masm.pxor(vector1, vector2);
+            masm.ptest(vector1, vector1);
+        }
+        masm.jcc(ConditionFlag.NotZero, loopEnd);
+        masm.movq(index, temp);
+        masm.jmp(loop);
+
+        masm.bind(loopEnd);
+    }
+
+    /**
+     * Vector size used in {@link #emit8ByteCompare}.
+     */
+    private static final int VECTOR_SIZE = 8;
+
+    /**
+     * Emits code that uses 8-byte vector compares. On a mismatch, the code jumps to
+     * {@code wordMismatch} with the xor of the two words in {@code temp}.
+     */
+    private static void emit8ByteCompare(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register address1, Register address2, Register length, Register index, Register temp,
+                    Label wordMismatch) {
+        Label loop = new Label();
+        Label loopEnd = new Label();
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.leaq(temp, new AMD64Address(index, VECTOR_SIZE));
+        masm.cmpq(temp, length);
+        masm.jccb(ConditionFlag.Greater, loopEnd);
+        masm.movq(temp, new AMD64Address(address1, index, Scale.Times1, 0));
+        AMD64BinaryArithmetic.XOR.getRMOpcode(OperandSize.QWORD).emit(masm, OperandSize.QWORD, temp, new AMD64Address(address2, index, Scale.Times1, 0));
+        masm.jcc(ConditionFlag.NotZero, wordMismatch);
+        masm.addq(index, VECTOR_SIZE);
+        masm.jmpb(loop);
+
+        masm.bind(loopEnd);
+    }
+
+    /**
+     * Emits code to compare the remaining 1 to 7 bytes. The result register is not yet live, so
+     * it is used as a second temporary.
+     */
+    private static void emitByteCompare(AMD64MacroAssembler masm, Register result, Register address1, Register address2, Register length, Register index, Register temp, Label byteMismatch, Label noMismatch) {
+        Label loop = new Label();
+
+        masm.bind(loop);
+        masm.cmpq(index, length);
+        masm.jcc(ConditionFlag.GreaterEqual, noMismatch);
+        masm.movzbl(temp, new AMD64Address(address1, index, Scale.Times1, 0));
+        masm.movzbl(result, new AMD64Address(address2, index, Scale.Times1, 0));
+        masm.cmpl(temp, result);
+        masm.jcc(ConditionFlag.NotEqual, byteMismatch);
+        masm.incq(index);
+        masm.jmpb(loop);
+    }
+}
@@ -42,11 +42,14 @@ import org.graalvm.compiler.code.CompilationResult;
 import org.graalvm.compiler.code.CompilationResult.CodeAnnotation;
 import org.graalvm.compiler.code.DataSection.Data;
 import org.graalvm.compiler.code.DataSection.RawData;
+import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.core.common.NumUtil;
+import org.graalvm.compiler.core.common.alloc.ComputeBlockOrder;
 import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
 import org.graalvm.compiler.core.common.spi.ForeignCallsProvider;
 import org.graalvm.compiler.core.common.type.DataPointerConstant;
 import org.graalvm.compiler.debug.Assertions;
+import org.graalvm.compiler.debug.CounterKey;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.debug.GraalError;
 import org.graalvm.compiler.graph.NodeSourcePosition;
@@ -490,20 +493,37 @@ public class CompilationResultBuilder {
         return nextBlock == edge.getTargetBlock();
     }
 
+    private static final CounterKey HOT_CODE_BYTES = DebugContext.counter("HotCodeBytes");
+    private static final CounterKey COLD_CODE_BYTES = DebugContext.counter("ColdCodeBytes");
+
     /**
      * Emits code for {@code lir} in its {@linkplain LIR#codeEmittingOrder() code emitting order}.
+     * The code before the first {@linkplain ComputeBlockOrder#isColdBlock cold block} is reported
+     * as hot code.
      */
     public void emit(@SuppressWarnings("hiding") LIR lir) {
         assert this.lir == null;
         assert currentBlockIndex == 0;
         this.lir = lir;
         this.currentBlockIndex = 0;
+        double coldBlockFrequency = GraalOptions.ColdBlockFrequency.getValue(getOptions());
+        int hotCodeSize = -1;
         frameContext.enter(this);
         for (AbstractBlockBase<?> b : lir.codeEmittingOrder()) {
             assert (b == null && lir.codeEmittingOrder()[currentBlockIndex] == null) || lir.codeEmittingOrder()[currentBlockIndex].equals(b);
+            if (hotCodeSize < 0 && b != null && ComputeBlockOrder.isColdBlock(b, coldBlockFrequency)) {
+                hotCodeSize = asm.position();
+            }
             emitBlock(b);
             currentBlockIndex++;
         }
+        int codeSize = asm.position();
+        if (hotCodeSize < 0) {
+            hotCodeSize = codeSize;
+        }
+        HOT_CODE_BYTES.add(debug, hotCodeSize);
+        COLD_CODE_BYTES.add(debug, codeSize - hotCodeSize);
+        debug.log("%s: %d bytes of hot code, %d bytes of cold code", compilationResult.getName(), hotCodeSize, codeSize - hotCodeSize);
         this.lir = null;
         this.currentBlockIndex = 0;
     }
@@ -263,6 +263,16 @@ public interface LIRGeneratorTool extends DiagnosticLIRGeneratorTool, ValueKindF
 
     Variable emitArrayEquals(JavaKind kind, Value array1, Value array2, Value length);
 
+    @SuppressWarnings("unused")
+    default Variable emitVectorizedMismatch(Value array1, Value offset1, Value array2, Value offset2, Value length, int log2ArrayIndexScale) {
+        throw GraalError.unimplemented("ArraysSupport.vectorizedMismatch substitution is not implemented on this architecture");
+    }
+
+    @SuppressWarnings("unused")
+    default Variable emitEncodeISOArray(Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        throw GraalError.unimplemented("ISO_8859_1$Encoder.encodeISOArray substitution is not implemented on this architecture");
+    }
+
     @SuppressWarnings("unused")
     default Variable emitStringIndexOf(Value sourcePointer, Value sourceCount, Value targetPointer, Value targetCount, int constantTargetCount) {
         throw GraalError.unimplemented("String.indexOf substitution is not implemented on this architecture");
@@ -273,6 +283,20 @@ public interface LIRGeneratorTool extends DiagnosticLIRGeneratorTool, ValueKindF
         throw GraalError.unimplemented("String.indexOf substitution is not implemented on this architecture");
     }
 
+    /**
+     * Emits code that computes {@code dst[i] = x[i] op y[i]} for all {@code i} in
+     * {@code [start, end)}. An operand that is not an array is used as the same value for every
+     * element. The caller guarantees that the arrays are non-null and that the range is within
+     * their bounds.
+     *
+     * @param y the second operand, or {@link Value#ILLEGAL} for
+     *            {@link ArrayElementwiseOperation#COPY}
+     */
+    @SuppressWarnings("unused")
+    default void emitArrayElementwiseOp(JavaKind kind, ArrayElementwiseOperation operation, Value dst, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start, Value end) {
+        throw GraalError.unimplemented("Vectorized array loops are not implemented on this architecture");
+    }
+
     void emitBlackhole(Value operand);
 
     LIRKind getLIRKind(Stamp stamp);
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import static org.graalvm.compiler.nodes.calc.BinaryArithmeticNode.add;
+import static org.graalvm.compiler.nodes.calc.BinaryArithmeticNode.sub;
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.NOT_FREQUENT_PROBABILITY;
+
+import org.graalvm.compiler.core.common.cfg.AbstractControlFlowGraph;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.loop.CountedLoopInfo;
+import org.graalvm.compiler.loop.InductionVariable.Direction;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.GuardNode;
+import org.graalvm.compiler.nodes.LogicNegationNode;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ShortCircuitOrNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.IntegerBelowNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.SignExtendNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.cfg.Block;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.phases.Phase;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.Speculation;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
+
+/**
+ * Replaces the array bounds checks inside counted loops by a single predicate before the loop.
+ * A bounds check {@code index |<| length} qualifies if {@code length} is loop-invariant and
+ * {@code index} is the loop counter, optionally plus or minus a loop-invariant offset. Since the
+ * counter only takes values between its initial value and the limit, it suffices to check both
+ * ends of that range. The ends are computed in 64 bits so that the predicate also covers an offset
+ * computation that would overflow.
+ *
+ * The predicate also fails in cases where the original loop would not have failed, e.g., if the
+ * loop is left early or the check is on a path that is not taken. Therefore it is a speculation:
+ * if it fails, the method is recompiled with the bounds checks of that loop left in place.
+ */
+public class LoopPredicationPhase extends Phase {
+
+    private static final CounterKey PREDICATED_CHECKS = DebugContext.counter("LoopPredication_PredicatedBoundsChecks");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (!graph.hasLoops() || speculationLog == null || !graph.getGuardsStage().allowsFloatingGuards()) {
+            return;
+        }
+        DebugContext debug = graph.getDebug();
+        LoopsData dataCounted = new LoopsData(graph);
+        dataCounted.detectedCountedLoops();
+        for (LoopEx loop : dataCounted.countedLoops()) {
+            FrameState loopState = loop.loopBegin().stateAfter();
+            if (loopState == null || loopState.getMethod() == null) {
+                continue;
+            }
+            SpeculationReason reason = new LoopPredicationSpeculationReason(loopState.getMethod(), loopState.bci);
+            if (!speculationLog.maySpeculate(reason)) {
+                continue;
+            }
+            LoopPredicate predicate = null;
+            for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class).snapshot()) {
+                if (!guard.isAlive()) {
+                    continue;
+                }
+                ValueNode[] indexRange = predicableIndexRange(dataCounted.getCFG(), loop, guard);
+                if (indexRange == null) {
+                    continue;
+                }
+                if (predicate == null) {
+                    predicate = new LoopPredicate(loop, speculationLog.speculate(reason));
+                }
+                IntegerBelowNode check = (IntegerBelowNode) guard.getCondition();
+                GuardNode replacement = predicate.createGuard(indexRange[0], indexRange[1], check.getY());
+                debug.log("Predicated %s in %s", guard, loop);
+                guard.replaceAtUsages(replacement);
+                GraphUtil.killWithUnusedFloatingInputs(guard);
+                PREDICATED_CHECKS.increment(debug);
+            }
+            if (predicate != null) {
+                debug.dump(DebugContext.DETAILED_LEVEL, graph, "LoopPredication %s", loop);
+            }
+        }
+        dataCounted.deleteUnusedNodes();
+    }
+
+    /**
+     * Returns the lowest and highest value of the index of a bounds check as 64-bit nodes, or
+     * null if {@code guard} cannot be predicated.
+     */
+    private static ValueNode[] predicableIndexRange(ControlFlowGraph cfg, LoopEx loop, GuardNode guard) {
+        if (guard.getReason() != DeoptimizationReason.BoundsCheckException || guard.isNegated() || guard.getSpeculation() != SpeculationLog.NO_SPECULATION ||
+                        !(guard.getCondition() instanceof IntegerBelowNode)) {
+            return null;
+        }
+        // The counter is only within its range after the limit test.
+        if (!(guard.getAnchor() instanceof FixedNode)) {
+            return null;
+        }
+        Block body = cfg.blockFor(loop.counted().getBody());
+        Block anchor = cfg.blockFor(guard.getAnchor().asNode());
+        if (body == null || anchor == null || !AbstractControlFlowGraph.dominates(body, anchor)) {
+            return null;
+        }
+
+        IntegerBelowNode check = (IntegerBelowNode) guard.getCondition();
+        ValueNode index = check.getX();
+        ValueNode length = check.getY();
+        if (!loop.isOutsideLoop(length) || !is32Bit(index) || !is32Bit(length)) {
+            return null;
+        }
+        ValueNode counter = loop.counted().getCounter().valueNode();
+        if (!is32Bit(counter)) {
+            return null;
+        }
+
+        ValueNode offset = null;
+        boolean subtract = false;
+        if (index != counter) {
+            if (index instanceof AddNode) {
+                AddNode addNode = (AddNode) index;
+                if (addNode.getX() == counter) {
+                    offset = addNode.getY();
+                } else if (addNode.getY() == counter) {
+                    offset = addNode.getX();
+                }
+            } else if (index instanceof SubNode && ((SubNode) index).getX() == counter) {
+                offset = ((SubNode) index).getY();
+                subtract = true;
+            }
+            if (offset == null || !loop.isOutsideLoop(offset)) {
+                return null;
+            }
+        }
+
+        StructuredGraph graph = guard.graph();
+        ValueNode[] range = counterRange(loop.counted(), graph);
+        if (offset != null) {
+            ValueNode wideOffset = graph.addOrUniqueWithInputs(SignExtendNode.create(offset, 64, NodeView.DEFAULT));
+            for (int i = 0; i < range.length; i++) {
+                range[i] = subtract ? sub(graph, range[i], wideOffset, NodeView.DEFAULT) : add(graph, range[i], wideOffset, NodeView.DEFAULT);
+            }
+            if (subtract) {
+                ValueNode low = range[1];
+                range[1] = range[0];
+                range[0] = low;
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Returns the lowest and highest value of the loop counter inside the loop body as 64-bit
+     * nodes.
+     */
+    private static ValueNode[] counterRange(CountedLoopInfo counted, StructuredGraph graph) {
+        ValueNode init = graph.addOrUniqueWithInputs(SignExtendNode.create(counted.getStart(), 64, NodeView.DEFAULT));
+        ValueNode limit = graph.addOrUniqueWithInputs(SignExtendNode.create(counted.getLimit(), 64, NodeView.DEFAULT));
+        if (!counted.isLimitIncluded()) {
+            ConstantNode one = ConstantNode.forLong(1, graph);
+            limit = counted.getDirection() == Direction.Up ? sub(graph, limit, one, NodeView.DEFAULT) : add(graph, limit, one, NodeView.DEFAULT);
+        }
+        if (counted.getDirection() == Direction.Up) {
+            return new ValueNode[]{init, limit};
+        } else {
+            return new ValueNode[]{limit, init};
+        }
+    }
+
+    private static boolean is32Bit(ValueNode node) {
+        return node.stamp(NodeView.DEFAULT) instanceof IntegerStamp && ((IntegerStamp) node.stamp(NodeView.DEFAULT)).getBits() == 32;
+    }
+
+    /**
+     * The state shared by all predicated bounds checks of one loop.
+     */
+    private static final class LoopPredicate {
+        private final LoopEx loop;
+        private final Speculation speculation;
+        private final AbstractBeginNode anchor;
+        private final LogicNode entered;
+
+        LoopPredicate(LoopEx loop, Speculation speculation) {
+            this.loop = loop;
+            this.speculation = speculation;
+            this.anchor = AbstractBeginNode.prevBegin(loop.entryPoint());
+
+            // The counter range is only valid if the counter does not overflow.
+            CountedLoopInfo counted = loop.counted();
+            counted.createOverFlowGuard();
+
+            StructuredGraph graph = loop.loopBegin().graph();
+            ValueNode init = counted.getStart();
+            ValueNode limit = counted.getLimit();
+            LogicNode test;
+            if (counted.getDirection() == Direction.Up) {
+                test = counted.isLimitIncluded() ? LogicNegationNode.create(IntegerLessThanNode.create(limit, init, NodeView.DEFAULT)) : IntegerLessThanNode.create(init, limit, NodeView.DEFAULT);
+            } else {
+                test = counted.isLimitIncluded() ? LogicNegationNode.create(IntegerLessThanNode.create(init, limit, NodeView.DEFAULT)) : IntegerLessThanNode.create(limit, init, NodeView.DEFAULT);
+            }
+            this.entered = graph.addOrUniqueWithInputs(test);
+        }
+
+        /**
+         * Creates a guard before the loop for "the loop is not entered, or both {@code low} and
+         * {@code high} are within {@code [0, length)}".
+         */
+        GuardNode createGuard(ValueNode low, ValueNode high, ValueNode length) {
+            StructuredGraph graph = loop.loopBegin().graph();
+            ValueNode wideLength = graph.addOrUniqueWithInputs(SignExtendNode.create(length, 64, NodeView.DEFAULT));
+            LogicNode lowInBounds = graph.addOrUniqueWithInputs(IntegerBelowNode.create(low, wideLength, NodeView.DEFAULT));
+            LogicNode highInBounds = graph.addOrUniqueWithInputs(IntegerBelowNode.create(high, wideLength, NodeView.DEFAULT));
+            LogicNode outOfBounds = graph.unique(new ShortCircuitOrNode(lowInBounds, true, highInBounds, true, NOT_FREQUENT_PROBABILITY));
+            LogicNode condition = graph.unique(new ShortCircuitOrNode(entered, true, outOfBounds, true, NOT_FREQUENT_PROBABILITY));
+            return graph.unique(new GuardNode(condition, anchor, DeoptimizationReason.BoundsCheckException, DeoptimizationAction.InvalidateRecompile, false, speculation, null));
+        }
+    }
+
+    private static final class LoopPredicationSpeculationReason implements SpeculationReason {
+        private final String methodDescriptor;
+        private final int bci;
+
+        LoopPredicationSpeculationReason(ResolvedJavaMethod method, int bci) {
+            this.methodDescriptor = method.format("%H.%n(%p)%R");
+            this.bci = bci;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof LoopPredicationSpeculationReason) {
+                LoopPredicationSpeculationReason that = (LoopPredicationSpeculationReason) obj;
+                return this.bci == that.bci && this.methodDescriptor.equals(that.methodDescriptor);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return methodDescriptor.hashCode() * 31 + bci;
+        }
+    }
+}
@@ -24,6 +24,12 @@
  */
 package org.graalvm.compiler.loop.phases;
 
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMining;
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMiningIterations;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import org.graalvm.compiler.loop.LoopEx;
 import org.graalvm.compiler.loop.LoopsData;
 import org.graalvm.compiler.nodes.FixedNode;
@@ -40,6 +46,8 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
     @Override
     protected void run(StructuredGraph graph, MidTierContext context) {
         LoopsData loops = new LoopsData(graph);
+        List<LoopEx> stripMinable = new ArrayList<>();
+        int stripLength = LoopStripMiningIterations.getValue(graph.getOptions());
         if (context.getOptimisticOptimizations().useLoopLimitChecks(graph.getOptions()) && graph.getGuardsStage().allowsFloatingGuards()) {
             loops.detectedCountedLoops();
             for (LoopEx loop : loops.countedLoops()) {
@@ -49,6 +57,14 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                         hasSafepoint |= loopEnd.canSafepoint();
                     }
                     if (hasSafepoint) {
+                        /*
+                         * A long running counted loop without a safepoint can delay a safepoint
+                         * for a long time. If possible, I keep the safepoint in an outer loop
+                         * that is only taken every stripLength iterations.
+                         */
+                        if (LoopStripMining.getValue(graph.getOptions()) && LoopTransformations.isStripMinableLoop(loop, stripLength)) {
+                            stripMinable.add(loop);
+                        }
                         loop.counted().createOverFlowGuard();
                         loop.loopBegin().disableSafepoint();
                     }
@@ -63,6 +79,8 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                     for (FixedNode node : b.getNodes()) {
                         if (node instanceof Invoke || (node instanceof ForeignCallNode && ((ForeignCallNode) node).isGuaranteedSafepoint())) {
                             loopEnd.disableSafepoint();
+                            // The loop already polls in the call, strip mining would not help.
+                            stripMinable.remove(loop);
                             break blocks;
                         }
                     }
@@ -71,5 +89,9 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
             }
         }
         loops.deleteUnusedNodes();
+        // Strip mining changes the control flow, so it has to run after the block based analysis.
+        for (LoopEx loop : stripMinable) {
+            LoopTransformations.stripMine(loop, stripLength);
+        }
     }
 }
@@ -27,11 +27,14 @@ package org.graalvm.compiler.loop.phases;
 import static org.graalvm.compiler.core.common.GraalOptions.MaximumDesiredSize;
 import static org.graalvm.compiler.loop.MathUtil.add;
 import static org.graalvm.compiler.loop.MathUtil.sub;
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.NOT_FREQUENT_PROBABILITY;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
 import org.graalvm.compiler.core.common.RetryableBailoutException;
 import org.graalvm.compiler.core.common.calc.CanonicalCondition;
 import org.graalvm.compiler.debug.DebugContext;
@@ -39,6 +42,7 @@ import org.graalvm.compiler.debug.GraalError;
 import org.graalvm.compiler.graph.Graph.Mark;
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.graph.Position;
+import org.graalvm.compiler.loop.BasicInductionVariable;
 import org.graalvm.compiler.loop.CountedLoopInfo;
 import org.graalvm.compiler.loop.InductionVariable;
 import org.graalvm.compiler.loop.InductionVariable.Direction;
@@ -55,18 +59,28 @@ import org.graalvm.compiler.nodes.ControlSplitNode;
 import org.graalvm.compiler.nodes.EndNode;
 import org.graalvm.compiler.nodes.FixedNode;
 import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.GuardPhiNode;
+import org.graalvm.compiler.nodes.GuardProxyNode;
 import org.graalvm.compiler.nodes.IfNode;
 import org.graalvm.compiler.nodes.LogicNode;
 import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
 import org.graalvm.compiler.nodes.LoopExitNode;
 import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.ProxyNode;
 import org.graalvm.compiler.nodes.SafepointNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.ValueProxyNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
 import org.graalvm.compiler.nodes.calc.CompareNode;
 import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.calc.IntegerEqualsNode;
 import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
 import org.graalvm.compiler.nodes.extended.SwitchNode;
+import org.graalvm.compiler.nodes.memory.MemoryPhiNode;
 import org.graalvm.compiler.phases.common.CanonicalizerPhase;
 import org.graalvm.compiler.phases.tiers.PhaseContext;
 
@@ -470,4 +484,204 @@ public abstract class LoopTransformations {
         }
         return false;
     }
+
+    /**
+     * Splits a counted loop into an inner loop that runs at most {@code stripLength} iterations
+     * and an outer loop that runs the inner loop until the original limit is reached:
+     *
+     * <pre>
+     * for (i = init; i &lt; limit; i += stride) { body }
+     * =&gt;
+     * i = init;
+     * do {
+     *     stripLimit = min(limit, i + stripLength * stride);
+     *     for (; i &lt; stripLimit; i += stride) { body }
+     * } while (i &lt; limit);
+     * </pre>
+     *
+     * The inner loop is still counted, so it can be unrolled and its safepoint can be removed,
+     * while the outer loop keeps its safepoint. This bounds the time to the next safepoint poll
+     * without polling on every iteration.
+     */
+    public static void stripMine(LoopEx loop, int stripLength) {
+        assert isStripMinableLoop(loop, stripLength);
+        LoopBeginNode inner = loop.loopBegin();
+        StructuredGraph graph = inner.graph();
+        graph.getDebug().log("LoopTransformations.stripMine %s", loop);
+        CountedLoopInfo counted = loop.counted();
+        PhiNode counter = (PhiNode) counted.getCounter().valueNode();
+        ValueNode limit = counted.getLimit();
+        IfNode limitTest = counted.getLimitTest();
+        boolean bodyIsTrueSuccessor = limitTest.trueSuccessor() == counted.getBody();
+        LoopExitNode innerExit = inner.getSingleLoopExit();
+        FrameState loopState = inner.stateAfter();
+
+        // The outer loop takes over the entry of the inner loop.
+        LoopBeginNode outer = graph.add(new LoopBeginNode());
+        EndNode entry = (EndNode) inner.forwardEnd();
+        EndNode innerEntry = graph.add(new EndNode());
+        inner.replaceFirstInput(entry, innerEntry);
+        outer.addForwardEnd(entry);
+        outer.setNext(innerEntry);
+
+        List<PhiNode> innerPhis = inner.phis().snapshot();
+        EconomicMap<PhiNode, PhiNode> outerPhis = EconomicMap.create(Equivalence.IDENTITY);
+        for (PhiNode phi : innerPhis) {
+            PhiNode outerPhi = createOuterPhi(graph, phi, outer);
+            outerPhi.addInput(phi.valueAt(0));
+            phi.setValueAt(0, outerPhi);
+            outerPhis.put(phi, outerPhi);
+        }
+        outer.setStateAfter(replaceValues(loopState, outerPhis));
+
+        // The inner loop stops after stripLength iterations or at the original limit.
+        ValueNode stripStart = outerPhis.get(counter);
+        long span = counted.getCounter().constantStride() * stripLength;
+        ConstantNode spanNode = ConstantNode.forInt((int) span, graph);
+        ValueNode stripEnd = graph.unique(new AddNode(stripStart, spanNode));
+        LogicNode noOverflow;
+        LogicNode beforeLimit;
+        if (counted.getDirection() == Direction.Up) {
+            noOverflow = graph.unique(new IntegerLessThanNode(stripStart, ConstantNode.forInt((int) (Integer.MAX_VALUE - span), graph)));
+            beforeLimit = graph.unique(new IntegerLessThanNode(stripEnd, limit));
+        } else {
+            noOverflow = graph.unique(new IntegerLessThanNode(ConstantNode.forInt((int) (Integer.MIN_VALUE - span), graph), stripStart));
+            beforeLimit = graph.unique(new IntegerLessThanNode(limit, stripEnd));
+        }
+        ValueNode cappedEnd = graph.unique(new ConditionalNode(beforeLimit, stripEnd, limit));
+        ValueNode stripLimit = graph.unique(new ConditionalNode(noOverflow, cappedEnd, limit));
+        limitTest.setCondition(replaceOperand((CompareNode) limitTest.condition(), limit, stripLimit));
+
+        /*
+         * Existing proxies are now inside the outer loop, so their usages after the loop get
+         * proxies at the exit of the outer loop.
+         */
+        LoopExitNode outerExit = graph.add(new LoopExitNode(outer));
+        for (ProxyNode proxy : innerExit.proxies().snapshot()) {
+            ProxyNode outerProxy = proxy instanceof GuardProxyNode ? ProxyNode.forGuard((GuardProxyNode) proxy, outerExit, graph) : ProxyNode.forValue(proxy, outerExit, graph);
+            proxy.replaceAtMatchingUsages(outerProxy, usage -> usage != outerProxy);
+        }
+        outerExit.setStateAfter(innerExit.stateAfter());
+
+        // After the inner loop, the outer loop continues if the original limit is not reached.
+        EconomicMap<PhiNode, ValueNode> exitValues = EconomicMap.create(Equivalence.IDENTITY);
+        for (PhiNode phi : innerPhis) {
+            ValueNode exitValue;
+            if (phi instanceof MemoryPhiNode) {
+                exitValue = phi;
+            } else if (phi instanceof GuardPhiNode) {
+                exitValue = ProxyNode.forGuard((GuardPhiNode) phi, innerExit, graph);
+            } else {
+                exitValue = ProxyNode.forValue(phi, innerExit, graph);
+            }
+            outerPhis.get(phi).addInput(exitValue);
+            if (phi instanceof ValuePhiNode) {
+                exitValues.put(phi, exitValue);
+            }
+        }
+        // Re-executing the loop header with the current values is valid at the inner exit.
+        innerExit.setStateAfter(replaceValues(loopState, exitValues));
+
+        FixedNode continuation = innerExit.next();
+        innerExit.setNext(null);
+        BeginNode continueBegin = graph.add(new BeginNode());
+        LogicNode continueCondition = replaceOperand((CompareNode) limitTest.condition(), counter, exitValues.get(counter));
+        continueCondition = replaceOperand((CompareNode) continueCondition, stripLimit, limit);
+        AbstractBeginNode trueSuccessor = bodyIsTrueSuccessor ? continueBegin : outerExit;
+        AbstractBeginNode falseSuccessor = bodyIsTrueSuccessor ? outerExit : continueBegin;
+        double frequency = inner.loopFrequency();
+        double outerFrequency = Math.max(1.0, frequency / stripLength);
+        double continueProbability = Math.max(NOT_FREQUENT_PROBABILITY, 1.0 - 1.0 / outerFrequency);
+        if (!bodyIsTrueSuccessor) {
+            continueProbability = 1.0 - continueProbability;
+        }
+        innerExit.setNext(graph.add(new IfNode(continueCondition, trueSuccessor, falseSuccessor, continueProbability)));
+        continueBegin.setNext(graph.add(new LoopEndNode(outer)));
+        outerExit.setNext(continuation);
+
+        outer.setLoopFrequency(outerFrequency);
+        inner.setLoopFrequency(Math.min(frequency, stripLength));
+        graph.getDebug().dump(DebugContext.VERBOSE_LEVEL, graph, "After strip mining %s", inner);
+    }
+
+    private static PhiNode createOuterPhi(StructuredGraph graph, PhiNode phi, LoopBeginNode outer) {
+        if (phi instanceof ValuePhiNode) {
+            return graph.addWithoutUnique(new ValuePhiNode(phi.stamp().unrestricted(), outer));
+        } else if (phi instanceof GuardPhiNode) {
+            return graph.addWithoutUnique(new GuardPhiNode(outer));
+        } else {
+            return graph.addWithoutUnique(new MemoryPhiNode(outer, ((MemoryPhiNode) phi).getLocationIdentity()));
+        }
+    }
+
+    private static LogicNode replaceOperand(CompareNode compare, ValueNode oldOperand, ValueNode newOperand) {
+        ValueNode x = compare.getX() == oldOperand ? newOperand : compare.getX();
+        ValueNode y = compare.getY() == oldOperand ? newOperand : compare.getY();
+        StructuredGraph graph = compare.graph();
+        if (compare instanceof IntegerEqualsNode) {
+            return graph.unique(new IntegerEqualsNode(x, y));
+        }
+        return graph.unique(new IntegerLessThanNode(x, y));
+    }
+
+    private static FrameState replaceValues(FrameState state, EconomicMap<PhiNode, ? extends ValueNode> replacements) {
+        FrameState newState = state.duplicate();
+        for (int i = 0; i < newState.values().size(); i++) {
+            ValueNode value = newState.values().get(i);
+            if (value instanceof PhiNode && replacements.containsKey((PhiNode) value)) {
+                newState.values().set(i, replacements.get((PhiNode) value));
+            }
+        }
+        return newState;
+    }
+
+    public static boolean isStripMinableLoop(LoopEx loop, int stripLength) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty()) {
+            return false;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        InductionVariable iv = counted.getCounter();
+        if (!(iv instanceof BasicInductionVariable) || !iv.isConstantStride() || counted.isLimitIncluded() || counted.getStamp().getBits() != 32) {
+            return false;
+        }
+        if (Math.abs(iv.constantStride()) * stripLength > Integer.MAX_VALUE / 2) {
+            return false;
+        }
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount().isLessThan(stripLength + 1)) {
+            // The loop does not run long enough to need a safepoint.
+            return false;
+        }
+        if (loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1) {
+            return false;
+        }
+        IfNode limitTest = counted.getLimitTest();
+        AbstractBeginNode exitSuccessor = limitTest.trueSuccessor() == counted.getBody() ? limitTest.falseSuccessor() : limitTest.trueSuccessor();
+        if (exitSuccessor != loopBegin.getSingleLoopExit()) {
+            return false;
+        }
+        LogicNode condition = limitTest.condition();
+        if (!(condition instanceof IntegerLessThanNode) && !(condition instanceof IntegerEqualsNode)) {
+            return false;
+        }
+        CompareNode compare = (CompareNode) condition;
+        ValueNode counter = iv.valueNode();
+        if (!(counter instanceof ValuePhiNode) || ((ValuePhiNode) counter).merge() != loopBegin || compare.getX() == compare.getY() ||
+                        (compare.getX() != counter && compare.getY() != counter) || (compare.getX() != counted.getLimit() && compare.getY() != counted.getLimit())) {
+            // The limit test has to compare the loop phi itself against the limit.
+            return false;
+        }
+        FrameState state = loopBegin.stateAfter();
+        if (state == null || state.virtualObjectMappingCount() != 0) {
+            return false;
+        }
+        for (LoopExitNode exit : loopBegin.loopExits()) {
+            for (ProxyNode proxy : exit.proxies()) {
+                if (!(proxy instanceof ValueProxyNode) && !(proxy instanceof GuardProxyNode)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 }
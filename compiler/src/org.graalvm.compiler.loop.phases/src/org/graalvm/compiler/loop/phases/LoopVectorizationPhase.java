@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.FAST_PATH_PROBABILITY;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.lir.gen.ArrayElementwiseOperation;
+import org.graalvm.compiler.loop.CountedLoopInfo;
+import org.graalvm.compiler.loop.InductionVariable;
+import org.graalvm.compiler.loop.InductionVariable.Direction;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.BeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.EndNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.GuardNode;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.LogicNegationNode;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.LoopExitNode;
+import org.graalvm.compiler.nodes.MergeNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.ProxyNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.ValueProxyNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.AndNode;
+import org.graalvm.compiler.nodes.calc.BinaryArithmeticNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.OrNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.calc.XorNode;
+import org.graalvm.compiler.nodes.extended.ArrayElementwiseNode;
+import org.graalvm.compiler.nodes.extended.GuardingNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.phases.Phase;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Replaces the iterations of simple counted loops whose body computes one array element from the
+ * elements at the same index of other arrays with an {@link ArrayElementwiseNode}, which the
+ * backend emits as a vector loop. The following kinds of loop bodies are recognized, where
+ * {@code inv} is a loop-invariant value:
+ *
+ * <pre>
+ * a[i] = b[i];           a[i] = inv;
+ * a[i] = b[i] op c[i];   a[i] = b[i] op inv;   a[i] = inv op b[i];
+ * </pre>
+ *
+ * Before the loop, I check that all arrays are non-null and that the whole iteration range is
+ * within their bounds. If so, the {@link ArrayElementwiseNode} processes all iterations and the
+ * original loop runs zero times. Otherwise the original loop runs unchanged and throws the
+ * exception at the right iteration. Since every iteration reads and writes only the elements at
+ * its own index, the result does not depend on whether the arrays alias.
+ */
+public class LoopVectorizationPhase extends Phase {
+
+    private static final CounterKey VECTORIZED_LOOPS = DebugContext.counter("VectorizedLoops");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        DebugContext debug = graph.getDebug();
+        if (graph.hasLoops()) {
+            LoopsData dataCounted = new LoopsData(graph);
+            dataCounted.detectedCountedLoops();
+            for (LoopEx loop : dataCounted.countedLoops()) {
+                ElementwiseLoop candidate = ElementwiseLoop.match(loop);
+                if (candidate != null) {
+                    debug.log("Vectorize %s", loop);
+                    candidate.vectorize(graph);
+                    VECTORIZED_LOOPS.increment(debug);
+                    debug.dump(DebugContext.DETAILED_LEVEL, graph, "Vectorize %s", loop);
+                }
+            }
+            dataCounted.deleteUnusedNodes();
+        }
+    }
+
+    @Override
+    public boolean checkContract() {
+        return false;
+    }
+
+    private static final class ElementwiseLoop {
+        private final LoopBeginNode loopBegin;
+        private final PhiNode counter;
+        private final ValueNode start;
+        private final ValueNode limit;
+        private final JavaKind kind;
+        private final ArrayElementwiseOperation operation;
+        private final ValueNode dst;
+        private final ValueNode x;
+        private final ValueNode y;
+
+        private ElementwiseLoop(LoopBeginNode loopBegin, PhiNode counter, ValueNode start, ValueNode limit, JavaKind kind, ArrayElementwiseOperation operation, ValueNode dst, ValueNode x,
+                        ValueNode y) {
+            this.loopBegin = loopBegin;
+            this.counter = counter;
+            this.start = start;
+            this.limit = limit;
+            this.kind = kind;
+            this.operation = operation;
+            this.dst = dst;
+            this.x = x;
+            this.y = y;
+        }
+
+        static ElementwiseLoop match(LoopEx loop) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            CountedLoopInfo counted = loop.counted();
+            if (!loop.loop().getChildren().isEmpty() || loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.phis().count() != 1) {
+                return null;
+            }
+            FrameState loopState = loopBegin.stateAfter();
+            if (loopState == null || loopState.virtualObjectMappingCount() != 0) {
+                return null;
+            }
+
+            // The loop must be "for (int i = start; i < limit; i++)".
+            InductionVariable iv = counted.getCounter();
+            PhiNode counter = loopBegin.phis().first();
+            if (iv.valueNode() != counter || counted.getDirection() != Direction.Up || counted.isLimitIncluded() || !iv.isConstantStride() || iv.constantStride() != 1) {
+                return null;
+            }
+            if (!(counter.stamp(NodeView.DEFAULT) instanceof IntegerStamp) || ((IntegerStamp) counter.stamp(NodeView.DEFAULT)).getBits() != 32) {
+                return null;
+            }
+
+            // Only the counter may be used after the loop.
+            for (LoopExitNode exit : loopBegin.loopExits()) {
+                for (ProxyNode proxy : exit.proxies()) {
+                    if (!(proxy instanceof ValueProxyNode) || proxy.value() != counter) {
+                        return null;
+                    }
+                }
+            }
+
+            // The body must consist of array loads and a single array store.
+            StoreIndexedNode store = null;
+            for (Node node : loop.whole().nodes()) {
+                if (node instanceof StoreIndexedNode) {
+                    if (store != null) {
+                        return null;
+                    }
+                    store = (StoreIndexedNode) node;
+                } else if (node instanceof GuardNode) {
+                    return null;
+                } else if (node instanceof FixedNode && !(node instanceof LoadIndexedNode || node instanceof AbstractBeginNode || node instanceof LoopEndNode || node == counted.getLimitTest())) {
+                    return null;
+                }
+            }
+            if (store == null || !isElementAccess(loop, counter, store.array(), store.index(), store.getBoundsCheck()) || store.getStoreCheck() != null) {
+                return null;
+            }
+            JavaKind kind = store.elementKind();
+            if (kind != JavaKind.Int && kind != JavaKind.Long && kind != JavaKind.Float && kind != JavaKind.Double) {
+                return null;
+            }
+
+            ValueNode value = store.value();
+            ArrayElementwiseOperation operation;
+            ValueNode x;
+            ValueNode y = null;
+            if (isOperand(loop, counter, kind, value)) {
+                operation = ArrayElementwiseOperation.COPY;
+                x = value;
+            } else if (value instanceof BinaryArithmeticNode<?>) {
+                operation = operationOf(value, kind);
+                x = ((BinaryArithmeticNode<?>) value).getX();
+                y = ((BinaryArithmeticNode<?>) value).getY();
+                if (operation == null || !isOperand(loop, counter, kind, x) || !isOperand(loop, counter, kind, y)) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            return new ElementwiseLoop(loopBegin, counter, counted.getStart(), counted.getLimit(), kind, operation, store.array(), x, y);
+        }
+
+        private static boolean isElementAccess(LoopEx loop, PhiNode counter, ValueNode array, ValueNode index, GuardingNode boundsCheck) {
+            return index == counter && boundsCheck == null && loop.isOutsideLoop(array);
+        }
+
+        /**
+         * An operand is either loop-invariant or the element of an invariant array at the counter.
+         */
+        private static boolean isOperand(LoopEx loop, PhiNode counter, JavaKind kind, ValueNode node) {
+            if (node instanceof LoadIndexedNode) {
+                LoadIndexedNode load = (LoadIndexedNode) node;
+                return load.elementKind() == kind && isElementAccess(loop, counter, load.array(), load.index(), load.getBoundsCheck());
+            }
+            return loop.isOutsideLoop(node) && node.getStackKind() == kind;
+        }
+
+        private static ArrayElementwiseOperation operationOf(ValueNode value, JavaKind kind) {
+            if (value instanceof AddNode) {
+                return ArrayElementwiseOperation.ADD;
+            } else if (value instanceof SubNode) {
+                return ArrayElementwiseOperation.SUB;
+            } else if (value instanceof MulNode) {
+                return ArrayElementwiseOperation.MUL;
+            } else if (kind.isNumericFloat()) {
+                return null;
+            } else if (value instanceof AndNode) {
+                return ArrayElementwiseOperation.AND;
+            } else if (value instanceof OrNode) {
+                return ArrayElementwiseOperation.OR;
+            } else if (value instanceof XorNode) {
+                return ArrayElementwiseOperation.XOR;
+            }
+            return null;
+        }
+
+        private static boolean isArray(ValueNode operand) {
+            return operand instanceof LoadIndexedNode;
+        }
+
+        void vectorize(StructuredGraph graph) {
+            EndNode forwardEnd = loopBegin.forwardEnd();
+            FixedWithNextNode predecessor = (FixedWithNextNode) forwardEnd.predecessor();
+            predecessor.setNext(null);
+
+            /*
+             * The checks and the vector operation merge into the original loop entry. The counter
+             * starts at the end of the vectorized range if the vector operation ran, and at the
+             * original start otherwise.
+             */
+            MergeNode merge = graph.add(new MergeNode());
+            ValuePhiNode entryValue = graph.addWithoutUnique(new ValuePhiNode(counter.stamp(NodeView.DEFAULT).unrestricted(), merge));
+            FixedWithNextNode last = predecessor;
+
+            EconomicMap<ValueNode, ValueNode> nonNullArrays = EconomicMap.create(Equivalence.IDENTITY);
+            for (ValueNode array : new ValueNode[]{dst, isArray(x) ? ((LoadIndexedNode) x).array() : null, isArray(y) ? ((LoadIndexedNode) y).array() : null}) {
+                if (array != null && !nonNullArrays.containsKey(array)) {
+                    last = checkThat(graph, last, LogicNegationNode.create(IsNullNode.create(array)), merge, entryValue);
+                    nonNullArrays.put(array, graph.maybeAddOrUnique(PiNode.create(array, last)));
+                }
+            }
+            ConstantNode zero = ConstantNode.forInt(0, graph);
+            last = checkThat(graph, last, LogicNegationNode.create(IntegerLessThanNode.create(start, zero, NodeView.DEFAULT)), merge, entryValue);
+            last = checkThat(graph, last, IntegerLessThanNode.create(start, limit, NodeView.DEFAULT), merge, entryValue);
+            for (ValueNode array : nonNullArrays.getValues()) {
+                ArrayLengthNode length = graph.add(new ArrayLengthNode(array));
+                last.setNext(length);
+                last = checkThat(graph, length, LogicNegationNode.create(IntegerLessThanNode.create(length, limit, NodeView.DEFAULT)), merge, entryValue);
+            }
+
+            ValueNode dstArray = nonNullArrays.get(dst);
+            ValueNode xOperand = isArray(x) ? nonNullArrays.get(((LoadIndexedNode) x).array()) : x;
+            ValueNode yOperand = isArray(y) ? nonNullArrays.get(((LoadIndexedNode) y).array()) : y;
+            ArrayElementwiseNode elementwise = graph.add(new ArrayElementwiseNode(kind, operation, dstArray, xOperand, isArray(x), yOperand, isArray(y), start, limit));
+            elementwise.setStateAfter(stateWithCounter(limit));
+            last.setNext(elementwise);
+            EndNode vectorEnd = graph.add(new EndNode());
+            elementwise.setNext(vectorEnd);
+            merge.addForwardEnd(vectorEnd);
+            entryValue.addInput(limit);
+
+            merge.setStateAfter(stateWithCounter(entryValue));
+            merge.setNext(forwardEnd);
+            counter.setValueAt(forwardEnd, entryValue);
+        }
+
+        /**
+         * Adds a branch on {@code condition} after {@code last}. If the condition does not hold,
+         * control goes to the original loop with the original start value.
+         */
+        private FixedWithNextNode checkThat(StructuredGraph graph, FixedWithNextNode last, LogicNode condition, MergeNode merge, ValuePhiNode entryValue) {
+            BeginNode passed = graph.add(new BeginNode());
+            BeginNode failed = graph.add(new BeginNode());
+            last.setNext(graph.add(new IfNode(graph.addOrUniqueWithInputs(condition), passed, failed, FAST_PATH_PROBABILITY)));
+            EndNode failedEnd = graph.add(new EndNode());
+            failed.setNext(failedEnd);
+            merge.addForwardEnd(failedEnd);
+            entryValue.addInput(start);
+            return passed;
+        }
+
+        /**
+         * Returns the state at the loop header with the counter replaced by {@code value}.
+         */
+        private FrameState stateWithCounter(ValueNode value) {
+            FrameState state = loopBegin.stateAfter().duplicate();
+            for (int i = 0; i < state.values().size(); i++) {
+                if (state.values().get(i) == counter) {
+                    state.values().set(i, value);
+                }
+            }
+            return state;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import java.util.ListIterator;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.loop.phases.LoopPredicationPhase;
+import org.graalvm.compiler.nodes.GuardNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.cfg.Block;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.Phase;
+import org.graalvm.compiler.phases.PhaseSuite;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Test;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * Tests {@link LoopPredicationPhase}: the results of loops whose bounds checks are predicated, and
+ * which bounds checks remain in the loop after the phase.
+ */
+public class LoopPredicationTest extends GraalCompilerTest {
+
+    private final SpeculationLog speculationLog;
+
+    /** The bounds checks anchored inside a loop after {@link LoopPredicationPhase}. */
+    private int loopBoundsChecks;
+    /** The speculative bounds checks before a loop after {@link LoopPredicationPhase}. */
+    private int predicates;
+
+    public LoopPredicationTest() {
+        speculationLog = getCodeCache().createSpeculationLog();
+    }
+
+    public static int upLimitExcluded(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int upLimitIncluded(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i <= end; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int downLimitExcluded(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i > end; i--) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int downLimitIncluded(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i >= end; i--) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int plusOffset(int[] a, int n, int offset) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i + offset];
+        }
+        return sum;
+    }
+
+    public static int minusOffset(int[] a, int n, int offset) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i - offset];
+        }
+        return sum;
+    }
+
+    private static int[] array(int length) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i * 7 + 1;
+        }
+        return result;
+    }
+
+    /** Compiles the snippet, checks the result and that all bounds checks were predicated. */
+    private void testPredicated(String name, Object... args) {
+        test(name, args);
+        assertDeepEquals("predicates", 1, predicates);
+        assertDeepEquals("bounds checks in the loop", 0, loopBoundsChecks);
+    }
+
+    @Test
+    public void testUpLimitExcluded() {
+        testPredicated("upLimitExcluded", array(10), 0, 10);
+        testPredicated("upLimitExcluded", array(10), 3, 7);
+    }
+
+    @Test
+    public void testUpLimitIncluded() {
+        testPredicated("upLimitIncluded", array(10), 0, 9);
+        testPredicated("upLimitIncluded", array(10), 9, 9);
+    }
+
+    @Test
+    public void testDownLimitExcluded() {
+        testPredicated("downLimitExcluded", array(10), 9, -1);
+        testPredicated("downLimitExcluded", array(10), 5, 2);
+    }
+
+    @Test
+    public void testDownLimitIncluded() {
+        testPredicated("downLimitIncluded", array(10), 9, 0);
+        testPredicated("downLimitIncluded", array(10), 0, 0);
+    }
+
+    @Test
+    public void testPlusOffset() {
+        testPredicated("plusOffset", array(10), 7, 3);
+        testPredicated("plusOffset", array(10), 0, 10);
+    }
+
+    @Test
+    public void testMinusOffset() {
+        testPredicated("minusOffset", array(10), 7, -3);
+        testPredicated("minusOffset", array(10), 10, 0);
+    }
+
+    /** A loop that is not entered must not fail its predicate, whatever its bounds are. */
+    @Test
+    public void testNotEntered() throws InvalidInstalledCodeException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("upLimitExcluded");
+        InstalledCode code = getCode(method);
+        assertDeepEquals(1, predicates);
+        assertDeepEquals(0, code.executeVarargs(array(3), 20, 10));
+        assertDeepEquals(0, code.executeVarargs(array(3), -5, -10));
+        assertTrue("the predicate must not fail for a loop that is not entered", code.isValid());
+
+        method = getResolvedJavaMethod("downLimitIncluded");
+        code = getCode(method);
+        assertDeepEquals(0, code.executeVarargs(array(3), -10, 10));
+        assertTrue("the predicate must not fail for a loop that is not entered", code.isValid());
+    }
+
+    /**
+     * An end outside of the array must fail the predicate, so that the exception is thrown after
+     * the same iterations as in the interpreter. The recompiled loop keeps its bounds checks.
+     */
+    @Test
+    public void testOutOfRangeEnd() throws InvalidInstalledCodeException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("upLimitExcluded");
+        InstalledCode code = getCode(method);
+        assertDeepEquals(1, predicates);
+        test(method, null, array(10), 5, 11);
+        assertFalse("the predicate must fail for an end outside of the array", code.isValid());
+
+        code = getCode(method);
+        assertDeepEquals("predicates after the speculation failed", 0, predicates);
+        assertTrue("the bounds check must stay in the loop", loopBoundsChecks > 0);
+        assertDeepEquals(upLimitExcluded(array(10), 2, 8), code.executeVarargs(array(10), 2, 8));
+        test(method, null, array(10), 5, 11);
+    }
+
+    @Test
+    public void testOutOfRangeOffset() {
+        test("plusOffset", array(10), 8, 3);
+        test("minusOffset", array(10), 8, 1);
+        test("minusOffset", array(10), 2, Integer.MIN_VALUE);
+    }
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts).copy();
+        PhaseSuite<MidTierContext> mid = suites.getMidTier();
+        ListIterator<BasePhase<? super MidTierContext>> position = mid.findPhase(LoopPredicationPhase.class, true);
+        assertTrue("LoopPredicationPhase is not in the mid tier", position != null);
+        position.add(new CountBoundsChecksPhase());
+        return suites;
+    }
+
+    /** Counts the bounds check guards inside loops and the predicates before loops. */
+    private final class CountBoundsChecksPhase extends Phase {
+
+        @Override
+        protected void run(StructuredGraph graph) {
+            ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+            loopBoundsChecks = 0;
+            predicates = 0;
+            for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+                if (guard.getReason() != DeoptimizationReason.BoundsCheckException) {
+                    continue;
+                }
+                Block block = cfg.blockFor(guard.getAnchor().asNode());
+                if (guard.getSpeculation() != SpeculationLog.NO_SPECULATION) {
+                    assertTrue("a predicate must be before the loop", block.getLoop() == null);
+                    predicates++;
+                } else if (block.getLoop() != null) {
+                    loopBoundsChecks++;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected SpeculationLog getSpeculationLog() {
+        speculationLog.collectFailedSpeculations();
+        return speculationLog;
+    }
+
+    @Override
+    protected InstalledCode addMethod(DebugContext debug, final ResolvedJavaMethod method, final CompilationResult compilationResult) {
+        return getBackend().createInstalledCode(debug, method, compilationResult, speculationLog, null, false);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import java.util.ListIterator;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.loop.phases.LoopSafepointEliminationPhase;
+import org.graalvm.compiler.loop.phases.LoopTransformations;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.Phase;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests {@link LoopTransformations#stripMine}: the results of strip mined loops around the strip
+ * length and the integer range limits, and that only the outer loop polls for a safepoint.
+ */
+public class LoopStripMiningTest extends GraalCompilerTest {
+
+    private static final int STRIP_LENGTH = GraalOptions.LoopStripMiningIterations.getDefaultValue();
+
+    /** The number of loops after {@link LoopSafepointEliminationPhase}. */
+    private int loops;
+    /** The number of loop ends of innermost loops that poll for a safepoint. */
+    private int innerSafepoints;
+    /** The number of loop ends of outer loops that poll for a safepoint. */
+    private int outerSafepoints;
+
+    public static long up(int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    public static long down(int start, int end) {
+        long result = 0;
+        for (int i = start; i > end; i--) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    public static long upByThree(int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i += 3) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    public static long constantTripCount(int start) {
+        long result = 0;
+        for (int i = 0; i < 900; i++) {
+            result = result * 31 + i + start;
+        }
+        return result;
+    }
+
+    @Test
+    public void testUp() {
+        compileStripMined("up");
+        for (int trips : tripCounts()) {
+            test("up", 0, trips);
+            test("up", -trips / 2, trips - trips / 2);
+        }
+        test("up", 10, 0);
+    }
+
+    @Test
+    public void testDown() {
+        compileStripMined("down");
+        for (int trips : tripCounts()) {
+            test("down", trips, 0);
+            test("down", trips / 2, trips / 2 - trips);
+        }
+        test("down", 0, 10);
+    }
+
+    @Test
+    public void testStride() {
+        compileStripMined("upByThree");
+        for (int trips : tripCounts()) {
+            test("upByThree", 0, 3 * trips);
+            test("upByThree", 0, 3 * trips + 1);
+            test("upByThree", 0, 3 * trips - 1);
+        }
+    }
+
+    /**
+     * The end of a strip must not overflow when the loop runs up to the largest or down to the
+     * smallest integer.
+     */
+    @Test
+    public void testOverflowAdjacentLimit() {
+        compileStripMined("up");
+        compileStripMined("down");
+        compileStripMined("upByThree");
+        for (int trips : tripCounts()) {
+            test("up", Integer.MAX_VALUE - trips, Integer.MAX_VALUE);
+            test("down", Integer.MIN_VALUE + trips, Integer.MIN_VALUE);
+            test("upByThree", Integer.MAX_VALUE - 3 * trips, Integer.MAX_VALUE);
+        }
+        test("up", Integer.MIN_VALUE, Integer.MIN_VALUE + 3 * STRIP_LENGTH);
+        test("down", Integer.MAX_VALUE, Integer.MAX_VALUE - 3 * STRIP_LENGTH);
+    }
+
+    /** A loop that never runs longer than one strip keeps a single loop without a safepoint. */
+    @Test
+    public void testConstantTripCount() {
+        getCode(getResolvedJavaMethod("constantTripCount"));
+        assertDeepEquals("loops", 1, loops);
+        assertDeepEquals("safepoints", 0, innerSafepoints);
+        test("constantTripCount", 7);
+    }
+
+    /** The strip length option determines where the outer loop polls. */
+    @Test
+    public void testStripLengthOption() {
+        OptionValues options = new OptionValues(getInitialOptions(), GraalOptions.LoopStripMiningIterations, 7);
+        ResolvedJavaMethod method = getResolvedJavaMethod("up");
+        getCode(method, options);
+        assertStripMined("up");
+        for (int trips : new int[]{0, 1, 6, 7, 8, 13, 14, 15, 100}) {
+            test(options, "up", 0, trips);
+            test(options, "up", Integer.MAX_VALUE - trips, Integer.MAX_VALUE);
+        }
+    }
+
+    /** Trip counts below, at and above the strip length, and of several strips. */
+    private static int[] tripCounts() {
+        return new int[]{0, 1, STRIP_LENGTH - 1, STRIP_LENGTH, STRIP_LENGTH + 1, 2 * STRIP_LENGTH, 2 * STRIP_LENGTH + 1, 10 * STRIP_LENGTH + STRIP_LENGTH / 2};
+    }
+
+    private void compileStripMined(String name) {
+        getCode(getResolvedJavaMethod(name));
+        assertStripMined(name);
+    }
+
+    private void assertStripMined(String name) {
+        assertDeepEquals(name + ": loops", 2, loops);
+        assertDeepEquals(name + ": safepoints in the inner loop", 0, innerSafepoints);
+        assertTrue(name + ": the outer loop must poll for a safepoint", outerSafepoints > 0);
+    }
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts).copy();
+        ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopSafepointEliminationPhase.class);
+        assertTrue("LoopSafepointEliminationPhase is not in the mid tier", position != null);
+        position.add(new CountSafepointsPhase());
+        return suites;
+    }
+
+    /** Counts the loops and the loop ends that poll for a safepoint. */
+    private final class CountSafepointsPhase extends Phase {
+
+        @Override
+        protected void run(StructuredGraph graph) {
+            LoopsData data = new LoopsData(graph);
+            loops = data.loops().size();
+            innerSafepoints = 0;
+            outerSafepoints = 0;
+            for (LoopEx loop : data.loops()) {
+                for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
+                    if (!loopEnd.canSafepoint()) {
+                        continue;
+                    }
+                    if (loop.loop().getChildren().isEmpty()) {
+                        innerSafepoints++;
+                    } else {
+                        outerSafepoints++;
+                    }
+                }
+            }
+        }
+    }
+}
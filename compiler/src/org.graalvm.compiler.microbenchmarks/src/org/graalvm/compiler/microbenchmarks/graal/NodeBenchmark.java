@@ -32,6 +32,7 @@ import org.openjdk.jmh.infra.Blackhole;
 
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.graph.NodeBitMap;
+import org.graalvm.compiler.graph.NodeWorkList;
 import org.graalvm.compiler.microbenchmarks.graal.util.GraalState;
 import org.graalvm.compiler.microbenchmarks.graal.util.MethodSpec;
 import org.graalvm.compiler.microbenchmarks.graal.util.NodesState;
@@ -141,6 +142,23 @@ public class NodeBenchmark extends GraalBenchmark {
         }
     }
 
+    @Benchmark
+    @Warmup(iterations = 20)
+    public void nodeWorkList(StringEquals s, Blackhole bh) {
+        NodeWorkList workList = s.graph.createNodeWorkList();
+        workList.add(s.graph.start());
+        for (Node node : workList) {
+            bh.consume(node);
+            for (Node successor : node.successors()) {
+                workList.add(successor);
+            }
+            for (Node usage : node.usages()) {
+                workList.add(usage);
+            }
+        }
+        workList.release();
+    }
+
     @MethodSpec(declaringClass = HashMap.class, name = "computeIfAbsent")
     public static class HashMapComputeIfAbsent extends NodesState {
     }
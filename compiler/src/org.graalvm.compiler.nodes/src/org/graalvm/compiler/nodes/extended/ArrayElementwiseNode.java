@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.nodes.extended;
+
+import static org.graalvm.compiler.nodeinfo.InputType.Memory;
+import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_UNKNOWN;
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_128;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.gen.ArrayElementwiseOperation;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.AbstractStateSplit;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.MemoryCheckpoint;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Computes {@code dst[i] = x[i] op y[i]} for all {@code i} in {@code [start, end)} in one go. An
+ * operand that is not an array is used as the same value for every element. This node replaces
+ * the iterations of a simple counted loop, so it performs no null or bounds checks: the arrays
+ * must be non-null and the range must be within their bounds.
+ *
+ * @see LIRGeneratorTool#emitArrayElementwiseOp
+ */
+@NodeInfo(nameTemplate = "ArrayElementwise#{p#operation/s}", allowedUsageTypes = Memory, cycles = CYCLES_UNKNOWN, size = SIZE_128)
+public final class ArrayElementwiseNode extends AbstractStateSplit implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<ArrayElementwiseNode> TYPE = NodeClass.create(ArrayElementwiseNode.class);
+
+    protected final JavaKind elementKind;
+    protected final ArrayElementwiseOperation operation;
+    protected final boolean xIsArray;
+    protected final boolean yIsArray;
+
+    @Input ValueNode dst;
+    @Input ValueNode x;
+    @OptionalInput ValueNode y;
+    @Input ValueNode start;
+    @Input ValueNode end;
+
+    public ArrayElementwiseNode(JavaKind elementKind, ArrayElementwiseOperation operation, ValueNode dst, ValueNode x, boolean xIsArray, ValueNode y, boolean yIsArray, ValueNode start,
+                    ValueNode end) {
+        super(TYPE, StampFactory.forVoid());
+        assert (operation == ArrayElementwiseOperation.COPY) == (y == null);
+        this.elementKind = elementKind;
+        this.operation = operation;
+        this.xIsArray = xIsArray;
+        this.yIsArray = yIsArray;
+        this.dst = dst;
+        this.x = x;
+        this.y = y;
+        this.start = start;
+        this.end = end;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    public ArrayElementwiseOperation getOperation() {
+        return operation;
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value yOperand = y == null ? Value.ILLEGAL : gen.operand(y);
+        gen.getLIRGeneratorTool().emitArrayElementwiseOp(elementKind, operation, gen.operand(dst), gen.operand(x), xIsArray, yOperand, yIsArray, gen.operand(start), gen.operand(end));
+    }
+}
@@ -209,6 +209,8 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
             }
             tool = new Tool(graph.getAssumptions(), graph.getOptions());
             processWorkSet(graph);
+            workList.release();
+            workList = null;
         }
 
         @SuppressWarnings("try")
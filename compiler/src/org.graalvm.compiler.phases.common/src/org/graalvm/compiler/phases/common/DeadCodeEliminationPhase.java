@@ -94,6 +94,7 @@ public class DeadCodeEliminationPhase extends Phase {
         int totalMarkedCount = flood.getTotalMarkedCount();
         if (totalNodeCount == totalMarkedCount) {
             // All nodes are live => nothing more to do.
+            flood.release();
             return;
         } else {
             // Some nodes are not marked alive and therefore dead => proceed.
@@ -101,6 +102,7 @@ public class DeadCodeEliminationPhase extends Phase {
         }
 
         deleteNodes(flood, graph);
+        flood.release();
     }
 
     private static void iterateSuccessorsAndInputs(NodeFlood flood) {
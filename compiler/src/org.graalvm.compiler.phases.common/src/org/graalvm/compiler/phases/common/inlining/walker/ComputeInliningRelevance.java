@@ -101,6 +101,7 @@ public class ComputeInliningRelevance {
             for (Scope scope : loops.getValues()) {
                 scope.process(workList);
             }
+            workList.release();
         }
     }
 
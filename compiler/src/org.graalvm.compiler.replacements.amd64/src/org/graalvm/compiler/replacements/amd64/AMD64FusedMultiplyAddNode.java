@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.amd64;
+
+import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_2;
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_1;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.amd64.AMD64ArithmeticLIRGeneratorTool;
+import org.graalvm.compiler.lir.gen.ArithmeticLIRGeneratorTool;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.FloatingNode;
+import org.graalvm.compiler.nodes.spi.ArithmeticLIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Computes {@code a * b + c} with a single rounding, see {@code Math.fma}.
+ */
+@NodeInfo(cycles = CYCLES_2, size = SIZE_1)
+public final class AMD64FusedMultiplyAddNode extends FloatingNode implements ArithmeticLIRLowerable {
+    public static final NodeClass<AMD64FusedMultiplyAddNode> TYPE = NodeClass.create(AMD64FusedMultiplyAddNode.class);
+
+    @Input protected ValueNode a;
+    @Input protected ValueNode b;
+    @Input protected ValueNode c;
+
+    public AMD64FusedMultiplyAddNode(ValueNode a, ValueNode b, ValueNode c) {
+        super(TYPE, StampFactory.forKind(a.getStackKind()));
+        assert a.getStackKind() == JavaKind.Float || a.getStackKind() == JavaKind.Double;
+        assert a.stamp(NodeView.DEFAULT).isCompatible(b.stamp(NodeView.DEFAULT)) && a.stamp(NodeView.DEFAULT).isCompatible(c.stamp(NodeView.DEFAULT));
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool builder, ArithmeticLIRGeneratorTool gen) {
+        builder.setResult(this, ((AMD64ArithmeticLIRGeneratorTool) gen).emitFusedMultiplyAdd(builder.operand(a), builder.operand(b), builder.operand(c)));
+    }
+}
@@ -24,6 +24,7 @@
  */
 package org.graalvm.compiler.replacements.amd64;
 
+import static org.graalvm.compiler.replacements.StandardGraphBuilderPlugins.registerArraysSupportPlugins;
 import static org.graalvm.compiler.replacements.StandardGraphBuilderPlugins.registerPlatformSpecificUnsafePlugins;
 import static org.graalvm.compiler.replacements.nodes.BinaryMathIntrinsicNode.BinaryOperation.POW;
 import static org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.COS;
@@ -39,6 +40,7 @@ import java.util.Arrays;
 
 import org.graalvm.compiler.bytecode.BytecodeProvider;
 import org.graalvm.compiler.lir.amd64.AMD64ArithmeticLIRGeneratorTool.RoundingMode;
+import org.graalvm.compiler.nodes.PauseNode;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
@@ -58,6 +60,7 @@ import org.graalvm.compiler.replacements.StandardGraphBuilderPlugins.UnsafePutPl
 import org.graalvm.compiler.replacements.nodes.BinaryMathIntrinsicNode;
 import org.graalvm.compiler.replacements.nodes.BinaryMathIntrinsicNode.BinaryOperation;
 import org.graalvm.compiler.replacements.nodes.BitCountNode;
+import org.graalvm.compiler.replacements.nodes.EncodeISOArrayNode;
 import org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode;
 import org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation;
 
@@ -84,6 +87,9 @@ public class AMD64GraphBuilderPlugins {
                 registerStringUTF16Plugins(invocationPlugins, arch, replacementsBytecodeProvider);
                 registerMathPlugins(invocationPlugins, arch, arithmeticStubs, replacementsBytecodeProvider);
                 registerArraysEqualsPlugins(invocationPlugins, replacementsBytecodeProvider);
+                registerArraysSupportPlugins(invocationPlugins, replacementsBytecodeProvider);
+                registerThreadPlugins(invocationPlugins, replacementsBytecodeProvider);
+                registerLatin1EncoderPlugins(invocationPlugins, replacementsBytecodeProvider);
             }
         });
     }
@@ -157,6 +163,21 @@ public class AMD64GraphBuilderPlugins {
             registerRound(r, "ceil", RoundingMode.UP);
             registerRound(r, "floor", RoundingMode.DOWN);
         }
+
+        if (JAVA_SPECIFICATION_VERSION >= 9 && arch.getFeatures().contains(CPUFeature.FMA)) {
+            registerFMA(r, Double.TYPE, JavaKind.Double);
+            registerFMA(r, Float.TYPE, JavaKind.Float);
+        }
+    }
+
+    private static void registerFMA(Registration r, Class<?> type, JavaKind kind) {
+        r.register3("fma", type, type, type, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode na, ValueNode nb, ValueNode nc) {
+                b.push(kind, b.append(new AMD64FusedMultiplyAddNode(na, nb, nc)));
+                return true;
+            }
+        });
     }
 
     private static void registerUnaryMath(Registration r, String name, UnaryOperation operation) {
@@ -229,6 +250,31 @@ public class AMD64GraphBuilderPlugins {
         }
     }
 
+    private static void registerThreadPlugins(InvocationPlugins plugins, BytecodeProvider replacementsBytecodeProvider) {
+        if (JAVA_SPECIFICATION_VERSION >= 9) {
+            Registration r = new Registration(plugins, Thread.class, replacementsBytecodeProvider);
+            r.register0("onSpinWait", new InvocationPlugin() {
+                @Override
+                public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                    b.append(new PauseNode());
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static void registerLatin1EncoderPlugins(InvocationPlugins plugins, BytecodeProvider replacementsBytecodeProvider) {
+        Registration r = new Registration(plugins, "sun.nio.cs.ISO_8859_1$Encoder", replacementsBytecodeProvider);
+        String name = Java8OrEarlier ? "encodeISOArray" : "implEncodeISOArray";
+        r.register5(name, char[].class, int.class, byte[].class, int.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode src, ValueNode sp, ValueNode dst, ValueNode dp, ValueNode len) {
+                b.addPush(JavaKind.Int, new EncodeISOArrayNode(src, sp, dst, dp, len));
+                return true;
+            }
+        });
+    }
+
     private static void registerUnsafePlugins(InvocationPlugins plugins, BytecodeProvider replacementsBytecodeProvider, boolean explicitUnsafeNullChecks) {
         registerUnsafePlugins(new Registration(plugins, Unsafe.class), explicitUnsafeNullChecks, new JavaKind[]{JavaKind.Int, JavaKind.Long, JavaKind.Object});
         if (!Java8OrEarlier) {
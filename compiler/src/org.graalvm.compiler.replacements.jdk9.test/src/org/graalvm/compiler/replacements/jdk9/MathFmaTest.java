@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.jdk9;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.junit.Test;
+
+public class MathFmaTest extends GraalCompilerTest {
+
+    private static final double[] DOUBLE_VALUES = {0.0, -0.0, 1.0, -1.0, 0.1, 10.0, 3.0e-300, 1.0e308, Double.MIN_VALUE, Double.MAX_VALUE,
+                    Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+
+    private static final float[] FLOAT_VALUES = {0.0f, -0.0f, 1.0f, -1.0f, 0.1f, 10.0f, 3.0e-30f, 1.0e38f, Float.MIN_VALUE, Float.MAX_VALUE,
+                    Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN};
+
+    public static double fmaDouble(double a, double b, double c) {
+        return Math.fma(a, b, c);
+    }
+
+    public static float fmaFloat(float a, float b, float c) {
+        return Math.fma(a, b, c);
+    }
+
+    @Test
+    public void testDouble() {
+        for (double a : DOUBLE_VALUES) {
+            for (double b : DOUBLE_VALUES) {
+                for (double c : DOUBLE_VALUES) {
+                    test("fmaDouble", a, b, c);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFloat() {
+        for (float a : FLOAT_VALUES) {
+            for (float b : FLOAT_VALUES) {
+                for (float c : FLOAT_VALUES) {
+                    test("fmaFloat", a, b, c);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSingleRounding() {
+        // 0.1 * 10.0 - 1.0 is 0.0 when the product is rounded first.
+        test("fmaDouble", 0.1, 10.0, -1.0);
+        test("fmaFloat", 0.1f, 10.0f, -1.0f);
+    }
+}
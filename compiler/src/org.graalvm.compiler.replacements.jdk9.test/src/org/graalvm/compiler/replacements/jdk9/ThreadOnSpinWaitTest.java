@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.jdk9;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.PauseNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.amd64.AMD64;
+
+public class ThreadOnSpinWaitTest extends GraalCompilerTest {
+
+    static volatile boolean flag;
+
+    public static int spinSnippet(int iterations) {
+        int i = 0;
+        while (!flag && i < iterations) {
+            Thread.onSpinWait();
+            i++;
+        }
+        return i;
+    }
+
+    @Test
+    public void testSpin() {
+        test("spinSnippet", 100);
+    }
+
+    @Test
+    public void testIntrinsic() {
+        StructuredGraph graph = parseEager("spinSnippet", StructuredGraph.AllowAssumptions.YES);
+        if (getTarget().arch instanceof AMD64) {
+            Assert.assertEquals(1, graph.getNodes().filter(PauseNode.class).count());
+            Assert.assertTrue(graph.getNodes().filter(MethodCallTargetNode.class).isEmpty());
+        }
+    }
+}
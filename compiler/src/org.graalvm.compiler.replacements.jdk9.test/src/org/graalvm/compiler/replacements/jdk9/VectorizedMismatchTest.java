@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.jdk9;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import org.graalvm.compiler.replacements.nodes.VectorizedMismatchNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.aarch64.AArch64;
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the code emitted for {@link VectorizedMismatchNode} against {@link Arrays#mismatch} for
+ * every element size, for lengths that end in the vector loop, the 8-byte loop and the byte tail,
+ * and for mismatches at every interesting position.
+ */
+public class VectorizedMismatchTest extends GraalCompilerTest {
+
+    /** Enough bytes for several 32-byte vectors followed by every possible tail. */
+    private static final int MAX_BYTES = 140;
+
+    @Before
+    public void checkArchitecture() {
+        assumeTrue("skipping because the architecture does not implement VectorizedMismatchNode", getTarget().arch instanceof AMD64 || getTarget().arch instanceof AArch64);
+    }
+
+    /**
+     * Compiled to a {@link VectorizedMismatchNode}. The interpreter compares the elements with
+     * {@link Arrays#mismatch}. Like the node, it returns the index of the first mismatch in the
+     * whole range, or -1.
+     */
+    static int vectorizedMismatch(Object a, long aOffset, Object b, long bOffset, int length, int log2ArrayIndexScale) {
+        int aFrom = (int) ((aOffset - UNSAFE.arrayBaseOffset(a.getClass())) >> log2ArrayIndexScale);
+        int bFrom = (int) ((bOffset - UNSAFE.arrayBaseOffset(b.getClass())) >> log2ArrayIndexScale);
+        if (a instanceof byte[]) {
+            return Arrays.mismatch((byte[]) a, aFrom, aFrom + length, (byte[]) b, bFrom, bFrom + length);
+        } else if (a instanceof char[]) {
+            return Arrays.mismatch((char[]) a, aFrom, aFrom + length, (char[]) b, bFrom, bFrom + length);
+        } else if (a instanceof int[]) {
+            return Arrays.mismatch((int[]) a, aFrom, aFrom + length, (int[]) b, bFrom, bFrom + length);
+        } else {
+            return Arrays.mismatch((long[]) a, aFrom, aFrom + length, (long[]) b, bFrom, bFrom + length);
+        }
+    }
+
+    private static final long BYTE_BASE = UNSAFE.arrayBaseOffset(byte[].class);
+    private static final long CHAR_BASE = UNSAFE.arrayBaseOffset(char[].class);
+    private static final long INT_BASE = UNSAFE.arrayBaseOffset(int[].class);
+    private static final long LONG_BASE = UNSAFE.arrayBaseOffset(long[].class);
+
+    public static int mismatchBytes(byte[] a, int aFrom, byte[] b, int bFrom, int length) {
+        return vectorizedMismatch(a, BYTE_BASE + aFrom, b, BYTE_BASE + bFrom, length, 0);
+    }
+
+    public static int mismatchChars(char[] a, int aFrom, char[] b, int bFrom, int length) {
+        return vectorizedMismatch(a, CHAR_BASE + ((long) aFrom << 1), b, CHAR_BASE + ((long) bFrom << 1), length, 1);
+    }
+
+    public static int mismatchInts(int[] a, int aFrom, int[] b, int bFrom, int length) {
+        return vectorizedMismatch(a, INT_BASE + ((long) aFrom << 2), b, INT_BASE + ((long) bFrom << 2), length, 2);
+    }
+
+    public static int mismatchLongs(long[] a, int aFrom, long[] b, int bFrom, int length) {
+        return vectorizedMismatch(a, LONG_BASE + ((long) aFrom << 3), b, LONG_BASE + ((long) bFrom << 3), length, 3);
+    }
+
+    public static int arraysMismatchBytes(byte[] a, byte[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+    public static int arraysMismatchDoubles(double[] a, double[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+    @Test
+    public void testBytes() {
+        testMismatch("mismatchBytes", JavaKind.Byte);
+    }
+
+    @Test
+    public void testChars() {
+        testMismatch("mismatchChars", JavaKind.Char);
+    }
+
+    @Test
+    public void testInts() {
+        testMismatch("mismatchInts", JavaKind.Int);
+    }
+
+    @Test
+    public void testLongs() {
+        testMismatch("mismatchLongs", JavaKind.Long);
+    }
+
+    /** The JDK methods that are built on {@code ArraysSupport.vectorizedMismatch}. */
+    @Test
+    public void testArraysMismatch() {
+        for (int length = 0; length <= MAX_BYTES; length++) {
+            byte[] a = (byte[]) array(JavaKind.Byte, length);
+            test("arraysMismatchBytes", a, a.clone());
+            test("arraysMismatchBytes", a, Arrays.copyOf(a, length + 1));
+            for (int position : positions(0, length)) {
+                test("arraysMismatchBytes", a, changed(a, JavaKind.Byte, position));
+            }
+        }
+        for (int length = 0; length <= MAX_BYTES / 8; length++) {
+            double[] a = new double[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = i * 0.5;
+            }
+            test("arraysMismatchDoubles", a, a.clone());
+            for (int position : positions(0, length)) {
+                double[] b = a.clone();
+                b[position] = -b[position] - 1.0;
+                test("arraysMismatchDoubles", a, b);
+            }
+        }
+    }
+
+    private void testMismatch(String name, JavaKind kind) {
+        assertTrue(name + " does not use VectorizedMismatchNode", parseEager(name, AllowAssumptions.YES).getNodes().filter(VectorizedMismatchNode.class).isNotEmpty());
+        ResolvedJavaMethod method = getResolvedJavaMethod(name);
+        int maxLength = MAX_BYTES / kind.getByteCount();
+        for (int length = 0; length <= maxLength; length++) {
+            // Offsets after 0 make the accesses unaligned.
+            for (int from = 0; from < 3; from++) {
+                Object a = array(kind, from + length + 1);
+                Object b = copyOf(a);
+                test(method, null, a, from, b, from, length);
+                test(method, null, a, from, b, from + 1, length);
+                for (int position : positions(from, length)) {
+                    test(method, null, a, from, changed(b, kind, position), from, length);
+                }
+                // Differences outside of the compared ranges do not count.
+                if (from > 0) {
+                    test(method, null, a, from, changed(b, kind, from - 1), from, length);
+                }
+                test(method, null, a, from, changed(b, kind, from + length), from, length);
+            }
+        }
+    }
+
+    /** The first, a middle and the last index of {@code [from, from + length)}. */
+    private static int[] positions(int from, int length) {
+        if (length == 0) {
+            return new int[0];
+        }
+        return new int[]{from, from + length / 2, from + length - 1};
+    }
+
+    private static Object array(JavaKind kind, int length) {
+        Object array = Array.newInstance(kind.toJavaClass(), length);
+        for (int i = 0; i < length; i++) {
+            set(array, kind, i, i * 31 + 7);
+        }
+        return array;
+    }
+
+    private static Object copyOf(Object array) {
+        Object copy = Array.newInstance(array.getClass().getComponentType(), Array.getLength(array));
+        System.arraycopy(array, 0, copy, 0, Array.getLength(array));
+        return copy;
+    }
+
+    /** Returns a copy of {@code array} with a different element at {@code index}. */
+    private static Object changed(Object array, JavaKind kind, int index) {
+        Object copy = copyOf(array);
+        set(copy, kind, index, index * 31 + 7 + 0x55);
+        return copy;
+    }
+
+    private static void set(Object array, JavaKind kind, int index, int value) {
+        switch (kind) {
+            case Byte:
+                Array.setByte(array, index, (byte) value);
+                break;
+            case Char:
+                Array.setChar(array, index, (char) value);
+                break;
+            case Int:
+                Array.setInt(array, index, value);
+                break;
+            case Long:
+                Array.setLong(array, index, (long) value << 32 | value);
+                break;
+            default:
+                throw new IllegalArgumentException(kind.toString());
+        }
+    }
+
+    @Override
+    protected void registerInvocationPlugins(InvocationPlugins invocationPlugins) {
+        Registration r = new Registration(invocationPlugins, VectorizedMismatchTest.class);
+        r.register6("vectorizedMismatch", Object.class, long.class, Object.class, long.class, int.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode a, ValueNode aOffset, ValueNode bArray, ValueNode bOffset, ValueNode length,
+                            ValueNode log2ArrayIndexScale) {
+                b.addPush(JavaKind.Int, new VectorizedMismatchNode(a, aOffset, bArray, bOffset, length, log2ArrayIndexScale.asJavaConstant().asInt()));
+                return true;
+            }
+        });
+        super.registerInvocationPlugins(invocationPlugins);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.test;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.replacements.nodes.EncodeISOArrayNode;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests {@link EncodeISOArrayNode}. The encoder method of {@code sun.nio.cs.ISO_8859_1} is private,
+ * so the node is bound to an equivalent local method instead.
+ */
+public class EncodeISOArrayTest extends GraalCompilerTest {
+
+    private static class Encoder {
+
+        public static int encodeISOArray(char[] sa, int sp, byte[] da, int dp, int len) {
+            int i = 0;
+            for (; i < len; i++) {
+                char c = sa[sp++];
+                if (c > 0xFF) {
+                    break;
+                }
+                da[dp++] = (byte) c;
+            }
+            return i;
+        }
+    }
+
+    @Override
+    protected void registerInvocationPlugins(InvocationPlugins invocationPlugins) {
+        invocationPlugins.register(new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode sa, ValueNode sp, ValueNode da, ValueNode dp, ValueNode len) {
+                b.addPush(JavaKind.Int, new EncodeISOArrayNode(sa, sp, da, dp, len));
+                return true;
+            }
+        }, Encoder.class, "encodeISOArray", char[].class, int.class, byte[].class, int.class, int.class);
+        super.registerInvocationPlugins(invocationPlugins);
+    }
+
+    @Before
+    public void checkAMD64() {
+        Assume.assumeTrue("EncodeISOArrayNode is only implemented on AMD64", getTarget().arch instanceof AMD64);
+    }
+
+    /**
+     * Returns the encoded bytes with the number of encoded characters appended as the last element.
+     */
+    public static byte[] encodeSnippet(char[] sa, int sp, int dp, int len) {
+        byte[] da = new byte[dp + len + 1];
+        int n = Encoder.encodeISOArray(sa, sp, da, dp, len);
+        da[da.length - 1] = (byte) n;
+        return da;
+    }
+
+    private static char[] latin1Chars(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ((i * 7) & 0xFF);
+        }
+        return chars;
+    }
+
+    @Test
+    public void testLatin1() {
+        for (int length = 0; length < 70; length++) {
+            for (int offset = 0; offset < 3; offset++) {
+                char[] chars = latin1Chars(length + offset);
+                test("encodeSnippet", chars, offset, 2 - offset, length);
+            }
+        }
+    }
+
+    @Test
+    public void testUnmappable() {
+        for (int length = 1; length < 70; length += 3) {
+            for (int pos = 0; pos < length; pos += 5) {
+                char[] chars = latin1Chars(length + 1);
+                chars[1 + pos] = 0x100;
+                test("encodeSnippet", chars, 1, 0, length);
+                chars[1 + pos] = 0xFFFF;
+                test("encodeSnippet", chars, 1, 3, length);
+            }
+        }
+    }
+}
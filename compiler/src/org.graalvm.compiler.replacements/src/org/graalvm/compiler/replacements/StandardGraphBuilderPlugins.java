@@ -33,6 +33,7 @@ import static jdk.vm.ci.code.MemoryBarriers.LOAD_STORE;
 import static jdk.vm.ci.code.MemoryBarriers.STORE_LOAD;
 import static jdk.vm.ci.code.MemoryBarriers.STORE_STORE;
 import static org.graalvm.compiler.nodes.NamedLocationIdentity.OFF_HEAP_LOCATION;
+import static org.graalvm.compiler.serviceprovider.GraalServices.JAVA_SPECIFICATION_VERSION;
 import static org.graalvm.compiler.serviceprovider.GraalServices.Java8OrEarlier;
 
 import java.lang.reflect.Array;
@@ -116,6 +117,7 @@ import org.graalvm.compiler.nodes.type.StampTool;
 import org.graalvm.compiler.nodes.util.GraphUtil;
 import org.graalvm.compiler.nodes.virtual.EnsureVirtualizedNode;
 import org.graalvm.compiler.replacements.nodes.ReverseBytesNode;
+import org.graalvm.compiler.replacements.nodes.VectorizedMismatchNode;
 import org.graalvm.compiler.replacements.nodes.VirtualizableInvokeMacroNode;
 import org.graalvm.compiler.replacements.nodes.arithmetic.IntegerAddExactNode;
 import org.graalvm.compiler.replacements.nodes.arithmetic.IntegerAddExactSplitNode;
@@ -339,6 +341,37 @@ public class StandardGraphBuilderPlugins {
         }
     }
 
+    /**
+     * Registers the {@code ArraysSupport.vectorizedMismatch} intrinsic. This must only be called by
+     * architectures that implement {@code LIRGeneratorTool.emitVectorizedMismatch}.
+     */
+    public static void registerArraysSupportPlugins(InvocationPlugins plugins, BytecodeProvider bytecodeProvider) {
+        if (JAVA_SPECIFICATION_VERSION == 9) {
+            registerArraysSupportPlugins(new Registration(plugins, "java.util.ArraysSupport", bytecodeProvider));
+        } else if (JAVA_SPECIFICATION_VERSION >= 10) {
+            registerArraysSupportPlugins(new Registration(plugins, "jdk.internal.util.ArraysSupport", bytecodeProvider));
+        }
+    }
+
+    private static void registerArraysSupportPlugins(Registration r) {
+        r.register6("vectorizedMismatch", Object.class, long.class, Object.class, long.class, int.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode array1, ValueNode offset1, ValueNode array2, ValueNode offset2,
+                            ValueNode length, ValueNode log2ArrayIndexScale) {
+                if (!log2ArrayIndexScale.isJavaConstant()) {
+                    // The element size is a constant in all callers in the JDK.
+                    return false;
+                }
+                int scale = log2ArrayIndexScale.asJavaConstant().asInt();
+                if (scale < 0 || scale > 3) {
+                    return false;
+                }
+                b.addPush(JavaKind.Int, new VectorizedMismatchNode(array1, offset1, array2, offset2, length, scale));
+                return true;
+            }
+        });
+    }
+
     private static void registerUnsafePlugins(InvocationPlugins plugins, BytecodeProvider bytecodeProvider, boolean explicitUnsafeNullChecks) {
         registerUnsafePlugins(new Registration(plugins, Unsafe.class), true, explicitUnsafeNullChecks);
         if (!Java8OrEarlier) {
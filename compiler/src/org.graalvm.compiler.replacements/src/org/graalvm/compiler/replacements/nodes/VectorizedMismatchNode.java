@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.nodes;
+
+import static org.graalvm.compiler.nodeinfo.InputType.Memory;
+import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_1024;
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_1024;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.graph.spi.Canonicalizable;
+import org.graalvm.compiler.graph.spi.CanonicalizerTool;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValueNodeUtil;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
+import org.graalvm.compiler.nodes.memory.MemoryNode;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Finds the first mismatching element of two memory regions, see
+ * {@code ArraysSupport.vectorizedMismatch}. The whole range is compared, so the result is either
+ * the index of the first mismatch or {@code -1}.
+ */
+@NodeInfo(cycles = CYCLES_1024, size = SIZE_1024)
+public final class VectorizedMismatchNode extends FixedWithNextNode implements LIRLowerable, Canonicalizable, MemoryAccess {
+
+    public static final NodeClass<VectorizedMismatchNode> TYPE = NodeClass.create(VectorizedMismatchNode.class);
+
+    /** Log2 of the element size in bytes. */
+    protected final int log2ArrayIndexScale;
+
+    /** One object to compare, {@code null} if {@link #offset1} is an absolute address. */
+    @Input ValueNode array1;
+
+    /** Byte offset of the first element in {@link #array1}. */
+    @Input ValueNode offset1;
+
+    /** The other object to compare, {@code null} if {@link #offset2} is an absolute address. */
+    @Input ValueNode array2;
+
+    /** Byte offset of the first element in {@link #array2}. */
+    @Input ValueNode offset2;
+
+    /** Number of elements to compare. */
+    @Input ValueNode length;
+
+    @OptionalInput(Memory) MemoryNode lastLocationAccess;
+
+    public VectorizedMismatchNode(ValueNode array1, ValueNode offset1, ValueNode array2, ValueNode offset2, ValueNode length, int log2ArrayIndexScale) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        this.log2ArrayIndexScale = log2ArrayIndexScale;
+        this.array1 = array1;
+        this.offset1 = offset1;
+        this.array2 = array2;
+        this.offset2 = offset2;
+        this.length = length;
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (tool.allUsagesAvailable() && hasNoUsages()) {
+            return null;
+        }
+        if (length.isConstant() && length.asJavaConstant().asInt() == 0) {
+            return ConstantNode.forInt(-1);
+        }
+        if (GraphUtil.unproxify(array1) == GraphUtil.unproxify(array2) && offset1 == offset2) {
+            // the same memory always has the same contents
+            return ConstantNode.forInt(-1);
+        }
+        return this;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitVectorizedMismatch(gen.operand(array1), gen.operand(offset1), gen.operand(array2), gen.operand(offset2), gen.operand(length),
+                        log2ArrayIndexScale);
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        // The regions can be arrays of any kind or off-heap memory.
+        return LocationIdentity.any();
+    }
+
+    @Override
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
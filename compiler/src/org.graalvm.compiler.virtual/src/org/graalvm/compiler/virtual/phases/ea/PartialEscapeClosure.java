@@ -34,6 +34,7 @@ import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.EconomicSet;
 import org.graalvm.collections.Equivalence;
 import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.common.cfg.AbstractControlFlowGraph;
 import org.graalvm.compiler.core.common.cfg.Loop;
 import org.graalvm.compiler.core.common.spi.ConstantFieldProvider;
 import org.graalvm.compiler.core.common.type.Stamp;
@@ -87,6 +88,8 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
     public static final CounterKey COUNTER_MATERIALIZATIONS_UNHANDLED = DebugContext.counter("MaterializationsUnhandled");
     public static final CounterKey COUNTER_MATERIALIZATIONS_LOOP_REITERATION = DebugContext.counter("MaterializationsLoopReiteration");
     public static final CounterKey COUNTER_MATERIALIZATIONS_LOOP_END = DebugContext.counter("MaterializationsLoopEnd");
+    public static final CounterKey COUNTER_MATERIALIZATIONS_LOOP_PHI = DebugContext.counter("MaterializationsLoopPhi");
+    public static final CounterKey COUNTER_LOOP_CARRIED_ALLOCATIONS = DebugContext.counter("LoopCarriedAllocationsVirtualized");
     public static final CounterKey COUNTER_ALLOCATION_REMOVED = DebugContext.counter("AllocationsRemoved");
     public static final CounterKey COUNTER_MEMORYCHECKPOINT = DebugContext.counter("MemoryCheckpoint");
 
@@ -596,11 +599,13 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         private EconomicMap<ValueNode, ValuePhiNode[]> valuePhis;
         private EconomicMap<ValuePhiNode, VirtualObjectNode> valueObjectVirtuals;
         private final boolean needsCaching;
+        private final Loop<Block> loop;
 
         public MergeProcessor(Block mergeBlock) {
             super(mergeBlock);
             // merge will only be called multiple times for loop headers
             needsCaching = mergeBlock.isLoopHeader();
+            loop = mergeBlock.isLoopHeader() ? mergeBlock.getLoop() : null;
         }
 
         protected <T> PhiNode getPhi(T virtual, Stamp stamp) {
@@ -1020,6 +1025,7 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
                             break;
                         }
                     }
+                    int loopCarried = 0;
                     if (compatible) {
                         for (int i = 0; i < states.length; i++) {
                             VirtualObjectNode virtual = virtualObjs[i];
@@ -1028,11 +1034,16 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
                              * this allocation
                              */
                             if (virtual.hasIdentity() && !isSingleUsageAllocation(getPhiValueAt(phi, i), virtualObjs, states[i])) {
-                                compatible = false;
+                                if (isLoopCarriedAllocation(phi, i, virtualObjs, states[i])) {
+                                    loopCarried++;
+                                } else {
+                                    compatible = false;
+                                }
                             }
                         }
                     }
                     if (compatible) {
+                        COUNTER_LOOP_CARRIED_ALLOCATIONS.add(debug, loopCarried);
                         VirtualObjectNode virtual = getValueObjectVirtual(phi, virtualObjs[0]);
                         mergeEffects.addFloatingNode(virtual, "valueObjectNode");
                         mergeEffects.deleteNode(phi);
@@ -1065,7 +1076,8 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
                             // we can materialize if not all inputs are "ensureVirtualized"
                             states[i].getObjectState(virtual).setEnsureVirtualized(false);
                         }
-                        materialized |= ensureMaterialized(states[i], virtual.getObjectId(), predecessor.getEndNode(), blockEffects.get(predecessor), COUNTER_MATERIALIZATIONS_PHI);
+                        materialized |= ensureMaterialized(states[i], virtual.getObjectId(), predecessor.getEndNode(), blockEffects.get(predecessor),
+                                        loop != null ? COUNTER_MATERIALIZATIONS_LOOP_PHI : COUNTER_MATERIALIZATIONS_PHI);
                     }
                 }
             }
@@ -1088,7 +1100,63 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
             if (!(value instanceof AllocatedObjectNode && value.hasExactlyOneUsage())) {
                 return false;
             }
+            return referencesSingleVirtual(virtualObjs, state);
+        }
+
+        /**
+         * Checks whether the {@code index}th input of a loop phi is an allocation whose only
+         * reference that survives the loop header is the phi itself. For a back edge input this
+         * is an object allocated in the loop body that is otherwise only referenced by frame
+         * states within the loop, which belong to the iteration that allocated it. For the loop
+         * entry input it is an object allocated before the loop whose frame state usages are not
+         * dominated by the loop header. Merging such allocations into one virtual object cannot
+         * make two distinct objects look identical.
+         */
+        private boolean isLoopCarriedAllocation(ValuePhiNode phi, int index, VirtualObjectNode[] virtualObjs, PartialEscapeBlockState<?> state) {
+            if (loop == null || !GraalOptions.EscapeAnalysisLoopCarriedAllocations.getValue(cfg.graph.getOptions())) {
+                return false;
+            }
+            ValueNode value = getPhiValueAt(phi, index);
+            FixedNode allocation;
+            if (value instanceof AllocatedObjectNode) {
+                allocation = ((AllocatedObjectNode) value).getCommit();
+            } else if (value instanceof VirtualizableAllocation && value instanceof FixedNode) {
+                allocation = (FixedNode) value;
+            } else {
+                return false;
+            }
+            boolean backEdge = isInLoop(getPredecessor(index), loop);
+            Block allocationBlock = allocation == null ? null : cfg.blockFor(allocation);
+            if (allocationBlock == null || isInLoop(allocationBlock, loop) != backEdge) {
+                return false;
+            }
+            for (Node usage : value.usages()) {
+                if (usage != phi && !(usage instanceof FrameState && isFrameStateBeforePhi((FrameState) usage, backEdge))) {
+                    return false;
+                }
+            }
+            return referencesSingleVirtual(virtualObjs, state);
+        }
+
+        private boolean isFrameStateBeforePhi(FrameState frameState, boolean backEdge) {
+            for (Node usage : frameState.usages()) {
+                if (usage instanceof FrameState) {
+                    if (!isFrameStateBeforePhi((FrameState) usage, backEdge)) {
+                        return false;
+                    }
+                } else if (usage instanceof FixedNode) {
+                    Block block = cfg.blockFor(usage);
+                    if (block == null || (backEdge ? !isInLoop(block, loop) : AbstractControlFlowGraph.dominates(loop.getHeader(), block))) {
+                        return false;
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
 
+        private boolean referencesSingleVirtual(VirtualObjectNode[] virtualObjs, PartialEscapeBlockState<?> state) {
             /*
              * Check that the state only references the one virtual object from the Phi.
              */
@@ -1109,6 +1177,17 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         }
     }
 
+    private static boolean isInLoop(Block block, Loop<Block> loop) {
+        if (block != null) {
+            for (Loop<Block> l = block.getLoop(); l != null; l = l.getParent()) {
+                if (l == loop) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public ObjectState getObjectState(PartialEscapeBlockState<?> state, ValueNode value) {
         if (value == null) {
             return null;
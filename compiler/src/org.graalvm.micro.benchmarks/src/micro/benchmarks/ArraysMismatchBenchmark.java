@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks buffer comparisons, which are implemented with
+ * {@code ArraysSupport.vectorizedMismatch} on JDK 9 and later. Run the benchmark with Graal and
+ * with C2 as the top tier compiler to compare the two intrinsics.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArraysMismatchBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"16", "256", "4096"}) int size;
+
+        ByteBuffer bytes1;
+        ByteBuffer bytes2;
+        ByteBuffer directBytes1;
+        ByteBuffer directBytes2;
+        CharBuffer chars1;
+        CharBuffer chars2;
+        LongBuffer longs1;
+        LongBuffer longs2;
+
+        @Setup
+        public void setup() {
+            bytes1 = ByteBuffer.allocate(size);
+            bytes2 = ByteBuffer.allocate(size);
+            directBytes1 = ByteBuffer.allocateDirect(size);
+            directBytes2 = ByteBuffer.allocateDirect(size);
+            chars1 = CharBuffer.allocate(size);
+            chars2 = CharBuffer.allocate(size);
+            longs1 = LongBuffer.allocate(size);
+            longs2 = LongBuffer.allocate(size);
+            for (int i = 0; i < size; i++) {
+                bytes1.put(i, (byte) i);
+                bytes2.put(i, (byte) i);
+                directBytes1.put(i, (byte) i);
+                directBytes2.put(i, (byte) i);
+                chars1.put(i, (char) i);
+                chars2.put(i, (char) i);
+                longs1.put(i, i);
+                longs2.put(i, i);
+            }
+            // Only the last element differs, so the whole range has to be compared.
+            bytes2.put(size - 1, (byte) -1);
+            directBytes2.put(size - 1, (byte) -1);
+            chars2.put(size - 1, (char) -1);
+            longs2.put(size - 1, -1);
+        }
+    }
+
+    @Benchmark
+    public int byteBufferCompareTo(BenchState state) {
+        return state.bytes1.compareTo(state.bytes2);
+    }
+
+    @Benchmark
+    public boolean byteBufferEquals(BenchState state) {
+        return state.bytes1.equals(state.bytes2);
+    }
+
+    @Benchmark
+    public int directByteBufferCompareTo(BenchState state) {
+        return state.directBytes1.compareTo(state.directBytes2);
+    }
+
+    @Benchmark
+    public int charBufferCompareTo(BenchState state) {
+        return state.chars1.compareTo(state.chars2);
+    }
+
+    @Benchmark
+    public int longBufferCompareTo(BenchState state) {
+        return state.longs1.compareTo(state.longs2);
+    }
+}
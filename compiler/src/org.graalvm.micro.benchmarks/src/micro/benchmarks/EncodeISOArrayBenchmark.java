@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks ISO-8859-1 encoding of heap char buffers, which ends up in
+ * {@code ISO_8859_1.Encoder.encodeISOArray} ({@code implEncodeISOArray} on JDK 9 and later).
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EncodeISOArrayBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"16", "256", "4096"}) int size;
+
+        CharsetEncoder encoder;
+        CharBuffer chars;
+        ByteBuffer bytes;
+
+        @Setup
+        public void setup() {
+            encoder = StandardCharsets.ISO_8859_1.newEncoder();
+            chars = CharBuffer.allocate(size);
+            bytes = ByteBuffer.allocate(size);
+            for (int i = 0; i < size; i++) {
+                chars.put(i, (char) (i & 0xFF));
+            }
+        }
+    }
+
+    @Benchmark
+    public CoderResult encode(BenchState state) {
+        state.chars.clear();
+        state.bytes.clear();
+        state.encoder.reset();
+        return state.encoder.encode(state.chars, state.bytes, true);
+    }
+}
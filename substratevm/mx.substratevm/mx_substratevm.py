@@ -574,6 +574,14 @@ def svm_gate_body(args, tasks):
             if t:
                 native_junit(native_image)
 
+        with Task('native unittests with concurrent old generation marking', tasks, tags=[GraalTags.test]) as t:
+            if t:
+                # Collect often and only incrementally, unless requested, and start a marking cycle after every collection
+                native_junit(native_image, ['com.oracle.svm.test.ConcurrentMarkingTest'],
+                             ['-H:+UseConcurrentOldGenerationMarking', '-R:ConcurrentMarkingInitiatingOccupancyPercent=0',
+                              '-H:InitialCollectionPolicy=com.oracle.svm.core.genscavenge.CollectionPolicy$OnlyIncrementally'],
+                             ['--verbose', '-Xmn4m'])
+
         with Task('JavaScript', tasks, tags=[GraalTags.js]) as t:
             if t:
                 js = build_js(native_image, debug_gr_8964=debug_gr_8964)
@@ -177,6 +177,18 @@ suite = {
             "workingSets": "SVM",
         },
 
+        "com.oracle.svm.hosted.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.svm.hosted",
+                "mx:JUNIT",
+            ],
+            "checkstyle": "com.oracle.svm.hosted",
+            "javaCompliance": "8+",
+            "workingSets": "SVM",
+        },
+
         "com.oracle.svm.native": {
             "subDir": "src",
             "native": True,
@@ -256,6 +268,7 @@ suite = {
             "dependencies": [
                 "mx:JUNIT_TOOL",
                 "sdk:GRAAL_SDK",
+                "com.oracle.svm.core.genscavenge",
             ],
             "checkstyle": "com.oracle.svm.core",
             "workingSets": "SVM",
@@ -631,6 +644,21 @@ suite = {
           "distDependencies": [
             "mx:JUNIT_TOOL",
             "sdk:GRAAL_SDK",
+            "SVM_CORE",
+          ],
+          "testDistribution" : True,
+        },
+
+        "SVM_HOSTED_TESTS" : {
+          "subDir" : "src",
+          "dependencies" : [
+            "com.oracle.svm.hosted.test",
+          ],
+          "distDependencies": [
+            "SVM",
+          ],
+          "exclude": [
+            "mx:JUNIT",
           ],
           "testDistribution" : True,
         },
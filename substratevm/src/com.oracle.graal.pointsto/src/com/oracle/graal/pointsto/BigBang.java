@@ -77,6 +77,7 @@ import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.graal.pointsto.meta.HostedProviders;
 import com.oracle.graal.pointsto.typestate.PointsToStats;
 import com.oracle.graal.pointsto.typestate.TypeState;
+import com.oracle.graal.pointsto.typestate.TypeStateInterner;
 import com.oracle.graal.pointsto.util.CompletionExecutor;
 import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
 import com.oracle.graal.pointsto.util.Timer;
@@ -122,6 +123,8 @@ public abstract class BigBang {
     public final Timer typeFlowTimer;
     public final Timer checkObjectsTimer;
 
+    private final TypeStateInterner typeStateInterner;
+
     public BigBang(OptionValues options, AnalysisUniverse universe, HostedProviders providers, HostVM hostVM, ForkJoinPool executorService,
                     UnsupportedFeatures unsupportedFeatures) {
         this.options = options;
@@ -148,6 +151,7 @@ public abstract class BigBang {
         unknownTypeFlow = new UnknownTypeFlow();
 
         trackTypeFlowInputs = PointstoOptions.TrackInputFlows.getValue(options);
+        typeStateInterner = PointstoOptions.InternTypeStates.getValue(options) ? new TypeStateInterner() : null;
         reportAnalysisStatistics = PointstoOptions.ReportAnalysisStatistics.getValue(options);
         if (reportAnalysisStatistics) {
             PointsToStats.init(this);
@@ -169,6 +173,11 @@ public abstract class BigBang {
         return reportAnalysisStatistics;
     }
 
+    /** The interner shared by all type states, or null if type states are not interned. */
+    public TypeStateInterner getTypeStateInterner() {
+        return typeStateInterner;
+    }
+
     public OptionValues getOptions() {
         return options;
     }
@@ -548,6 +557,7 @@ public abstract class BigBang {
                     didSomeWork |= (executor.getPostedOperations() > 0);
                     executor.shutdown();
                 }
+                PointsToStats.registerMemoryUsage(this);
                 /* Initialize for the next iteration. */
                 executor.init(timing);
 
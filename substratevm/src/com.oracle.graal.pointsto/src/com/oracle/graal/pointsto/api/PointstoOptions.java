@@ -98,6 +98,9 @@ public class PointstoOptions {
     @Option(help = "Report analysis statistics.")//
     public static final OptionKey<Boolean> ReportAnalysisStatistics = new OptionKey<>(false);
 
+    @Option(help = "Share the objects arrays and types bit sets of equal type states to reduce the memory footprint of the analysis.")//
+    public static final OptionKey<Boolean> InternTypeStates = new OptionKey<>(false);
+
     @Option(help = "Path to the contents of the Inspect web server.")//
     public static final OptionKey<String> InspectServerContentPath = new OptionKey<>("inspect");
 
@@ -634,6 +634,16 @@ public class AnalysisType implements WrappedJavaType, OriginalClassProvider, Com
         return isInHeap || isAllocated;
     }
 
+    /** Returns true if the type is allocated by a reachable method. */
+    public boolean isAllocated() {
+        return isAllocated;
+    }
+
+    /** Returns true if an object of the type is in the image heap. */
+    public boolean isInHeap() {
+        return isInHeap;
+    }
+
     /**
      * Returns true if all instance fields which hold offsets to unsafe field accesses are already
      * recomputed with the correct values from the substrate object layout. Which means that those
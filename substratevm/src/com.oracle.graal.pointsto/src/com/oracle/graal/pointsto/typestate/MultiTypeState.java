@@ -58,7 +58,6 @@ public class MultiTypeState extends TypeState {
     MultiTypeState(BigBang bb, boolean canBeNull, int properties, BitSet typesBitSet, AnalysisObject... objects) {
         super(properties);
         this.bigbang = bb;
-        this.objects = objects;
         /*
          * Trim the typesBitSet to size eagerly. The typesBitSet is effectively immutable, i.e., no
          * calls to mutating methods are made on it after it is set in the MultiTypeState, thus we
@@ -72,8 +71,15 @@ public class MultiTypeState extends TypeState {
          * another thread calls clone() the words[] array can be in an inconsistent state.
          */
         TypeStateUtils.trimBitSetToSize(typesBitSet);
-        this.typesBitSet = typesBitSet;
-        long cardinality = typesBitSet.cardinality();
+        TypeStateInterner interner = bb.getTypeStateInterner();
+        if (interner != null) {
+            this.objects = interner.intern(objects);
+            this.typesBitSet = interner.intern(typesBitSet);
+        } else {
+            this.objects = objects;
+            this.typesBitSet = typesBitSet;
+        }
+        long cardinality = this.typesBitSet.cardinality();
         assert cardinality < Integer.MAX_VALUE : "We don't expect so much types.";
         this.typesCount = (int) cardinality;
         this.canBeNull = canBeNull;
@@ -27,6 +27,10 @@ package com.oracle.graal.pointsto.typestate;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -105,7 +109,7 @@ public class PointsToStats {
         reportStatistics = bb.reportAnalysisStatistics();
     }
 
-    public static void report(@SuppressWarnings("unused") BigBang bb, String reportNameRoot) {
+    public static void report(BigBang bb, String reportNameRoot) {
 
         try {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
@@ -116,6 +120,7 @@ public class PointsToStats {
             doReport(statsDirectory, reportNameRoot, "union operation stats", timeStamp, PointsToStats::reportUnionOpertationsStats);
             doReport(statsDirectory, reportNameRoot, "type flow stats", timeStamp, PointsToStats::reportTypeFlowStats);
             doReport(statsDirectory, reportNameRoot, "pruned type flow stats", timeStamp, PointsToStats::reportPrunedTypeFlows);
+            doReport(statsDirectory, reportNameRoot, "memory stats", timeStamp, out -> reportMemoryStats(bb, out));
 
         } catch (IOException e) {
             throw JVMCIError.shouldNotReachHere(e);
@@ -138,6 +143,55 @@ public class PointsToStats {
 
     }
 
+    // memory usage
+
+    private static List<long[]> memorySamples = new ArrayList<>();
+    private static long peakUsedMemory;
+    private static long peakLiveMemory;
+
+    /**
+     * Samples the heap usage of the analysis. This is called after every round of the analysis,
+     * so the peak is only an approximation, but the samples show how the memory grows with the
+     * rounds. The live memory is the usage after the last garbage collection.
+     */
+    public static void registerMemoryUsage(BigBang bb) {
+        if (!bb.reportAnalysisStatistics()) {
+            return;
+        }
+
+        long used = 0;
+        long live = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+                MemoryUsage collectionUsage = pool.getCollectionUsage();
+                live += collectionUsage != null ? collectionUsage.getUsed() : pool.getUsage().getUsed();
+            }
+        }
+        memorySamples.add(new long[]{bb.numParsedGraphs.get(), used, live});
+        peakUsedMemory = Math.max(peakUsedMemory, used);
+        peakLiveMemory = Math.max(peakLiveMemory, live);
+    }
+
+    private static void reportMemoryStats(BigBang bb, BufferedWriter out) {
+        doWrite(out, String.format("%-35s\t%10d%n", "Peak used memory (bytes)", peakUsedMemory));
+        doWrite(out, String.format("%-35s\t%10d%n", "Peak live memory (bytes)", peakLiveMemory));
+
+        TypeStateInterner interner = bb.getTypeStateInterner();
+        if (interner != null) {
+            doWrite(out, String.format("%-35s\t%10d%n", "Interned objects arrays hits", interner.getObjectArrayHits()));
+            doWrite(out, String.format("%-35s\t%10d%n", "Interned objects arrays misses", interner.getObjectArrayMisses()));
+            doWrite(out, String.format("%-35s\t%10d%n", "Interned types bit sets hits", interner.getBitSetHits()));
+            doWrite(out, String.format("%-35s\t%10d%n", "Interned types bit sets misses", interner.getBitSetMisses()));
+        }
+
+        doWrite(out, String.format("%n%10s\t%10s\t%15s\t%15s%n", "Round", "Graphs#", "Used", "Live"));
+        for (int i = 0; i < memorySamples.size(); i++) {
+            long[] sample = memorySamples.get(i);
+            doWrite(out, String.format("%10d\t%10d\t%15d\t%15d%n", i, sample[0], sample[1], sample[2]));
+        }
+    }
+
     private static List<TypeFlowBuilder<?>> typeFlowBuilders = new ArrayList<>();
 
     public static void registerTypeFlowBuilder(BigBang bb, TypeFlowBuilder<?> builder) {
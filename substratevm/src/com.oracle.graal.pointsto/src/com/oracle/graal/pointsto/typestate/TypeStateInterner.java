@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.typestate;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+import com.oracle.graal.pointsto.flow.context.object.AnalysisObject;
+
+/**
+ * Hash-conses the two large parts of a {@link MultiTypeState}, the objects array and the types bit
+ * set, so that all type states with equal content share them. With a context sensitive analysis
+ * many flows end up with the same type state, and many type states with the same types bit set,
+ * so this is where most of the type state memory goes. Sharing the objects array also makes the
+ * identity fast path in the union operation succeed more often.
+ *
+ * The tables only reference their values weakly. Type states are replaced whenever a flow grows,
+ * and the intermediate states must still be garbage collected.
+ */
+public final class TypeStateInterner {
+
+    private final Table<AnalysisObject[]> objectArrays = new Table<>(Arrays::hashCode, Arrays::equals);
+    private final Table<BitSet> bitSets = new Table<>(BitSet::hashCode, BitSet::equals);
+
+    AnalysisObject[] intern(AnalysisObject[] objects) {
+        return objectArrays.intern(objects);
+    }
+
+    /** The bit set must be trimmed to size already, see {@link MultiTypeState}. */
+    BitSet intern(BitSet typesBitSet) {
+        return bitSets.intern(typesBitSet);
+    }
+
+    long getObjectArrayHits() {
+        return objectArrays.hits.get();
+    }
+
+    long getObjectArrayMisses() {
+        return objectArrays.misses.get();
+    }
+
+    long getBitSetHits() {
+        return bitSets.hits.get();
+    }
+
+    long getBitSetMisses() {
+        return bitSets.misses.get();
+    }
+
+    private static final class Table<T> {
+        private final ConcurrentHashMap<Entry<T>, Entry<T>> map = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        private final ToIntFunction<T> hashFunction;
+        private final BiPredicate<T, T> equality;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        Table(ToIntFunction<T> hashFunction, BiPredicate<T, T> equality) {
+            this.hashFunction = hashFunction;
+            this.equality = equality;
+        }
+
+        T intern(T value) {
+            expungeStaleEntries();
+            Entry<T> entry = new Entry<>(value, hashFunction.applyAsInt(value), this);
+            while (true) {
+                Entry<T> existing = map.putIfAbsent(entry, entry);
+                if (existing == null) {
+                    misses.incrementAndGet();
+                    return value;
+                }
+                T existingValue = existing.get();
+                if (existingValue != null) {
+                    hits.incrementAndGet();
+                    return existingValue;
+                }
+                /* The existing value was just collected, so I replace its entry. */
+                map.remove(existing, existing);
+            }
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends T> ref;
+            while ((ref = queue.poll()) != null) {
+                map.remove(ref, ref);
+            }
+        }
+    }
+
+    /**
+     * A weak table entry. Entries are equal if their values are equal according to the table's
+     * equality. Once the value is collected, an entry is only equal to itself so that it can still
+     * be removed.
+     */
+    private static final class Entry<T> extends WeakReference<T> {
+        private final int hash;
+        private final Table<T> table;
+
+        Entry(T value, int hash, Table<T> table) {
+            super(value, table.queue);
+            this.hash = hash;
+            this.table = table;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry<T> other = (Entry<T>) obj;
+            if (hash != other.hash) {
+                return false;
+            }
+            T value = get();
+            T otherValue = other.get();
+            return value != null && otherValue != null && table.equality.test(value, otherValue);
+        }
+    }
+}
@@ -24,6 +24,9 @@
  */
 package com.oracle.graal.pointsto.util;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
 import org.graalvm.compiler.serviceprovider.GraalServices;
 
 public class Timer {
@@ -34,6 +37,8 @@ public class Timer {
     private final boolean autoPrint;
     private long startTime;
     private long totalTime;
+    private long startCpuTime;
+    private long totalCpuTime;
 
     public Timer(String name) {
         this(null, name, true);
@@ -61,14 +66,38 @@ public class Timer {
         this.prefix = value;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    /** The accumulated wall clock time of all {@link #start()}/{@link #stop()} pairs, in ns. */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * The accumulated CPU time of the whole process, i.e., of all threads and not only the one
+     * that started the timer, in ns. This is -1 if the platform cannot report the CPU time.
+     */
+    public long getTotalCpuTime() {
+        return totalCpuTime;
+    }
+
     public StopTimer start() {
         startTime = System.nanoTime();
+        startCpuTime = processCpuTime();
         return new StopTimer();
     }
 
     public void stop() {
         long addTime = System.nanoTime() - startTime;
         totalTime += addTime;
+        long endCpuTime = processCpuTime();
+        if (startCpuTime < 0 || endCpuTime < 0 || totalCpuTime < 0) {
+            totalCpuTime = -1;
+        } else {
+            totalCpuTime += endCpuTime - startCpuTime;
+        }
         if (autoPrint) {
             print(addTime);
         }
@@ -88,6 +117,14 @@ public class Timer {
         print(totalTime);
     }
 
+    private static long processCpuTime() {
+        OperatingSystemMXBean osMXBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osMXBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osMXBean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
     public class StopTimer implements AutoCloseable {
 
         @Override
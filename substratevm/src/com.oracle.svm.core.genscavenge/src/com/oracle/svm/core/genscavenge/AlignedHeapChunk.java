@@ -30,6 +30,7 @@ import org.graalvm.nativeimage.Feature;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.struct.RawField;
 import org.graalvm.nativeimage.c.struct.RawStructure;
 import org.graalvm.nativeimage.c.struct.SizeOf;
 import org.graalvm.word.Pointer;
@@ -39,6 +40,7 @@ import org.graalvm.word.WordFactory;
 import com.oracle.svm.core.MemoryWalker;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.RestrictHeapAccess;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.heap.ObjectVisitor;
@@ -71,17 +73,21 @@ import com.oracle.svm.core.util.UnsignedUtils;
  * An AlignedHeapChunk is laid out:
  *
  * <pre>
- * +===============+-------+--------+----------------------+
- * | AlignedHeader | Card  | First  | Object ...           |
- * | Fields        | Table | Object |                      |
- * |               |       | Table  |                      |
- * +===============+-------+--------+----------------------+
+ * +===============+-------+--------+--------+----------------------+
+ * | AlignedHeader | Card  | First  | Mark   | Object ...           |
+ * | Fields        | Table | Object | Bitmap |                      |
+ * |               |       | Table  |        |                      |
+ * +===============+-------+--------+--------+----------------------+
  * </pre>
  *
  * The HeapChunk fields can be accessed via methods from HeapChunk, or more type-specifically via
  * methods defined here. But the CardTable and the FirstObjectTable and the start of the Objects are
  * just computed addresses. The two tables each need 1/512th of the size of the space for Objects,
  * so I conservatively compute them as 1/512th of the size of the chunk.
+ * <p>
+ * The mark bitmap has one bit for each object-alignment unit of the chunk, and is used by
+ * {@link ConcurrentMarking}. If {@link HeapOptions#UseConcurrentOldGenerationMarking} is not set,
+ * the mark bitmap is empty.
  */
 public class AlignedHeapChunk extends HeapChunk {
 
@@ -93,6 +99,16 @@ public class AlignedHeapChunk extends HeapChunk {
      */
     @RawStructure
     public interface AlignedHeader extends HeapChunk.Header<AlignedHeader> {
+
+        /**
+         * The NUMA node whose memory was preferred for this chunk, or -1 if unknown. Immutable
+         * once the chunk has been produced by the {@link HeapChunkProvider}.
+         */
+        @RawField
+        int getNumaNode();
+
+        @RawField
+        void setNumaNode(int node);
     }
 
     /*
@@ -118,9 +134,14 @@ public class AlignedHeapChunk extends HeapChunk {
         return asPointer(that).add(getFirstObjectTableLimitOffset());
     }
 
+    /** Where is the start of the mark bitmap? */
+    static Pointer getMarkBitmapStart(AlignedHeader that) {
+        return asPointer(that).add(getMarkBitmapStartOffset());
+    }
+
     /** Where is the start of the Objects? */
     static Pointer getObjectsStart(AlignedHeader that) {
-        /* The objects start at the limit of the first object table. */
+        /* The objects start at the limit of the mark bitmap. */
         return asPointer(that).add(getObjectsStartOffset());
     }
 
@@ -278,6 +299,57 @@ public class AlignedHeapChunk extends HeapChunk {
         return CardTable.memoryOffsetToIndex(offset);
     }
 
+    /*
+     * Mark bitmap methods.
+     *
+     * These are called from the concurrent marker thread as well as from the collector, so they
+     * are uninterruptible and do not check that they are in a VMOperation.
+     */
+
+    /** Is the object at the given Pointer marked? */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean isMarkedObjectOfAlignedHeapChunk(AlignedHeader that, Pointer objectPointer) {
+        final UnsignedWord bitIndex = getMarkBitIndex(that, objectPointer);
+        final Pointer bytePointer = ((Pointer) that).add(getMarkBitmapStartOffset()).add(bitIndex.unsignedShiftRight(3));
+        final int mask = 1 << (int) bitIndex.and(7).rawValue();
+        return (bytePointer.readByte(0) & mask) != 0;
+    }
+
+    /**
+     * Mark the object at the given Pointer.
+     *
+     * @return true if the object was not already marked, false otherwise.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean setMarkedObjectOfAlignedHeapChunk(AlignedHeader that, Pointer objectPointer) {
+        final UnsignedWord bitIndex = getMarkBitIndex(that, objectPointer);
+        final Pointer bytePointer = ((Pointer) that).add(getMarkBitmapStartOffset()).add(bitIndex.unsignedShiftRight(3));
+        final int mask = 1 << (int) bitIndex.and(7).rawValue();
+        final int oldByte = bytePointer.readByte(0);
+        if ((oldByte & mask) != 0) {
+            return false;
+        }
+        /* Only the marker thread or the collector sets mark bits, so a plain store is enough. */
+        bytePointer.writeByte(0, (byte) (oldByte | mask));
+        return true;
+    }
+
+    /** Clear the mark bits for the objects below the current top of the chunk. */
+    static void clearMarkBitmapOfAlignedHeapChunk(AlignedHeader that) {
+        final Pointer bitmapStart = getMarkBitmapStart(that);
+        final UnsignedWord usedBits = usedObjectMemoryOfAlignedHeapChunk(that).unsignedDivide(ConfigurationValues.getObjectLayout().getAlignment());
+        final Pointer bitmapLimit = bitmapStart.add(usedBits.add(7).unsignedShiftRight(3));
+        for (Pointer p = bitmapStart; p.belowThan(bitmapLimit); p = p.add(1)) {
+            p.writeByte(0, (byte) 0);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord getMarkBitIndex(AlignedHeader that, Pointer objectPointer) {
+        final UnsignedWord offset = objectPointer.subtract(((Pointer) that).add(getObjectsStartOffset()));
+        return offset.unsignedDivide(ConfigurationValues.getObjectLayout().getAlignment());
+    }
+
     /** Walk the objects in the given chunk, starting from the first object. */
     static boolean walkObjectsOfAlignedHeapChunk(AlignedHeader that, ObjectVisitor visitor) {
         return walkObjectsFrom(that, getAlignedHeapChunkStart(that), visitor);
@@ -355,12 +427,46 @@ public class AlignedHeapChunk extends HeapChunk {
         return UnsignedUtils.roundUp(fotLimit, alignment);
     }
 
+    /** Where does the mark bitmap start? */
+    @Fold
+    static UnsignedWord getMarkBitmapStartOffset() {
+        /* The mark bitmap starts at the end of the first object table. */
+        final UnsignedWord fotLimit = getFirstObjectTableLimitOffset();
+        final UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
+        return UnsignedUtils.roundUp(fotLimit, alignment);
+    }
+
+    /** How big is the mark bitmap? */
+    @Fold
+    static UnsignedWord getMarkBitmapSize() {
+        if (!HeapOptions.UseConcurrentOldGenerationMarking.getValue()) {
+            return WordFactory.zero();
+        }
+        /* How much space is there in the chunk? */
+        final UnsignedWord headerSize = getHeaderSize();
+        final UnsignedWord available = HeapPolicy.getAlignedHeapChunkSize().subtract(headerSize);
+        /* One bit for each object alignment unit. */
+        final UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
+        final UnsignedWord requiredBits = available.unsignedDivide(alignment);
+        final UnsignedWord requiredSize = UnsignedUtils.roundUp(requiredBits, WordFactory.unsigned(8)).unsignedDivide(8);
+        return UnsignedUtils.roundUp(requiredSize, alignment);
+    }
+
+    /** What is the limit of the mark bitmap? */
+    @Fold
+    static UnsignedWord getMarkBitmapLimitOffset() {
+        final UnsignedWord bitmapStart = getMarkBitmapStartOffset();
+        final UnsignedWord bitmapLimit = bitmapStart.add(getMarkBitmapSize());
+        final UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
+        return UnsignedUtils.roundUp(bitmapLimit, alignment);
+    }
+
     /** Where do the objects start? */
     @Fold
     static UnsignedWord getObjectsStartOffset() {
-        final UnsignedWord fotLimit = getFirstObjectTableLimitOffset();
+        final UnsignedWord bitmapLimit = getMarkBitmapLimitOffset();
         final UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
-        final UnsignedWord result = UnsignedUtils.roundUp(fotLimit, alignment);
+        final UnsignedWord result = UnsignedUtils.roundUp(bitmapLimit, alignment);
         return result;
     }
 
@@ -0,0 +1,1182 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.UnmanagedMemory;
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.GCImpl.Timer;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.heap.DiscoverableReference;
+import com.oracle.svm.core.heap.FramePointerMapWalker;
+import com.oracle.svm.core.heap.NativeImageInfo;
+import com.oracle.svm.core.heap.ObjectHeader;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
+import com.oracle.svm.core.heap.ObjectVisitor;
+import com.oracle.svm.core.heap.ReferenceAccess;
+import com.oracle.svm.core.heap.ReferenceMapDecoder;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.DynamicHubSupport;
+import com.oracle.svm.core.hub.InteriorObjRefWalker;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
+import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalWord;
+import com.oracle.svm.core.util.PointerUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * Mostly-concurrent marking of the old generation, so that unreachable old objects can be found
+ * without copying the whole old generation in a complete collection.
+ * <p>
+ * A marking cycle goes through these phases:
+ * <ol>
+ * <li>Initial mark: At the end of an incremental collection, when the young generation is empty and
+ * the old generation occupies more than
+ * {@link HeapOptions#ConcurrentMarkingInitiatingOccupancyPercent} of the maximum heap size, I
+ * record the top of each chunk of the old generation (the "top at mark start", see
+ * {@link HeapChunk.Header#getTopAtMarkStart()}), mark the objects referenced from the roots, and
+ * turn on the snapshot-at-the-beginning (SATB) pre-write barrier.</li>
+ * <li>Concurrent mark: A marker thread traces from the marked objects while the mutator runs. The
+ * pre-write barrier logs every object reference that is overwritten, so that any object reachable
+ * at the start of the cycle is found, even if the mutator disconnects it in the meantime.</li>
+ * <li>Remark: At the start of the next collection, I drain the logged references and finish the
+ * tracing. No roots have to be rescanned.</li>
+ * <li>Sweep: Aligned chunks without marked objects, and unaligned chunks whose object is not
+ * marked, are returned to the {@link HeapChunkProvider}. In the remaining chunks, I clear the
+ * object references in the unmarked objects, so that no dead object refers into a released
+ * chunk.</li>
+ * </ol>
+ * Objects at or above the top at mark start of their chunk, and objects in chunks that were not in
+ * the old generation when the cycle started, are implicitly live.
+ * <p>
+ * Marking does not move objects, so it does not compact the old generation. A complete collection
+ * still does that, and it aborts any marking cycle in progress. The referents of
+ * {@link DiscoverableReference}s are treated as strong while marking.
+ * <p>
+ * The pre-write barrier is in every reference write, including the writes in uninterruptible code,
+ * so its slow path neither allocates nor reaches a safepoint: the initial mark preallocates a pool
+ * of SATB buffers, and when the pool runs dry the overwritten reference cannot be logged, so the
+ * cycle is aborted at the next collection.
+ * <p>
+ * Without {@link SubstrateOptions#MultiThreaded} there is no marker thread, and all the tracing
+ * happens in the remark.
+ */
+public final class ConcurrentMarking {
+
+    /* Phases of a marking cycle. */
+    private static final int IDLE = 0;
+    private static final int CONCURRENT = 1;
+    private static final int REMARK_REQUESTED = 2;
+
+    /* Results of a step of the marker thread. */
+    private static final int STEP_CONTINUE = 0;
+    private static final int STEP_EMPTY = 1;
+    private static final int STEP_GROW = 2;
+    private static final int STEP_ABORTED = 3;
+
+    /** The number of entries in a default-sized SATB buffer. */
+    private static final int SATB_BUFFER_ENTRIES = 1024;
+    /** Free SATB buffers preallocated in addition to two per thread, for threads started later. */
+    private static final int SATB_SPARE_BUFFERS = 8;
+
+    /** The SATB buffer of each thread. Null if the thread has not logged a reference yet. */
+    private static final FastThreadLocalWord<SATBBuffer> satbBuffer = FastThreadLocalFactory.createWord();
+
+    @Fold
+    public static boolean isEnabled() {
+        return HeapOptions.UseConcurrentOldGenerationMarking.getValue();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static ConcurrentMarking get() {
+        return HeapImpl.getHeapImpl().getGCImpl().getConcurrentMarking();
+    }
+
+    /*
+     * Immutable state.
+     */
+
+    /** The grey objects: marked old objects whose references have not been visited. */
+    private final MarkStack markStack;
+    /** Visits object references in a collection pause. */
+    private final MarkingObjRefVisitor pauseObjRefVisitor;
+    private final MarkingObjectVisitor pauseObjectVisitor;
+    private final FramePointerMapWalker pauseFrameWalker;
+    private final ClearReferencesVisitor clearReferencesVisitor;
+    /** Full SATB buffers, waiting to be drained by the marker thread. */
+    private final UninterruptibleUtils.AtomicPointer<SATBBuffer> completedBuffers;
+    /** Protects {@link #freeBuffers}. Only held for a few instructions, in uninterruptible code. */
+    private final UninterruptibleUtils.AtomicInteger freeBuffersLock;
+    private final Object markerLock;
+
+    /*
+     * Mutable state.
+     */
+
+    /** Whether the pre-write barrier has to log overwritten references. */
+    private volatile boolean markingActive;
+    private volatile int phase;
+    /** Incremented whenever a marking cycle starts, so stale work can be recognized. */
+    private volatile long cycle;
+    private Thread markerThread;
+    /** The completed buffer the marker thread has just drained, to be released. */
+    private SATBBuffer drainedBuffer;
+    /** Default-sized SATB buffers for the slow path of the pre-write barrier. */
+    private SATBBuffer freeBuffers;
+    private int freeBufferCount;
+    /** Set when the pre-write barrier could not log a reference: the cycle has to be aborted. */
+    private volatile boolean satbOverflow;
+
+    /* Statistics. */
+    private long completedCycles;
+    private long abortedCycles;
+    private UnsignedWord sweptChunkBytes;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ConcurrentMarking() {
+        this.markStack = new MarkStack();
+        this.pauseObjRefVisitor = new MarkingObjRefVisitor(markStack);
+        this.pauseObjectVisitor = new MarkingObjectVisitor(pauseObjRefVisitor);
+        this.pauseFrameWalker = FramePointerMapWalker.factory(pauseObjRefVisitor);
+        this.clearReferencesVisitor = new ClearReferencesVisitor();
+        this.completedBuffers = new UninterruptibleUtils.AtomicPointer<>();
+        this.freeBuffersLock = new UninterruptibleUtils.AtomicInteger(0);
+        this.markerLock = new Object();
+        this.markingActive = false;
+        this.phase = IDLE;
+        this.cycle = 0L;
+        this.sweptChunkBytes = WordFactory.zero();
+        this.drainedBuffer = WordFactory.nullPointer();
+        this.freeBuffers = WordFactory.nullPointer();
+        this.freeBufferCount = 0;
+        this.satbOverflow = false;
+    }
+
+    /** Is the pre-write barrier active? Called from the barrier snippets. */
+    public static boolean isMarkingActive() {
+        return isEnabled() && get().markingActive;
+    }
+
+    public long getCompletedCycles() {
+        return completedCycles;
+    }
+
+    public long getAbortedCycles() {
+        return abortedCycles;
+    }
+
+    public UnsignedWord getSweptChunkBytes() {
+        return sweptChunkBytes;
+    }
+
+    /*
+     * Collector entry points, all called from the collection VMOperation.
+     */
+
+    /**
+     * Before the young generation is scavenged: If a marking cycle is ready for its remark, finish
+     * the marking and sweep the old generation.
+     */
+    @SuppressWarnings("try")
+    void beforeCollection(Timer remarkTimer, Timer sweepTimer) {
+        VMOperation.guaranteeInProgress("Remark must be done in a VMOperation.");
+        if (phase != IDLE && satbOverflow) {
+            /* The pre-write barrier has dropped references, so the marks are not complete. */
+            abort();
+            return;
+        }
+        final boolean remark = (phase == REMARK_REQUESTED) || (phase == CONCURRENT && !SubstrateOptions.MultiThreaded.getValue());
+        if (remark) {
+            try (Timer rt = remarkTimer.open()) {
+                remark();
+            }
+            try (Timer st = sweepTimer.open()) {
+                sweep();
+            }
+            finishCycle();
+            completedCycles += 1;
+        }
+    }
+
+    /**
+     * After the collection: Abort the cycle in progress if the collection was complete, otherwise
+     * maybe start a new cycle.
+     */
+    void afterCollection(boolean completeCollection) {
+        VMOperation.guaranteeInProgress("Marking must be started in a VMOperation.");
+        if (completeCollection) {
+            if (phase != IDLE) {
+                abort();
+            }
+        } else if (phase == IDLE && shouldStartCycle()) {
+            initialMark();
+        }
+    }
+
+    /** Outside the VMOperation: Start the marker thread, or wake it up for a new cycle. */
+    void afterCollectionEpilogue() {
+        if (!SubstrateOptions.MultiThreaded.getValue() || phase != CONCURRENT) {
+            return;
+        }
+        synchronized (markerLock) {
+            if (markerThread == null) {
+                markerThread = new Thread(this::runMarkerThread, "Concurrent Marker");
+                markerThread.setDaemon(true);
+                markerThread.start();
+            }
+            markerLock.notifyAll();
+        }
+    }
+
+    private boolean shouldStartCycle() {
+        final UnsignedWord oldBytes = HeapImpl.getHeapImpl().getOldGeneration().getFromSpace().getChunkBytes();
+        final UnsignedWord threshold = HeapPolicy.getMaximumHeapSize().unsignedDivide(100).multiply(HeapOptions.ConcurrentMarkingInitiatingOccupancyPercent.getValue());
+        return oldBytes.aboveThan(threshold);
+    }
+
+    private void initialMark() {
+        final Log trace = Log.noopLog().string("[ConcurrentMarking.initialMark:").string("  cycle: ").signed(cycle + 1).newline();
+        cycle += 1;
+        markStack.clear();
+        /* Snapshot the tops of the chunks in the old generation. */
+        final Space fromSpace = HeapImpl.getHeapImpl().getOldGeneration().getFromSpace();
+        for (AlignedHeader aChunk = fromSpace.getFirstAlignedHeapChunk(); aChunk.isNonNull(); aChunk = aChunk.getNext()) {
+            AlignedHeapChunk.clearMarkBitmapOfAlignedHeapChunk(aChunk);
+            aChunk.setTopAtMarkStart(aChunk.getTop());
+        }
+        for (UnalignedHeader uChunk = fromSpace.getFirstUnalignedHeapChunk(); uChunk.isNonNull(); uChunk = uChunk.getNext()) {
+            uChunk.setMarked(false);
+            uChunk.setTopAtMarkStart(uChunk.getTop());
+        }
+        /* Mark from the roots. */
+        final GCImpl gc = HeapImpl.getHeapImpl().getGCImpl();
+        gc.walkThreadStacks(pauseFrameWalker);
+        gc.walkObjectReferenceWalkers(pauseObjRefVisitor);
+        markBootImageRoots();
+        /* Pinned objects are not swept, so I treat them as roots. */
+        HeapImpl.getHeapImpl().getOldGeneration().getPinnedFromSpace().walkObjects(pauseObjectVisitor);
+        /* The slow path of the pre-write barrier must not allocate: allocate its buffers now. */
+        int threads = 0;
+        for (IsolateThread vmThread = VMThreads.firstThread(); VMThreads.isNonNullThread(vmThread); vmThread = VMThreads.nextThread(vmThread)) {
+            threads += 1;
+        }
+        fillFreeBuffers(2 * threads + SATB_SPARE_BUFFERS);
+        /* From now on, log overwritten references. */
+        markingActive = true;
+        phase = CONCURRENT;
+        trace.string("  grey objects: ").unsigned(markStack.size()).string("]").newline();
+    }
+
+    private void markBootImageRoots() {
+        Pointer cur = Word.objectToUntrackedPointer(NativeImageInfo.firstWritableReferenceObject);
+        final Pointer last = Word.objectToUntrackedPointer(NativeImageInfo.lastWritableReferenceObject);
+        while (cur.belowOrEqual(last)) {
+            final Object obj = cur.toObject();
+            if (obj != null) {
+                pauseObjectVisitor.visitObjectInline(obj);
+            }
+            cur = LayoutEncoding.getObjectEnd(obj);
+        }
+    }
+
+    private void remark() {
+        final Log trace = Log.noopLog().string("[ConcurrentMarking.remark:").string("  cycle: ").signed(cycle).newline();
+        markingActive = false;
+        /* Drain the SATB buffers of all threads, and the completed buffers. */
+        for (IsolateThread vmThread = VMThreads.firstThread(); VMThreads.isNonNullThread(vmThread); vmThread = VMThreads.nextThread(vmThread)) {
+            final SATBBuffer buffer = satbBuffer.get(vmThread);
+            if (buffer.isNonNull()) {
+                satbBuffer.set(vmThread, WordFactory.nullPointer());
+                markBufferEntriesInPause(buffer);
+                releaseBuffer(buffer);
+            }
+        }
+        for (SATBBuffer buffer = takeCompletedBuffers(); buffer.isNonNull();) {
+            final SATBBuffer next = buffer.getNext();
+            markBufferEntriesInPause(buffer);
+            releaseBuffer(buffer);
+            buffer = next;
+        }
+        /* Finish tracing. */
+        while (!markStack.isEmpty()) {
+            final Object obj = markStack.pop().toObject();
+            scanGreyObject(obj, pauseObjRefVisitor);
+        }
+        trace.string("]").newline();
+    }
+
+    private void markBufferEntriesInPause(SATBBuffer buffer) {
+        final Pointer entries = getEntries(buffer);
+        final int count = buffer.getCount();
+        for (int i = 0; i < count; i++) {
+            pauseObjRefVisitor.markAndPush(entries.readWord(WordFactory.unsigned(i).multiply(wordSize())));
+        }
+    }
+
+    /** Release the chunks without marked objects, and reset the marking state of the others. */
+    private void sweep() {
+        final Log trace = Log.noopLog().string("[ConcurrentMarking.sweep:").newline();
+        final HeapChunkProvider chunkProvider = HeapChunkProvider.get();
+        final Space fromSpace = HeapImpl.getHeapImpl().getOldGeneration().getFromSpace();
+        AlignedHeader aChunk = fromSpace.getFirstAlignedHeapChunk();
+        while (aChunk.isNonNull()) {
+            final AlignedHeader next = aChunk.getNext();
+            final Pointer tams = aChunk.getTopAtMarkStart();
+            if (tams.isNonNull()) {
+                aChunk.setTopAtMarkStart(WordFactory.nullPointer());
+                if (!sweepAlignedHeapChunk(aChunk, tams) && tams.equal(aChunk.getTop())) {
+                    trace.string("  releasing aligned chunk: ").hex(aChunk).newline();
+                    sweptChunkBytes = sweptChunkBytes.add(HeapPolicy.getAlignedHeapChunkSize());
+                    fromSpace.extractAlignedHeapChunk(aChunk);
+                    chunkProvider.consumeAlignedChunk(aChunk);
+                }
+            }
+            aChunk = next;
+        }
+        UnalignedHeader uChunk = fromSpace.getFirstUnalignedHeapChunk();
+        while (uChunk.isNonNull()) {
+            final UnalignedHeader next = uChunk.getNext();
+            final boolean dead = uChunk.getTopAtMarkStart().isNonNull() && !uChunk.getMarked();
+            uChunk.setTopAtMarkStart(WordFactory.nullPointer());
+            uChunk.setMarked(false);
+            if (dead) {
+                trace.string("  releasing unaligned chunk: ").hex(uChunk).newline();
+                sweptChunkBytes = sweptChunkBytes.add(uChunk.getEnd().subtract(HeapChunk.asPointer(uChunk)));
+                fromSpace.extractUnalignedHeapChunk(uChunk);
+                chunkProvider.consumeUnalignedChunk(uChunk);
+            }
+            uChunk = next;
+        }
+        trace.string("]").newline();
+    }
+
+    /**
+     * Clear the object references of the unmarked objects below the top at mark start.
+     *
+     * @return true if any of the objects is marked, false otherwise.
+     */
+    private boolean sweepAlignedHeapChunk(AlignedHeader aChunk, Pointer tams) {
+        boolean anyMarked = false;
+        Pointer cur = AlignedHeapChunk.getAlignedHeapChunkStart(aChunk);
+        while (cur.belowThan(tams)) {
+            final Object obj = cur.toObject();
+            if (AlignedHeapChunk.isMarkedObjectOfAlignedHeapChunk(aChunk, cur)) {
+                anyMarked = true;
+            } else {
+                clearReferences(obj);
+            }
+            cur = LayoutEncoding.getObjectEnd(obj);
+        }
+        return anyMarked;
+    }
+
+    private void clearReferences(Object obj) {
+        InteriorObjRefWalker.walkObject(obj, clearReferencesVisitor);
+        if (obj instanceof DiscoverableReference) {
+            ((DiscoverableReference) obj).setReferentPointer(WordFactory.nullPointer());
+        }
+    }
+
+    private void finishCycle() {
+        markingActive = false;
+        satbOverflow = false;
+        phase = IDLE;
+        cycle += 1;
+        markStack.clear();
+        /* Do not keep the SATB buffers between cycles. */
+        for (SATBBuffer buffer = takeFreeBuffers(); buffer.isNonNull();) {
+            final SATBBuffer next = buffer.getNext();
+            UnmanagedMemory.free(buffer);
+            buffer = next;
+        }
+    }
+
+    /**
+     * Forget about the current cycle, because a complete collection has copied the old generation,
+     * or because the pre-write barrier has dropped references.
+     */
+    private void abort() {
+        final Log trace = Log.noopLog().string("[ConcurrentMarking.abort:").string("  cycle: ").signed(cycle).string("]").newline();
+        for (IsolateThread vmThread = VMThreads.firstThread(); VMThreads.isNonNullThread(vmThread); vmThread = VMThreads.nextThread(vmThread)) {
+            final SATBBuffer buffer = satbBuffer.get(vmThread);
+            if (buffer.isNonNull()) {
+                satbBuffer.set(vmThread, WordFactory.nullPointer());
+                releaseBuffer(buffer);
+            }
+        }
+        for (SATBBuffer buffer = takeCompletedBuffers(); buffer.isNonNull();) {
+            final SATBBuffer next = buffer.getNext();
+            releaseBuffer(buffer);
+            buffer = next;
+        }
+        /* Chunks that were moved rather than copied still have their top at mark start. */
+        final OldGeneration oldGen = HeapImpl.getHeapImpl().getOldGeneration();
+        clearTopAtMarkStart(oldGen.getFromSpace());
+        clearTopAtMarkStart(oldGen.getPinnedFromSpace());
+        finishCycle();
+        abortedCycles += 1;
+        trace.newline();
+    }
+
+    private static void clearTopAtMarkStart(Space space) {
+        for (AlignedHeader aChunk = space.getFirstAlignedHeapChunk(); aChunk.isNonNull(); aChunk = aChunk.getNext()) {
+            aChunk.setTopAtMarkStart(WordFactory.nullPointer());
+        }
+        for (UnalignedHeader uChunk = space.getFirstUnalignedHeapChunk(); uChunk.isNonNull(); uChunk = uChunk.getNext()) {
+            uChunk.setTopAtMarkStart(WordFactory.nullPointer());
+            uChunk.setMarked(false);
+        }
+    }
+
+    /*
+     * The marker thread.
+     */
+
+    private void runMarkerThread() {
+        while (true) {
+            final long markingCycle = awaitCycle();
+            concurrentMark(markingCycle);
+        }
+    }
+
+    private long awaitCycle() {
+        synchronized (markerLock) {
+            while (phase != CONCURRENT) {
+                try {
+                    markerLock.wait();
+                } catch (InterruptedException ie) {
+                    /* Ignore: The marker thread runs as long as the VM. */
+                }
+            }
+            return cycle;
+        }
+    }
+
+    private void concurrentMark(long markingCycle) {
+        final Log trace = Log.noopLog().string("[ConcurrentMarking.concurrentMark:").string("  cycle: ").signed(markingCycle).newline();
+        while (true) {
+            int step = scanGreyObjectUninterruptibly(markingCycle);
+            if (step == STEP_EMPTY) {
+                step = drainCompletedBuffer(markingCycle);
+                if (step == STEP_EMPTY && requestRemarkUninterruptibly(markingCycle)) {
+                    /* Tracing has converged, or overflowed: the next collection ends the cycle. */
+                    trace.string("  requesting remark]").newline();
+                    HeapImpl.getHeapImpl().getGC().collect("Concurrent marking remark");
+                    return;
+                }
+            }
+            if (step == STEP_ABORTED) {
+                trace.string("  cycle ended]").newline();
+                return;
+            }
+            if (step == STEP_GROW) {
+                markStack.grow(markStack.size().add(SATB_BUFFER_ENTRIES));
+            }
+        }
+    }
+
+    /**
+     * Pop a grey object and visit its references. The collector must not run between checking the
+     * marking cycle and pushing the references, so the whole walk of the object is uninterruptible.
+     */
+    @Uninterruptible(reason = "Must not be interrupted by a collection that ends the marking cycle.")
+    private int scanGreyObjectUninterruptibly(long markingCycle) {
+        if (phase != CONCURRENT || cycle != markingCycle) {
+            return STEP_ABORTED;
+        }
+        if (markStack.isEmpty() || satbOverflow) {
+            /* After an overflow of the SATB buffers, the cycle will be aborted: stop tracing. */
+            return STEP_EMPTY;
+        }
+        final Pointer objPointer = markStack.pop();
+        if (!scanGreyObjectConcurrently(objPointer)) {
+            /* The mark stack is full: push the object back, to be rescanned after growing. */
+            markStack.push(objPointer);
+            return STEP_GROW;
+        }
+        return STEP_CONTINUE;
+    }
+
+    /** Mark the entries of one completed SATB buffer, and release the buffer. */
+    private int drainCompletedBuffer(long markingCycle) {
+        final int step = popCompletedBufferUninterruptibly(markingCycle);
+        if (step == STEP_CONTINUE) {
+            releaseBuffer(drainedBuffer);
+            drainedBuffer = WordFactory.nullPointer();
+        }
+        return step;
+    }
+
+    /**
+     * Pop a completed buffer, push its entries on the mark stack, and leave the buffer in
+     * {@link #drainedBuffer} to be released. Only the marker thread pops single buffers, and the
+     * collector only takes the whole list at a safepoint, so a compare-and-set is enough.
+     */
+    @Uninterruptible(reason = "Must not be interrupted by a collection that ends the marking cycle.")
+    private int popCompletedBufferUninterruptibly(long markingCycle) {
+        if (phase != CONCURRENT || cycle != markingCycle) {
+            return STEP_ABORTED;
+        }
+        if (satbOverflow) {
+            return STEP_EMPTY;
+        }
+        while (true) {
+            final SATBBuffer head = completedBuffers.get();
+            if (head.isNull()) {
+                return STEP_EMPTY;
+            }
+            if (!markStack.hasRoom(WordFactory.unsigned(head.getCount()))) {
+                return STEP_GROW;
+            }
+            if (completedBuffers.compareAndSet(head, head.getNext())) {
+                final Pointer entries = getEntries(head);
+                final int count = head.getCount();
+                for (int i = 0; i < count; i++) {
+                    final Pointer p = entries.readWord(WordFactory.unsigned(i).multiply(wordSize()));
+                    /* The entry may have been marked since it was logged. */
+                    if (isUnmarkedSnapshotObject(p)) {
+                        setMarked(p);
+                        markStack.push(p);
+                    }
+                }
+                drainedBuffer = head;
+                return STEP_CONTINUE;
+            }
+        }
+    }
+
+    @Uninterruptible(reason = "Must not be interrupted by a collection that ends the marking cycle.")
+    private boolean requestRemarkUninterruptibly(long markingCycle) {
+        if (phase != CONCURRENT || cycle != markingCycle) {
+            return false;
+        }
+        if (!satbOverflow && (!markStack.isEmpty() || completedBuffers.get().isNonNull())) {
+            return false;
+        }
+        phase = REMARK_REQUESTED;
+        return true;
+    }
+
+    /**
+     * Visit the references of a grey object, including the referent of a
+     * {@link DiscoverableReference}.
+     *
+     * @return true if all references were visited, false if the mark stack was full.
+     */
+    @AlwaysInline("GC performance")
+    private static boolean scanGreyObject(Object obj, MarkingObjRefVisitor visitor) {
+        if (!InteriorObjRefWalker.walkObjectInline(obj, visitor)) {
+            return false;
+        }
+        if (obj instanceof DiscoverableReference) {
+            return visitor.markAndPush(((DiscoverableReference) obj).getReferentPointer());
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link #scanGreyObject}, but for the marker thread: it does not grow the mark stack, and
+     * it does not call out of uninterruptible code. The walk of the reference map is that of
+     * {@link ReferenceMapDecoder#walkOffsetsFromPointer}, without the visitor.
+     *
+     * @return true if all references were visited, false if the mark stack was full.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private boolean scanGreyObjectConcurrently(Pointer objPointer) {
+        final Object obj = objPointer.toObject();
+        final DynamicHub objHub = KnownIntrinsics.readHub(obj);
+        final int layoutEncoding = objHub.getLayoutEncoding();
+        final boolean compressedElements = ReferenceAccess.singleton().haveCompressedReferences();
+        if (LayoutEncoding.isObjectArray(layoutEncoding)) {
+            final int length = KnownIntrinsics.readArrayLength(obj);
+            for (int index = 0; index < length; index++) {
+                final Pointer elementPointer = objPointer.add(LayoutEncoding.getArrayElementOffset(layoutEncoding, index));
+                if (!markAndPushConcurrently(ReferenceAccess.singleton().readObjectAsUntrackedPointer(elementPointer, compressedElements))) {
+                    return false;
+                }
+            }
+        }
+        final byte[] referenceMapEncoding = DynamicHubSupport.getReferenceMapEncoding();
+        final UnsignedWord compressedSize = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getReferenceSize());
+        Pointer objRef = objPointer;
+        long idx = objHub.getReferenceMapIndex();
+        while (true) {
+            int shift;
+            long b;
+            long gap = 0;
+            shift = 0;
+            do {
+                b = referenceMapEncoding[(int) idx] & 0xFF;
+                gap |= (b & 0x7f) << shift;
+                shift += 7;
+                idx++;
+            } while ((b & 0x80) != 0);
+            long count = 0;
+            shift = 0;
+            do {
+                b = referenceMapEncoding[(int) idx] & 0xFF;
+                count |= (b & 0x7f) << shift;
+                shift += 7;
+                idx++;
+            } while ((b & 0x80) != 0);
+            if ((b & 0x40) != 0 && shift < 64) {
+                count |= -1L << shift;
+            }
+            if (gap == 0 && count == 0) {
+                break;
+            }
+            objRef = objRef.add(WordFactory.unsigned(gap));
+            final boolean compressed = (count < 0);
+            final UnsignedWord refSize = compressed ? compressedSize : wordSize();
+            count = (count < 0) ? -count : count;
+            for (long c = 0; c < count; c += 1) {
+                if (!markAndPushConcurrently(ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, compressed))) {
+                    return false;
+                }
+                objRef = objRef.add(refSize);
+            }
+        }
+        if (obj instanceof DiscoverableReference) {
+            return markAndPushConcurrently(((DiscoverableReference) obj).getReferentPointer());
+        }
+        return true;
+    }
+
+    /** Returns false if the object needs marking but there is no room on the mark stack. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private boolean markAndPushConcurrently(Pointer p) {
+        if (p.isNull() || !isUnmarkedSnapshotObject(p)) {
+            return true;
+        }
+        if (!markStack.hasRoom(WordFactory.unsigned(1))) {
+            return false;
+        }
+        setMarked(p);
+        markStack.push(p);
+        return true;
+    }
+
+    /*
+     * The SATB pre-write barrier.
+     */
+
+    /**
+     * Slow path of the pre-write barrier: log the previous value of a reference field. A missing
+     * or full buffer is replaced by a free buffer from the pool that the initial mark allocated.
+     */
+    @SubstrateForeignCallTarget
+    @Uninterruptible(reason = "Called from the pre-write barrier, which is also in uninterruptible code.")
+    private static void enqueuePreviousValue(Object previousValue) {
+        final ConcurrentMarking marking = get();
+        final Pointer previous = Word.objectToUntrackedPointer(previousValue);
+        if (!marking.tryEnqueueUninterruptibly(previous)) {
+            marking.replaceBufferAndEnqueue(previous);
+        }
+    }
+
+    /**
+     * Move the missing or full SATB buffer of the current thread to the completed buffers, and log
+     * the reference in a free buffer. Without a free buffer, the reference is dropped, so the
+     * cycle can not complete: I turn off the barrier, and the next collection aborts the cycle.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.")
+    private void replaceBufferAndEnqueue(Pointer previous) {
+        final SATBBuffer fresh = popFreeBuffer();
+        if (fresh.isNull()) {
+            satbOverflow = true;
+            markingActive = false;
+            return;
+        }
+        final SATBBuffer current = satbBuffer.get();
+        if (current.isNonNull()) {
+            pushCompletedBuffer(current);
+        }
+        satbBuffer.set(fresh);
+        appendToBuffer(fresh, previous);
+    }
+
+    /**
+     * Log the referenced objects in a range of an object array that is about to be overwritten
+     * without write barriers.
+     *
+     * @return false if the SATB buffer of the current thread does not have room for the range, in
+     *         which case nothing has been logged.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.")
+    boolean tryEnqueueObjectArrayRange(Object array, UnsignedWord startOffset, UnsignedWord size) {
+        if (!markingActive) {
+            return true;
+        }
+        final int referenceSize = ConfigurationValues.getObjectLayout().getReferenceSize();
+        /* One more entry for the barriered write of the first element of an array copy. */
+        final UnsignedWord count = size.unsignedDivide(referenceSize).add(1);
+        final SATBBuffer buffer = satbBuffer.get();
+        if (buffer.isNull() || WordFactory.unsigned(buffer.getCapacity() - buffer.getCount()).belowThan(count)) {
+            return false;
+        }
+        final Pointer start = Word.objectToUntrackedPointer(array).add(startOffset);
+        final boolean compressed = ReferenceAccess.singleton().haveCompressedReferences();
+        for (UnsignedWord offset = WordFactory.zero(); offset.belowThan(size); offset = offset.add(referenceSize)) {
+            final Pointer p = ReferenceAccess.singleton().readObjectAsUntrackedPointer(start.add(offset), compressed);
+            if (p.isNonNull() && isUnmarkedSnapshotObject(p)) {
+                appendToBuffer(buffer, p);
+            }
+        }
+        return true;
+    }
+
+    /** Make sure the SATB buffer of the current thread has room for the given number of entries. */
+    void refillBuffer(UnsignedWord entries) {
+        final int capacity = (int) UnsignedUtils.max(entries, WordFactory.unsigned(SATB_BUFFER_ENTRIES)).rawValue();
+        final SATBBuffer fresh = mallocBuffer(capacity);
+        VMError.guarantee(fresh.isNonNull(), "Could not allocate an SATB buffer.");
+        final SATBBuffer unused = installBufferUninterruptibly(fresh, entries);
+        if (unused.isNonNull()) {
+            releaseBuffer(unused);
+        }
+    }
+
+    private static SATBBuffer mallocBuffer(int capacity) {
+        final SATBBuffer buffer = UnmanagedMemory.malloc(SizeOf.unsigned(SATBBuffer.class).add(wordSize().multiply(capacity)));
+        if (buffer.isNonNull()) {
+            buffer.setNext(WordFactory.nullPointer());
+            buffer.setCount(0);
+            buffer.setCapacity(capacity);
+        }
+        return buffer;
+    }
+
+    /**
+     * Install a fresh SATB buffer for the current thread, moving a non-empty current buffer to the
+     * completed buffers. Returns the fresh buffer if it is not needed, because marking has ended
+     * or the current buffer has room after all.
+     */
+    @Uninterruptible(reason = "Must not be interrupted by a collection that ends the marking cycle.")
+    private SATBBuffer installBufferUninterruptibly(SATBBuffer fresh, UnsignedWord entries) {
+        if (!markingActive) {
+            return fresh;
+        }
+        final SATBBuffer current = satbBuffer.get();
+        if (current.isNonNull()) {
+            if (WordFactory.unsigned(current.getCapacity() - current.getCount()).aboveOrEqual(entries)) {
+                return fresh;
+            }
+            if (current.getCount() > 0) {
+                pushCompletedBuffer(current);
+            } else {
+                satbBuffer.set(fresh);
+                return current;
+            }
+        }
+        satbBuffer.set(fresh);
+        return WordFactory.nullPointer();
+    }
+
+    @Uninterruptible(reason = "Must not be interrupted by a collection that ends the marking cycle.")
+    private boolean tryEnqueueUninterruptibly(Pointer previous) {
+        if (!markingActive || previous.isNull() || !isUnmarkedSnapshotObject(previous)) {
+            /* Nothing to log. */
+            return true;
+        }
+        final SATBBuffer buffer = satbBuffer.get();
+        if (buffer.isNull() || buffer.getCount() >= buffer.getCapacity()) {
+            return false;
+        }
+        appendToBuffer(buffer, previous);
+        return true;
+    }
+
+    /**
+     * Flush the SATB buffer of a thread that is detaching. An empty buffer is pushed too, so that
+     * it is released with the completed buffers.
+     */
+    @Uninterruptible(reason = "Must not be interrupted by a collection that ends the marking cycle.")
+    void flushBuffer(IsolateThread vmThread) {
+        final SATBBuffer buffer = satbBuffer.get(vmThread);
+        if (buffer.isNonNull()) {
+            satbBuffer.set(vmThread, WordFactory.nullPointer());
+            pushCompletedBuffer(buffer);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static void appendToBuffer(SATBBuffer buffer, Pointer p) {
+        final int count = buffer.getCount();
+        getEntries(buffer).writeWord(WordFactory.unsigned(count).multiply(wordSize()), p);
+        buffer.setCount(count + 1);
+    }
+
+    /** Pushes may race with each other and with single pops by the marker thread. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private void pushCompletedBuffer(SATBBuffer buffer) {
+        SATBBuffer head;
+        do {
+            head = completedBuffers.get();
+            buffer.setNext(head);
+        } while (!completedBuffers.compareAndSet(head, buffer));
+    }
+
+    private SATBBuffer takeCompletedBuffers() {
+        VMOperation.guaranteeInProgress("Only the collector takes all the completed buffers.");
+        final SATBBuffer result = completedBuffers.get();
+        completedBuffers.set(WordFactory.nullPointer());
+        return result;
+    }
+
+    /*
+     * The free SATB buffers.
+     */
+
+    /** Allocate free buffers until there are at least the given number. */
+    private void fillFreeBuffers(int count) {
+        while (freeBufferCount < count) {
+            final SATBBuffer buffer = mallocBuffer(SATB_BUFFER_ENTRIES);
+            if (buffer.isNull()) {
+                /* The pre-write barrier will overflow sooner, and the cycle will be aborted. */
+                return;
+            }
+            pushFreeBuffer(buffer);
+        }
+    }
+
+    /** Return a default-sized buffer to the free buffers, and free any other buffer. */
+    private void releaseBuffer(SATBBuffer buffer) {
+        if (buffer.getCapacity() == SATB_BUFFER_ENTRIES) {
+            pushFreeBuffer(buffer);
+        } else {
+            UnmanagedMemory.free(buffer);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private SATBBuffer popFreeBuffer() {
+        lockFreeBuffers();
+        final SATBBuffer result = freeBuffers;
+        if (result.isNonNull()) {
+            freeBuffers = result.getNext();
+            freeBufferCount -= 1;
+        }
+        unlockFreeBuffers();
+        if (result.isNonNull()) {
+            result.setNext(WordFactory.nullPointer());
+            result.setCount(0);
+        }
+        return result;
+    }
+
+    @Uninterruptible(reason = "Holds the lock of the free buffers.")
+    private void pushFreeBuffer(SATBBuffer buffer) {
+        lockFreeBuffers();
+        buffer.setNext(freeBuffers);
+        freeBuffers = buffer;
+        freeBufferCount += 1;
+        unlockFreeBuffers();
+    }
+
+    @Uninterruptible(reason = "Holds the lock of the free buffers.")
+    private SATBBuffer takeFreeBuffers() {
+        lockFreeBuffers();
+        final SATBBuffer result = freeBuffers;
+        freeBuffers = WordFactory.nullPointer();
+        freeBufferCount = 0;
+        unlockFreeBuffers();
+        return result;
+    }
+
+    /**
+     * A spin lock, because the free buffers are taken in the slow path of the pre-write barrier,
+     * which can not block. The lock is never held across a safepoint.
+     */
+    @Uninterruptible(reason = "The lock must not be held across a safepoint.", callerMustBe = true)
+    private void lockFreeBuffers() {
+        while (!freeBuffersLock.compareAndSet(0, 1)) {
+            /* Spin: the lock is only held for a few instructions. */
+        }
+    }
+
+    @Uninterruptible(reason = "The lock must not be held across a safepoint.", callerMustBe = true)
+    private void unlockFreeBuffers() {
+        freeBuffersLock.set(0);
+    }
+
+    /*
+     * Mark bits.
+     */
+
+    /**
+     * Is the object at the given address an unmarked object of the old generation that was
+     * allocated before the start of the marking cycle? Young objects, objects in the native image
+     * heap, and objects in chunks without a top at mark start never need marking.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean isUnmarkedSnapshotObject(Pointer p) {
+        final UnsignedWord header = ObjectHeader.readHeaderFromPointer(p);
+        if (!ObjectHeaderImpl.hasRememberedSet(header)) {
+            return false;
+        }
+        if (!ObjectHeaderImpl.isHeapObjectUnaligned(header)) {
+            final AlignedHeader aChunk = (AlignedHeader) PointerUtils.roundDown(p, HeapPolicy.getAlignedHeapChunkAlignment());
+            final Pointer tams = aChunk.getTopAtMarkStart();
+            return tams.isNonNull() && p.belowThan(tams) && !AlignedHeapChunk.isMarkedObjectOfAlignedHeapChunk(aChunk, p);
+        } else {
+            final UnalignedHeader uChunk = (UnalignedHeader) p.subtract(UnalignedHeapChunk.getObjectStartOffset());
+            return uChunk.getTopAtMarkStart().isNonNull() && !uChunk.getMarked();
+        }
+    }
+
+    /** Set the mark of an object for which {@link #isUnmarkedSnapshotObject} is true. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static void setMarked(Pointer p) {
+        final UnsignedWord header = ObjectHeader.readHeaderFromPointer(p);
+        if (!ObjectHeaderImpl.isHeapObjectUnaligned(header)) {
+            final AlignedHeader aChunk = (AlignedHeader) PointerUtils.roundDown(p, HeapPolicy.getAlignedHeapChunkAlignment());
+            AlignedHeapChunk.setMarkedObjectOfAlignedHeapChunk(aChunk, p);
+        } else {
+            final UnalignedHeader uChunk = (UnalignedHeader) p.subtract(UnalignedHeapChunk.getObjectStartOffset());
+            uChunk.setMarked(true);
+        }
+    }
+
+    /*
+     * Support classes.
+     */
+
+    @Fold
+    static UnsignedWord wordSize() {
+        return WordFactory.unsigned(ConfigurationValues.getTarget().wordSize);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static Pointer getEntries(SATBBuffer buffer) {
+        return ((Pointer) buffer).add(SizeOf.unsigned(SATBBuffer.class));
+    }
+
+    /** A buffer of logged references, followed in memory by its entries. */
+    @RawStructure
+    interface SATBBuffer extends PointerBase {
+
+        @RawField
+        SATBBuffer getNext();
+
+        @RawField
+        void setNext(SATBBuffer newNext);
+
+        @RawField
+        int getCount();
+
+        @RawField
+        void setCount(int newCount);
+
+        @RawField
+        int getCapacity();
+
+        @RawField
+        void setCapacity(int newCapacity);
+    }
+
+    /**
+     * A stack of grey objects, in memory outside the heap. It is used by the marker thread and by
+     * the collector, which never run at the same time: the marker thread only touches the stack in
+     * uninterruptible code.
+     */
+    static final class MarkStack {
+
+        private static final int INITIAL_CAPACITY = 4096;
+
+        private Pointer base;
+        private UnsignedWord capacity;
+        private UnsignedWord top;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        MarkStack() {
+            this.base = WordFactory.nullPointer();
+            this.capacity = WordFactory.zero();
+            this.top = WordFactory.zero();
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        boolean isEmpty() {
+            return top.equal(0);
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        UnsignedWord size() {
+            return top;
+        }
+
+        /** One entry is kept free, so that a partially scanned object can be pushed back. */
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        boolean hasRoom(UnsignedWord entries) {
+            return top.add(entries).belowThan(capacity);
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        void push(Pointer p) {
+            base.writeWord(top.multiply(wordSize()), p);
+            top = top.add(1);
+        }
+
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+        Pointer pop() {
+            top = top.subtract(1);
+            return base.readWord(top.multiply(wordSize()));
+        }
+
+        void clear() {
+            top = WordFactory.zero();
+        }
+
+        /** Grow the stack to have room for at least the given number of entries. */
+        void grow(UnsignedWord minimumCapacity) {
+            UnsignedWord newCapacity = capacity.equal(0) ? WordFactory.unsigned(INITIAL_CAPACITY) : capacity.multiply(2);
+            while (newCapacity.belowOrEqual(minimumCapacity)) {
+                newCapacity = newCapacity.multiply(2);
+            }
+            final Pointer newBase = UnmanagedMemory.malloc(newCapacity.multiply(wordSize()));
+            VMError.guarantee(newBase.isNonNull(), "Could not grow the concurrent marking stack.");
+            UnmanagedMemory.free(install(newBase, newCapacity));
+        }
+
+        /**
+         * Copy the entries to the new memory and install it, unless the collector has installed a
+         * larger stack in the meantime. Returns the memory that is no longer used.
+         */
+        @Uninterruptible(reason = "The marker thread and the collector must not see a partially installed stack.")
+        private Pointer install(Pointer newBase, UnsignedWord newCapacity) {
+            if (newCapacity.belowOrEqual(capacity)) {
+                return newBase;
+            }
+            final UnsignedWord bytes = top.multiply(wordSize());
+            for (UnsignedWord offset = WordFactory.zero(); offset.belowThan(bytes); offset = offset.add(wordSize())) {
+                newBase.writeWord(offset, base.readWord(offset));
+            }
+            final Pointer oldBase = base;
+            base = newBase;
+            capacity = newCapacity;
+            return oldBase;
+        }
+    }
+
+    /**
+     * Marks referenced objects that need marking and pushes them on the mark stack, in a collection
+     * pause: the mark stack grows as needed. The marker thread uses
+     * {@link ConcurrentMarking#markAndPushConcurrently} instead.
+     */
+    static final class MarkingObjRefVisitor implements ObjectReferenceVisitor {
+
+        private final MarkStack stack;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        MarkingObjRefVisitor(MarkStack stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            return visitObjectReferenceInline(objRef, compressed);
+        }
+
+        @Override
+        @AlwaysInline("GC performance")
+        public boolean visitObjectReferenceInline(Pointer objRef, boolean compressed) {
+            if (objRef.isNull()) {
+                return true;
+            }
+            return markAndPush(ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, compressed));
+        }
+
+        @AlwaysInline("GC performance")
+        boolean markAndPush(Pointer p) {
+            if (p.isNull() || !isUnmarkedSnapshotObject(p)) {
+                return true;
+            }
+            if (!stack.hasRoom(WordFactory.unsigned(1))) {
+                stack.grow(stack.size().add(1));
+            }
+            setMarked(p);
+            stack.push(p);
+            return true;
+        }
+    }
+
+    /** Visits the references of root objects in a collection pause. */
+    static final class MarkingObjectVisitor implements ObjectVisitor {
+
+        private final MarkingObjRefVisitor objRefVisitor;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        MarkingObjectVisitor(MarkingObjRefVisitor objRefVisitor) {
+            this.objRefVisitor = objRefVisitor;
+        }
+
+        @Override
+        public boolean visitObject(Object o) {
+            return visitObjectInline(o);
+        }
+
+        @Override
+        @AlwaysInline("GC performance")
+        public boolean visitObjectInline(Object o) {
+            return scanGreyObject(o, objRefVisitor);
+        }
+    }
+
+    /** Clears the object references of dead objects, during the sweep. */
+    static final class ClearReferencesVisitor implements ObjectReferenceVisitor {
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        ClearReferencesVisitor() {
+        }
+
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            ReferenceAccess.singleton().writeObjectAt(objRef, null, compressed);
+            return true;
+        }
+    }
+}
@@ -28,6 +28,9 @@ import static com.oracle.svm.core.snippets.KnownIntrinsics.readCallerStackPointe
 import static com.oracle.svm.core.snippets.KnownIntrinsics.readReturnAddress;
 
 import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -49,15 +52,19 @@ import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.NeverInline;
 import com.oracle.svm.core.annotate.RestrictHeapAccess;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.heap.AllocationFreeList;
 import com.oracle.svm.core.heap.AllocationFreeList.PreviouslyRegisteredElementException;
 import com.oracle.svm.core.heap.CollectionWatcher;
 import com.oracle.svm.core.heap.DiscoverableReference;
 import com.oracle.svm.core.heap.FramePointerMapWalker;
 import com.oracle.svm.core.heap.GC;
+import com.oracle.svm.core.heap.GCEventLog;
 import com.oracle.svm.core.heap.NativeImageInfo;
 import com.oracle.svm.core.heap.NoAllocationVerifier;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
 import com.oracle.svm.core.heap.ObjectReferenceWalker;
 import com.oracle.svm.core.heap.ObjectVisitor;
 import com.oracle.svm.core.hub.LayoutEncoding;
@@ -71,6 +78,7 @@ import com.oracle.svm.core.stack.ThreadStackPrinter;
 import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.thread.VMThreads;
 import com.oracle.svm.core.util.TimeUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
 import com.oracle.svm.core.util.VMError;
 
 public class GCImpl implements GC {
@@ -80,6 +88,9 @@ public class GCImpl implements GC {
 
         @Option(help = "How much history to maintain about garbage collections.")//
         public static final HostedOptionKey<Integer> GCHistory = new HostedOptionKey<>(1);
+
+        @Option(help = "How many recent collections to keep in the GC event log.")//
+        public static final HostedOptionKey<Integer> GCEventLogSize = new HostedOptionKey<>(32);
     }
 
     private static final int DECIMALS_IN_TIME_PRINTING = 7;
@@ -130,6 +141,9 @@ public class GCImpl implements GC {
 
     private final GarbageCollectorManagementFactory gcManagementFactory;
 
+    /** The log of recent collections. */
+    private final GCEventLog eventLog;
+
     /*
      * Mutable state.
      */
@@ -163,6 +177,8 @@ public class GCImpl implements GC {
         this.oldGenerationSizeExceeded = new OutOfMemoryError("Garbage-collected heap size exceeded.");
         this.unpinnedObjectReferenceWalkerException = new UnpinnedObjectReferenceWalkerException();
         this.gcManagementFactory = new GarbageCollectorManagementFactory();
+        this.eventLog = new GCEventLog(Options.GCEventLogSize.getValue());
+        this.concurrentMarking = (ConcurrentMarking.isEnabled() ? new ConcurrentMarking() : null);
 
         this.blackenBootImageRootsTimer = new Timer("blackenBootImageRoots");
         this.blackenDirtyCardRootsTimer = new Timer("blackenDirtyCardRoots");
@@ -181,6 +197,8 @@ public class GCImpl implements GC {
         this.watchersAfterTimer = new Timer("watchersAfter");
         this.mutatorTimer = new Timer("Mutator");
         this.walkRegisteredMemoryTimer = new Timer("walkRegisteredMemory");
+        this.remarkTimer = new Timer("remark");
+        this.sweepTimer = new Timer("sweep");
 
         RuntimeSupport.getRuntimeSupport().addShutdownHook(this::printGCSummary);
     }
@@ -301,6 +319,10 @@ public class GCImpl implements GC {
                  * find them on the free list.
                  *
                  */
+                if (ConcurrentMarking.isEnabled()) {
+                    /* Finish a concurrent marking cycle before the old generation changes. */
+                    concurrentMarking.beforeCollection(remarkTimer, sweepTimer);
+                }
                 if (getPolicy().collectIncrementally()) {
                     scavenge(true);
                 }
@@ -308,12 +330,17 @@ public class GCImpl implements GC {
                 if (completeCollection) {
                     scavenge(false);
                 }
+                if (ConcurrentMarking.isEnabled()) {
+                    concurrentMarking.afterCollection(completeCollection);
+                }
             }
 
+            HeapChunkProvider.get().releaseIdleAlignedChunks();
             CommittedMemoryProvider.get().afterGarbageCollection(completeCollection);
         }
 
         getAccounting().afterCollection(completeCollection, collectionTimer);
+        recordCollectionEvent(cause);
 
         trace.string("  Verify after: ");
         try (Timer vat = verifyAfterTimer.open()) {
@@ -723,31 +750,38 @@ public class GCImpl implements GC {
     private void blackenStackRoots() {
         final Log trace = Log.noopLog().string("[GCImpl.blackenStackRoots:").newline();
         try (Timer bsr = blackenStackRootsTimer.open()) {
-            Pointer sp = readCallerStackPointer();
-            trace.string("[blackenStackRoots:").string("  sp: ").hex(sp);
-            CodePointer ip = readReturnAddress();
-            trace.string("  ip: ").hex(ip).newline();
-            JavaStackWalker.walkCurrentThread(sp, ip, frameWalker);
-            if (SubstrateOptions.MultiThreaded.getValue()) {
-                /*
-                 * Scan the stacks of all the threads. Other threads will be blocked at a safepoint
-                 * (or in native code) so they will each have a JavaFrameAnchor in their VMThread.
-                 */
-                for (IsolateThread vmThread = VMThreads.firstThread(); VMThreads.isNonNullThread(vmThread); vmThread = VMThreads.nextThread(vmThread)) {
-                    if (vmThread == CEntryPointContext.getCurrentIsolateThread()) {
-                        /*
-                         * The current thread is already scanned by code above, so we do not have to
-                         * do anything for it here. It might have a JavaFrameAnchor from earlier
-                         * Java-to-C transitions, but certainly not at the top of the stack since it
-                         * is running this code, so just this scan would be incomplete.
-                         */
-                        continue;
-                    }
-                    JavaStackWalker.walkThread(vmThread, frameWalker);
-                    trace.newline();
+            walkThreadStacks(frameWalker);
+        }
+        trace.string("]").newline();
+    }
+
+    /** Walk the stacks of all the threads, starting with the stack of the current thread. */
+    @NeverInline("Starts a stack walk in the caller frame.")
+    void walkThreadStacks(FramePointerMapWalker walker) {
+        final Log trace = Log.noopLog().string("[GCImpl.walkThreadStacks:").newline();
+        Pointer sp = readCallerStackPointer();
+        trace.string("  sp: ").hex(sp);
+        CodePointer ip = readReturnAddress();
+        trace.string("  ip: ").hex(ip).newline();
+        JavaStackWalker.walkCurrentThread(sp, ip, walker);
+        if (SubstrateOptions.MultiThreaded.getValue()) {
+            /*
+             * Scan the stacks of all the threads. Other threads will be blocked at a safepoint (or
+             * in native code) so they will each have a JavaFrameAnchor in their VMThread.
+             */
+            for (IsolateThread vmThread = VMThreads.firstThread(); VMThreads.isNonNullThread(vmThread); vmThread = VMThreads.nextThread(vmThread)) {
+                if (vmThread == CEntryPointContext.getCurrentIsolateThread()) {
+                    /*
+                     * The current thread is already scanned by code above, so we do not have to do
+                     * anything for it here. It might have a JavaFrameAnchor from earlier Java-to-C
+                     * transitions, but certainly not at the top of the stack since it is running
+                     * this code, so just this scan would be incomplete.
+                     */
+                    continue;
                 }
+                JavaStackWalker.walkThread(vmThread, walker);
+                trace.newline();
             }
-            trace.string("]").newline();
         }
         trace.string("]").newline();
     }
@@ -768,12 +802,19 @@ public class GCImpl implements GC {
                 element = ((AllocationFreeList.Element<?>) element).getNextObject();
             }
             /* Visit each walker. */
-            for (ObjectReferenceWalker walker = objectReferenceWalkerList.getFirst(); walker != null; walker = walker.getNextElement()) {
-                trace.string("[").string(walker.getWalkerName()).string(":");
-                trace.newline();
-                walker.walk(greyToBlackObjRefVisitor);
-                trace.string("]").newline();
-            }
+            walkObjectReferenceWalkers(greyToBlackObjRefVisitor);
+        }
+        trace.string("]").newline();
+    }
+
+    /** Visit the object references of each of the registered walkers. */
+    void walkObjectReferenceWalkers(ObjectReferenceVisitor visitor) {
+        final Log trace = Log.noopLog().string("[GCImpl.walkObjectReferenceWalkers:").newline();
+        for (ObjectReferenceWalker walker = objectReferenceWalkerList.getFirst(); walker != null; walker = walker.getNextElement()) {
+            trace.string("[").string(walker.getWalkerName()).string(":");
+            trace.newline();
+            walker.walk(visitor);
+            trace.string("]").newline();
         }
         trace.string("]").newline();
     }
@@ -900,6 +941,10 @@ public class GCImpl implements GC {
         if (requestingEpoch.belowThan(getCollectionEpoch())) {
             SunMiscSupport.drainCleanerQueue();
             visitWatchersReport();
+            eventLog.notifyListeners();
+            if (ConcurrentMarking.isEnabled()) {
+                concurrentMarking.afterCollectionEpilogue();
+            }
         }
     }
 
@@ -1042,6 +1087,14 @@ public class GCImpl implements GC {
         return greyToBlackObjectVisitor;
     }
 
+    /** The concurrent marking of the old generation, or null if it is not enabled. */
+    private final ConcurrentMarking concurrentMarking;
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    ConcurrentMarking getConcurrentMarking() {
+        return concurrentMarking;
+    }
+
     /*
      * Timers.
      */
@@ -1062,6 +1115,8 @@ public class GCImpl implements GC {
     private final Timer watchersBeforeTimer;
     private final Timer watchersAfterTimer;
     private final Timer mutatorTimer;
+    private final Timer remarkTimer;
+    private final Timer sweepTimer;
 
     private void resetTimers() {
         final Log trace = Log.noopLog();
@@ -1082,6 +1137,8 @@ public class GCImpl implements GC {
         releaseSpacesTimer.reset();
         verifyAfterTimer.reset();
         watchersAfterTimer.reset();
+        remarkTimer.reset();
+        sweepTimer.reset();
         /* The mutator timer is *not* reset here. */
         trace.string("]").newline();
     }
@@ -1093,6 +1150,8 @@ public class GCImpl implements GC {
             logOneTimer(log, "    ", watchersBeforeTimer);
             logOneTimer(log, "    ", verifyBeforeTimer);
             logOneTimer(log, "    ", collectionTimer);
+            logOneTimer(log, "      ", remarkTimer);
+            logOneTimer(log, "      ", sweepTimer);
             logOneTimer(log, "      ", rootScanTimer);
             logOneTimer(log, "        ", cheneyScanFromRootsTimer);
             logOneTimer(log, "        ", cheneyScanFromDirtyRootsTimer);
@@ -1155,6 +1214,10 @@ public class GCImpl implements GC {
         private UnsignedWord oldChunkBytesAfter;
         private UnsignedWord pinnedChunkBytesBefore;
         private UnsignedWord pinnedChunkBytesAfter;
+        private UnsignedWord lastCollectedChunkBytes;
+        /* Peak measures, for the memory pools. */
+        private UnsignedWord youngChunkBytesPeak;
+        private UnsignedWord oldChunkBytesPeak;
         /* History of promotions and copies. */
         private int history;
         private UnsignedWord[] promotedUnpinnedChunkBytes;
@@ -1191,6 +1254,9 @@ public class GCImpl implements GC {
             this.oldChunkBytesAfter = WordFactory.zero();
             this.pinnedChunkBytesBefore = WordFactory.zero();
             this.pinnedChunkBytesAfter = WordFactory.zero();
+            this.lastCollectedChunkBytes = WordFactory.zero();
+            this.youngChunkBytesPeak = WordFactory.zero();
+            this.oldChunkBytesPeak = WordFactory.zero();
             /* Initialize histories. */
             this.promotedUnpinnedChunkBytes = historyFactory(WordFactory.zero());
             this.promotedPinnedChunkBytes = historyFactory(WordFactory.zero());
@@ -1277,6 +1343,42 @@ public class GCImpl implements GC {
             return oldChunkBytesAfter.add(pinnedChunkBytesAfter);
         }
 
+        /** Bytes held in the old generation before the most recent collection. */
+        UnsignedWord getOldGenerationBeforeChunkBytes() {
+            return oldChunkBytesBefore.add(pinnedChunkBytesBefore);
+        }
+
+        /** Bytes held in the young generation before the most recent collection. */
+        UnsignedWord getYoungChunkBytesBefore() {
+            return youngChunkBytesBefore;
+        }
+
+        /** Bytes released by the most recent collection. */
+        UnsignedWord getLastCollectedChunkBytes() {
+            return lastCollectedChunkBytes;
+        }
+
+        /** Bytes promoted by the most recent collection, if it was incremental. */
+        UnsignedWord getLastPromotedChunkBytes() {
+            return getHistoryOf(promotedUnpinnedChunkBytes).add(getHistoryOf(promotedPinnedChunkBytes));
+        }
+
+        UnsignedWord getYoungChunkBytesPeak() {
+            return youngChunkBytesPeak;
+        }
+
+        UnsignedWord getOldChunkBytesPeak() {
+            return oldChunkBytesPeak;
+        }
+
+        void resetYoungChunkBytesPeak() {
+            youngChunkBytesPeak = WordFactory.zero();
+        }
+
+        void resetOldChunkBytesPeak() {
+            oldChunkBytesPeak = WordFactory.zero();
+        }
+
         /** Average promoted unpinned chunk bytes. */
         UnsignedWord averagePromotedUnpinnedChunkBytes() {
             return averageOfHistory(promotedUnpinnedChunkBytes);
@@ -1374,6 +1476,9 @@ public class GCImpl implements GC {
             final UnsignedWord allocatedPinnedChunkBytes = pinnedSpace.getChunkBytes().subtract(pinnedChunkBytesBefore);
             setHistoryOf(promotedPinnedChunkBytes, allocatedPinnedChunkBytes);
             pinnedChunkBytes = pinnedChunkBytes.add(allocatedPinnedChunkBytes);
+            /* The heap is at its largest just before a collection. */
+            youngChunkBytesPeak = UnsignedUtils.max(youngChunkBytesPeak, youngChunkBytesBefore);
+            oldChunkBytesPeak = UnsignedUtils.max(oldChunkBytesPeak, oldChunkBytesBefore.add(pinnedSpace.getChunkBytes()));
             /* Keep some aggregate metrics. */
             if (SubstrateOptions.PrintGCSummary.getValue()) {
                 youngObjectBytesBefore = youngSpace.getObjectBytes();
@@ -1446,7 +1551,9 @@ public class GCImpl implements GC {
             final UnsignedWord beforeChunkBytes = youngChunkBytesBefore.add(oldChunkBytesBefore).add(pinnedChunkBytesBefore);
             final UnsignedWord afterChunkBytes = oldChunkBytesAfter.add(pinnedChunkBytesAfter);
             final UnsignedWord collectedChunkBytes = beforeChunkBytes.subtract(afterChunkBytes);
+            lastCollectedChunkBytes = collectedChunkBytes;
             collectedTotalChunkBytes = collectedTotalChunkBytes.add(collectedChunkBytes);
+            oldChunkBytesPeak = UnsignedUtils.max(oldChunkBytesPeak, afterChunkBytes);
             if (SubstrateOptions.PrintGCSummary.getValue()) {
                 /* The young generation is empty after the collection. */
                 pinnedObjectBytesAfter = pinnedSpace.getObjectBytes();
@@ -1680,6 +1787,11 @@ public class GCImpl implements GC {
         final long completeNanos = accounting.getCompleteCollectionTotalNanos();
         log.string(prefix).string("CompleteGCCount: ").signed(accounting.getCompleteCollectionCount()).newline();
         log.string(prefix).string("CompleteGCNanos: ").signed(completeNanos).newline();
+        if (ConcurrentMarking.isEnabled()) {
+            log.string(prefix).string("ConcurrentMarkingCycles: ").signed(concurrentMarking.getCompletedCycles()).newline();
+            log.string(prefix).string("ConcurrentMarkingAbortedCycles: ").signed(concurrentMarking.getAbortedCycles()).newline();
+            log.string(prefix).string("ConcurrentMarkingSweptChunkBytes: ").unsigned(concurrentMarking.getSweptChunkBytes()).newline();
+        }
         /* Compute a GC load percent. */
         final long gcNanos = incrementalNanos + completeNanos;
         final long mutatorNanos = mutatorTimer.getCollectedNanos();
@@ -1695,6 +1807,27 @@ public class GCImpl implements GC {
         return gcManagementFactory.getGCBeanList();
     }
 
+    @Override
+    public List<MemoryPoolMXBean> getMemoryPoolMXBeanList() {
+        return gcManagementFactory.getMemoryPoolBeanList();
+    }
+
+    @Override
+    public GCEventLog getEventLog() {
+        return eventLog;
+    }
+
+    /** Record the collection that just finished in the event log. */
+    private void recordCollectionEvent(String cause) {
+        final Accounting acc = getAccounting();
+        final UnsignedWord youngBytesAfter = HeapImpl.getHeapImpl().getYoungUsedChunkBytes();
+        final UnsignedWord promotedBytes = (completeCollection ? WordFactory.zero() : acc.getLastPromotedChunkBytes());
+        eventLog.record(getCollectionEpoch().rawValue(), completeCollection, cause, collectionTimer.getStart(), collectionTimer.getFinish(),
+                        acc.getYoungChunkBytesBefore().rawValue(), acc.getOldGenerationBeforeChunkBytes().rawValue(),
+                        youngBytesAfter.rawValue(), acc.getOldGenerationAfterChunkBytes().rawValue(),
+                        promotedBytes.rawValue(), acc.getLastCollectedChunkBytes().rawValue());
+    }
+
     public static class UnpinnedObjectReferenceWalkerException extends RuntimeException {
 
         UnpinnedObjectReferenceWalkerException() {
@@ -1709,6 +1842,7 @@ public class GCImpl implements GC {
 final class GarbageCollectorManagementFactory {
 
     private List<GarbageCollectorMXBean> gcBeanList;
+    private List<MemoryPoolMXBean> memoryPoolBeanList;
 
     GarbageCollectorManagementFactory() {
         final List<GarbageCollectorMXBean> newList = new ArrayList<>();
@@ -1716,12 +1850,20 @@ final class GarbageCollectorManagementFactory {
         newList.add(new IncrementalGarbageCollectorMXBean());
         newList.add(new CompleteGarbageCollectorMXBean());
         gcBeanList = newList;
+        final List<MemoryPoolMXBean> newPoolList = new ArrayList<>();
+        newPoolList.add(new YoungGenerationMemoryPoolMXBean());
+        newPoolList.add(new OldGenerationMemoryPoolMXBean());
+        memoryPoolBeanList = newPoolList;
     }
 
     List<GarbageCollectorMXBean> getGCBeanList() {
         return gcBeanList;
     }
 
+    List<MemoryPoolMXBean> getMemoryPoolBeanList() {
+        return memoryPoolBeanList;
+    }
+
     /** A GarbageCollectorMXBean for the incremental collector. */
     private static final class IncrementalGarbageCollectorMXBean implements GarbageCollectorMXBean {
 
@@ -1811,4 +1953,186 @@ final class GarbageCollectorManagementFactory {
             }
         }
     }
+
+    /**
+     * A MemoryPoolMXBean for a generation. Sizes are bytes of heap chunks, so a pool uses all the
+     * memory it has committed. Usage thresholds are not supported.
+     */
+    private abstract static class GenerationMemoryPoolMXBean implements MemoryPoolMXBean {
+
+        /** Constant for the {@link MemoryUsage} constructor. */
+        private static final long UNDEFINED_MEMORY_USAGE = -1L;
+
+        private final String name;
+        private final String[] managerNames;
+
+        GenerationMemoryPoolMXBean(String name, String... managerNames) {
+            this.name = name;
+            this.managerNames = managerNames;
+        }
+
+        /** The bytes of chunks the pool holds now. */
+        abstract UnsignedWord getChunkBytes();
+
+        /** The bytes of chunks the pool held after the most recent collection. */
+        abstract UnsignedWord getChunkBytesAfterCollection();
+
+        abstract UnsignedWord getChunkBytesPeak();
+
+        static MemoryUsage memoryUsage(UnsignedWord bytes) {
+            return new MemoryUsage(UNDEFINED_MEMORY_USAGE, bytes.rawValue(), bytes.rawValue(), UNDEFINED_MEMORY_USAGE);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public MemoryType getType() {
+            return MemoryType.HEAP;
+        }
+
+        @Override
+        public MemoryUsage getUsage() {
+            return memoryUsage(getChunkBytes());
+        }
+
+        @Override
+        public MemoryUsage getPeakUsage() {
+            return memoryUsage(UnsignedUtils.max(getChunkBytesPeak(), getChunkBytes()));
+        }
+
+        @Override
+        public MemoryUsage getCollectionUsage() {
+            return memoryUsage(getChunkBytesAfterCollection());
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public String[] getMemoryManagerNames() {
+            /* Return a new array each time because arrays are not immutable. */
+            return managerNames.clone();
+        }
+
+        @Override
+        public long getUsageThreshold() {
+            throw new UnsupportedOperationException("Usage threshold is not supported");
+        }
+
+        @Override
+        public void setUsageThreshold(long threshold) {
+            throw new UnsupportedOperationException("Usage threshold is not supported");
+        }
+
+        @Override
+        public boolean isUsageThresholdExceeded() {
+            throw new UnsupportedOperationException("Usage threshold is not supported");
+        }
+
+        @Override
+        public long getUsageThresholdCount() {
+            throw new UnsupportedOperationException("Usage threshold is not supported");
+        }
+
+        @Override
+        public boolean isUsageThresholdSupported() {
+            return false;
+        }
+
+        @Override
+        public long getCollectionUsageThreshold() {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported");
+        }
+
+        @Override
+        public void setCollectionUsageThreshold(long threshold) {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported");
+        }
+
+        @Override
+        public boolean isCollectionUsageThresholdExceeded() {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported");
+        }
+
+        @Override
+        public long getCollectionUsageThresholdCount() {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported");
+        }
+
+        @Override
+        public boolean isCollectionUsageThresholdSupported() {
+            return false;
+        }
+
+        @Override
+        public ObjectName getObjectName() {
+            try {
+                return new ObjectName("java.lang:type=MemoryPool,name=" + name);
+            } catch (MalformedObjectNameException mone) {
+                return null;
+            }
+        }
+    }
+
+    /** A MemoryPoolMXBean for the young generation. */
+    private static final class YoungGenerationMemoryPoolMXBean extends GenerationMemoryPoolMXBean {
+
+        private YoungGenerationMemoryPoolMXBean() {
+            super("young generation space", "young generation scavenger", "complete scavenger");
+        }
+
+        @Override
+        UnsignedWord getChunkBytes() {
+            return HeapImpl.getHeapImpl().getYoungUsedChunkBytes();
+        }
+
+        @Override
+        UnsignedWord getChunkBytesAfterCollection() {
+            /* Every collection empties the young generation. */
+            return WordFactory.zero();
+        }
+
+        @Override
+        UnsignedWord getChunkBytesPeak() {
+            return HeapImpl.getHeapImpl().getGCImpl().getAccounting().getYoungChunkBytesPeak();
+        }
+
+        @Override
+        public void resetPeakUsage() {
+            HeapImpl.getHeapImpl().getGCImpl().getAccounting().resetYoungChunkBytesPeak();
+        }
+    }
+
+    /** A MemoryPoolMXBean for the old generation, including pinned objects. */
+    private static final class OldGenerationMemoryPoolMXBean extends GenerationMemoryPoolMXBean {
+
+        private OldGenerationMemoryPoolMXBean() {
+            super("old generation space", "complete scavenger");
+        }
+
+        @Override
+        UnsignedWord getChunkBytes() {
+            return HeapImpl.getHeapImpl().getOldUsedChunkBytes();
+        }
+
+        @Override
+        UnsignedWord getChunkBytesAfterCollection() {
+            return HeapImpl.getHeapImpl().getGCImpl().getAccounting().getOldGenerationAfterChunkBytes();
+        }
+
+        @Override
+        UnsignedWord getChunkBytesPeak() {
+            return HeapImpl.getHeapImpl().getGCImpl().getAccounting().getOldChunkBytesPeak();
+        }
+
+        @Override
+        public void resetPeakUsage() {
+            HeapImpl.getHeapImpl().getGCImpl().getAccounting().resetOldChunkBytesPeak();
+        }
+    }
 }
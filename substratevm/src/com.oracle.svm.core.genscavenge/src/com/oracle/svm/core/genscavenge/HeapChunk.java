@@ -122,6 +122,20 @@ public class HeapChunk {
         @UniqueLocationIdentity
         void setPinned(boolean isPinned);
 
+        /**
+         * The top of this chunk when the current concurrent marking cycle started, or null if the
+         * chunk is not part of a marking cycle. Objects below this pointer are live only if they
+         * are marked. Objects at or above it were allocated (or promoted) during the cycle, and are
+         * implicitly live.
+         */
+        @RawField
+        @UniqueLocationIdentity
+        Pointer getTopAtMarkStart();
+
+        @RawField
+        @UniqueLocationIdentity
+        void setTopAtMarkStart(Pointer newTopAtMarkStart);
+
         /**
          * The Space this HeapChunk is part of.
          *
@@ -41,8 +41,11 @@ import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
 import com.oracle.svm.core.jdk.UninterruptibleUtils;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.os.CommittedMemoryProvider;
+import com.oracle.svm.core.os.VirtualMemoryProvider;
 import com.oracle.svm.core.thread.VMThreads;
 import com.oracle.svm.core.util.AtomicUnsigned;
+import com.oracle.svm.core.util.TimeUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
 
 /**
  * Allocates and frees the memory for aligned and unaligned heap chunks. The methods are
@@ -51,17 +54,33 @@ import com.oracle.svm.core.util.AtomicUnsigned;
  * Memory for aligned chunks is not immediately released to the OS. Up to
  * {@link HeapPolicy#getMinimumHeapSize()} chunks are saved in an unused chunk list. Memory for
  * unaligned chunks is released immediately.
+ *
+ * With {@link HeapOptions#UseNUMAAwareHeapChunks}, the memory of a new aligned chunk is placed on
+ * the NUMA node of the thread that produces it, and unused aligned chunks are kept in one list per
+ * NUMA node, so that a thread gets chunks that are local to it. With
+ * {@link HeapOptions#UseTransparentHugePagesForHeap}, new aligned chunks are advised to be backed
+ * by huge pages.
+ *
+ * {@link HeapOptions#MaximumUnusedAlignedChunkBytes} caps the unused chunk list below the minimum
+ * heap size, and with {@link HeapOptions#UnusedAlignedChunkIdleMillis}, unused chunks that were not
+ * needed during such an interval are released to the operating system, so that the committed
+ * memory shrinks back when the heap does. {@link HeapFootprintMXBean} exposes the committed and
+ * used bytes, and releases unused chunks on request.
  */
 class HeapChunkProvider {
 
+    /** The number of lists of unused aligned chunks. NUMA nodes beyond that share lists. */
+    private static final int UNUSED_ALIGNED_CHUNK_LISTS = 8;
+
     /**
-     * The head of the linked list of unused aligned chunks. Chunks are chained using
-     * {@link Header#getNext()}.
+     * The heads of the linked lists of unused aligned chunks, one per NUMA node. Chunks are
+     * chained using {@link Header#getNext()}. Without {@link HeapOptions#UseNUMAAwareHeapChunks},
+     * only the first list is used.
      */
-    private final UninterruptibleUtils.AtomicPointer<AlignedHeader> unusedAlignedChunks;
+    private final UninterruptibleUtils.AtomicPointer<AlignedHeader>[] unusedAlignedChunks;
 
     /**
-     * The number of chunks in the {@link #unusedAlignedChunks} list.
+     * The number of bytes in all the {@link #unusedAlignedChunks} lists.
      *
      * The value is not updated atomically with respect to the {@link #unusedAlignedChunks list
      * head}, but this is OK because we only need the number of chunks for policy code (to avoid
@@ -77,9 +96,32 @@ class HeapChunkProvider {
      */
     private long firstAllocationTime;
 
+    /**
+     * The time of the last check for idle unused aligned chunks. The checks are at least
+     * {@link HeapOptions#UnusedAlignedChunkIdleMillis} apart.
+     *
+     * Like {@link #firstAllocationTime}, races on updating the field are benign.
+     */
+    private long lastIdleCheckTime;
+
+    /**
+     * The smallest number of bytes in the unused aligned chunk lists since the last check for idle
+     * chunks. That many bytes of unused chunks were not needed since the last check, so they are
+     * idle. Chunks that are pushed to the lists do not change the value, only reuses lower it.
+     *
+     * The value is not updated atomically with respect to {@link #bytesInUnusedAlignedChunks}, but
+     * a stale value only makes a check release slightly more or fewer chunks.
+     */
+    private final AtomicUnsigned minimumBytesInUnusedAlignedChunks;
+
+    @SuppressWarnings("unchecked")
     protected HeapChunkProvider() {
-        unusedAlignedChunks = new UninterruptibleUtils.AtomicPointer<>();
+        unusedAlignedChunks = new UninterruptibleUtils.AtomicPointer[UNUSED_ALIGNED_CHUNK_LISTS];
+        for (int i = 0; i < unusedAlignedChunks.length; i++) {
+            unusedAlignedChunks[i] = new UninterruptibleUtils.AtomicPointer<>();
+        }
         bytesInUnusedAlignedChunks = new AtomicUnsigned();
+        minimumBytesInUnusedAlignedChunks = new AtomicUnsigned();
     }
 
     /**
@@ -125,20 +167,33 @@ class HeapChunkProvider {
         UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
         log().string("[HeapChunkProvider.produceAlignedChunk  chunk size: ").unsigned(chunkSize).newline();
 
-        AlignedHeader result = popUnusedAlignedChunk();
+        /* Allocation is the only activity of a program that does not collect, so check here too. */
+        releaseIdleAlignedChunks();
+
+        final int numaNode = getCurrentNumaNode();
+        AlignedHeader result = popUnusedAlignedChunk(numaNode);
         log().string("  unused chunk: ").hex(result).newline();
 
         if (result.isNull()) {
             /* Unused list was empty, need to allocate memory. */
             noteFirstAllocationTime();
             result = (AlignedHeader) CommittedMemoryProvider.get().allocate(chunkSize, HeapPolicy.getAlignedHeapChunkAlignment(), false);
-            if (result.isNull()) {
-                throw AllocatorOutOfMemoryError.throwError("No virtual memory for aligned chunk");
+            if (result.isNonNull()) {
+                log().string("  new chunk: ").hex(result).newline();
+
+                /* Before the memory is touched, so that the advice applies to all of it. */
+                adviseAlignedChunkMemory(result, chunkSize, numaNode);
+                initializeChunk(result, chunkSize);
+                result.setNumaNode(numaNode);
+                resetAlignedHeapChunk(result);
+            } else {
+                /* Rather than failing, use an unused chunk of another NUMA node. */
+                result = popUnusedAlignedChunkOfAnyNode();
+                if (result.isNull()) {
+                    throw AllocatorOutOfMemoryError.throwError("No virtual memory for aligned chunk");
+                }
+                log().string("  remote chunk: ").hex(result).newline();
             }
-            log().string("  new chunk: ").hex(result).newline();
-
-            initializeChunk(result, chunkSize);
-            resetAlignedHeapChunk(result);
         }
         assert result.getTop().equal(AlignedHeapChunk.getAlignedHeapChunkStart(result));
         assert result.getEnd().equal(HeapChunk.asPointer(result).add(chunkSize));
@@ -163,11 +218,96 @@ class HeapChunkProvider {
             pushUnusedAlignedChunk(chunk);
         } else {
             log().string("  release memory to the OS").newline();
-            CommittedMemoryProvider.get().free(chunk, HeapPolicy.getAlignedHeapChunkSize(), HeapPolicy.getAlignedHeapChunkAlignment(), false);
+            freeAlignedChunk(chunk);
         }
         log().string("  ]").newline();
     }
 
+    /** Release the memory of an aligned chunk to the operating system. */
+    private static void freeAlignedChunk(AlignedHeader chunk) {
+        /*
+         * The whole reservation is unmapped rather than just advised away, because a chunk that is
+         * handed out again must have an initialized header.
+         */
+        CommittedMemoryProvider.get().free(chunk, HeapPolicy.getAlignedHeapChunkSize(), HeapPolicy.getAlignedHeapChunkAlignment(), false);
+    }
+
+    /**
+     * Release the unused aligned chunks to the operating system that were not needed since the
+     * last check, if the last check was at least {@link HeapOptions#UnusedAlignedChunkIdleMillis}
+     * ago. Called when an aligned chunk is produced and after each collection, so the checks do not
+     * depend on the collections, which reuse unused chunks themselves.
+     */
+    void releaseIdleAlignedChunks() {
+        final long idleMillis = HeapOptions.UnusedAlignedChunkIdleMillis.getValue();
+        if (idleMillis <= 0L) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (now - lastIdleCheckTime < TimeUtils.millisToNanos(idleMillis)) {
+            return;
+        }
+        lastIdleCheckTime = now;
+        final UnsignedWord unusedBytes = bytesInUnusedAlignedChunks.get();
+        final UnsignedWord idleBytes = UnsignedUtils.min(minimumBytesInUnusedAlignedChunks.get(), unusedBytes);
+        UnsignedWord released = WordFactory.zero();
+        if (idleBytes.aboveThan(0)) {
+            released = releaseUnusedAlignedChunks(unusedBytes.subtract(idleBytes));
+        }
+        minimumBytesInUnusedAlignedChunks.set(bytesInUnusedAlignedChunks.get());
+        log().string("[HeapChunkProvider.releaseIdleAlignedChunks  idleBytes: ").unsigned(idleBytes).string("  released: ").unsigned(released).string(" ]").newline();
+    }
+
+    /**
+     * Release unused aligned chunks to the operating system until at most {@code retainedBytes}
+     * remain in the unused chunk lists. Returns the number of bytes released.
+     *
+     * This only pops from the lists, so it is safe to call from any thread, like
+     * {@link #produceAlignedChunk()}.
+     */
+    UnsignedWord releaseUnusedAlignedChunks(UnsignedWord retainedBytes) {
+        final UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
+        UnsignedWord released = WordFactory.zero();
+        while (bytesInUnusedAlignedChunks.get().aboveThan(retainedBytes)) {
+            final AlignedHeader chunk = popUnusedAlignedChunkOfAnyNode();
+            if (chunk.isNull()) {
+                break;
+            }
+            freeAlignedChunk(chunk);
+            released = released.add(chunkSize);
+        }
+        return released;
+    }
+
+    /** The number of bytes in the unused aligned chunk lists. */
+    UnsignedWord getBytesInUnusedAlignedChunks() {
+        return bytesInUnusedAlignedChunks.get();
+    }
+
+    /** The NUMA node of the current thread, or -1 if chunks are not NUMA-aware. */
+    private static int getCurrentNumaNode() {
+        if (!HeapOptions.UseNUMAAwareHeapChunks.getValue()) {
+            return -1;
+        }
+        return VirtualMemoryProvider.get().getCurrentNumaNode();
+    }
+
+    /** The list of unused aligned chunks for a NUMA node. */
+    private UninterruptibleUtils.AtomicPointer<AlignedHeader> getUnusedAlignedChunks(int numaNode) {
+        return unusedAlignedChunks[numaNode <= 0 ? 0 : numaNode % UNUSED_ALIGNED_CHUNK_LISTS];
+    }
+
+    /** Give the operating system hints about the memory of a new aligned chunk. */
+    private static void adviseAlignedChunkMemory(AlignedHeader chunk, UnsignedWord chunkSize, int numaNode) {
+        /* The advice is best-effort: the chunk is usable even if the operating system ignores it. */
+        if (HeapOptions.UseTransparentHugePagesForHeap.getValue()) {
+            VirtualMemoryProvider.get().adviseHugePages(chunk, chunkSize);
+        }
+        if (numaNode >= 0) {
+            VirtualMemoryProvider.get().preferNumaNode(chunk, chunkSize, numaNode);
+        }
+    }
+
     /** Should I keep another aligned chunk on the free list? */
     private boolean keepAlignedChunk() {
         final Log trace = Log.noopLog().string("[HeapChunkProvider.keepAlignedChunk:");
@@ -175,10 +315,13 @@ class HeapChunkProvider {
         final UnsignedWord heapChunkBytes = HeapImpl.getHeapImpl().getUsedChunkBytes();
         final UnsignedWord unusedChunkBytes = bytesInUnusedAlignedChunks.get();
         final UnsignedWord bytesInUse = heapChunkBytes.add(unusedChunkBytes);
-        /* If I am under the minimum heap size, then I can keep this chunk. */
-        final boolean result = bytesInUse.belowThan(minimumHeapSize);
+        final long maximumUnusedChunkBytes = HeapOptions.MaximumUnusedAlignedChunkBytes.getValue();
+        /* If I am under the minimum heap size and the unused chunk limit, then I can keep this chunk. */
+        final boolean result = bytesInUse.belowThan(minimumHeapSize) &&
+                        (maximumUnusedChunkBytes <= 0L || unusedChunkBytes.add(HeapPolicy.getAlignedHeapChunkSize()).belowOrEqual(WordFactory.unsigned(maximumUnusedChunkBytes)));
         trace
                         .string("  minimumHeapSize: ").unsigned(minimumHeapSize)
+                        .string("  maximumUnusedChunkBytes: ").signed(maximumUnusedChunkBytes)
                         .string("  heapChunkBytes: ").unsigned(heapChunkBytes)
                         .string("  unusedBytes: ").unsigned(unusedChunkBytes)
                         .string("  bytesInUse: ").unsigned(bytesInUse)
@@ -196,7 +339,7 @@ class HeapChunkProvider {
     }
 
     /**
-     * Push a chunk to the global linked list of unused chunks.
+     * Push a chunk to the global linked list of unused chunks of its NUMA node.
      * <p>
      * This method is <em>not</em> atomic. It only runs when the {@link VMThreads#THREAD_MUTEX} is
      * held (or the virtual machine is single-threaded). However it must not be allowed to compete
@@ -204,54 +347,70 @@ class HeapChunkProvider {
      * only used during garbage collection, so making popping uninterruptible prevents simultaneous
      * pushing and popping.
      *
-     * Note the asymmetry with {@link #popUnusedAlignedChunk()}, which does not use a global free
+     * Note the asymmetry with {@link #popUnusedAlignedChunk(int)}, which does not use a global free
      * list.
      */
     private void pushUnusedAlignedChunk(AlignedHeader chunk) {
         if (SubstrateOptions.MultiThreaded.getValue()) {
             VMThreads.THREAD_MUTEX.assertIsLocked("Should hold the lock when pushing to the global list.");
         }
-        log().string("  old list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+        final UninterruptibleUtils.AtomicPointer<AlignedHeader> list = getUnusedAlignedChunks(chunk.getNumaNode());
+        log().string("  old list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
 
-        chunk.setNext(unusedAlignedChunks.get());
-        unusedAlignedChunks.set(chunk);
+        chunk.setNext(list.get());
+        list.set(chunk);
         bytesInUnusedAlignedChunks.addAndGet(HeapPolicy.getAlignedHeapChunkSize());
 
-        log().string("  new list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+        log().string("  new list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
     }
 
     /**
-     * Pop a chunk from the global linked list of unused chunks. Returns {@code null} if the list is
-     * empty.
+     * Pop a chunk from the global linked list of unused chunks of a NUMA node. Returns
+     * {@code null} if the list is empty.
      * <p>
      * This method uses compareAndSet to protect itself from races with competing pop operations,
      * but it is <em>not</em> safe with respect to competing pushes. Since pushes can happen during
      * garbage collections, I avoid the ABA problem by making the kernel of this method
      * uninterruptible so it can not be interrupted by a safepoint.
      *
-     * Note the asymmetry with {@link #popUnusedAlignedChunk()}, which does not use a global free
+     * Note the asymmetry with {@link #popUnusedAlignedChunk(int)}, which does not use a global free
      * list.
      */
-    private AlignedHeader popUnusedAlignedChunk() {
-        log().string("  old list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+    private AlignedHeader popUnusedAlignedChunk(int numaNode) {
+        final UninterruptibleUtils.AtomicPointer<AlignedHeader> list = getUnusedAlignedChunks(numaNode);
+        log().string("  old list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
 
-        AlignedHeader result = popUnusedAlignedChunkUninterruptibly();
+        AlignedHeader result = popUnusedAlignedChunkUninterruptibly(list);
         if (result.isNull()) {
             /* Unused list is empty. */
             return WordFactory.nullPointer();
         } else {
             /* Successfully popped an unused chunk from the list. */
-            bytesInUnusedAlignedChunks.subtractAndGet(HeapPolicy.getAlignedHeapChunkSize());
-            log().string("  new list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+            final UnsignedWord remainingBytes = bytesInUnusedAlignedChunks.subtractAndGet(HeapPolicy.getAlignedHeapChunkSize());
+            if (remainingBytes.belowThan(minimumBytesInUnusedAlignedChunks.get())) {
+                minimumBytesInUnusedAlignedChunks.set(remainingBytes);
+            }
+            log().string("  new list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
             return result;
         }
     }
 
+    /** Pop a chunk from any of the lists of unused chunks. Returns {@code null} if all are empty. */
+    private AlignedHeader popUnusedAlignedChunkOfAnyNode() {
+        for (int i = 0; i < unusedAlignedChunks.length; i++) {
+            final AlignedHeader result = popUnusedAlignedChunk(i);
+            if (result.isNonNull()) {
+                return result;
+            }
+        }
+        return WordFactory.nullPointer();
+    }
+
     @Uninterruptible(reason = "Must not be interrupted by competing pushes.")
-    private AlignedHeader popUnusedAlignedChunkUninterruptibly() {
+    private static AlignedHeader popUnusedAlignedChunkUninterruptibly(UninterruptibleUtils.AtomicPointer<AlignedHeader> list) {
         while (true) {
             /* Sample the head of the list of unused chunks. */
-            AlignedHeader result = unusedAlignedChunks.get();
+            AlignedHeader result = list.get();
             if (result.isNull()) {
                 /* Unused list is empty. */
                 return WordFactory.nullPointer();
@@ -259,7 +418,7 @@ class HeapChunkProvider {
                 /* Sample the next pointer. */
                 AlignedHeader next = result.getNext();
                 /* Install next as the head of the list of unused chunks. */
-                if (unusedAlignedChunks.compareAndSet(result, next)) {
+                if (list.compareAndSet(result, next)) {
                     /* Successfully popped an unused chunk from the list. */
                     result.setNext(WordFactory.nullPointer());
                     return result;
@@ -317,6 +476,7 @@ class HeapChunkProvider {
     private static void resetChunkHeader(Header<?> chunk, Pointer objectsStart) {
         chunk.setTop(objectsStart);
         chunk.setPinned(false);
+        chunk.setTopAtMarkStart(WordFactory.nullPointer());
         chunk.setSpace(null);
         chunk.setNext(WordFactory.nullPointer());
         chunk.setPrevious(WordFactory.nullPointer());
@@ -341,6 +501,7 @@ class HeapChunkProvider {
 
     private static void resetUnalignedChunk(UnalignedHeader result) {
         resetChunkHeader(result, UnalignedHeapChunk.getUnalignedStart(result));
+        result.setMarked(false);
 
         /* Initialize the space for the card remembered set table. */
         CardTable.cleanTableToPointer(UnalignedHeapChunk.getCardTableStart(result), UnalignedHeapChunk.getCardTableLimit(result));
@@ -362,13 +523,16 @@ class HeapChunkProvider {
                         .string("/")
                         .signed(bytesInUnusedAlignedChunks.get().unsignedDivide(HeapPolicy.getAlignedHeapChunkSize()));
         if (traceHeapChunks) {
-            if (unusedAlignedChunks.get().isNonNull()) {
-                log.newline().string("aligned chunks:").redent(true);
-                for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.get(); aChunk.isNonNull(); aChunk = aChunk.getNext()) {
-                    log.newline().hex(aChunk)
-                                    .string(" (").hex(AlignedHeapChunk.getAlignedHeapChunkStart(aChunk)).string("-").hex(aChunk.getTop()).string(")");
+            for (int i = 0; i < unusedAlignedChunks.length; i++) {
+                if (unusedAlignedChunks[i].get().isNonNull()) {
+                    log.newline().string("aligned chunks:").redent(true);
+                    for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks[i].get(); aChunk.isNonNull(); aChunk = aChunk.getNext()) {
+                        log.newline().hex(aChunk)
+                                        .string(" (").hex(AlignedHeapChunk.getAlignedHeapChunkStart(aChunk)).string("-").hex(aChunk.getTop()).string(")")
+                                        .string(" node: ").signed(aChunk.getNumaNode());
+                    }
+                    log.redent(false);
                 }
-                log.redent(false);
             }
         }
         log.redent(false).string("]");
@@ -378,8 +542,10 @@ class HeapChunkProvider {
     boolean walkHeapChunks(MemoryWalker.Visitor visitor) {
         boolean continueVisiting = true;
         MemoryWalker.HeapChunkAccess<AlignedHeapChunk.AlignedHeader> access = AlignedHeapChunk.getMemoryWalkerAccess();
-        for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.get(); continueVisiting && aChunk.isNonNull(); aChunk = aChunk.getNext()) {
-            continueVisiting = visitor.visitHeapChunk(aChunk, access);
+        for (int i = 0; continueVisiting && i < unusedAlignedChunks.length; i++) {
+            for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks[i].get(); continueVisiting && aChunk.isNonNull(); aChunk = aChunk.getNext()) {
+                continueVisiting = visitor.visitHeapChunk(aChunk, access);
+            }
         }
         return continueVisiting;
     }
@@ -395,10 +561,12 @@ class HeapChunkProvider {
     }
 
     boolean slowlyFindPointer(Pointer p) {
-        for (AlignedHeader chunk = unusedAlignedChunks.get(); chunk.isNonNull(); chunk = chunk.getNext()) {
-            Pointer chunkPtr = HeapChunk.asPointer(chunk);
-            if (p.aboveOrEqual(chunkPtr) && p.belowThan(chunkPtr.add(HeapPolicy.getAlignedHeapChunkSize()))) {
-                return true;
+        for (int i = 0; i < unusedAlignedChunks.length; i++) {
+            for (AlignedHeader chunk = unusedAlignedChunks[i].get(); chunk.isNonNull(); chunk = chunk.getNext()) {
+                Pointer chunkPtr = HeapChunk.asPointer(chunk);
+                if (p.aboveOrEqual(chunkPtr) && p.belowThan(chunkPtr.add(HeapPolicy.getAlignedHeapChunkSize()))) {
+                    return true;
+                }
             }
         }
         return false;
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The memory footprint of the heap, for code that sizes a process by the memory it has committed,
+ * for example an autoscaler. Unlike the {@link java.lang.management.MemoryMXBean}, the values are
+ * read from the heap accounting without walking memory, so they are cheap to poll.
+ *
+ * The footprint excludes the image heap. The used bytes are those of the chunks that hold objects;
+ * the committed bytes add the unused aligned chunks that are kept for reuse.
+ */
+public interface HeapFootprintMXBean extends PlatformManagedObject {
+
+    /** The number of bytes of heap chunks that are committed from the operating system. */
+    long getCommittedBytes();
+
+    /** The number of bytes of heap chunks that hold objects. */
+    long getUsedBytes();
+
+    /** The number of bytes of unused aligned chunks that are kept for reuse. */
+    long getUnusedChunkBytes();
+
+    /**
+     * Release the unused aligned chunks to the operating system, regardless of
+     * {@link HeapOptions#UnusedAlignedChunkIdleMillis}. Returns the number of bytes released.
+     */
+    long releaseUnusedChunks();
+}
@@ -26,6 +26,7 @@ package com.oracle.svm.core.genscavenge;
 
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
+import java.lang.management.PlatformManagedObject;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -53,6 +54,8 @@ import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.heap.GC;
 import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.heap.NativeImageInfo;
@@ -89,6 +92,9 @@ public class HeapImpl extends Heap {
     /** A singleton instance, created during image generation. */
     private final MemoryMXBean memoryMXBean;
 
+    /** A singleton instance, created during image generation. */
+    private final HeapFootprintMXBean footprintMXBean;
+
     /** A list of all the classes, if someone asks for it. */
     private List<Class<?>> classList;
 
@@ -113,6 +119,7 @@ public class HeapImpl extends Heap {
         this.pinnedAllocatorListHead = null;
         this.objectVisitorWalkerOperation = new ObjectVisitorWalkerOperation();
         this.memoryMXBean = new HeapImplMemoryMXBean();
+        this.footprintMXBean = new HeapImplFootprintMXBean();
         this.classList = null;
         SubstrateUtil.DiagnosticThunkRegister.getSingleton().register(() -> {
             bootImageHeapBoundariesToLog(Log.log()).newline();
@@ -141,6 +148,27 @@ public class HeapImpl extends Heap {
     @Override
     public void disableAllocation(IsolateThread vmThread) {
         ThreadLocalAllocation.disableThreadLocalAllocation(vmThread);
+        if (ConcurrentMarking.isEnabled()) {
+            /* Hand the logged references of a detaching thread to the marker. */
+            ConcurrentMarking.get().flushBuffer(vmThread);
+        }
+    }
+
+    @Override
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public boolean tryPreWriteBarrierForObjectArray(Object array, UnsignedWord startOffset, UnsignedWord size) {
+        if (ConcurrentMarking.isEnabled()) {
+            return gcImpl.getConcurrentMarking().tryEnqueueObjectArrayRange(array, startOffset, size);
+        }
+        return true;
+    }
+
+    @Override
+    public void preparePreWriteBarrierForObjectArray(UnsignedWord size) {
+        if (ConcurrentMarking.isEnabled()) {
+            final int referenceSize = ConfigurationValues.getObjectLayout().getReferenceSize();
+            getGCImpl().getConcurrentMarking().refillBuffer(size.unsignedDivide(referenceSize).add(1));
+        }
     }
 
     /*
@@ -251,6 +279,7 @@ public class HeapImpl extends Heap {
         return getGCImpl();
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public GCImpl getGCImpl() {
         return gcImpl;
     }
@@ -492,6 +521,16 @@ public class HeapImpl extends Heap {
         return memoryMXBean;
     }
 
+    /** An accessor for the HeapFootprintMXBean. */
+    public HeapFootprintMXBean getFootprintMXBean() {
+        return footprintMXBean;
+    }
+
+    @Override
+    public List<PlatformManagedObject> getPlatformManagedObjects() {
+        return Collections.singletonList(footprintMXBean);
+    }
+
     /** Return a list of all the classes in the heap. */
     @Override
     public List<Class<?>> getClassList() {
@@ -707,6 +746,48 @@ final class HeapImplMemoryMXBean implements MemoryMXBean {
     }
 }
 
+/** A HeapFootprintMXBean for this heap. */
+final class HeapImplFootprintMXBean implements HeapFootprintMXBean {
+
+    private final ObjectName objectName;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    HeapImplFootprintMXBean() {
+        ObjectName name;
+        try {
+            name = new ObjectName("com.oracle.svm:type=HeapFootprint,name=HeapImpl");
+        } catch (MalformedObjectNameException mone) {
+            name = null;
+        }
+        this.objectName = name;
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getCommittedBytes() {
+        return getUsedBytes() + getUnusedChunkBytes();
+    }
+
+    @Override
+    public long getUsedBytes() {
+        return HeapImpl.getHeapImpl().getUsedChunkBytes().rawValue();
+    }
+
+    @Override
+    public long getUnusedChunkBytes() {
+        return HeapChunkProvider.get().getBytesInUnusedAlignedChunks().rawValue();
+    }
+
+    @Override
+    public long releaseUnusedChunks() {
+        return HeapChunkProvider.get().releaseUnusedAlignedChunks(WordFactory.zero()).rawValue();
+    }
+}
+
 /** A MemoryWalker.Visitor that records used and committed memory sizes. */
 final class MemoryMXBeanMemoryVisitor implements MemoryWalker.Visitor {
 
@@ -33,6 +33,24 @@ public class HeapOptions {
     @Option(help = "Use a card remembered set heap for GC")//
     public static final HostedOptionKey<Boolean> UseCardRememberedSetHeap = new HostedOptionKey<>(true);
 
+    @Option(help = "Mark the old generation concurrently with the mutator, using a snapshot-at-the-beginning write barrier. Experimental.")//
+    public static final HostedOptionKey<Boolean> UseConcurrentOldGenerationMarking = new HostedOptionKey<>(false);
+
+    @Option(help = "Start a concurrent marking cycle when the old generation occupies this percentage of the maximum heap size.")//
+    public static final RuntimeOptionKey<Integer> ConcurrentMarkingInitiatingOccupancyPercent = new RuntimeOptionKey<>(45);
+
+    @Option(help = "Advise the operating system to back aligned heap chunks with transparent huge pages. Most effective when the aligned chunk size is a multiple of the huge page size.")//
+    public static final RuntimeOptionKey<Boolean> UseTransparentHugePagesForHeap = new RuntimeOptionKey<>(false);
+
+    @Option(help = "Place the memory of new aligned heap chunks on the NUMA node of the allocating thread, and keep unused aligned chunks per NUMA node.")//
+    public static final RuntimeOptionKey<Boolean> UseNUMAAwareHeapChunks = new RuntimeOptionKey<>(false);
+
+    @Option(help = "The maximum number of bytes of unused aligned heap chunks that are kept for reuse. 0 keeps unused chunks up to the minimum heap size.")//
+    public static final RuntimeOptionKey<Long> MaximumUnusedAlignedChunkBytes = new RuntimeOptionKey<>(0L);
+
+    @Option(help = "Every this many milliseconds, release the unused aligned heap chunks that were not reused since the last time to the operating system. 0 disables the release of idle chunks.")//
+    public static final RuntimeOptionKey<Long> UnusedAlignedChunkIdleMillis = new RuntimeOptionKey<>(0L);
+
     @Option(help = "Print the shape of the heap before and after each collection, if +VerboseGC.")//
     public static final RuntimeOptionKey<Boolean> PrintHeapShape = new RuntimeOptionKey<>(false);
 
@@ -418,6 +418,7 @@ public class ObjectHeaderImpl extends ObjectHeader {
      * @param header the full header to be examined.
      * @return true if the object has a remembered set, false otherwise.
      */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static boolean hasRememberedSet(UnsignedWord header) {
         return header.and(MASK_REMEMBERED_SET).notEqual(0);
     }
@@ -431,6 +432,7 @@ public class ObjectHeaderImpl extends ObjectHeader {
      * @return true if the object is unaligned, false otherwise.
      *
      */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static boolean isHeapObjectUnaligned(UnsignedWord header) {
         return header.and(MASK_UNALIGNED).notEqual(0);
     }
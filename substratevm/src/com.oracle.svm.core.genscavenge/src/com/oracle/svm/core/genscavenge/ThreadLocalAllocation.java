@@ -41,6 +41,7 @@ import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.allocationprofile.AllocationSampler;
 import com.oracle.svm.core.annotate.RestrictHeapAccess;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.deopt.DeoptTester;
@@ -137,6 +138,9 @@ public final class ThreadLocalAllocation {
         final UnsignedWord gcEpoch = HeapImpl.getHeapImpl().getGCImpl().possibleCollectionPrologue();
         /* Allocate the requested instance. */
         final Object result = slowPathNewInstanceWithoutAllocating(hub);
+        if (AllocationSampler.isEnabled()) {
+            AllocationSampler.maybeSample(KnownIntrinsics.readCallerStackPointer(), KnownIntrinsics.readReturnAddress(), hub.asClass());
+        }
         /* Allow the collector to do stuff now that allocation, etc., is allowed. */
         HeapImpl.getHeapImpl().getGCImpl().possibleCollectionEpilogue(gcEpoch);
         return result;
@@ -158,6 +162,10 @@ public final class ThreadLocalAllocation {
         // Policy: Possibly collect before this allocation.
         HeapImpl.getHeapImpl().getHeapPolicy().getCollectOnAllocationPolicy().maybeCauseCollection();
 
+        if (AllocationSampler.isEnabled()) {
+            AllocationSampler.noteAllocatedBytes(getAllocationChunkBytes(tlab));
+        }
+
         /*
          * On this path allocation failed in the 'allocation chunk', thus we refill it, i.e.., add a
          * new allocation chunk at the front of the TLAB's aligned chunks.
@@ -204,6 +212,9 @@ public final class ThreadLocalAllocation {
         final UnsignedWord gcEpoch = HeapImpl.getHeapImpl().getGCImpl().possibleCollectionPrologue();
         /* Allocate the requested array. */
         final Object result = slowPathNewArrayWithoutAllocating(hub, length);
+        if (AllocationSampler.isEnabled()) {
+            AllocationSampler.maybeSample(KnownIntrinsics.readCallerStackPointer(), KnownIntrinsics.readReturnAddress(), hub.asClass());
+        }
         /* Allow the collector to do stuff now that allocation, etc., is allowed. */
         HeapImpl.getHeapImpl().getGCImpl().possibleCollectionEpilogue(gcEpoch);
         return result;
@@ -236,10 +247,16 @@ public final class ThreadLocalAllocation {
             if (size.aboveOrEqual(HeapPolicy.getMaximumHeapSize())) {
                 throw arrayAllocationTooLarge;
             }
+            if (AllocationSampler.isEnabled()) {
+                AllocationSampler.noteAllocatedBytes(size);
+            }
             /* Large arrays go into their own unaligned chunk. */
             UnalignedHeapChunk.UnalignedHeader uChunk = HeapChunkProvider.get().produceUnalignedChunk(size);
             result = allocateLargeArray(hub, length, size, uChunk, tlab, rememberedSet);
         } else {
+            if (AllocationSampler.isEnabled()) {
+                AllocationSampler.noteAllocatedBytes(getAllocationChunkBytes(tlab));
+            }
             /* Small arrays go into the regular aligned chunk. */
             AlignedHeader newChunk = prepareNewAllocationChunk(tlab);
             result = allocateSmallArray(hub, length, size, tlab, rememberedSet, newChunk);
@@ -527,6 +544,22 @@ public final class ThreadLocalAllocation {
         return tlabUsedMemory;
     }
 
+    /** The number of bytes allocated in the current allocation chunk of a TLAB, for sampling. */
+    private static UnsignedWord getAllocationChunkBytes(Descriptor tlab) {
+        UnsignedWord objectBytes = HeapPolicy.getAlignedHeapChunkSize().subtract(AlignedHeapChunk.getAlignedHeapOverhead());
+        return objectBytes.subtract(getAllocationChunkFreeBytes(tlab, objectBytes));
+    }
+
+    /** The number of bytes left in the current allocation chunk of a TLAB, if it has one. */
+    @Uninterruptible(reason = "Reads TLAB")
+    private static UnsignedWord getAllocationChunkFreeBytes(Descriptor tlab, UnsignedWord noChunkValue) {
+        Pointer allocationTop = tlab.getAllocationTop(TOP_IDENTITY);
+        if (allocationTop.isNull()) {
+            return noChunkValue;
+        }
+        return tlab.getAllocationEnd(END_IDENTITY).subtract(allocationTop);
+    }
+
     /**
      * Refill the allocation chunk, i.e.., retire the current allocation chunk (the one in which
      * allocation failed) add a new allocation chunk at the front of the TLAB's aligned chunks.
@@ -30,8 +30,10 @@ import org.graalvm.nativeimage.Feature;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.struct.RawField;
 import org.graalvm.nativeimage.c.struct.RawStructure;
 import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.c.struct.UniqueLocationIdentity;
 import org.graalvm.word.Pointer;
 import org.graalvm.word.UnsignedWord;
 import org.graalvm.word.WordFactory;
@@ -92,6 +94,18 @@ public class UnalignedHeapChunk extends HeapChunk {
      */
     @RawStructure
     public interface UnalignedHeader extends HeapChunk.Header<UnalignedHeader> {
+
+        /**
+         * Whether the Object in this chunk has been marked by the current concurrent marking
+         * cycle. Only meaningful if {@link #getTopAtMarkStart()} is not null.
+         */
+        @RawField
+        @UniqueLocationIdentity
+        boolean getMarked();
+
+        @RawField
+        @UniqueLocationIdentity
+        void setMarked(boolean isMarked);
     }
 
     /*
@@ -31,10 +31,14 @@ import java.util.Map;
 import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.api.replacements.Snippet;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.core.common.spi.ForeignCallDescriptor;
 import org.graalvm.compiler.debug.DebugHandlersFactory;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.Node.ConstantNodeParameter;
+import org.graalvm.compiler.graph.Node.NodeIntrinsic;
 import org.graalvm.compiler.nodes.extended.BranchProbabilityNode;
 import org.graalvm.compiler.nodes.extended.FixedValueAnchorNode;
+import org.graalvm.compiler.nodes.extended.ForeignCallNode;
 import org.graalvm.compiler.nodes.memory.address.OffsetAddressNode;
 import org.graalvm.compiler.nodes.spi.LoweringTool;
 import org.graalvm.compiler.options.Option;
@@ -44,19 +48,26 @@ import org.graalvm.compiler.replacements.SnippetTemplate;
 import org.graalvm.compiler.replacements.SnippetTemplate.Arguments;
 import org.graalvm.compiler.replacements.SnippetTemplate.SnippetInfo;
 import org.graalvm.compiler.replacements.Snippets;
+import org.graalvm.compiler.word.ObjectAccess;
 import org.graalvm.nativeimage.Feature;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk;
 import com.oracle.svm.core.genscavenge.CardTable;
+import com.oracle.svm.core.genscavenge.ConcurrentMarking;
 import com.oracle.svm.core.genscavenge.ObjectHeaderImpl;
 import com.oracle.svm.core.genscavenge.UnalignedHeapChunk;
+import com.oracle.svm.core.graal.meta.RuntimeConfiguration;
+import com.oracle.svm.core.graal.meta.SubstrateForeignCallLinkage;
 import com.oracle.svm.core.graal.snippets.NodeLoweringProvider;
 import com.oracle.svm.core.graal.snippets.SubstrateTemplates;
 import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.snippets.SnippetRuntime;
+import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
 import com.oracle.svm.core.util.Counter;
 import com.oracle.svm.core.util.CounterFeature;
 
@@ -80,8 +91,48 @@ public class BarrierSnippets extends SubstrateTemplates implements Snippets {
     /** The entry point for registering lowerings. */
     public void registerLowerings(Map<Class<? extends Node>, NodeLoweringProvider<?>> lowerings) {
         lowerings.put(PostWriteBarrierNode.class, new PostWriteBarrierLowering());
+        lowerings.put(PreWriteBarrierNode.class, new PreWriteBarrierLowering());
     }
 
+    /** The slow path of the pre-write barrier. It only writes memory outside the heap. */
+    private static final SubstrateForeignCallDescriptor ENQUEUE_PREVIOUS_VALUE = SnippetRuntime.findForeignCall(ConcurrentMarking.class, "enqueuePreviousValue", true);
+
+    /** The entry point for registering foreign calls. */
+    @SuppressWarnings("unused")
+    public static void registerForeignCalls(RuntimeConfiguration runtimeConfig, Providers providers, SnippetReflectionProvider snippetReflection,
+                    Map<SubstrateForeignCallDescriptor, SubstrateForeignCallLinkage> foreignCalls, boolean hosted) {
+        if (ConcurrentMarking.isEnabled()) {
+            foreignCalls.put(ENQUEUE_PREVIOUS_VALUE, new SubstrateForeignCallLinkage(providers, ENQUEUE_PREVIOUS_VALUE));
+        }
+    }
+
+    /**
+     * While the old generation is being marked concurrently, log the object reference that is
+     * about to be overwritten, so that the marker finds everything that was reachable when marking
+     * started.
+     *
+     * @param object The object to which the write will be done.
+     * @param offset The offset of the reference within the object.
+     */
+    @Snippet
+    public static void preWriteBarrierSnippet(Object object, long offset) {
+        counters().preWriteBarrier.inc();
+        if (BranchProbabilityNode.probability(BranchProbabilityNode.FREQUENT_PROBABILITY, !ConcurrentMarking.isMarkingActive())) {
+            // Most likely: no marking cycle is in progress.
+            return;
+        }
+        final Object fixedObject = FixedValueAnchorNode.getObject(object);
+        final Object previousValue = ObjectAccess.readObject(fixedObject, WordFactory.signed(offset));
+        if (previousValue == null) {
+            return;
+        }
+        counters().preWriteBarrierEnqueue.inc();
+        callEnqueuePreviousValue(ENQUEUE_PREVIOUS_VALUE, previousValue);
+    }
+
+    @NodeIntrinsic(value = ForeignCallNode.class)
+    private static native void callEnqueuePreviousValue(@ConstantNodeParameter ForeignCallDescriptor descriptor, Object previousValue);
+
     /**
      * Given an object, dirty the card for the object.
      *
@@ -139,6 +190,23 @@ public class BarrierSnippets extends SubstrateTemplates implements Snippets {
         }
     }
 
+    /*
+     * *Not* a static class: references fields of the containing BarrierSnippet instance.
+     */
+    protected class PreWriteBarrierLowering implements NodeLoweringProvider<PreWriteBarrierNode> {
+
+        private final SnippetInfo preWriteBarrierSnippetInfo = snippet(BarrierSnippets.class, "preWriteBarrierSnippet");
+
+        @Override
+        public void lower(PreWriteBarrierNode barrier, LoweringTool tool) {
+            Arguments args = new Arguments(preWriteBarrierSnippetInfo, barrier.graph().getGuardsStage(), tool.getLoweringStage());
+            OffsetAddressNode address = (OffsetAddressNode) barrier.getAddress();
+            args.add("object", address.getBase());
+            args.add("offset", address.getOffset());
+            template(barrier, args).instantiate(providers.getMetaAccess(), barrier, SnippetTemplate.DEFAULT_REPLACER, args);
+        }
+    }
+
     public static final class TestingBackDoor {
         private TestingBackDoor() {
         }
@@ -162,6 +230,8 @@ class BarrierSnippetCounters {
     final Counter postWriteBarrier = new Counter(counters, "postWriteBarrier", "post-write barriers");
     final Counter postWriteBarrierAligned = new Counter(counters, "postWriteBarrierAligned", "aligned object path of post-write barriers");
     final Counter postWriteBarrierUnaligned = new Counter(counters, "postWriteBarrierUnaligned", "unaligned object path of post-write barriers");
+    final Counter preWriteBarrier = new Counter(counters, "preWriteBarrier", "pre-write barriers");
+    final Counter preWriteBarrierEnqueue = new Counter(counters, "preWriteBarrierEnqueue", "pre-write barriers that logged a previous value");
 }
 
 @AutomaticFeature
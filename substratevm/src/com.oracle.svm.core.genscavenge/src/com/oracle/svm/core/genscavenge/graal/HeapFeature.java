@@ -89,5 +89,6 @@ public class HeapFeature implements GraalFeature {
                     Map<SubstrateForeignCallDescriptor, SubstrateForeignCallLinkage> foreignCalls, boolean hosted) {
 
         AllocationSnippets.registerForeignCalls(runtimeConfig, providers, snippetReflection, foreignCalls, hosted);
+        BarrierSnippets.registerForeignCalls(runtimeConfig, providers, snippetReflection, foreignCalls, hosted);
     }
 }
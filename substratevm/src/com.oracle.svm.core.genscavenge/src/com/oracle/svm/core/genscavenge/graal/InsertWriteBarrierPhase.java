@@ -37,6 +37,8 @@ import org.graalvm.compiler.nodes.type.StampTool;
 import org.graalvm.compiler.phases.BasePhase;
 import org.graalvm.compiler.phases.tiers.MidTierContext;
 
+import com.oracle.svm.core.genscavenge.ConcurrentMarking;
+
 /**
  * Walk the graph and find WriteNodes with barriers and turn them into WriteNodes without barriers
  * and separate barrier nodes.
@@ -89,6 +91,10 @@ public class InsertWriteBarrierPhase extends BasePhase<MidTierContext> {
             // Storing something other than an Object does not require a barrier.
             return;
         }
+        if (ConcurrentMarking.isEnabled()) {
+            // Overwriting a reference, even with a null, requires a pre-write barrier.
+            addPreWriteBarrier(graph, node, node.getAddress());
+        }
         if (StampTool.isPointerAlwaysNull(value)) {
             // Storing a null does not require a barrier.
             return;
@@ -116,6 +122,10 @@ public class InsertWriteBarrierPhase extends BasePhase<MidTierContext> {
             // Storing something other than an Object does not require a barrier.
             return;
         }
+        if (ConcurrentMarking.isEnabled()) {
+            // Overwriting a reference, even with a null, requires a pre-write barrier.
+            addPreWriteBarrier(graph, node, node.getAddress());
+        }
         if (StampTool.isPointerAlwaysNull(value)) {
             // Storing a null does not require a barrier.
             return;
@@ -143,6 +153,10 @@ public class InsertWriteBarrierPhase extends BasePhase<MidTierContext> {
             // Storing something other than an Object does not require a barrier.
             return;
         }
+        if (ConcurrentMarking.isEnabled()) {
+            // Overwriting a reference, even with a null, requires a pre-write barrier.
+            addPreWriteBarrier(graph, node, node.getAddress());
+        }
         if (StampTool.isPointerAlwaysNull(value)) {
             // Storing a null does not require a barrier.
             return;
@@ -151,6 +165,11 @@ public class InsertWriteBarrierPhase extends BasePhase<MidTierContext> {
         addPostWriteBarrier(graph, node, node.getAddress());
     }
 
+    protected void addPreWriteBarrier(StructuredGraph graph, FixedAccessNode node, AddressNode address) {
+        final PreWriteBarrierNode barrierNode = new PreWriteBarrierNode(address);
+        graph.addBeforeFixed(node, graph.add(barrierNode));
+    }
+
     protected void addPostWriteBarrier(StructuredGraph graph, FixedAccessNode node, AddressNode address) {
         // TODO: Decide if I want a precise or imprecise barrier.
         final PostWriteBarrierNode barrierNode = new PostWriteBarrierNode(address);
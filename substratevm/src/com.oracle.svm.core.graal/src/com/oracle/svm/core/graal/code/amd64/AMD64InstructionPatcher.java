@@ -24,6 +24,7 @@
  */
 package com.oracle.svm.core.graal.code.amd64;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,7 +36,39 @@ import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
 
 public class AMD64InstructionPatcher {
 
-    private final Map<Integer, OperandDataAnnotation> operandAnnotations;
+    /**
+     * The location of an operand that must be patched. The assembler records an
+     * {@link OperandDataAnnotation}, which only it can create. Compilation results that are not
+     * created by the assembler, for example because they are restored from a persistent cache,
+     * record this annotation instead.
+     */
+    public static final class OperandAnnotation extends CodeAnnotation {
+        public final int operandPosition;
+        public final int operandSize;
+        public final int nextInstructionPosition;
+
+        public OperandAnnotation(int instructionPosition, int operandPosition, int operandSize, int nextInstructionPosition) {
+            super(instructionPosition);
+            this.operandPosition = operandPosition;
+            this.operandSize = operandSize;
+            this.nextInstructionPosition = nextInstructionPosition;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof OperandAnnotation) {
+                OperandAnnotation that = (OperandAnnotation) obj;
+                return this.position == that.position && this.operandPosition == that.operandPosition && this.operandSize == that.operandSize &&
+                                this.nextInstructionPosition == that.nextInstructionPosition;
+            }
+            return false;
+        }
+    }
+
+    private final Map<Integer, OperandAnnotation> operandAnnotations;
 
     public AMD64InstructionPatcher(CompilationResult compilationResult) {
         /*
@@ -49,14 +82,22 @@ public class AMD64InstructionPatcher {
                 Assembler.CodeAnnotation assemblerAnotation = ((CompilationResultBuilder.AssemblerAnnotation) codeAnnotation).assemblerCodeAnnotation;
                 if (assemblerAnotation instanceof OperandDataAnnotation) {
                     OperandDataAnnotation operandAnnotation = (OperandDataAnnotation) assemblerAnotation;
-                    operandAnnotations.put(operandAnnotation.instructionPosition, operandAnnotation);
+                    operandAnnotations.put(operandAnnotation.instructionPosition, new OperandAnnotation(operandAnnotation.instructionPosition, operandAnnotation.operandPosition,
+                                    operandAnnotation.operandSize, operandAnnotation.nextInstructionPosition));
                 }
+            } else if (codeAnnotation instanceof OperandAnnotation) {
+                operandAnnotations.put(codeAnnotation.position, (OperandAnnotation) codeAnnotation);
             }
 
         }
 
     }
 
+    /** All operands of the compilation result that can be patched. */
+    public Collection<OperandAnnotation> getOperandAnnotations() {
+        return operandAnnotations.values();
+    }
+
     public static final class PatchData {
         public final int operandPosition;
         public final int operandSize;
@@ -82,10 +123,10 @@ public class AMD64InstructionPatcher {
     }
 
     public PatchData findPatchData(int codePos, int relative) {
-        OperandDataAnnotation operandData = operandAnnotations.get(codePos);
-        assert operandData.instructionPosition == codePos;
+        OperandAnnotation operandData = operandAnnotations.get(codePos);
+        assert operandData.position == codePos;
 
-        int offset = relative - (operandData.nextInstructionPosition - operandData.instructionPosition);
+        int offset = relative - (operandData.nextInstructionPosition - operandData.position);
         return new PatchData(operandData.operandPosition, operandData.operandSize, operandData.nextInstructionPosition, offset);
     }
 }
@@ -50,6 +50,7 @@ import org.graalvm.word.WordFactory;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.graal.snippets.NodeLoweringProvider;
 import com.oracle.svm.core.graal.snippets.SubstrateTemplates;
+import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.hub.LayoutEncoding;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
@@ -166,11 +167,16 @@ public final class ArraycopySnippets extends SubstrateTemplates implements Snipp
         UnsignedWord toOffset = LayoutEncoding.getArrayElementOffset(le, toIndex);
         UnsignedWord elementSize = WordFactory.unsigned(LayoutEncoding.getArrayIndexScale(le));
         UnsignedWord size = elementSize.multiply(length);
-        objectCopyForwardUninterruptibly(fromArray, fromOffset, toArray, toOffset, elementSize, size);
+        while (!objectCopyForwardUninterruptibly(fromArray, fromOffset, toArray, toOffset, elementSize, size)) {
+            Heap.getHeap().preparePreWriteBarrierForObjectArray(size);
+        }
     }
 
     @Uninterruptible(reason = "Only the first writeObject has a write-barrier.")
-    private static void objectCopyForwardUninterruptibly(Object fromArray, UnsignedWord fromOffset, Object toArray, UnsignedWord toOffset, UnsignedWord elementSize, UnsignedWord size) {
+    private static boolean objectCopyForwardUninterruptibly(Object fromArray, UnsignedWord fromOffset, Object toArray, UnsignedWord toOffset, UnsignedWord elementSize, UnsignedWord size) {
+        if (!Heap.getHeap().tryPreWriteBarrierForObjectArray(toArray, toOffset, size)) {
+            return false;
+        }
         UnsignedWord copied = WordFactory.zero();
         // Loop-peel the first iteration so I can use BarrieredAccess
         // to put a write barrier on the destination.
@@ -184,6 +190,7 @@ public final class ArraycopySnippets extends SubstrateTemplates implements Snipp
                 copied = copied.add(elementSize);
             }
         }
+        return true;
     }
 
     private static void objectCopyBackward(Object fromArray, int fromIndex, Object toArray, int toIndex, int length, int le) {
@@ -191,11 +198,16 @@ public final class ArraycopySnippets extends SubstrateTemplates implements Snipp
         UnsignedWord toOffset = LayoutEncoding.getArrayElementOffset(le, toIndex);
         UnsignedWord elementSize = WordFactory.unsigned(LayoutEncoding.getArrayIndexScale(le));
         UnsignedWord size = elementSize.multiply(length);
-        objectCopyBackwardsUninterruptibly(fromArray, fromOffset, toArray, toOffset, elementSize, size);
+        while (!objectCopyBackwardsUninterruptibly(fromArray, fromOffset, toArray, toOffset, elementSize, size)) {
+            Heap.getHeap().preparePreWriteBarrierForObjectArray(size);
+        }
     }
 
     @Uninterruptible(reason = "Only the first writeObject has a write-barrier.")
-    private static void objectCopyBackwardsUninterruptibly(Object fromArray, UnsignedWord fromOffset, Object toArray, UnsignedWord toOffset, UnsignedWord elementSize, UnsignedWord size) {
+    private static boolean objectCopyBackwardsUninterruptibly(Object fromArray, UnsignedWord fromOffset, Object toArray, UnsignedWord toOffset, UnsignedWord elementSize, UnsignedWord size) {
+        if (!Heap.getHeap().tryPreWriteBarrierForObjectArray(toArray, toOffset, size)) {
+            return false;
+        }
         // Loop-peel the first iteration so I can use BarrieredAccess
         // to put a write barrier on the destination.
         // TODO: I am explicitly not making the first read have a read barrier.
@@ -209,6 +221,7 @@ public final class ArraycopySnippets extends SubstrateTemplates implements Snipp
                 ObjectAccess.writeObject(toArray, toOffset.add(remaining), ObjectAccess.readObject(fromArray, fromOffset.add(remaining)));
             }
         }
+        return true;
     }
 
     private static void objectStoreCheckCopyForward(Object fromArray, int fromIndex, Object toArray, int toIndex, int length) {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.Feature;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.heap.NativeImageInfo;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+import com.oracle.svm.core.os.VirtualMemoryProvider;
+import com.oracle.svm.core.posix.headers.Resource;
+import com.oracle.svm.core.util.PointerUtils;
+
+/**
+ * Prefetches the startup-critical prefixes of the native image heap partitions, and reports the
+ * page faults the image takes, to compare heap layouts.
+ */
+@AutomaticFeature
+public class ImageHeapStartupFeature implements Feature {
+
+    public static class Options {
+        @Option(help = "Advise the operating system to read ahead the part of the image heap that is used at startup, when the image heap was laid out by locality")//
+        public static final RuntimeOptionKey<Boolean> PrefetchImageHeapStartupRegion = new RuntimeOptionKey<>(false);
+
+        @Option(help = "Print the number of page faults the process took until the main method starts and until it exits")//
+        public static final RuntimeOptionKey<Boolean> PrintStartupPageFaults = new RuntimeOptionKey<>(false);
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        RuntimeSupport.getRuntimeSupport().addStartupHook(ImageHeapStartupFeature::onStartup);
+        RuntimeSupport.getRuntimeSupport().addShutdownHook(ImageHeapStartupFeature::onShutdown);
+    }
+
+    static void onStartup() {
+        if (Options.PrefetchImageHeapStartupRegion.getValue()) {
+            NativeImageInfo.voidApplyToStartupRegions(ImageHeapStartupFeature::prefetch);
+        }
+        if (Options.PrintStartupPageFaults.getValue()) {
+            printPageFaults("startup");
+        }
+    }
+
+    static void onShutdown() {
+        if (Options.PrintStartupPageFaults.getValue()) {
+            printPageFaults("exit");
+        }
+    }
+
+    private static void prefetch(Pointer start, Pointer end) {
+        /* The image heap partitions are not page aligned, but the advice must be. */
+        UnsignedWord pageSize = VirtualMemoryProvider.get().getGranularity();
+        Pointer alignedStart = PointerUtils.roundDown(start, pageSize);
+        VirtualMemoryProvider.get().adviseWillNeed(alignedStart, end.subtract(alignedStart));
+    }
+
+    private static void printPageFaults(String when) {
+        Resource.rusage usage = StackValue.get(Resource.rusage.class);
+        if (Resource.getrusage(Resource.RUSAGE_SELF(), usage) != 0) {
+            return;
+        }
+        Log.log().string("[Page faults at ").string(when).string(": minor ").signed(usage.ru_minflt()).string(", major ").signed(usage.ru_majflt()).string("]").newline();
+    }
+}
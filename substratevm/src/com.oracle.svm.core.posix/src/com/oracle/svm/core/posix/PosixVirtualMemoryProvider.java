@@ -24,6 +24,7 @@
  */
 package com.oracle.svm.core.posix;
 
+import static com.oracle.svm.core.posix.headers.Mman.MADV_WILLNEED;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_ANON;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_FAILED;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_FIXED;
@@ -33,6 +34,7 @@ import static com.oracle.svm.core.posix.headers.Mman.PROT_EXEC;
 import static com.oracle.svm.core.posix.headers.Mman.PROT_NONE;
 import static com.oracle.svm.core.posix.headers.Mman.PROT_READ;
 import static com.oracle.svm.core.posix.headers.Mman.PROT_WRITE;
+import static com.oracle.svm.core.posix.headers.Mman.NoTransitions.madvise;
 import static com.oracle.svm.core.posix.headers.Mman.NoTransitions.mmap;
 import static com.oracle.svm.core.posix.headers.Mman.NoTransitions.mprotect;
 import static com.oracle.svm.core.posix.headers.Mman.NoTransitions.munmap;
@@ -156,4 +158,10 @@ public class PosixVirtualMemoryProvider implements VirtualMemoryProvider {
     public int free(PointerBase start, UnsignedWord nbytes) {
         return munmap(start, nbytes);
     }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.", mayBeInlined = true)
+    public int adviseWillNeed(PointerBase start, UnsignedWord nbytes) {
+        return madvise(start, nbytes, MADV_WILLNEED());
+    }
 }
@@ -233,11 +233,13 @@ public class Mman {
     // /** KSM may not merge identical pages. */
     // @CConstant
     // public static native int MADV_UNMERGEABLE();
-    //
-    // /** Worth backing with hugepages. */
-    // @CConstant
-    // public static native int MADV_HUGEPAGE();
-    //
+
+    /** Worth backing with hugepages. */
+    @CConstant
+    @Platforms(Platform.LINUX.class)
+    public static native int MADV_HUGEPAGE();
+
+    // [not present on old Linux systems]
     // /** Not worth backing with hugepages. */
     // @CConstant
     // public static native int MADV_NOHUGEPAGE();
@@ -384,5 +386,8 @@ public class Mman {
 
         @CFunction(transition = Transition.NO_TRANSITION)
         public static native int mprotect(PointerBase addr, UnsignedWord len, int prot);
+
+        @CFunction(transition = Transition.NO_TRANSITION)
+        public static native int madvise(PointerBase addr, UnsignedWord len, int advice);
     }
 }
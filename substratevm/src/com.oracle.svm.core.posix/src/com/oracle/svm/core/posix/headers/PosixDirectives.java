@@ -91,6 +91,7 @@ public class PosixDirectives implements CContext.Directives {
                     "<arpa/inet.h>",
                     "<sys/epoll.h>",
                     "<sys/sendfile.h>",
+                    "<sys/syscall.h>",
                     "<mntent.h>",
                     "<link.h>",
     };
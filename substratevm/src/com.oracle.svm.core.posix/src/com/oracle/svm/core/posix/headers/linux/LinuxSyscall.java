@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix.headers.linux;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.CContext;
+import org.graalvm.nativeimage.c.constant.CConstant;
+import org.graalvm.nativeimage.c.function.CFunction;
+import org.graalvm.nativeimage.c.function.CFunction.Transition;
+import org.graalvm.nativeimage.c.type.CIntPointer;
+import org.graalvm.nativeimage.c.type.CLongPointer;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.posix.headers.PosixDirectives;
+
+/* Allow underscores in names: Checkstyle: stop. */
+
+/**
+ * Declarations from <sys/syscall.h> for system calls that have no wrapper in the C library.
+ */
+@CContext(PosixDirectives.class)
+@Platforms({Platform.LINUX.class})
+public class LinuxSyscall {
+
+    /** Determine the CPU and NUMA node on which the calling thread is running. */
+    @CConstant
+    public static native int SYS_getcpu();
+
+    /** Set the NUMA memory policy for a memory range. */
+    @CConstant
+    public static native int SYS_mbind();
+
+    /*
+     * Memory policies from <linux/mempolicy.h>, which is not always installed. These values are
+     * part of the kernel ABI.
+     */
+
+    /** Prefer allocating memory on the single node in the node mask. */
+    public static final int MPOL_PREFERRED = 1;
+
+    public static class NoTransitions {
+        /** syscall(SYS_getcpu, unsigned *cpu, unsigned *node, struct getcpu_cache *tcache). */
+        @CFunction(value = "syscall", transition = Transition.NO_TRANSITION)
+        public static native long syscallGetcpu(long number, CIntPointer cpu, CIntPointer node, PointerBase tcache);
+
+        /**
+         * syscall(SYS_mbind, void *addr, unsigned long len, int mode, const unsigned long
+         * *nodemask, unsigned long maxnode, unsigned flags).
+         */
+        @CFunction(value = "syscall", transition = Transition.NO_TRANSITION)
+        public static native long syscallMbind(long number, PointerBase addr, UnsignedWord len, long mode, CLongPointer nodemask, long maxnode, long flags);
+    }
+}
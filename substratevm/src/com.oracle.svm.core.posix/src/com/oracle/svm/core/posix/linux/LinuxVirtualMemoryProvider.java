@@ -24,13 +24,23 @@
  */
 package com.oracle.svm.core.posix.linux;
 
+import static com.oracle.svm.core.posix.headers.Mman.MADV_HUGEPAGE;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_32BIT;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_ANON;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_FAILED;
 import static com.oracle.svm.core.posix.headers.Mman.MAP_PRIVATE;
+import static com.oracle.svm.core.posix.headers.Mman.NoTransitions.madvise;
 import static com.oracle.svm.core.posix.headers.Mman.NoTransitions.mmap;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.MPOL_PREFERRED;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.SYS_getcpu;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.SYS_mbind;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.NoTransitions.syscallGetcpu;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.NoTransitions.syscallMbind;
 import static org.graalvm.word.WordFactory.nullPointer;
 
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.nativeimage.c.type.CIntPointer;
+import org.graalvm.nativeimage.c.type.CLongPointer;
 import org.graalvm.word.Pointer;
 import org.graalvm.word.PointerBase;
 import org.graalvm.word.UnsignedWord;
@@ -56,4 +66,36 @@ public class LinuxVirtualMemoryProvider extends PosixVirtualMemoryProvider {
         }
         return super.commit(start, nbytes, access);
     }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.", mayBeInlined = true)
+    public int adviseHugePages(PointerBase start, UnsignedWord nbytes) {
+        /*
+         * Transparent huge pages, rather than MAP_HUGETLB: they need no pre-reserved pool of huge
+         * pages, and the kernel falls back to small pages when no huge page is available.
+         */
+        return madvise(start, nbytes, MADV_HUGEPAGE());
+    }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    public int getCurrentNumaNode() {
+        CIntPointer node = StackValue.get(CIntPointer.class);
+        if (syscallGetcpu(SYS_getcpu(), nullPointer(), node, nullPointer()) != 0) {
+            return -1;
+        }
+        return node.read();
+    }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    public int preferNumaNode(PointerBase start, UnsignedWord nbytes, int node) {
+        if (node < 0 || node >= Long.SIZE) {
+            return -1;
+        }
+        CLongPointer nodeMask = StackValue.get(CLongPointer.class);
+        nodeMask.write(1L << node);
+        /* The kernel only looks at the first maxnode - 1 bits of the mask. */
+        return (int) syscallMbind(SYS_mbind(), start, nbytes, MPOL_PREFERRED, nodeMask, Long.SIZE + 1, 0);
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.allocationprofile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.code.CodeInfoQueryResult;
+import com.oracle.svm.core.code.CodeInfoTable;
+import com.oracle.svm.core.code.FrameInfoQueryResult;
+
+/**
+ * The samples of an {@link AllocationSampler} for one allocated type and stack, aggregated.
+ */
+public final class AllocationSample {
+
+    private final Class<?> type;
+    /** The instruction pointers of the stack, innermost first. */
+    private final long[] stack;
+    private long count;
+    private long bytes;
+
+    AllocationSample(Class<?> type, long[] stack) {
+        this.type = type;
+        this.stack = stack;
+    }
+
+    void add(long weight) {
+        count += 1;
+        bytes += weight;
+    }
+
+    /** Scale the samples up to the number of samples they represent. */
+    void scale(double factor) {
+        count = Math.round(count * factor);
+        bytes = Math.round(bytes * factor);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /** The number of samples, estimated when not all samples were kept. */
+    public long getCount() {
+        return count;
+    }
+
+    /** The bytes allocated, estimated from the samples. */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /** The instruction pointers of the stack, innermost first. */
+    public long[] getStack() {
+        return stack.clone();
+    }
+
+    /**
+     * The source frames of an instruction pointer, innermost first. Frames of inlined methods are
+     * included. Returns an empty list if the code is no longer known.
+     */
+    public static List<StackTraceElement> lookupSourceFrames(long ip) {
+        final List<StackTraceElement> result = new ArrayList<>();
+        final CodePointer codePointer = WordFactory.pointer(ip);
+        final CodeInfoQueryResult codeInfo = CodeInfoTable.lookupCodeInfoQueryResult(codePointer);
+        if (codeInfo != null) {
+            for (FrameInfoQueryResult frameInfo = codeInfo.getFrameInfo(); frameInfo != null; frameInfo = frameInfo.getCaller()) {
+                result.add(frameInfo.getSourceReference());
+            }
+        }
+        return result;
+    }
+
+    /** The innermost source frame of the stack, or {@code null} if it is not known. */
+    public StackTraceElement getAllocationSite() {
+        if (stack.length > 0) {
+            final List<StackTraceElement> frames = lookupSourceFrames(stack[0]);
+            if (!frames.isEmpty()) {
+                return frames.get(0);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof AllocationSample) {
+            final AllocationSample other = (AllocationSample) obj;
+            return type == other.type && Arrays.equals(stack, other.stack);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(type) * 31 + Arrays.hashCode(stack);
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.allocationprofile;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.Feature;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.function.CodePointer;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.NeverInline;
+import com.oracle.svm.core.annotate.RestrictHeapAccess;
+import com.oracle.svm.core.deopt.DeoptimizedFrame;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+import com.oracle.svm.core.stack.JavaStackWalker;
+import com.oracle.svm.core.stack.StackFrameVisitor;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalInt;
+import com.oracle.svm.core.threadlocal.FastThreadLocalWord;
+import com.oracle.svm.core.util.MetricsLogUtils;
+
+/**
+ * A sampling allocation profiler that is cheap enough to leave enabled in production.
+ *
+ * Unlike {@link AllocationSite}, which counts every allocation, the sampler only looks at the slow
+ * path of allocation, when a thread refills its thread-local allocation buffer. The heap
+ * {@link #noteAllocatedBytes notes} the bytes each thread has allocated, and when a thread has
+ * allocated {@link Options#AllocationSamplingInterval} bytes since its last sample, the Java stack
+ * of the allocation that caused the refill is recorded, weighted with those bytes. Sampling costs a
+ * stack walk per interval, and nothing on the fast path.
+ *
+ * Samples are recorded without allocation into a buffer that is allocated during native image
+ * generation. The buffer is a reservoir sample of all samples taken: once it is full, the n-th
+ * sample replaces a random slot with probability capacity / n, so that the buffer stays
+ * representative of the whole run and not only of its start. The samples are symbolized,
+ * aggregated by stack and scaled up to the number of samples taken when they are dumped, either as
+ * a pprof profile or as a summary on the log.
+ */
+public final class AllocationSampler {
+
+    public static class Options {
+        @Option(help = "Enable sampling of allocation sites, at thread-local allocation buffer refills")//
+        public static final HostedOptionKey<Boolean> AllocationSampling = new HostedOptionKey<>(false);
+
+        @Option(help = "The number of bytes a thread allocates between allocation samples")//
+        public static final RuntimeOptionKey<Long> AllocationSamplingInterval = new RuntimeOptionKey<>(512L * 1024L);
+
+        @Option(help = "The number of allocation samples that are kept, chosen by reservoir sampling")//
+        public static final HostedOptionKey<Integer> AllocationSamplingMaxSamples = new HostedOptionKey<>(16 * 1024);
+
+        @Option(help = "The maximum number of frames recorded for an allocation sample")//
+        public static final HostedOptionKey<Integer> AllocationSamplingMaxDepth = new HostedOptionKey<>(32);
+
+        @Option(help = "Write the allocation samples to this file as a pprof profile at exit, rather than printing a summary")//
+        public static final RuntimeOptionKey<String> AllocationSamplingDumpFile = new RuntimeOptionKey<>("");
+    }
+
+    /* The bytes a thread has allocated since its last sample. */
+    private static final FastThreadLocalWord<UnsignedWord> bytesSinceSample = FastThreadLocalFactory.createWord();
+    /* The first frame slot of the sample a thread is recording, and the next free frame slot. */
+    private static final FastThreadLocalInt sampleFrameStart = FastThreadLocalFactory.createInt();
+    private static final FastThreadLocalInt sampleFrameNext = FastThreadLocalFactory.createInt();
+
+    private final int maxDepth;
+    /* The samples: the frames, the number of frames, the allocated type, and the weight. */
+    private final long[] frames;
+    private final int[] depths;
+    private final Class<?>[] types;
+    private final long[] weights;
+    /* A slot is locked while a sample is written to it or read from it. */
+    private final AtomicIntegerArray slotLocks;
+    /* The number of samples taken, including the ones that the reservoir did not keep. */
+    private final AtomicLong takenSamples;
+    private final AtomicLong droppedSamples;
+    private final FrameRecorder frameRecorder;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    AllocationSampler(int maxSamples, int maxDepth) {
+        this.maxDepth = maxDepth;
+        this.frames = new long[maxSamples * maxDepth];
+        this.depths = new int[maxSamples];
+        this.types = new Class<?>[maxSamples];
+        this.weights = new long[maxSamples];
+        this.slotLocks = new AtomicIntegerArray(maxSamples);
+        this.takenSamples = new AtomicLong(0L);
+        this.droppedSamples = new AtomicLong(0L);
+        this.frameRecorder = new FrameRecorder();
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return Options.AllocationSampling.getValue();
+    }
+
+    @Fold
+    public static AllocationSampler singleton() {
+        return ImageSingletons.lookup(AllocationSampler.class);
+    }
+
+    /** Note that the current thread allocated some bytes. Called by the heap on the slow path. */
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Called from the implementation of allocation.")
+    public static void noteAllocatedBytes(UnsignedWord bytes) {
+        bytesSinceSample.set(bytesSinceSample.get().add(bytes));
+    }
+
+    /**
+     * Record a sample if the current thread has allocated enough bytes since its last sample.
+     * Called by the heap on the slow path, after the allocation, with the stack pointer and return
+     * address of the frame that allocated.
+     */
+    @NeverInline("Only called on the slow path of allocation.")
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Called from the implementation of allocation.")
+    public static void maybeSample(Pointer sp, CodePointer ip, Class<?> type) {
+        final UnsignedWord bytes = bytesSinceSample.get();
+        if (!shouldSample(bytes.rawValue(), Options.AllocationSamplingInterval.getValue())) {
+            return;
+        }
+        bytesSinceSample.set(WordFactory.zero());
+        singleton().recordSample(sp, ip, type, bytes.rawValue());
+    }
+
+    /**
+     * Whether a thread that allocated {@code bytesSinceSample} bytes since its last sample takes a
+     * sample. Both values are unsigned.
+     */
+    static boolean shouldSample(long bytesSinceSample, long interval) {
+        return Long.compareUnsigned(bytesSinceSample, interval) >= 0;
+    }
+
+    /**
+     * The slot that the sample with the zero-based index {@code sample} is written to, or -1 if the
+     * reservoir does not keep it. The first {@code capacity} samples fill the slots, every later
+     * sample replaces a slot with probability {@code capacity / (sample + 1)}. The random choice is
+     * a hash of the index, so that no random state needs to be shared between threads.
+     */
+    static int reservoirSlot(long sample, int capacity) {
+        if (sample < capacity) {
+            return (int) sample;
+        }
+        final long slot = Long.remainderUnsigned(mix(sample), sample + 1);
+        return slot < capacity ? (int) slot : -1;
+    }
+
+    /* The finalizer of the SplitMix64 generator. */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Called from the implementation of allocation.")
+    private void recordSample(Pointer sp, CodePointer ip, Class<?> type, long weight) {
+        final int sample = reservoirSlot(takenSamples.getAndIncrement(), depths.length);
+        if (sample < 0) {
+            return;
+        }
+        if (!slotLocks.compareAndSet(sample, 0, 1)) {
+            /* Another thread is writing or reading the slot. */
+            droppedSamples.incrementAndGet();
+            return;
+        }
+        sampleFrameStart.set(sample * maxDepth);
+        sampleFrameNext.set(sample * maxDepth);
+        JavaStackWalker.walkCurrentThread(sp, ip, frameRecorder);
+        types[sample] = type;
+        weights[sample] = weight;
+        /* A sample with no frames is ignored by the dump. */
+        depths[sample] = sampleFrameNext.get() - sampleFrameStart.get();
+        slotLocks.set(sample, 0);
+    }
+
+    /**
+     * Records the frames of a sample into the frames of the sampler. It keeps its state in thread
+     * locals, so that one instance can be used by all threads without allocation.
+     */
+    private final class FrameRecorder implements StackFrameVisitor {
+
+        @Override
+        public boolean visitFrame(Pointer sp, CodePointer ip, DeoptimizedFrame deoptimizedFrame) {
+            final int next = sampleFrameNext.get();
+            if (next - sampleFrameStart.get() >= maxDepth) {
+                /* Truncate deep stacks. */
+                return false;
+            }
+            frames[next] = ip.rawValue();
+            sampleFrameNext.set(next + 1);
+            return true;
+        }
+    }
+
+    /** The number of samples taken, including the ones that the reservoir did not keep. */
+    public long getTakenSamples() {
+        return takenSamples.get();
+    }
+
+    /**
+     * The number of samples that were dropped because another thread was writing or reading their
+     * slot at the same time.
+     */
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+
+    /**
+     * Aggregate the recorded samples by allocated type and stack. The counts and bytes are scaled
+     * up from the samples that the reservoir kept to all samples taken. Samples that are recorded
+     * concurrently with this method may be missed.
+     */
+    public List<AllocationSample> getSamples() {
+        final Map<AllocationSample, AllocationSample> aggregated = new HashMap<>();
+        final long taken = takenSamples.get() - droppedSamples.get();
+        long kept = 0;
+        for (int sample = 0; sample < depths.length; sample++) {
+            if (!slotLocks.compareAndSet(sample, 0, 1)) {
+                continue;
+            }
+            final int depth = depths[sample];
+            if (depth != 0) {
+                final long[] stack = Arrays.copyOfRange(frames, sample * maxDepth, sample * maxDepth + depth);
+                final AllocationSample key = new AllocationSample(types[sample], stack);
+                aggregated.computeIfAbsent(key, k -> k).add(weights[sample]);
+                kept++;
+            }
+            slotLocks.set(sample, 0);
+        }
+        final List<AllocationSample> result = new ArrayList<>(aggregated.values());
+        if (kept > 0 && taken > kept) {
+            final double factor = (double) taken / kept;
+            for (AllocationSample sample : result) {
+                sample.scale(factor);
+            }
+        }
+        result.sort((s1, s2) -> Long.compare(s2.getBytes(), s1.getBytes()));
+        return result;
+    }
+
+    /** Discard the recorded samples. Samples that are recorded concurrently may be lost. */
+    public void reset() {
+        for (int sample = 0; sample < depths.length; sample++) {
+            if (slotLocks.compareAndSet(sample, 0, 1)) {
+                depths[sample] = 0;
+                types[sample] = null;
+                slotLocks.set(sample, 0);
+            }
+        }
+        takenSamples.set(0L);
+        droppedSamples.set(0L);
+    }
+
+    /** Write the aggregated samples as a pprof profile. */
+    public void writePprof(OutputStream out) throws IOException {
+        new PprofProfileWriter(Options.AllocationSamplingInterval.getValue()).write(getSamples(), out);
+    }
+
+    /** Print the allocation sites with the most sampled bytes. */
+    public void dumpSummary(Log log) {
+        final List<AllocationSample> samples = getSamples();
+        long totalBytes = 0;
+        log.string("Allocated class;Sampled bytes;Samples;Allocation site").newline();
+        for (AllocationSample sample : samples) {
+            totalBytes += sample.getBytes();
+            if (sample.getBytes() >= AllocationSite.Options.AllocationProfilingThreshold.getValue()) {
+                log.string(sample.getType().getName()).string(";").signed(sample.getBytes()).string(";").signed(sample.getCount()).string(";");
+                final StackTraceElement site = sample.getAllocationSite();
+                log.string(site == null ? "unknown" : site.toString()).newline();
+            }
+        }
+        MetricsLogUtils.logSection("Allocation sampling summary");
+        MetricsLogUtils.logMemoryMetric("Total sampled memory:", totalBytes);
+        MetricsLogUtils.logCounterMetric("Samples taken:", getTakenSamples());
+        MetricsLogUtils.logCounterMetric("Dropped samples:", getDroppedSamples());
+    }
+
+    static void dumpAtExit() {
+        final String fileName = Options.AllocationSamplingDumpFile.getValue();
+        if (fileName.isEmpty()) {
+            singleton().dumpSummary(Log.log());
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(fileName)) {
+            singleton().writePprof(out);
+        } catch (IOException ex) {
+            Log.log().string("Writing the allocation profile to ").string(fileName).string(" failed: ").string(ex.getMessage()).newline();
+        }
+    }
+}
+
+@AutomaticFeature
+class AllocationSamplingFeature implements Feature {
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return AllocationSampler.Options.AllocationSampling.getValue();
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(AllocationSampler.class, new AllocationSampler(AllocationSampler.Options.AllocationSamplingMaxSamples.getValue(), AllocationSampler.Options.AllocationSamplingMaxDepth.getValue()));
+        RuntimeSupport.getRuntimeSupport().addShutdownHook(AllocationSampler::dumpAtExit);
+    }
+}
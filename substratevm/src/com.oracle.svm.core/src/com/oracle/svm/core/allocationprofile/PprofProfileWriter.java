@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.allocationprofile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Writes {@link AllocationSample allocation samples} as an uncompressed profile in the protocol
+ * buffer format of pprof (profile.proto), which the pprof tool reads directly.
+ *
+ * Each sample has two values, the number of samples and the sampled bytes, and a label with the
+ * allocated type. Each distinct instruction pointer is a location, with one line per source frame,
+ * including inlined frames.
+ */
+final class PprofProfileWriter {
+
+    /* Field numbers of profile.proto. */
+    private static final int PROFILE_SAMPLE_TYPE = 1;
+    private static final int PROFILE_SAMPLE = 2;
+    private static final int PROFILE_LOCATION = 4;
+    private static final int PROFILE_FUNCTION = 5;
+    private static final int PROFILE_STRING_TABLE = 6;
+    private static final int PROFILE_PERIOD_TYPE = 11;
+    private static final int PROFILE_PERIOD = 12;
+    private static final int VALUE_TYPE_TYPE = 1;
+    private static final int VALUE_TYPE_UNIT = 2;
+    private static final int SAMPLE_LOCATION_ID = 1;
+    private static final int SAMPLE_VALUE = 2;
+    private static final int SAMPLE_LABEL = 3;
+    private static final int LABEL_KEY = 1;
+    private static final int LABEL_STR = 2;
+    private static final int LOCATION_ID = 1;
+    private static final int LOCATION_ADDRESS = 3;
+    private static final int LOCATION_LINE = 4;
+    private static final int LINE_FUNCTION_ID = 1;
+    private static final int LINE_LINE = 2;
+    private static final int FUNCTION_ID = 1;
+    private static final int FUNCTION_NAME = 2;
+    private static final int FUNCTION_SYSTEM_NAME = 3;
+    private static final int FUNCTION_FILENAME = 4;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private final long period;
+    /* Looks up the source frames of an instruction pointer, innermost first. */
+    private final LongFunction<List<StackTraceElement>> sourceFrames;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Long> stringIndices = new HashMap<>();
+    private final Map<Long, Long> locationIds = new HashMap<>();
+    private final Map<String, Long> functionIds = new HashMap<>();
+    private final ByteArrayOutputStream locations = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream functions = new ByteArrayOutputStream();
+
+    PprofProfileWriter(long period) {
+        this(period, AllocationSample::lookupSourceFrames);
+    }
+
+    PprofProfileWriter(long period, LongFunction<List<StackTraceElement>> sourceFrames) {
+        this.period = period;
+        this.sourceFrames = sourceFrames;
+        /* The first string must be the empty string. */
+        stringIndex("");
+    }
+
+    void write(List<AllocationSample> samples, OutputStream out) throws IOException {
+        final ByteArrayOutputStream profile = new ByteArrayOutputStream();
+        writeMessage(profile, PROFILE_SAMPLE_TYPE, valueType("samples", "count"));
+        writeMessage(profile, PROFILE_SAMPLE_TYPE, valueType("alloc_space", "bytes"));
+        for (AllocationSample sample : samples) {
+            final ByteArrayOutputStream message = new ByteArrayOutputStream();
+            final ByteArrayOutputStream ids = new ByteArrayOutputStream();
+            for (long ip : sample.getStack()) {
+                writeVarint(ids, locationId(ip));
+            }
+            writeBytes(message, SAMPLE_LOCATION_ID, ids.toByteArray());
+            final ByteArrayOutputStream values = new ByteArrayOutputStream();
+            writeVarint(values, sample.getCount());
+            writeVarint(values, sample.getBytes());
+            writeBytes(message, SAMPLE_VALUE, values.toByteArray());
+            final ByteArrayOutputStream label = new ByteArrayOutputStream();
+            writeVarintField(label, LABEL_KEY, stringIndex("object"));
+            writeVarintField(label, LABEL_STR, stringIndex(sample.getType().getName()));
+            writeMessage(message, SAMPLE_LABEL, label);
+            writeMessage(profile, PROFILE_SAMPLE, message);
+        }
+        profile.write(locations.toByteArray());
+        profile.write(functions.toByteArray());
+        writeMessage(profile, PROFILE_PERIOD_TYPE, valueType("space", "bytes"));
+        writeVarintField(profile, PROFILE_PERIOD, period);
+        /* The string table is written last, because writing the other fields adds to it. */
+        for (String s : strings) {
+            writeBytes(profile, PROFILE_STRING_TABLE, s.getBytes(StandardCharsets.UTF_8));
+        }
+        profile.writeTo(out);
+    }
+
+    private ByteArrayOutputStream valueType(String type, String unit) {
+        final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        writeVarintField(message, VALUE_TYPE_TYPE, stringIndex(type));
+        writeVarintField(message, VALUE_TYPE_UNIT, stringIndex(unit));
+        return message;
+    }
+
+    private long locationId(long ip) {
+        final Long existing = locationIds.get(ip);
+        if (existing != null) {
+            return existing;
+        }
+        final long id = locationIds.size() + 1;
+        locationIds.put(ip, id);
+        final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        writeVarintField(message, LOCATION_ID, id);
+        writeVarintField(message, LOCATION_ADDRESS, ip);
+        /* The innermost frame comes first, the frames it is inlined into follow. */
+        for (StackTraceElement frame : sourceFrames.apply(ip)) {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            writeVarintField(line, LINE_FUNCTION_ID, functionId(frame));
+            writeVarintField(line, LINE_LINE, Math.max(frame.getLineNumber(), 0));
+            writeMessage(message, LOCATION_LINE, line);
+        }
+        writeMessage(locations, PROFILE_LOCATION, message);
+        return id;
+    }
+
+    private long functionId(StackTraceElement frame) {
+        final String name = frame.getClassName() + "." + frame.getMethodName();
+        final String fileName = frame.getFileName() == null ? "" : frame.getFileName();
+        final String key = name + ":" + fileName;
+        final Long existing = functionIds.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final long id = functionIds.size() + 1;
+        functionIds.put(key, id);
+        final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        writeVarintField(message, FUNCTION_ID, id);
+        writeVarintField(message, FUNCTION_NAME, stringIndex(name));
+        writeVarintField(message, FUNCTION_SYSTEM_NAME, stringIndex(name));
+        writeVarintField(message, FUNCTION_FILENAME, stringIndex(fileName));
+        writeMessage(functions, PROFILE_FUNCTION, message);
+        return id;
+    }
+
+    private long stringIndex(String s) {
+        final Long existing = stringIndices.get(s);
+        if (existing != null) {
+            return existing;
+        }
+        final long index = strings.size();
+        strings.add(s);
+        stringIndices.put(s, index);
+        return index;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, (field << 3) | wireType);
+    }
+
+    private static void writeVarintField(ByteArrayOutputStream out, int field, long value) {
+        writeTag(out, field, WIRE_VARINT);
+        writeVarint(out, value);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, int field, byte[] bytes) {
+        writeTag(out, field, WIRE_LENGTH_DELIMITED);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeMessage(ByteArrayOutputStream out, int field, ByteArrayOutputStream message) {
+        writeBytes(out, field, message.toByteArray());
+    }
+}
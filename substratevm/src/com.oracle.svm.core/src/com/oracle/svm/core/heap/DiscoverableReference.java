@@ -94,6 +94,7 @@ public class DiscoverableReference {
      * Read access to the referent, as a Pointer. This is the low-level access for the garbage
      * collector, so no barriers are used.
      */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public Pointer getReferentPointer() {
         return Word.objectToUntrackedPointer(ObjectAccess.readObject(this, WordFactory.signed(RAW_REFERENT_OFFSET)));
     }
@@ -25,6 +25,7 @@
 package com.oracle.svm.core.heap;
 
 import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
 import java.util.List;
 
 public interface GC {
@@ -54,4 +55,10 @@ public interface GC {
 
     /** Get the list of GarbageCollectorMXBeans for this collector. */
     List<GarbageCollectorMXBean> getGarbageCollectorMXBeanList();
+
+    /** Get the list of MemoryPoolMXBeans for the spaces of this collector. */
+    List<MemoryPoolMXBean> getMemoryPoolMXBeanList();
+
+    /** Get the log of recent collections. */
+    GCEventLog getEventLog();
 }
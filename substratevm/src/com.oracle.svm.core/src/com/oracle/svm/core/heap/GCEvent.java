@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.heap;
+
+/**
+ * The record of one collection in the {@link GCEventLog}.
+ *
+ * The instances in the log are allocated during native image generation and are overwritten by
+ * later collections, so they are never handed out: {@link GCEventListener listeners} and
+ * {@link GCEventLog#getEvents(long)} get copies that can be kept.
+ *
+ * Sizes are in bytes of heap chunks, and times are {@link System#nanoTime()} values.
+ */
+public final class GCEvent {
+
+    /* State. */
+    private long epoch;
+    private boolean complete;
+    private String cause;
+    private long startNanos;
+    private long endNanos;
+    private long youngBytesBefore;
+    private long oldBytesBefore;
+    private long youngBytesAfter;
+    private long oldBytesAfter;
+    private long promotedBytes;
+    private long freedBytes;
+
+    /** Constructor. */
+    GCEvent() {
+        super();
+    }
+
+    /** Fill in the event, without allocation. */
+    void set(long newEpoch, boolean newComplete, String newCause, long newStartNanos, long newEndNanos, long newYoungBytesBefore, long newOldBytesBefore, long newYoungBytesAfter,
+                    long newOldBytesAfter, long newPromotedBytes, long newFreedBytes) {
+        epoch = newEpoch;
+        complete = newComplete;
+        cause = newCause;
+        startNanos = newStartNanos;
+        endNanos = newEndNanos;
+        youngBytesBefore = newYoungBytesBefore;
+        oldBytesBefore = newOldBytesBefore;
+        youngBytesAfter = newYoungBytesAfter;
+        oldBytesAfter = newOldBytesAfter;
+        promotedBytes = newPromotedBytes;
+        freedBytes = newFreedBytes;
+    }
+
+    /** Return a copy of this event, which is not overwritten by later collections. */
+    public GCEvent copy() {
+        final GCEvent result = new GCEvent();
+        result.set(epoch, complete, cause, startNanos, endNanos, youngBytesBefore, oldBytesBefore, youngBytesAfter, oldBytesAfter, promotedBytes, freedBytes);
+        return result;
+    }
+
+    /** The number of the collection, counting from 1. */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /** Whether the collection was complete, rather than incremental. */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** The reason the collection was requested. */
+    public String getCause() {
+        return cause;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    public long getYoungBytesBefore() {
+        return youngBytesBefore;
+    }
+
+    public long getOldBytesBefore() {
+        return oldBytesBefore;
+    }
+
+    /** The bytes that survived in the young generation. */
+    public long getYoungBytesAfter() {
+        return youngBytesAfter;
+    }
+
+    /** The bytes that survived in the old generation, including pinned objects. */
+    public long getOldBytesAfter() {
+        return oldBytesAfter;
+    }
+
+    /**
+     * The bytes promoted from the young generation to the old generation. Complete collections copy
+     * the whole heap rather than promote, so this is 0 for them.
+     */
+    public long getPromotedBytes() {
+        return promotedBytes;
+    }
+
+    /** The bytes released by the collection. */
+    public long getFreedBytes() {
+        return freedBytes;
+    }
+}
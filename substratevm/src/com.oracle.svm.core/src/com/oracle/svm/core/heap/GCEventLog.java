@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.heap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.annotate.RestrictHeapAccess;
+
+/**
+ * A bounded log of the most recent collections, for programs that monitor the collector.
+ *
+ * The collector {@link #record records} each collection into a ring of events that are allocated
+ * during native image generation, so recording does not allocate. Copies of the events are handed
+ * to the {@link GCEventListener listeners} after the collection, when allocation is allowed again.
+ * Readers that poll with {@link #getEvents(long)} also get copies of the events that are still in
+ * the ring.
+ */
+public final class GCEventLog {
+
+    /** The ring of events, indexed by epoch modulo its length. */
+    private final GCEvent[] events;
+
+    /** The epoch of the most recently recorded event, or 0 if there is none. */
+    private volatile long lastEpoch;
+
+    /** The epoch of the most recent event that was handed to the listeners. */
+    private final AtomicLong lastNotifiedEpoch;
+
+    private final CopyOnWriteArrayList<GCEventListener> listeners;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public GCEventLog(int capacity) {
+        assert capacity > 0 : "GCEventLog needs room for at least one event.";
+        events = new GCEvent[capacity];
+        for (int i = 0; i < events.length; i += 1) {
+            events[i] = new GCEvent();
+        }
+        lastEpoch = 0L;
+        lastNotifiedEpoch = new AtomicLong(0L);
+        listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /** The number of events kept in the log. */
+    public int getCapacity() {
+        return events.length;
+    }
+
+    /** The epoch of the most recently recorded collection, or 0 if there has been none. */
+    public long getLastEpoch() {
+        return lastEpoch;
+    }
+
+    /** Record a collection. Called by the collector, inside the collection. */
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Must not allocate during a collection.")
+    public void record(long epoch, boolean complete, String cause, long startNanos, long endNanos, long youngBytesBefore, long oldBytesBefore, long youngBytesAfter,
+                    long oldBytesAfter, long promotedBytes, long freedBytes) {
+        assert epoch > lastEpoch : "Collections are recorded in epoch order.";
+        events[indexOf(epoch)].set(epoch, complete, cause, startNanos, endNanos, youngBytesBefore, oldBytesBefore, youngBytesAfter, oldBytesAfter, promotedBytes, freedBytes);
+        lastEpoch = epoch;
+    }
+
+    /**
+     * Return copies of the events after {@code sinceEpoch} that are still in the log, oldest first.
+     * A gap between {@code sinceEpoch} and the epoch of the first event means that events were
+     * overwritten before they were read.
+     */
+    public List<GCEvent> getEvents(long sinceEpoch) {
+        final List<GCEvent> result = new ArrayList<>();
+        final long last = lastEpoch;
+        final long first = Math.max(sinceEpoch + 1, last - events.length + 1);
+        for (long epoch = Math.max(first, 1L); epoch <= last; epoch += 1) {
+            final GCEvent copy = events[indexOf(epoch)].copy();
+            /* A collection may have overwritten the event while it was copied. */
+            if (copy.getEpoch() == epoch && lastEpoch - epoch < events.length) {
+                result.add(copy);
+            }
+        }
+        return result;
+    }
+
+    public void addListener(GCEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GCEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Hand copies of the events that have not been handed out yet to the listeners. Called by the
+     * collector after a collection. Several threads may call this for the same collection, but each
+     * event is handed to the listeners by one of them.
+     */
+    public void notifyListeners() {
+        if (listeners.isEmpty()) {
+            lastNotifiedEpoch.set(lastEpoch);
+            return;
+        }
+        while (true) {
+            final long notified = lastNotifiedEpoch.get();
+            final long last = lastEpoch;
+            if (notified >= last) {
+                return;
+            }
+            /* Claim the events up to the last one, and skip events that have been overwritten. */
+            if (lastNotifiedEpoch.compareAndSet(notified, last)) {
+                for (long epoch = Math.max(notified + 1, last - events.length + 1); epoch <= last; epoch += 1) {
+                    /* Listeners may keep the event, so they must not see the one in the ring. */
+                    final GCEvent copy = events[indexOf(epoch)].copy();
+                    if (copy.getEpoch() != epoch || lastEpoch - epoch >= events.length) {
+                        /* Overwritten by a later collection, which is notified separately. */
+                        continue;
+                    }
+                    for (GCEventListener listener : listeners) {
+                        listener.collectionFinished(copy);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private int indexOf(long epoch) {
+        return (int) (epoch % events.length);
+    }
+}
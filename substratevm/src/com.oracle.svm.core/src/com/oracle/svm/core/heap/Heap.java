@@ -25,6 +25,8 @@
 package com.oracle.svm.core.heap;
 
 import java.lang.management.MemoryMXBean;
+import java.lang.management.PlatformManagedObject;
+import java.util.Collections;
 import java.util.List;
 
 import org.graalvm.compiler.api.replacements.Fold;
@@ -32,6 +34,9 @@ import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.IsolateThread;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
 
 public abstract class Heap {
 
@@ -89,4 +94,29 @@ public abstract class Heap {
 
     /** Get the MemoryMXBean for this heap. */
     public abstract MemoryMXBean getMemoryMXBean();
+
+    /**
+     * Get the managed objects of this heap that are registered with the platform MBean server in
+     * addition to the {@link #getMemoryMXBean() MemoryMXBean} and the MXBeans of the {@link GC}.
+     */
+    public List<PlatformManagedObject> getPlatformManagedObjects() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Called before the references in a range of an object array are overwritten without write
+     * barriers, for example by an array copy. A collector that needs the previous values of
+     * overwritten references can record them here.
+     *
+     * @return false if the previous values could not be recorded without allocating, in which case
+     *         {@link #preparePreWriteBarrierForObjectArray} has to be called before trying again.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public boolean tryPreWriteBarrierForObjectArray(Object array, UnsignedWord startOffset, UnsignedWord size) {
+        return true;
+    }
+
+    /** Make room to record the previous values of an object array range of the given size. */
+    public void preparePreWriteBarrierForObjectArray(UnsignedWord size) {
+    }
 }
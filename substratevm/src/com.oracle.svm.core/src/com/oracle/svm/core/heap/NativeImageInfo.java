@@ -74,6 +74,25 @@ public class NativeImageInfo {
     // (or null if there is no such object).
     public static Object lastWritableReferenceObject;
 
+    /*
+     * The ends of the startup-critical prefixes of the partitions, when the native image heap was
+     * laid out by locality: the objects used at startup come first in each partition, in the
+     * order of their first use.
+     */
+
+    // The last startup-critical object in the read-only primitives partition
+    // (or null if there is no such object).
+    public static Object lastReadOnlyPrimitiveStartupObject;
+    // The last startup-critical object in the read-only references partition
+    // (or null if there is no such object).
+    public static Object lastReadOnlyReferenceStartupObject;
+    // The last startup-critical object in the writable primitives partition
+    // (or null if there is no such object).
+    public static Object lastWritablePrimitiveStartupObject;
+    // The last startup-critical object in the writable references partition
+    // (or null if there is no such object).
+    public static Object lastWritableReferenceStartupObject;
+
     /*
      * Convenience methods for asking if a Pointer is in the various native image heap partitions.
      *
@@ -177,6 +196,23 @@ public class NativeImageInfo {
         return result;
     }
 
+    /**
+     * Apply to the startup-critical prefix of each partition that has one. The second pointer is
+     * the end of the last startup-critical object, not its start.
+     */
+    public static void voidApplyToStartupRegions(final VoidReduceFromPointers lambda) {
+        applyToStartupRegion(lambda, firstReadOnlyPrimitiveObject, lastReadOnlyPrimitiveStartupObject);
+        applyToStartupRegion(lambda, firstReadOnlyReferenceObject, lastReadOnlyReferenceStartupObject);
+        applyToStartupRegion(lambda, firstWritablePrimitiveObject, lastWritablePrimitiveStartupObject);
+        applyToStartupRegion(lambda, firstWritableReferenceObject, lastWritableReferenceStartupObject);
+    }
+
+    private static void applyToStartupRegion(final VoidReduceFromPointers lambda, Object firstObject, Object lastStartupObject) {
+        if (firstObject != null && lastStartupObject != null) {
+            lambda.voidFromPointers(Word.objectToUntrackedPointer(firstObject), LayoutEncoding.getObjectEnd(lastStartupObject));
+        }
+    }
+
     /*
      * Interfaces for lambda for native image heap partitions.
      */
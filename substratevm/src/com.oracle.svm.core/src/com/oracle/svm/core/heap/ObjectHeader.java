@@ -73,6 +73,7 @@ public abstract class ObjectHeader {
      * enabled, the specified address must be the uncompressed absolute address of the object in
      * memory.
      */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static UnsignedWord readHeaderFromPointer(Pointer objectPointer) {
         if (getReferenceSize() == Integer.BYTES) {
             return WordFactory.unsigned(objectPointer.readInt(getHubOffset()));
@@ -439,6 +439,7 @@ public final class DynamicHub implements JavaKind.FormatWithToString, AnnotatedE
         return assignableFromMatches;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public int getReferenceMapIndex() {
         return referenceMapIndex;
     }
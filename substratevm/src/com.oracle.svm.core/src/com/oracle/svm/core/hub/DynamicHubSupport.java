@@ -30,6 +30,7 @@ import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 
 import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.annotate.UnknownObjectField;
 
 public final class DynamicHubSupport {
@@ -45,6 +46,7 @@ public final class DynamicHubSupport {
         this.referenceMapEncoding = referenceMapEncoding;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public static byte[] getReferenceMapEncoding() {
         return ImageSingletons.lookup(DynamicHubSupport.class).referenceMapEncoding;
     }
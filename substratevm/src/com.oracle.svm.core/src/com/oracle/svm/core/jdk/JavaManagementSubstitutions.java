@@ -27,7 +27,9 @@ package com.oracle.svm.core.jdk;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.PlatformManagedObject;
 import java.lang.management.RuntimeMXBean;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
@@ -40,14 +42,20 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
 import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.graalvm.compiler.serviceprovider.GraalServices;
 import org.graalvm.nativeimage.Feature;
 import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.RuntimeReflection;
 
 import com.oracle.svm.core.JavaMainWrapper.JavaMainSupport;
 import com.oracle.svm.core.SubstrateUtil;
+import com.oracle.svm.core.annotate.Alias;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
@@ -64,11 +72,18 @@ import sun.management.Util;
 @TargetClass(java.lang.management.ManagementFactory.class)
 final class Target_java_lang_management_ManagementFactory {
 
+    @Alias private static MBeanServer platformMBeanServer;
+
     @Substitute
     private static List<GarbageCollectorMXBean> getGarbageCollectorMXBeans() {
         return Heap.getHeap().getGC().getGarbageCollectorMXBeanList();
     }
 
+    @Substitute
+    private static List<MemoryPoolMXBean> getMemoryPoolMXBeans() {
+        return Heap.getHeap().getGC().getMemoryPoolMXBeanList();
+    }
+
     @Substitute
     private static MemoryMXBean getMemoryMXBean() {
         return Heap.getHeap().getMemoryMXBean();
@@ -88,6 +103,42 @@ final class Target_java_lang_management_ManagementFactory {
     private static OperatingSystemMXBean getOperatingSystemMXBean() {
         return ImageSingletons.lookup(SubstrateOperatingSystemMXBean.class);
     }
+
+    /**
+     * The platform MBean server only contains the MXBeans of the heap and the collector, because
+     * the other Substrate VM MXBeans do not support {@link PlatformManagedObject#getObjectName()}.
+     */
+    @Substitute
+    public static synchronized MBeanServer getPlatformMBeanServer() {
+        if (platformMBeanServer == null) {
+            MBeanServer server = MBeanServerFactory.createMBeanServer();
+            Heap heap = Heap.getHeap();
+            registerMXBean(server, heap.getMemoryMXBean());
+            for (PlatformManagedObject bean : heap.getGC().getGarbageCollectorMXBeanList()) {
+                registerMXBean(server, bean);
+            }
+            for (PlatformManagedObject bean : heap.getGC().getMemoryPoolMXBeanList()) {
+                registerMXBean(server, bean);
+            }
+            for (PlatformManagedObject bean : heap.getPlatformManagedObjects()) {
+                registerMXBean(server, bean);
+            }
+            platformMBeanServer = server;
+        }
+        return platformMBeanServer;
+    }
+
+    private static void registerMXBean(MBeanServer server, PlatformManagedObject bean) {
+        ObjectName name = bean.getObjectName();
+        if (name == null || server.isRegistered(name)) {
+            return;
+        }
+        try {
+            server.registerMBean(new StandardMBean(bean, null, true), name);
+        } catch (JMException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+    }
 }
 
 @AutomaticFeature
@@ -105,6 +156,33 @@ final class ManagementFactoryFeature implements Feature {
         ImageSingletons.add(SubstrateOperatingSystemMXBean.class, new SubstrateOperatingSystemMXBean());
     }
 
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        /* The platform MBean server introspects the MXBean interfaces of its beans. */
+        Heap heap = Heap.getHeap();
+        registerMXBeanInterfaces(heap.getMemoryMXBean());
+        for (PlatformManagedObject bean : heap.getGC().getGarbageCollectorMXBeanList()) {
+            registerMXBeanInterfaces(bean);
+        }
+        for (PlatformManagedObject bean : heap.getGC().getMemoryPoolMXBeanList()) {
+            registerMXBeanInterfaces(bean);
+        }
+        for (PlatformManagedObject bean : heap.getPlatformManagedObjects()) {
+            registerMXBeanInterfaces(bean);
+        }
+    }
+
+    private static void registerMXBeanInterfaces(PlatformManagedObject bean) {
+        for (Class<?> c = bean.getClass(); c != null; c = c.getSuperclass()) {
+            for (Class<?> i : c.getInterfaces()) {
+                if (PlatformManagedObject.class.isAssignableFrom(i)) {
+                    RuntimeReflection.register(i);
+                    RuntimeReflection.register(i.getMethods());
+                }
+            }
+        }
+    }
+
     private static Object replace(Object source) {
         if (source instanceof ThreadMXBean) {
             return ImageSingletons.lookup(SubstrateThreadMXBean.class);
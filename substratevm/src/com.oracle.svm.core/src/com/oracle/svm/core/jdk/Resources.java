@@ -25,6 +25,7 @@
 package com.oracle.svm.core.jdk;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -35,6 +36,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Platform;
@@ -49,11 +53,39 @@ import com.oracle.svm.core.util.VMError;
  *
  * Registered resources are then available from {@link DynamicHub#getResource classes} and
  * {@link Target_java_lang_ClassLoader class loaders}.
+ *
+ * With {@link ResourcesFeature.Options#CompressResources}, the resource bytes are stored deflated
+ * in the image heap. Resources are mostly cold data, so they should not take space in the binary
+ * and in the mapped image heap in their original form. {@link #get} is the only way to access
+ * them, so it inflates a resource on its first access and keeps the inflated bytes for all later
+ * accesses.
  */
 public final class Resources {
 
     static class ResourcesSupport {
         final Map<String, List<byte[]>> resources = new HashMap<>();
+
+        /**
+         * Resources of which at least one copy is stored deflated. All copies of such a resource
+         * are in this map, in registration order, so that the class path order is preserved. This
+         * map is not modified at run time, so it can be read without synchronization. The inflated
+         * resources are moved to {@link #inflated}.
+         */
+        final Map<String, List<CompressedResource>> compressedResources = new HashMap<>();
+
+        /** Resources from {@link #compressedResources} that were already inflated at run time. */
+        final Map<String, List<byte[]>> inflated = new HashMap<>();
+    }
+
+    static final class CompressedResource {
+        final byte[] data;
+        /** The inflated length, or -1 if {@link #data} is not deflated. */
+        final int length;
+
+        CompressedResource(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
     }
 
     private Resources() {
@@ -91,6 +123,30 @@ public final class Resources {
         byte[] res = new byte[pos];
         System.arraycopy(arr, 0, res, 0, pos);
 
+        if (ResourcesFeature.Options.CompressResources.getValue()) {
+            byte[] compressed = deflate(res);
+            List<CompressedResource> list = support.compressedResources.get(name);
+            /* Small or already compressed resources are not worth inflating at run time. */
+            if (compressed.length < res.length) {
+                if (list == null) {
+                    list = new ArrayList<>();
+                    /* Earlier uncompressed copies must stay in front of this one. */
+                    List<byte[]> uncompressed = support.resources.remove(name);
+                    if (uncompressed != null) {
+                        for (byte[] data : uncompressed) {
+                            list.add(new CompressedResource(data, -1));
+                        }
+                    }
+                    support.compressedResources.put(name, list);
+                }
+                list.add(new CompressedResource(compressed, res.length));
+                return;
+            } else if (list != null) {
+                list.add(new CompressedResource(res, -1));
+                return;
+            }
+        }
+
         List<byte[]> list = support.resources.get(name);
         if (list == null) {
             list = new ArrayList<>();
@@ -108,7 +164,68 @@ public final class Resources {
              */
             return null;
         }
-        return ImageSingletons.lookup(ResourcesSupport.class).resources.get(name);
+        ResourcesSupport support = ImageSingletons.lookup(ResourcesSupport.class);
+        List<CompressedResource> compressed = support.compressedResources.get(name);
+        if (compressed == null) {
+            return support.resources.get(name);
+        }
+        return inflate(support, name, compressed);
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buffer);
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static List<byte[]> inflate(ResourcesSupport support, String name, List<CompressedResource> compressed) {
+        synchronized (support.inflated) {
+            List<byte[]> result = support.inflated.get(name);
+            if (result != null) {
+                return result;
+            }
+
+            /*
+             * A resource that is present multiple times on the class path can have both
+             * compressed and uncompressed copies, so the result needs to contain all of them.
+             */
+            result = new ArrayList<>(compressed.size());
+            Inflater inflater = new Inflater();
+            try {
+                for (CompressedResource resource : compressed) {
+                    if (resource.length < 0) {
+                        result.add(resource.data);
+                        continue;
+                    }
+                    byte[] data = new byte[resource.length];
+                    inflater.reset();
+                    inflater.setInput(resource.data);
+                    int pos = 0;
+                    while (pos < data.length && !inflater.finished()) {
+                        pos += inflater.inflate(data, pos, data.length - pos);
+                    }
+                    result.add(data);
+                }
+            } catch (DataFormatException ex) {
+                throw VMError.shouldNotReachHere(ex);
+            } finally {
+                inflater.end();
+            }
+            support.inflated.put(name, result);
+            return result;
+        }
     }
 
     public static URL createURL(String name, byte[] resourceBytes) {
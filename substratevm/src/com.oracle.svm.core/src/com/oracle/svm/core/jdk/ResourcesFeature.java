@@ -54,6 +54,9 @@ public final class ResourcesFeature implements Feature {
     public static class Options {
         @Option(help = "Regexp to match names of resources to be included in the image.", type = OptionType.User)//
         public static final HostedOptionKey<String> IncludeResources = new HostedOptionKey<>("");
+
+        @Option(help = "Store included resources deflated in the image heap and inflate them on first access at run time.")//
+        public static final HostedOptionKey<Boolean> CompressResources = new HostedOptionKey<>(false);
     }
 
     @Override
@@ -168,4 +168,55 @@ public interface VirtualMemoryProvider {
      * @return 0 when successful, or a non-zero implementation-specific error code.
      */
     int free(PointerBase start, UnsignedWord nbytes);
+
+    /**
+     * Advise the operating system that a committed address range should be backed by huge pages
+     * where possible. This is only a hint and does not change the contents of the memory.
+     *
+     * @param start The start of the address range, which must be a multiple of the
+     *            {@linkplain #getGranularity() granularity}.
+     * @param nbytes The size in bytes of the address range.
+     * @return 0 when successful, or a non-zero implementation-specific error code, also when huge
+     *         pages are not supported.
+     */
+    default int adviseHugePages(PointerBase start, UnsignedWord nbytes) {
+        return -1;
+    }
+
+    /**
+     * Advise the operating system that a committed address range will be accessed soon, so that it
+     * can read it ahead. This is only a hint and does not change the contents of the memory.
+     *
+     * @param start The start of the address range, which must be a multiple of the
+     *            {@linkplain #getGranularity() granularity}.
+     * @param nbytes The size in bytes of the address range.
+     * @return 0 when successful, or a non-zero implementation-specific error code.
+     */
+    default int adviseWillNeed(PointerBase start, UnsignedWord nbytes) {
+        return -1;
+    }
+
+    /**
+     * Returns the NUMA node of the processor on which the current thread is running, or -1 if
+     * that is not known. The thread can be migrated to another node at any time, so the result is
+     * only a hint.
+     */
+    default int getCurrentNumaNode() {
+        return -1;
+    }
+
+    /**
+     * Ask the operating system to prefer physical memory of the given NUMA node for a committed
+     * address range that has not been accessed yet.
+     *
+     * @param start The start of the address range, which must be a multiple of the
+     *            {@linkplain #getGranularity() granularity}.
+     * @param nbytes The size in bytes of the address range.
+     * @param node A NUMA node as returned by {@link #getCurrentNumaNode()}.
+     * @return 0 when successful, or a non-zero implementation-specific error code, also when NUMA
+     *         placement is not supported.
+     */
+    default int preferNumaNode(PointerBase start, UnsignedWord nbytes, int node) {
+        return -1;
+    }
 }
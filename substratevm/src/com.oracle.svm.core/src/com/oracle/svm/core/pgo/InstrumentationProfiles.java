@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.pgo;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.ImageProfiles;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+
+/**
+ * The profiles collected by an instrumented image, for a later build to optimize with.
+ *
+ * When {@link Options#PGOInstrument} is set, the image builder counts method entries and the
+ * outcomes of conditional branches in {@link MethodProfile}s, and records the receivers of calls
+ * and the objects of type checks in {@link TypeProfileSite}s. The profiles are written as text to
+ * {@link Options#PGOProfilesFile} when the image exits, or can be obtained at any time with
+ * {@link ImageProfiles#dumpProfiles()}.
+ */
+public final class InstrumentationProfiles extends ImageProfiles {
+
+    public static class Options {
+        @Option(help = "Build an image that collects profiles for profile-guided optimization")//
+        public static final HostedOptionKey<Boolean> PGOInstrument = new HostedOptionKey<>(false);
+
+        @Option(help = "The number of types recorded at each call site and type check of an instrumented image")//
+        public static final HostedOptionKey<Integer> PGOTypeProfileWidth = new HostedOptionKey<>(8);
+
+        @Option(help = "The file an instrumented image writes its profiles to at exit")//
+        public static final RuntimeOptionKey<String> PGOProfilesFile = new RuntimeOptionKey<>("default.iprof");
+    }
+
+    /** The header of the profile text, followed by one {@link MethodProfile} after the other. */
+    public static final String FORMAT_HEADER = "# image profiles v1";
+
+    private MethodProfile[] profiles;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public InstrumentationProfiles() {
+        this.profiles = new MethodProfile[0];
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return Options.PGOInstrument.getValue();
+    }
+
+    @Fold
+    static InstrumentationProfiles singleton() {
+        return (InstrumentationProfiles) ImageSingletons.lookup(ImageProfiles.class);
+    }
+
+    /** Publishes the profiles of the methods instrumented so far, to be written into the image. */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public void setProfiles(MethodProfile[] profiles) {
+        this.profiles = profiles;
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public int getProfileCount() {
+        return profiles.length;
+    }
+
+    @Override
+    protected String computeProfiles() {
+        final StringBuilder out = new StringBuilder();
+        out.append(FORMAT_HEADER).append('\n');
+        for (MethodProfile profile : profiles) {
+            profile.write(out);
+        }
+        return out.toString();
+    }
+
+    /** A shutdown hook: write the profiles collected by this run. */
+    public static void dumpAtExit() {
+        final String fileName = Options.PGOProfilesFile.getValue();
+        if (fileName.isEmpty()) {
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(fileName)) {
+            out.write(singleton().computeProfiles().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            Log.log().string("Writing the image profiles to ").string(fileName).string(" failed: ").string(ex.getMessage()).newline();
+        }
+    }
+}
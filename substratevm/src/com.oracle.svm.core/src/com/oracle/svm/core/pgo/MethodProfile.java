@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.pgo;
+
+import java.util.Arrays;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+/**
+ * The counters of one instrumented method.
+ *
+ * The layout is fixed when the method is first parsed, from its bytecode, so that the analysis and
+ * the compilation of the method increment the same counters: {@link #ENTRY_COUNTER_INDEX} counts
+ * invocations, and each conditional branch has a pair of counters, for its condition being true and
+ * false. Those are the outcomes of the condition as Graal canonicalized it, which is also how the
+ * profiles are consumed again.
+ */
+public final class MethodProfile {
+
+    public static final int ENTRY_COUNTER_INDEX = 0;
+
+    /** The method, as {@code "%H.%n(%P)%R"}. */
+    private final String key;
+    private final int codeSize;
+    /** The bcis of the conditional branches, sorted. */
+    private final int[] branchBcis;
+    private final long[] counters;
+    /** Sorted by bci. */
+    private final TypeProfileSite[] typeProfileSites;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public MethodProfile(String key, int codeSize, int[] branchBcis, int[] typeProfileBcis, int typeProfileWidth) {
+        this.key = key;
+        this.codeSize = codeSize;
+        this.branchBcis = branchBcis;
+        this.counters = new long[1 + 2 * branchBcis.length];
+        this.typeProfileSites = new TypeProfileSite[typeProfileBcis.length];
+        for (int i = 0; i < typeProfileBcis.length; i++) {
+            typeProfileSites[i] = new TypeProfileSite(typeProfileBcis[i], typeProfileWidth);
+        }
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public String getKey() {
+        return key;
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public long[] getCounters() {
+        return counters;
+    }
+
+    /**
+     * The index of the counter for the condition of the branch at the bci being true. The counter
+     * for it being false follows. Returns -1 if there is no branch at the bci.
+     */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public int getBranchCounterIndex(int bci) {
+        final int index = Arrays.binarySearch(branchBcis, bci);
+        return index < 0 ? -1 : 1 + 2 * index;
+    }
+
+    /** The site recording the types at the bci, or {@code null}. */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public TypeProfileSite getTypeProfileSite(int bci) {
+        int low = 0;
+        int high = typeProfileSites.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midBci = typeProfileSites[mid].getBci();
+            if (midBci < bci) {
+                low = mid + 1;
+            } else if (midBci > bci) {
+                high = mid - 1;
+            } else {
+                return typeProfileSites[mid];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends the profile of this method, if it has run:
+     *
+     * <pre>
+     * method codeSize entryCount key
+     * branch bci trueCount falseCount
+     * types bci nullCount otherCount (typeName count)*
+     * </pre>
+     *
+     * The key goes last because it contains spaces.
+     */
+    void write(StringBuilder out) {
+        if (counters[ENTRY_COUNTER_INDEX] == 0) {
+            return;
+        }
+        out.append("method ").append(codeSize).append(' ').append(counters[ENTRY_COUNTER_INDEX]).append(' ').append(key).append('\n');
+        for (int i = 0; i < branchBcis.length; i++) {
+            final long trueCount = counters[1 + 2 * i];
+            final long falseCount = counters[2 + 2 * i];
+            if (trueCount != 0 || falseCount != 0) {
+                out.append("branch ").append(branchBcis[i]).append(' ').append(trueCount).append(' ').append(falseCount).append('\n');
+            }
+        }
+        for (TypeProfileSite site : typeProfileSites) {
+            if (!site.isEmpty()) {
+                site.write(out);
+            }
+        }
+    }
+}
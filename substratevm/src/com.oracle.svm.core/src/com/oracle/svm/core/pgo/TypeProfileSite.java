@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.pgo;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.word.LocationIdentity;
+
+import com.oracle.svm.core.snippets.SnippetRuntime;
+import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
+import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
+
+/**
+ * The types seen at one bytecode of an instrumented method: the receiver of a virtual or interface
+ * call, or the object of a checkcast or instanceof.
+ *
+ * Instrumented code calls {@link #RECORD} with the site and the value. The first types seen claim
+ * the slots of the site, and later types only bump {@link #otherCount}. Updates are not atomic, so
+ * racing threads can lose counts or replace each other's type in a fresh slot. That is the same
+ * imprecision a JIT's profiles have, and good enough to rank the receivers of a call.
+ */
+public final class TypeProfileSite {
+
+    /** Records the type of the value at a site. */
+    public static final SubstrateForeignCallDescriptor RECORD = SnippetRuntime.findForeignCall(TypeProfileSite.class, "record", false, LocationIdentity.any());
+
+    private final int bci;
+    private final Class<?>[] types;
+    private final long[] counts;
+    private long nullCount;
+    private long otherCount;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    TypeProfileSite(int bci, int width) {
+        this.bci = bci;
+        this.types = new Class<?>[width];
+        this.counts = new long[width];
+    }
+
+    public int getBci() {
+        return bci;
+    }
+
+    /** Foreign call: {@link #RECORD}. */
+    @SubstrateForeignCallTarget
+    private static void record(TypeProfileSite site, Object value) {
+        if (value == null) {
+            site.nullCount++;
+            return;
+        }
+        final Class<?> type = value.getClass();
+        for (int i = 0; i < site.types.length; i++) {
+            final Class<?> recorded = site.types[i];
+            if (recorded == type) {
+                site.counts[i]++;
+                return;
+            }
+            if (recorded == null) {
+                site.types[i] = type;
+                site.counts[i]++;
+                return;
+            }
+        }
+        site.otherCount++;
+    }
+
+    boolean isEmpty() {
+        return nullCount == 0 && otherCount == 0 && counts[0] == 0;
+    }
+
+    /** Appends "types bci nullCount otherCount (typeName count)*" to the profile text. */
+    void write(StringBuilder out) {
+        out.append("types ").append(bci).append(' ').append(nullCount).append(' ').append(otherCount);
+        for (int i = 0; i < types.length && types[i] != null; i++) {
+            out.append(' ').append(types[i].getName()).append(' ').append(counts[i]);
+        }
+        out.append('\n');
+    }
+}
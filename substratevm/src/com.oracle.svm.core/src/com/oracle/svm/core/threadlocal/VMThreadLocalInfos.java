@@ -26,6 +26,8 @@ package com.oracle.svm.core.threadlocal;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.graalvm.compiler.word.ObjectAccess;
 import org.graalvm.compiler.word.Word;
@@ -59,6 +61,12 @@ public class VMThreadLocalInfos {
         }
     }
 
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static List<VMThreadLocalInfo> getInfos() {
+        VMThreadLocalInfo[] infos = ImageSingletons.lookup(VMThreadLocalInfos.class).infos;
+        return infos == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(infos));
+    }
+
     public static void dumpToLog(Log log, IsolateThread thread) {
         for (VMThreadLocalInfo info : ImageSingletons.lookup(VMThreadLocalInfos.class).infos) {
             log.signed(info.offset).string(" (").signed(info.sizeInBytes).string(" bytes): ").string(info.name).string(" = ");
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.allocationprofile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests the decisions of the {@link AllocationSampler} that do not depend on a running image. */
+public class AllocationSamplerTest {
+
+    @Test
+    public void testThreshold() {
+        final long interval = 512L * 1024L;
+        Assert.assertFalse(AllocationSampler.shouldSample(0L, interval));
+        Assert.assertFalse(AllocationSampler.shouldSample(interval - 1, interval));
+        Assert.assertTrue(AllocationSampler.shouldSample(interval, interval));
+        Assert.assertTrue(AllocationSampler.shouldSample(interval + 1, interval));
+        /* The bytes are unsigned. */
+        Assert.assertTrue(AllocationSampler.shouldSample(-1L, interval));
+        /* An interval of zero samples every refill. */
+        Assert.assertTrue(AllocationSampler.shouldSample(0L, 0L));
+    }
+
+    @Test
+    public void testThresholdAccumulates() {
+        final long interval = 1000L;
+        final long refill = 300L;
+        long bytesSinceSample = 0;
+        int samples = 0;
+        for (int i = 0; i < 100; i++) {
+            bytesSinceSample += refill;
+            if (AllocationSampler.shouldSample(bytesSinceSample, interval)) {
+                samples++;
+                bytesSinceSample = 0;
+            }
+        }
+        /* Every fourth refill reaches the interval. */
+        Assert.assertEquals(25, samples);
+    }
+
+    @Test
+    public void testReservoirFillsSlotsFirst() {
+        final int capacity = 16;
+        for (int sample = 0; sample < capacity; sample++) {
+            Assert.assertEquals(sample, AllocationSampler.reservoirSlot(sample, capacity));
+        }
+    }
+
+    @Test
+    public void testReservoirKeepsLaterSamples() {
+        final int capacity = 1024;
+        final long taken = 1024L * 1024L;
+        final int[] replaced = new int[capacity];
+        long keptLate = 0;
+        for (long sample = capacity; sample < taken; sample++) {
+            final int slot = AllocationSampler.reservoirSlot(sample, capacity);
+            Assert.assertTrue(slot >= -1 && slot < capacity);
+            if (slot >= 0) {
+                replaced[slot]++;
+                if (sample >= taken / 2) {
+                    keptLate++;
+                }
+            }
+        }
+        /*
+         * The expected number of replacements in the second half of the run is capacity * ln(2),
+         * about 710, so the reservoir keeps sampling long after it is full.
+         */
+        Assert.assertTrue("replacements in the second half: " + keptLate, keptLate > 550 && keptLate < 870);
+        /* The replacements are spread over all slots. */
+        int unused = 0;
+        for (int count : replaced) {
+            if (count == 0) {
+                unused++;
+            }
+        }
+        Assert.assertTrue("slots never replaced: " + unused, unused < capacity / 10);
+    }
+}
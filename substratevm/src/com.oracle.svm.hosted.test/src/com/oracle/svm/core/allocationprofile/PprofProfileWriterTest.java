@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.allocationprofile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests the protocol buffer encoding of the pprof profiles of the {@link AllocationSampler}. */
+public class PprofProfileWriterTest {
+
+    private static final long INNER_IP = 0x1000L;
+    private static final long OUTER_IP = 0x2000L;
+
+    /** A decoded field of a protocol buffer message: a varint, or the bytes of a message. */
+    private static final class Field {
+        final int number;
+        final long value;
+        final byte[] bytes;
+
+        Field(int number, long value, byte[] bytes) {
+            this.number = number;
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    private static List<Field> decode(byte[] message) {
+        final List<Field> fields = new ArrayList<>();
+        final int[] pos = {0};
+        while (pos[0] < message.length) {
+            final long tag = readVarint(message, pos);
+            final int number = (int) (tag >>> 3);
+            final int wireType = (int) (tag & 7);
+            if (wireType == 0) {
+                fields.add(new Field(number, readVarint(message, pos), null));
+            } else {
+                Assert.assertEquals("wire type", 2, wireType);
+                final int length = (int) readVarint(message, pos);
+                fields.add(new Field(number, 0, Arrays.copyOfRange(message, pos[0], pos[0] + length)));
+                pos[0] += length;
+            }
+        }
+        return fields;
+    }
+
+    private static long readVarint(byte[] bytes, int[] pos) {
+        long result = 0;
+        for (int shift = 0;; shift += 7) {
+            final byte b = bytes[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+    }
+
+    /** Decodes a packed repeated varint field. */
+    private static List<Long> decodePacked(byte[] bytes) {
+        final List<Long> result = new ArrayList<>();
+        final int[] pos = {0};
+        while (pos[0] < bytes.length) {
+            result.add(readVarint(bytes, pos));
+        }
+        return result;
+    }
+
+    private static List<Field> fields(List<Field> message, int number) {
+        final List<Field> result = new ArrayList<>();
+        for (Field field : message) {
+            if (field.number == number) {
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    private static Field field(List<Field> message, int number) {
+        final List<Field> result = fields(message, number);
+        Assert.assertEquals("occurrences of field " + number, 1, result.size());
+        return result.get(0);
+    }
+
+    private static List<StackTraceElement> sourceFrames(long ip) {
+        if (ip == INNER_IP) {
+            /* A method that is inlined into its caller. */
+            return Arrays.asList(new StackTraceElement("test.Inner", "allocate", "Inner.java", 10),
+                            new StackTraceElement("test.Outer", "inline", "Outer.java", 20));
+        } else if (ip == OUTER_IP) {
+            return Collections.singletonList(new StackTraceElement("test.Outer", "run", "Outer.java", 30));
+        }
+        return Collections.emptyList();
+    }
+
+    @Test
+    public void testEncoding() throws IOException {
+        final AllocationSample sample = new AllocationSample(String.class, new long[]{INNER_IP, OUTER_IP});
+        sample.add(1000L);
+        sample.add(300L);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PprofProfileWriter(512L, PprofProfileWriterTest::sourceFrames).write(Collections.singletonList(sample), out);
+        final List<Field> profile = decode(out.toByteArray());
+
+        final List<String> strings = new ArrayList<>();
+        for (Field field : fields(profile, 6)) {
+            strings.add(new String(field.bytes, StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals("", strings.get(0));
+
+        final List<Field> sampleTypes = fields(profile, 1);
+        Assert.assertEquals(2, sampleTypes.size());
+        Assert.assertEquals("samples", strings.get((int) field(decode(sampleTypes.get(0).bytes), 1).value));
+        Assert.assertEquals("count", strings.get((int) field(decode(sampleTypes.get(0).bytes), 2).value));
+        Assert.assertEquals("alloc_space", strings.get((int) field(decode(sampleTypes.get(1).bytes), 1).value));
+        Assert.assertEquals("bytes", strings.get((int) field(decode(sampleTypes.get(1).bytes), 2).value));
+
+        final List<Field> encodedSample = decode(field(profile, 2).bytes);
+        final List<Long> locationIds = decodePacked(field(encodedSample, 1).bytes);
+        Assert.assertEquals(2, locationIds.size());
+        Assert.assertEquals(Arrays.asList(2L, 1300L), decodePacked(field(encodedSample, 2).bytes));
+        final List<Field> label = decode(field(encodedSample, 3).bytes);
+        Assert.assertEquals("object", strings.get((int) field(label, 1).value));
+        Assert.assertEquals("java.lang.String", strings.get((int) field(label, 2).value));
+
+        final List<Field> locations = fields(profile, 4);
+        Assert.assertEquals(2, locations.size());
+        final List<Field> inner = decode(locations.get(0).bytes);
+        Assert.assertEquals((long) locationIds.get(0), field(inner, 1).value);
+        Assert.assertEquals(INNER_IP, field(inner, 3).value);
+        final List<Field> innerLines = fields(inner, 4);
+        Assert.assertEquals(2, innerLines.size());
+        Assert.assertEquals(10L, field(decode(innerLines.get(0).bytes), 2).value);
+        Assert.assertEquals(20L, field(decode(innerLines.get(1).bytes), 2).value);
+        final List<Field> outer = decode(locations.get(1).bytes);
+        Assert.assertEquals((long) locationIds.get(1), field(outer, 1).value);
+        Assert.assertEquals(OUTER_IP, field(outer, 3).value);
+
+        final List<Field> functions = fields(profile, 5);
+        Assert.assertEquals(3, functions.size());
+        final List<Field> firstFunction = decode(functions.get(0).bytes);
+        Assert.assertEquals(field(decode(innerLines.get(0).bytes), 1).value, field(firstFunction, 1).value);
+        Assert.assertEquals("test.Inner.allocate", strings.get((int) field(firstFunction, 2).value));
+        Assert.assertEquals("Inner.java", strings.get((int) field(firstFunction, 4).value));
+
+        final List<Field> periodType = decode(field(profile, 11).bytes);
+        Assert.assertEquals("space", strings.get((int) field(periodType, 1).value));
+        Assert.assertEquals(512L, field(profile, 12).value);
+    }
+
+    @Test
+    public void testLargeVarints() throws IOException {
+        final long ip = 0x7FFF_FFFF_FFFF_F000L;
+        final AllocationSample sample = new AllocationSample(Object.class, new long[]{ip});
+        sample.add(1L << 40);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PprofProfileWriter(512L, PprofProfileWriterTest::sourceFrames).write(Collections.singletonList(sample), out);
+        final List<Field> profile = decode(out.toByteArray());
+        Assert.assertEquals(Arrays.asList(1L, 1L << 40), decodePacked(field(decode(field(profile, 2).bytes), 2).bytes));
+        final List<Field> location = decode(field(profile, 4).bytes);
+        Assert.assertEquals(ip, field(location, 3).value);
+        Assert.assertTrue("no lines for unknown code", fields(location, 4).isEmpty());
+        Assert.assertTrue("no functions for unknown code", fields(profile, 5).isEmpty());
+    }
+}
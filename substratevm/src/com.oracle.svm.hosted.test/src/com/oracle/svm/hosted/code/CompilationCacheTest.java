@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.code;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.svm.core.config.ObjectLayout;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.TargetDescription;
+
+/** Tests of the {@link CompilationCache} entries and of the environment part of their keys. */
+public class CompilationCacheTest {
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("compilation-cache");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private CompilationCache newCache() {
+        return new CompilationCache(directory, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), "environment");
+    }
+
+    private static CompilationResult newResult(String name) {
+        CompilationResult result = new CompilationResult(name);
+        byte[] code = {0x55, 0x48, (byte) 0x89, (byte) 0xe5, 0x5d, (byte) 0xc3, (byte) 0x90, (byte) 0x90};
+        result.setTargetCode(code, code.length);
+        result.setTotalFrameSize(32);
+        result.recordExceptionHandler(2, 6);
+        result.recordMark(4, "mark");
+        return result;
+    }
+
+    @Test
+    public void testHit() {
+        CompilationResult compiled = newResult("compiled");
+        newCache().store("key", compiled);
+
+        /* A later build finds the entry. */
+        CompilationResult cached = newCache().lookup("key", () -> new CompilationResult("cached"));
+        Assert.assertNotNull(cached);
+        CompilationCache.verify(null, cached, compiled);
+        Assert.assertEquals(1, cached.getMarks().size());
+        Assert.assertEquals("mark", cached.getMarks().get(0).id);
+        Assert.assertEquals(4, cached.getMarks().get(0).pcOffset);
+    }
+
+    @Test
+    public void testMiss() {
+        CompilationCache cache = newCache();
+        cache.store("key", newResult("compiled"));
+        Assert.assertNull(cache.lookup("otherKey", () -> new CompilationResult("cached")));
+    }
+
+    @Test
+    public void testCorruptEntryIsMiss() throws IOException {
+        Files.write(directory.resolve("key"), new byte[]{1, 2, 3});
+        Assert.assertNull(newCache().lookup("key", () -> new CompilationResult("cached")));
+    }
+
+    /** A builder jar that is rebuilt with the same size and time stamp must change the key. */
+    @Test
+    public void testBuilderContentsChangeKey() throws IOException {
+        Path jar = directory.resolve("builder.jar");
+        FileTime time = FileTime.fromMillis(1_000_000_000_000L);
+        Files.write(jar, "first contents".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(jar, time);
+        String first = CompilationCacheKey.hashContents(jar);
+        Assert.assertEquals(first, CompilationCacheKey.hashContents(jar));
+
+        Files.write(jar, "other contents".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(jar, time);
+        Assert.assertNotEquals(first, CompilationCacheKey.hashContents(jar));
+    }
+
+    @Test
+    public void testBuilderDirectoryChangeKey() throws IOException {
+        Path classes = Files.createDirectory(directory.resolve("classes"));
+        Files.write(classes.resolve("A.class"), new byte[]{1, 2});
+        String first = CompilationCacheKey.hashContents(classes);
+
+        Files.move(classes.resolve("A.class"), classes.resolve("B.class"));
+        Assert.assertNotEquals(first, CompilationCacheKey.hashContents(classes));
+    }
+
+    @Test
+    public void testLayoutChangesKey() {
+        TargetDescription target = new TargetDescription(new AMD64(EnumSet.of(AMD64.CPUFeature.SSE2), EnumSet.noneOf(AMD64.Flag.class)), true, 16, 4096, true);
+        String layout = CompilationCacheKey.describeLayout(new ObjectLayout(target, 0), Collections.emptyList());
+        Assert.assertEquals(layout, CompilationCacheKey.describeLayout(new ObjectLayout(target, 0), Collections.emptyList()));
+        Assert.assertNotEquals(layout, CompilationCacheKey.describeLayout(new ObjectLayout(target, 16), Collections.emptyList()));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.svm.core.pgo.InstrumentationProfiles;
+import com.oracle.svm.core.util.UserError.UserException;
+import com.oracle.svm.hosted.pgo.LoadedProfiles.MethodCounts;
+import com.oracle.svm.hosted.pgo.LoadedProfiles.TypeCounts;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.runtime.JVMCI;
+
+/** Tests reading back the profiles that an instrumented image wrote. */
+public class LoadedProfilesTest {
+
+    private Path file;
+    private ResolvedJavaMethod method;
+    private String key;
+
+    @Before
+    public void setUp() throws IOException, NoSuchMethodException {
+        file = Files.createTempFile("profiles", ".txt");
+        method = JVMCI.getRuntime().getHostJVMCIBackend().getMetaAccess().lookupJavaMethod(LoadedProfilesTest.class.getDeclaredMethod("profiled", Object.class, int.class));
+        key = ProfileInstrumentationRegistry.methodKey(method);
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    static int profiled(Object value, int limit) {
+        int result = 0;
+        for (int i = 0; i < limit; i++) {
+            result += value.hashCode();
+        }
+        return result;
+    }
+
+    private LoadedProfiles load(String... lines) throws IOException {
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return LoadedProfiles.load(file);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        LoadedProfiles profiles = load(InstrumentationProfiles.FORMAT_HEADER,
+                        "# a comment",
+                        "",
+                        "method " + method.getCodeSize() + " 42 " + key,
+                        "branch 7 30 12",
+                        "types 12 3 1 java.lang.String 20 [Ljava.lang.String; 5",
+                        "method 10 1 some.Other.method()V");
+        Assert.assertEquals(2, profiles.size());
+        Assert.assertTrue(profiles.hasRun(method));
+        Assert.assertEquals(42, profiles.getEntryCount(method));
+
+        MethodCounts counts = profiles.lookup(method);
+        Assert.assertArrayEquals(new long[]{30, 12}, counts.branches.get(7));
+        Assert.assertNull(counts.branches.get(8));
+        TypeCounts types = counts.types.get(12);
+        Assert.assertEquals(3, types.nullCount);
+        Assert.assertEquals(1, types.otherCount);
+        Assert.assertEquals(Long.valueOf(20), types.counts.get("java.lang.String"));
+        Assert.assertEquals(Long.valueOf(5), types.counts.get("[Ljava.lang.String;"));
+        Assert.assertEquals(26, types.total());
+    }
+
+    /** Counts recorded for different bytecode do not fit the method. */
+    @Test
+    public void testChangedCodeSize() throws IOException {
+        LoadedProfiles profiles = load(InstrumentationProfiles.FORMAT_HEADER, "method " + (method.getCodeSize() + 1) + " 42 " + key, "branch 7 30 12");
+        Assert.assertNull(profiles.lookup(method));
+        Assert.assertFalse(profiles.hasRun(method));
+        Assert.assertEquals(0, profiles.getEntryCount(method));
+    }
+
+    @Test
+    public void testNotRun() throws IOException {
+        LoadedProfiles profiles = load(InstrumentationProfiles.FORMAT_HEADER, "method " + method.getCodeSize() + " 0 " + key);
+        Assert.assertNotNull(profiles.lookup(method));
+        Assert.assertFalse(profiles.hasRun(method));
+    }
+
+    @Test(expected = UserException.class)
+    public void testMissingHeader() throws IOException {
+        load("method " + method.getCodeSize() + " 42 " + key);
+    }
+
+    @Test(expected = UserException.class)
+    public void testEmptyFile() throws IOException {
+        load();
+    }
+
+    @Test(expected = UserException.class)
+    public void testMalformedCount() throws IOException {
+        load(InstrumentationProfiles.FORMAT_HEADER, "method " + method.getCodeSize() + " 42 " + key, "branch 7 thirty 12");
+    }
+
+    @Test(expected = UserException.class)
+    public void testTruncatedLine() throws IOException {
+        load(InstrumentationProfiles.FORMAT_HEADER, "method " + method.getCodeSize() + " 42 " + key, "branch 7 30");
+    }
+
+    @Test(expected = UserException.class)
+    public void testUnknownLine() throws IOException {
+        load(InstrumentationProfiles.FORMAT_HEADER, "edge 1 2 3");
+    }
+
+    @Test(expected = UserException.class)
+    public void testMissingFile() throws IOException {
+        Files.delete(file);
+        LoadedProfiles.load(file);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.svm.hosted.pgo.LoadedProfiles.TypeCounts;
+
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.JavaTypeProfile.ProfiledType;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.TriState;
+import jdk.vm.ci.runtime.JVMCI;
+
+/** Tests how {@link ProfileGuidedAnalysisResultsBuilder} reweights the static type profiles. */
+public class ProfileGuidedAnalysisResultsBuilderTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final MetaAccessProvider metaAccess = JVMCI.getRuntime().getHostJVMCIBackend().getMetaAccess();
+
+    private ProfiledType profiled(Class<?> clazz, double probability) {
+        return new ProfiledType(metaAccess.lookupJavaType(clazz), probability);
+    }
+
+    private static TypeCounts counts(long otherCount, Object... namesAndCounts) {
+        TypeCounts counts = new TypeCounts(0, otherCount);
+        for (int i = 0; i < namesAndCounts.length; i += 2) {
+            counts.counts.put((String) namesAndCounts[i], ((Number) namesAndCounts[i + 1]).longValue());
+        }
+        return counts;
+    }
+
+    private static void assertType(Class<?> expected, double probability, ProfiledType actual) {
+        Assert.assertEquals(expected.getName(), LoadedProfiles.className(actual.getType()));
+        Assert.assertEquals(probability, actual.getProbability(), DELTA);
+    }
+
+    @Test
+    public void testClassName() {
+        for (Class<?> clazz : new Class<?>[]{String.class, String[].class, String[][].class, int[].class, double[][].class, Thread.State.class, Thread.State[].class}) {
+            Assert.assertEquals(clazz.getName(), LoadedProfiles.className(metaAccess.lookupJavaType(clazz)));
+        }
+    }
+
+    @Test
+    public void testReweightClasses() {
+        JavaTypeProfile profile = new JavaTypeProfile(TriState.FALSE, 0d, new ProfiledType[]{profiled(String.class, 0.5), profiled(Integer.class, 0.5)});
+        JavaTypeProfile result = ProfileGuidedAnalysisResultsBuilder.reweight(profile, counts(0, "java.lang.String", 1, "java.lang.Integer", 3));
+        Assert.assertEquals(2, result.getTypes().length);
+        assertType(Integer.class, 0.75, result.getTypes()[0]);
+        assertType(String.class, 0.25, result.getTypes()[1]);
+        Assert.assertEquals(TriState.FALSE, result.getNullSeen());
+    }
+
+    /** The profiles name arrays like {@link Class#getName()}, not like Java source code. */
+    @Test
+    public void testReweightArrays() {
+        JavaTypeProfile profile = new JavaTypeProfile(TriState.UNKNOWN, 0d, new ProfiledType[]{profiled(Object[].class, 0.5), profiled(String[].class, 0.3), profiled(int[].class, 0.2)});
+        JavaTypeProfile result = ProfileGuidedAnalysisResultsBuilder.reweight(profile, counts(0, "[Ljava.lang.String;", 6, "[I", 3, "[Ljava.lang.Object;", 1));
+        assertType(String[].class, 0.6, result.getTypes()[0]);
+        assertType(int[].class, 0.3, result.getTypes()[1]);
+        assertType(Object[].class, 0.1, result.getTypes()[2]);
+    }
+
+    /** Only the recorded part of the profile is redistributed, and no type is added or dropped. */
+    @Test
+    public void testReweightKeepsStaticTypes() {
+        JavaTypeProfile profile = new JavaTypeProfile(TriState.TRUE, 0.2, new ProfiledType[]{profiled(String.class, 0.4), profiled(Integer.class, 0.4)});
+        JavaTypeProfile result = ProfileGuidedAnalysisResultsBuilder.reweight(profile, counts(2, "java.lang.String", 6, "java.lang.Long", 2));
+        Assert.assertEquals(0.2, result.getNotRecordedProbability(), DELTA);
+        Assert.assertEquals(TriState.TRUE, result.getNullSeen());
+        Assert.assertEquals(2, result.getTypes().length);
+        assertType(String.class, 0.8 * 6 / 10, result.getTypes()[0]);
+        assertType(Integer.class, 0d, result.getTypes()[1]);
+    }
+
+    @Test
+    public void testReweightWithoutCounts() {
+        JavaTypeProfile profile = new JavaTypeProfile(TriState.FALSE, 0d, new ProfiledType[]{profiled(String.class, 0.5), profiled(Integer.class, 0.5)});
+        Assert.assertSame(profile, ProfileGuidedAnalysisResultsBuilder.reweight(profile, counts(0)));
+        JavaTypeProfile empty = new JavaTypeProfile(TriState.FALSE, 1d, new ProfiledType[0]);
+        Assert.assertSame(empty, ProfileGuidedAnalysisResultsBuilder.reweight(empty, counts(0, "java.lang.String", 5)));
+    }
+}
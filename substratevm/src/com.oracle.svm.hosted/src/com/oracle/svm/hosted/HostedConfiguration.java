@@ -47,6 +47,9 @@ import com.oracle.svm.hosted.meta.HostedField;
 import com.oracle.svm.hosted.meta.HostedInstanceClass;
 import com.oracle.svm.hosted.meta.HostedMetaAccess;
 import com.oracle.svm.hosted.meta.HostedUniverse;
+import com.oracle.svm.hosted.pgo.LoadedProfiles;
+import com.oracle.svm.hosted.pgo.ProfileGuidedAnalysisResultsBuilder;
+import com.oracle.svm.hosted.pgo.ProfileGuidedOptimizationFeature;
 
 public class HostedConfiguration {
 
@@ -95,10 +98,18 @@ public class HostedConfiguration {
     }
 
     public StaticAnalysisResultsBuilder createStaticAnalysisResultsBuilder(BigBang bigbang, HostedUniverse universe) {
+        if (ProfileGuidedOptimizationFeature.isEnabled()) {
+            return new ProfileGuidedAnalysisResultsBuilder(bigbang, universe, ImageSingletons.lookup(LoadedProfiles.class));
+        }
         return new StaticAnalysisResultsBuilder(bigbang, universe);
     }
 
+    /**
+     * Branch probabilities from image profiles are about the conditions as the
+     * {@link com.oracle.svm.hosted.pgo.ProfileInstrumentationPlugin} saw them, after the bytecode
+     * parser canonicalized them.
+     */
     public boolean isUsingAOTProfiles() {
-        return false;
+        return ProfileGuidedOptimizationFeature.isEnabled();
     }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionType;
+
+import com.oracle.graal.pointsto.reports.ReportUtils;
+import com.oracle.graal.pointsto.util.Timer;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.hosted.code.CompileQueue;
+import com.oracle.svm.hosted.code.CompileQueue.CompileTask;
+import com.oracle.svm.hosted.image.HeapHistogram;
+import com.oracle.svm.hosted.image.NativeImageHeap;
+import com.oracle.svm.hosted.json.JSONWriter;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.meta.HostedUniverse;
+
+/**
+ * Collects statistics about one image build and writes them as a JSON report, so that the build
+ * performance can be tracked by tools. The phase timers are still printed as before, this class
+ * only remembers them. Everything except the timers is only collected when the report is enabled.
+ */
+public class ImageBuildStatistics {
+
+    public static class Options {
+        @Option(help = "Print statistics about the image build (phase times, memory, universe, code and heap sizes) as a JSON report.", type = OptionType.User)//
+        public static final HostedOptionKey<Boolean> PrintImageBuildStatistics = new HostedOptionKey<>(false);
+
+        @Option(help = "Number of the slowest method compilations listed in the image build statistics.")//
+        public static final HostedOptionKey<Integer> ImageBuildStatisticsSlowestCompilations = new HostedOptionKey<>(50);
+    }
+
+    private final List<Timer> phaseTimers = new ArrayList<>();
+
+    private int types = -1;
+    private int methods = -1;
+    private int fields = -1;
+
+    private int compiledMethods;
+    private long totalCodeSize;
+    private final Map<String, Long> codeSizeByPackage = new TreeMap<>();
+    private final List<String> slowestCompilationNames = new ArrayList<>();
+    private final List<Long> slowestCompilationTimes = new ArrayList<>();
+
+    private HeapHistogram heapHistogram;
+
+    public static boolean isEnabled() {
+        return Options.PrintImageBuildStatistics.getValue();
+    }
+
+    /** Creates a timer for a phase of the build and remembers it for the report. */
+    public Timer newPhaseTimer(String imageName, String name) {
+        Timer timer = new Timer(imageName, name);
+        phaseTimers.add(timer);
+        return timer;
+    }
+
+    /** Remembers timers that were created elsewhere, e.g., the timers of sub-phases. */
+    public void addPhaseTimers(Timer... timers) {
+        for (Timer timer : timers) {
+            phaseTimers.add(timer);
+        }
+    }
+
+    public void addPhaseTimers(List<Timer> timers) {
+        phaseTimers.addAll(timers);
+    }
+
+    public void recordUniverse(HostedUniverse universe) {
+        if (!isEnabled()) {
+            return;
+        }
+        types = universe.getTypes().size();
+        methods = universe.getMethods().size();
+        fields = universe.getFields().size();
+    }
+
+    public void recordCompilations(CompileQueue compileQueue, Map<HostedMethod, CompilationResult> compilations) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (Map.Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
+            String className = entry.getKey().getDeclaringClass().toJavaName(true);
+            int lastDot = className.lastIndexOf('.');
+            String packageName = lastDot == -1 ? "" : className.substring(0, lastDot);
+            long size = entry.getValue().getTargetCodeSize();
+
+            compiledMethods++;
+            totalCodeSize += size;
+            codeSizeByPackage.merge(packageName, size, Long::sum);
+        }
+        for (CompileTask task : compileQueue.getSlowestCompilations(Options.ImageBuildStatisticsSlowestCompilations.getValue())) {
+            slowestCompilationNames.add(task.method.format("%H.%n(%P)"));
+            slowestCompilationTimes.add(task.compileTime);
+        }
+    }
+
+    public void recordHeap(NativeImageHeap heap) {
+        if (!isEnabled()) {
+            return;
+        }
+        heapHistogram = heap.computeHistogram();
+    }
+
+    public void print(String imageName) {
+        if (!isEnabled()) {
+            return;
+        }
+        String reportName = imageName.substring(imageName.lastIndexOf("/") + 1);
+        ReportUtils.report("image build statistics", SubstrateOptions.Path.getValue() + "/reports", "build_statistics_" + reportName, "json",
+                        out -> write(new JSONWriter(out), reportName));
+    }
+
+    private void write(JSONWriter writer, String reportName) {
+        writer.beginObject();
+        writer.name("image").value(reportName);
+
+        writer.name("phases").beginArray();
+        for (Timer timer : phaseTimers) {
+            writer.beginObject();
+            writer.name("name").value(timer.getName());
+            writer.name("wallTimeMillis").value(timer.getTotalTime() / 1000000d);
+            writer.name("cpuTimeMillis").value(timer.getTotalCpuTime() < 0 ? Double.NaN : timer.getTotalCpuTime() / 1000000d);
+            writer.endObject();
+        }
+        writer.endArray();
+
+        writer.name("memory").beginObject();
+        writer.name("peakHeapUsedBytes").value(peakHeapUsed());
+        writer.name("maxHeapBytes").value(Runtime.getRuntime().maxMemory());
+        writer.endObject();
+
+        writer.name("universe").beginObject();
+        writer.name("types").value(types);
+        writer.name("methods").value(methods);
+        writer.name("fields").value(fields);
+        writer.endObject();
+
+        writer.name("code").beginObject();
+        writer.name("compiledMethods").value(compiledMethods);
+        writer.name("totalSizeBytes").value(totalCodeSize);
+        writer.name("sizeByPackage").beginObject();
+        for (Map.Entry<String, Long> entry : codeSizeByPackage.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue());
+        }
+        writer.endObject();
+        writer.name("slowestCompilations").beginArray();
+        for (int i = 0; i < slowestCompilationNames.size(); i++) {
+            writer.beginObject();
+            writer.name("method").value(slowestCompilationNames.get(i));
+            writer.name("timeMillis").value(slowestCompilationTimes.get(i) / 1000000d);
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+
+        writer.name("heap").beginObject();
+        if (heapHistogram != null) {
+            writer.name("objects").value(heapHistogram.getTotalCount());
+            writer.name("sizeBytes").value(heapHistogram.getTotalSize());
+            writer.name("sizeByType");
+            heapHistogram.writeJSON(writer);
+        }
+        writer.endObject();
+
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * The sum of the peak usages of all heap memory pools. The pools do not necessarily peak at
+     * the same time, so this is an upper bound of the actual peak.
+     */
+    private static long peakHeapUsed() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                result += pool.getPeakUsage().getUsed();
+            }
+        }
+        return result;
+    }
+}
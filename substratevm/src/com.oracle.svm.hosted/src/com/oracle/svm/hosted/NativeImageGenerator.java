@@ -66,6 +66,7 @@ import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
 import org.graalvm.compiler.bytecode.BytecodeProvider;
 import org.graalvm.compiler.bytecode.ResolvedJavaMethodBytecodeProvider;
+import org.graalvm.compiler.code.CompilationResult;
 import org.graalvm.compiler.core.common.CompressEncoding;
 import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.core.common.spi.ForeignCallsProvider;
@@ -182,6 +183,7 @@ import com.oracle.svm.core.jdk.LocalizationFeature;
 import com.oracle.svm.core.option.HostedOptionValues;
 import com.oracle.svm.core.option.RuntimeOptionValues;
 import com.oracle.svm.core.option.SubstrateOptionsParser;
+import com.oracle.svm.core.pgo.InstrumentationProfiles;
 import com.oracle.svm.core.snippets.SnippetRuntime;
 import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
 import com.oracle.svm.core.util.InterruptImageBuilding;
@@ -231,6 +233,8 @@ import com.oracle.svm.hosted.meta.HostedType;
 import com.oracle.svm.hosted.meta.HostedUniverse;
 import com.oracle.svm.hosted.meta.UniverseBuilder;
 import com.oracle.svm.hosted.option.HostedOptionProvider;
+import com.oracle.svm.hosted.pgo.ProfileInstrumentationPlugin;
+import com.oracle.svm.hosted.pgo.ProfileInstrumentationRegistry;
 import com.oracle.svm.hosted.phases.CInterfaceInvocationPlugin;
 import com.oracle.svm.hosted.phases.ConstantFoldLoadFieldPlugin;
 import com.oracle.svm.hosted.phases.ImplicitExceptionsPlugin;
@@ -474,6 +478,7 @@ public class NativeImageGenerator {
                     ForkJoinPool compilationExecutor, ForkJoinPool analysisExecutor) {
         List<HostedMethod> hostedEntryPoints = new ArrayList<>();
         NativeLibraries nativeLibs;
+        ImageBuildStatistics statistics = new ImageBuildStatistics();
 
         SVMHost svmHost;
         AnalysisMetaAccess aMetaAccess;
@@ -484,7 +489,7 @@ public class NativeImageGenerator {
         SnippetReflectionProvider originalSnippetReflection = GraalAccess.getOriginalSnippetReflection();
         try (DebugContext debug = DebugContext.create(options, new GraalDebugHandlersFactory(originalSnippetReflection))) {
             try (Indent indent = debug.logAndIndent("start analysis pass")) {
-                try (StopTimer t = new Timer(imageName, "setup").start()) {
+                try (StopTimer t = statistics.newPhaseTimer(imageName, "setup").start()) {
                     // TODO Make customizable via command line parameter.
                     Platform platform = defaultPlatform(loader.getClassLoader());
 
@@ -626,6 +631,10 @@ public class NativeImageGenerator {
                         bigbang.addSystemStaticField(NativeImageInfo.class, "lastWritablePrimitiveObject").registerAsInHeap();
                         bigbang.addSystemStaticField(NativeImageInfo.class, "firstWritableReferenceObject").registerAsInHeap();
                         bigbang.addSystemStaticField(NativeImageInfo.class, "lastWritableReferenceObject").registerAsInHeap();
+                        bigbang.addSystemStaticField(NativeImageInfo.class, "lastReadOnlyPrimitiveStartupObject").registerAsInHeap();
+                        bigbang.addSystemStaticField(NativeImageInfo.class, "lastReadOnlyReferenceStartupObject").registerAsInHeap();
+                        bigbang.addSystemStaticField(NativeImageInfo.class, "lastWritablePrimitiveStartupObject").registerAsInHeap();
+                        bigbang.addSystemStaticField(NativeImageInfo.class, "lastWritableReferenceStartupObject").registerAsInHeap();
 
                         // Graal uses it for type checks in the partial escape analysis phase.
                         bigbang.addSystemClass(Reference.class, false, false);
@@ -673,7 +682,7 @@ public class NativeImageGenerator {
                     }
                 }
 
-                try (StopTimer t = new Timer(imageName, "analysis").start()) {
+                try (StopTimer t = statistics.newPhaseTimer(imageName, "analysis").start()) {
 
                     Timer processFeaturesTimer = new Timer(imageName, "(features)", false);
 
@@ -730,6 +739,7 @@ public class NativeImageGenerator {
                     bigbang.typeFlowTimer.print();
                     bigbang.checkObjectsTimer.print();
                     processFeaturesTimer.print();
+                    statistics.addPhaseTimers(bigbang.typeFlowTimer, bigbang.checkObjectsTimer, processFeaturesTimer);
 
                     /* report the unsupported features by throwing UnsupportedFeatureException */
                     bigbang.getUnsupportedFeatures().report(bigbang);
@@ -799,7 +809,7 @@ public class NativeImageGenerator {
             HostedMethod mainEntryPointHostedStub;
             HostedMetaAccess hMetaAccess;
             SharedRuntimeConfigurationBuilder runtime;
-            try (StopTimer t = new Timer(imageName, "universe").start()) {
+            try (StopTimer t = statistics.newPhaseTimer(imageName, "universe").start()) {
                 hUniverse = new HostedUniverse(bigbang, svmHost);
                 hMetaAccess = new HostedMetaAccess(hUniverse, aMetaAccess);
 
@@ -841,6 +851,7 @@ public class NativeImageGenerator {
                 featureHandler.forEachFeature(feature -> feature.beforeCompilation(config));
 
                 bigbang.getUnsupportedFeatures().report(bigbang);
+                statistics.recordUniverse(hUniverse);
             } catch (UnsupportedFeatureException ufe) {
                 throw UserError.abort(ufe.getMessage());
             }
@@ -859,7 +870,7 @@ public class NativeImageGenerator {
 
             NativeImageCodeCache codeCache;
             CompileQueue compileQueue;
-            try (StopTimer t = new Timer(imageName, "compile").start()) {
+            try (StopTimer t = statistics.newPhaseTimer(imageName, "compile").start()) {
                 compileQueue = HostedConfiguration.instance().createCompileQueue(debug, featureHandler, hUniverse, runtime, NativeImageOptions.DeoptimizeAll.getValue(), aSnippetReflection,
                                 compilationExecutor);
                 compileQueue.finish(debug);
@@ -867,7 +878,11 @@ public class NativeImageGenerator {
                 /* release memory taken by graphs for the image writing */
                 hUniverse.getMethods().forEach(HostedMethod::clear);
 
-                codeCache = new NativeImageCodeCache(compileQueue.getCompilations(), heap);
+                statistics.addPhaseTimers(compileQueue.getTimers());
+                Map<HostedMethod, CompilationResult> compilations = compileQueue.getCompilations();
+                statistics.recordCompilations(compileQueue, compilations);
+
+                codeCache = new NativeImageCodeCache(compilations, heap);
                 codeCache.layoutMethods(debug);
                 codeCache.layoutConstants();
 
@@ -877,7 +892,7 @@ public class NativeImageGenerator {
 
             try (Indent indent = debug.logAndIndent("create native image")) {
                 try (DebugContext.Scope buildScope = debug.scope("CreateBootImage")) {
-                    try (StopTimer t = new Timer(imageName, "image").start()) {
+                    try (StopTimer t = statistics.newPhaseTimer(imageName, "image").start()) {
 
                         // Start building the model of the native image heap.
                         heap.addInitialObjects(debug);
@@ -892,6 +907,7 @@ public class NativeImageGenerator {
 
                         this.image = AbstractBootImage.create(k, hUniverse, hMetaAccess, nativeLibs, heap, codeCache, hostedEntryPoints, mainEntryPointHostedStub, loader.getClassLoader());
                         image.build(debug);
+                        statistics.recordHeap(heap);
                         if (NativeImageOptions.PrintUniverse.getValue()) {
                             /*
                              * This debug output must be printed _after_ and not _during_ image
@@ -908,7 +924,7 @@ public class NativeImageGenerator {
                             runtime.getRuntimeConfig(), aUniverse, hUniverse, optionProvider, hMetaAccess);
             featureHandler.forEachFeature(feature -> feature.beforeImageWrite(beforeConfig));
 
-            try (StopTimer t = new Timer(imageName, "write").start()) {
+            try (StopTimer t = statistics.newPhaseTimer(imageName, "write").start()) {
                 /*
                  * This will write the debug info too -- i.e. we may be writing more than one file,
                  * if the debug info is in a separate file. We need to push writing the file to the
@@ -921,6 +937,7 @@ public class NativeImageGenerator {
                 AfterImageWriteAccessImpl afterConfig = new AfterImageWriteAccessImpl(featureHandler, loader, hUniverse, imagePath, tmpDir, image.getBootImageKind());
                 featureHandler.forEachFeature(feature -> feature.afterImageWrite(afterConfig));
             }
+            statistics.print(imageName);
         }
     }
 
@@ -1014,6 +1031,12 @@ public class NativeImageGenerator {
         plugins.appendTypePlugin(new TrustedInterfaceTypePlugin());
         plugins.appendNodePlugin(wordOperationPlugin);
         plugins.appendNodePlugin(new ImplicitExceptionsPlugin(providers.getMetaAccess(), providers.getForeignCalls()));
+        if (hosted && InstrumentationProfiles.isEnabled()) {
+            ProfileInstrumentationPlugin profileInstrumentationPlugin = new ProfileInstrumentationPlugin(providers.getMetaAccess(), providers.getForeignCalls(),
+                            ImageSingletons.lookup(ProfileInstrumentationRegistry.class));
+            plugins.setProfilingPlugin(profileInstrumentationPlugin);
+            plugins.appendNodePlugin(profileInstrumentationPlugin);
+        }
 
         plugins.setClassInitializationPlugin(new SubstrateClassInitializationPlugin((SVMHost) aUniverse.hostVM()));
 
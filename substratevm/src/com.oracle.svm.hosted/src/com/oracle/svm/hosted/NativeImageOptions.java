@@ -91,6 +91,12 @@ public class NativeImageOptions {
     @Option(help = "Print the sizes of the native image heap as the image is built")//
     public static final HostedOptionKey<Boolean> PrintImageHeapPartitionSizes = new HostedOptionKey<>(false);
 
+    @Option(help = "Lay out the native image heap so that the objects used at startup come first in each partition, in the order of their first use")//
+    public static final HostedOptionKey<Boolean> ImageHeapLayoutByLocality = new HostedOptionKey<>(false);
+
+    @Option(help = "The maximum size in bytes of the objects laid out as used at startup, when the native image heap is laid out by locality")//
+    public static final HostedOptionKey<Long> ImageHeapStartupRegionSize = new HostedOptionKey<>(16L * 1024L * 1024L);
+
     @Option(help = "Compiles all methods as deoptimization targets for testing")//
     public static final HostedOptionKey<Boolean> DeoptimizeAll = new HostedOptionKey<>(false);
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import com.oracle.graal.pointsto.meta.AnalysisMethod;
+import com.oracle.graal.pointsto.meta.AnalysisType;
+import com.oracle.graal.pointsto.meta.AnalysisUniverse;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.core.util.VMError;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * The reachability that a points-to analysis found: the instantiated types and the
+ * implementation-invoked methods, with a hash of the bytecode of each method. A snapshot is
+ * written after the analysis of one image build and {@link AnalysisSnapshotFeature seeds} the
+ * analysis of the next.
+ */
+public final class AnalysisSnapshot {
+
+    public static final String FORMAT_HEADER = "# analysis snapshot v1";
+
+    /** The type was allocated by a reachable method. */
+    static final int ALLOCATED = 1;
+    /** An object of the type was in the image heap. */
+    static final int IN_HEAP = 2;
+
+    /** The flags of the instantiated types, by {@link Class#getName() class name}. */
+    final Map<String, Integer> types;
+    /** The bytecode hash of the reachable methods, by {@link #methodKey key}. */
+    final Map<String, String> methods;
+
+    private AnalysisSnapshot(Map<String, Integer> types, Map<String, String> methods) {
+        this.types = types;
+        this.methods = methods;
+    }
+
+    static String methodKey(ResolvedJavaMethod method) {
+        return method.format("%H.%n(%P)%R");
+    }
+
+    /** Returns a hash of the bytecode of the method, or null if it has none. */
+    static String codeHash(ResolvedJavaMethod method) {
+        byte[] code = method.getCode();
+        if (code == null) {
+            return null;
+        }
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(code);
+        } catch (NoSuchAlgorithmException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public static AnalysisSnapshot capture(AnalysisUniverse universe) {
+        AnalysisSnapshot result = captureByOrigin(universe, clazz -> "").get("");
+        return result != null ? result : new AnalysisSnapshot(new TreeMap<>(), new TreeMap<>());
+    }
+
+    /**
+     * Captures a separate snapshot for each origin of the types and methods, where the origin of
+     * a type or method is computed from its class, which can be null. Types and methods with a
+     * null origin are not captured.
+     */
+    static Map<String, AnalysisSnapshot> captureByOrigin(AnalysisUniverse universe, Function<Class<?>, String> originOf) {
+        Map<String, AnalysisSnapshot> result = new HashMap<>();
+        Function<String, AnalysisSnapshot> create = origin -> new AnalysisSnapshot(new TreeMap<>(), new TreeMap<>());
+        for (AnalysisType type : universe.getTypes()) {
+            if (type.isInstantiated() && type.getJavaClass() != null) {
+                String origin = originOf.apply(type.getJavaClass());
+                if (origin != null) {
+                    result.computeIfAbsent(origin, create).types.put(type.getJavaClass().getName(), (type.isAllocated() ? ALLOCATED : 0) | (type.isInHeap() ? IN_HEAP : 0));
+                }
+            }
+        }
+        for (AnalysisMethod method : universe.getMethods()) {
+            if (method.isImplementationInvoked()) {
+                String hash = codeHash(method);
+                String origin = originOf.apply(method.getDeclaringClass().getJavaClass());
+                if (hash != null && origin != null) {
+                    result.computeIfAbsent(origin, create).methods.put(methodKey(method), hash);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Combines snapshots, e.g., the snapshots of different origins, into one. */
+    static AnalysisSnapshot merge(Iterable<AnalysisSnapshot> snapshots) {
+        Map<String, Integer> types = new TreeMap<>();
+        Map<String, String> methods = new TreeMap<>();
+        for (AnalysisSnapshot snapshot : snapshots) {
+            snapshot.types.forEach((name, flags) -> types.merge(name, flags, (f1, f2) -> f1 | f2));
+            methods.putAll(snapshot.methods);
+        }
+        return new AnalysisSnapshot(types, methods);
+    }
+
+    boolean isEmpty() {
+        return types.isEmpty() && methods.isEmpty();
+    }
+
+    public void write(Path file) {
+        List<String> lines = new ArrayList<>();
+        lines.add(FORMAT_HEADER);
+        types.forEach((name, flags) -> lines.add("type " + flags + " " + name));
+        methods.forEach((key, hash) -> lines.add("method " + hash + " " + key));
+        try {
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw UserError.abort("Cannot write the analysis snapshot " + file + ": " + ex.getMessage());
+        }
+    }
+
+    public static AnalysisSnapshot load(Path file) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw UserError.abort("Cannot read the analysis snapshot " + file + ": " + ex.getMessage());
+        }
+        if (lines.isEmpty() || !lines.get(0).equals(FORMAT_HEADER)) {
+            throw UserError.abort("The file " + file + " does not contain an analysis snapshot: the first line is not \"" + FORMAT_HEADER + "\"");
+        }
+        Map<String, Integer> types = new TreeMap<>();
+        Map<String, String> methods = new TreeMap<>();
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(" ", 3);
+            try {
+                if (fields[0].equals("type")) {
+                    types.put(fields[2], Integer.parseInt(fields[1]));
+                } else if (fields[0].equals("method")) {
+                    methods.put(fields[2], fields[1]);
+                } else {
+                    throw new IllegalArgumentException("unexpected line");
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                throw UserError.abort("Malformed analysis snapshot " + file + " at line " + (i + 1) + ": " + line);
+            }
+        }
+        return new AnalysisSnapshot(types, methods);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.collections.MapCursor;
+import org.graalvm.compiler.options.OptionKey;
+
+import com.oracle.graal.pointsto.meta.AnalysisUniverse;
+import com.oracle.svm.core.option.HostedOptionValues;
+
+/**
+ * The warm analysis state that the {@link com.oracle.svm.hosted.server.NativeImageBuildServer
+ * build server} keeps between image builds: the {@link AnalysisSnapshot} of the previous builds,
+ * split by the origin of the classes, i.e., the JDK or the jar file that a class was loaded from.
+ *
+ * Each build uses a new class loader, so the analysis universe itself cannot outlive a build. The
+ * snapshots only refer to classes and methods by name, so I can keep them instead. A part of a
+ * snapshot is only used again if its origin did not change since it was captured: the JDK is
+ * identified by its location and version, and a jar file by its location, size and modification
+ * time. Classes from directories are the application layer that is expected to change between
+ * builds, so they are never cached and the analysis always reaches them by propagation.
+ *
+ * What the analysis reaches in the JDK and in a jar file depends on the rest of the application
+ * and on the hosted options, so the snapshots are kept separately for each {@link #context
+ * context}: the snapshots of one application never seed the build of another one. Only the
+ * snapshots of analyses that were not seeded themselves are cached, because a seeded analysis
+ * includes everything it was seeded with, whether it is still reachable or not.
+ */
+public final class AnalysisSnapshotCache {
+
+    /** The key of the JDK classes, which have no code source. */
+    private static final String JDK_ORIGIN = "<jdk>";
+
+    /** The number of contexts for which snapshots are kept. */
+    private static final int MAX_CONTEXTS = 4;
+
+    private static final class CachedSnapshot {
+        final String stamp;
+        final AnalysisSnapshot snapshot;
+
+        CachedSnapshot(String stamp, AnalysisSnapshot snapshot) {
+            this.stamp = stamp;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private static volatile boolean enabled;
+    /**
+     * The cached snapshots by context and origin, the least recently used context first. Guarded by
+     * the class.
+     */
+    private static final Map<String, Map<String, CachedSnapshot>> cache = new LinkedHashMap<String, Map<String, CachedSnapshot>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, CachedSnapshot>> eldest) {
+            return size() > MAX_CONTEXTS;
+        }
+    };
+
+    private AnalysisSnapshotCache() {
+    }
+
+    /**
+     * Called by the build server, the cache is useless in a JVM that builds only one image. Image
+     * builds still have to ask for the cache with
+     * {@link AnalysisSnapshotFeature.Options#UseWarmAnalysisState}.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Describes what the reachability of the JDK and of the jar files depends on, besides their own
+     * contents: the class path of the image and the hosted option values.
+     */
+    static String context(List<String> classpath) {
+        StringBuilder result = new StringBuilder();
+        for (String entry : classpath) {
+            result.append("classpath ").append(entry).append('\n');
+        }
+        List<String> options = new ArrayList<>();
+        MapCursor<OptionKey<?>, Object> cursor = HostedOptionValues.singleton().getMap().getEntries();
+        while (cursor.advance()) {
+            OptionKey<?> key = cursor.getKey();
+            if (key == AnalysisSnapshotFeature.Options.AnalysisSnapshotFile || key == AnalysisSnapshotFeature.Options.VerifyAnalysisSnapshot) {
+                continue;
+            }
+            Object value = cursor.getValue();
+            options.add(key.getName() + "=" + (value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value)));
+        }
+        options.sort(null);
+        for (String option : options) {
+            result.append("option ").append(option).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the merged snapshot of all origins that did not change since they were cached for the
+     * given context, or null if there is none.
+     */
+    static synchronized AnalysisSnapshot lookup(String context) {
+        Map<String, CachedSnapshot> snapshots = cache.get(context);
+        if (snapshots == null) {
+            return null;
+        }
+        List<AnalysisSnapshot> valid = new ArrayList<>();
+        for (Map.Entry<String, CachedSnapshot> entry : snapshots.entrySet()) {
+            if (entry.getValue().stamp.equals(stamp(entry.getKey()))) {
+                valid.add(entry.getValue().snapshot);
+            }
+        }
+        return valid.isEmpty() ? null : AnalysisSnapshot.merge(valid);
+    }
+
+    /**
+     * Replaces the cached snapshots of all origins that this build used. The universe must be the
+     * result of an analysis that was not seeded.
+     */
+    static void update(String context, AnalysisUniverse universe) {
+        Map<String, AnalysisSnapshot> snapshots = AnalysisSnapshot.captureByOrigin(universe, AnalysisSnapshotCache::origin);
+        synchronized (AnalysisSnapshotCache.class) {
+            Map<String, CachedSnapshot> cached = cache.computeIfAbsent(context, key -> new HashMap<>());
+            /* Origins that no longer exist or changed are stale. */
+            cached.entrySet().removeIf(entry -> !entry.getValue().stamp.equals(stamp(entry.getKey())));
+            snapshots.forEach((origin, snapshot) -> {
+                String stamp = stamp(origin);
+                if (stamp != null) {
+                    cached.put(origin, new CachedSnapshot(stamp, snapshot));
+                }
+            });
+        }
+    }
+
+    /** The origin of a class, or null if the class must not be cached. */
+    private static String origin(Class<?> clazz) {
+        if (clazz == null) {
+            return null;
+        }
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return clazz.getClassLoader() == null ? JDK_ORIGIN : null;
+        }
+        URL location = codeSource.getLocation();
+        if (!"file".equals(location.getProtocol())) {
+            return null;
+        }
+        try {
+            Path path = Paths.get(location.toURI()).toAbsolutePath();
+            return Files.isRegularFile(path) ? path.toString() : null;
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /** Identifies the current state of an origin, or returns null if it no longer exists. */
+    private static String stamp(String origin) {
+        if (origin.equals(JDK_ORIGIN)) {
+            return System.getProperty("java.home") + "@" + System.getProperty("java.runtime.version");
+        }
+        try {
+            Path path = Paths.get(origin);
+            return Files.size(path) + "@" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+}
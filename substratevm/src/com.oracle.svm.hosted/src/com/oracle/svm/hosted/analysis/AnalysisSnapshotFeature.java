@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.analysis;
+
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugHandlersFactory;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.nativeimage.Feature;
+
+import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.constraints.UnsupportedFeatureException;
+import com.oracle.graal.pointsto.meta.AnalysisMethod;
+import com.oracle.graal.pointsto.meta.AnalysisType;
+import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.hosted.FeatureImpl.AfterAnalysisAccessImpl;
+import com.oracle.svm.hosted.FeatureImpl.BeforeAnalysisAccessImpl;
+
+/**
+ * Seeds the points-to analysis with the {@link AnalysisSnapshot} of a previous image build, and
+ * writes the snapshot of this build after the analysis if it was not seeded.
+ *
+ * The analysis is monotonic, so starting it with the types and methods that it will reach anyway
+ * does not change its result, it just gets there in fewer rounds of propagation: the instantiated
+ * types are registered before the first round, so that virtual calls see all their targets at
+ * once, and the reachable methods whose bytecode did not change are parsed in parallel up front
+ * instead of one call level per round. Methods whose bytecode changed are not seeded and only
+ * become reachable through the propagation.
+ *
+ * If the application changed such that a seeded type or method is no longer reachable, it is
+ * still included in the image: the result is sound but less precise. For the same reason, only
+ * the result of an analysis that was not seeded is written or cached. A seeded analysis includes
+ * everything it was seeded with, so a snapshot written from it could only grow from build to build
+ * and would keep unreachable types and methods forever. The snapshot file is therefore written by
+ * the first build, and rewritten by a build with {@link Options#VerifyAnalysisSnapshot}, which
+ * runs the analysis without seeding and reports what the seeded analysis would have included in
+ * addition.
+ *
+ * In the build server, the snapshot does not need a file: with
+ * {@link Options#UseWarmAnalysisState}, the {@link AnalysisSnapshotCache} keeps the snapshots of
+ * the JDK and of the unchanged jar files from the previous builds of the same application.
+ */
+@AutomaticFeature
+public final class AnalysisSnapshotFeature implements Feature {
+
+    public static class Options {
+        @Option(help = "Seed the static analysis from the analysis snapshot in this file, if it exists, and write the snapshot of image builds that are not seeded to it")//
+        public static final HostedOptionKey<String> AnalysisSnapshotFile = new HostedOptionKey<>("");
+
+        @Option(help = "Do not seed the static analysis from the analysis snapshot, but report the difference between the snapshot and the result of the full analysis")//
+        public static final HostedOptionKey<Boolean> VerifyAnalysisSnapshot = new HostedOptionKey<>(false);
+
+        @Option(help = "When building in the image build server, seed the static analysis from the analysis state of previous builds of the same application for the JDK and unchanged jar files")//
+        public static final HostedOptionKey<Boolean> UseWarmAnalysisState = new HostedOptionKey<>(false);
+    }
+
+    /** The snapshot of the previous image build, or null if there is none. */
+    private AnalysisSnapshot previous;
+    /** Where {@link #previous} comes from, for the output. */
+    private String previousSource;
+    /** Whether the analysis was seeded from {@link #previous}. */
+    private boolean seeded;
+    /** The context of this build in the {@link AnalysisSnapshotCache}. */
+    private String cacheContext;
+
+    private static boolean useFile() {
+        return !Options.AnalysisSnapshotFile.getValue().isEmpty();
+    }
+
+    private static boolean useWarmState() {
+        return AnalysisSnapshotCache.isEnabled() && Options.UseWarmAnalysisState.getValue();
+    }
+
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return useFile() || useWarmState();
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess a) {
+        BeforeAnalysisAccessImpl access = (BeforeAnalysisAccessImpl) a;
+        List<AnalysisSnapshot> snapshots = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        if (useFile()) {
+            Path file = Paths.get(Options.AnalysisSnapshotFile.getValue());
+            if (Files.exists(file)) {
+                snapshots.add(AnalysisSnapshot.load(file));
+                sources.add(file.toString());
+            }
+        }
+        if (useWarmState()) {
+            cacheContext = AnalysisSnapshotCache.context(access.getImageClassLoader().getClasspath());
+            AnalysisSnapshot cached = AnalysisSnapshotCache.lookup(cacheContext);
+            if (cached != null) {
+                snapshots.add(cached);
+                sources.add("the warm analysis state of the build server");
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        previous = snapshots.size() == 1 ? snapshots.get(0) : AnalysisSnapshot.merge(snapshots);
+        previousSource = String.join(" and ", sources);
+        if (!Options.VerifyAnalysisSnapshot.getValue()) {
+            seed(access);
+        }
+    }
+
+    private void seed(BeforeAnalysisAccessImpl access) {
+        seeded = true;
+        int seededTypes = 0;
+        for (Map.Entry<String, Integer> entry : previous.types.entrySet()) {
+            AnalysisType type = lookupType(access, entry.getKey());
+            if (type == null || !(type.isArray() || (type.isInstanceClass() && !Modifier.isAbstract(type.getModifiers())))) {
+                continue;
+            }
+            if ((entry.getValue() & AnalysisSnapshot.ALLOCATED) != 0) {
+                type.registerAsAllocated(null);
+            }
+            if ((entry.getValue() & AnalysisSnapshot.IN_HEAP) != 0) {
+                type.registerAsInHeap();
+            }
+            seededTypes++;
+        }
+
+        BigBang bb = access.getBigBang();
+        Map<String, Map<String, AnalysisMethod>> methodsByHolder = new HashMap<>();
+        int seededMethods = 0;
+        for (Map.Entry<String, String> entry : previous.methods.entrySet()) {
+            String key = entry.getKey();
+            String holder = key.substring(0, key.lastIndexOf('.', key.indexOf('(')));
+            AnalysisMethod method = methodsByHolder.computeIfAbsent(holder, name -> declaredMethods(access, name)).get(key);
+            if (method == null || !entry.getValue().equals(AnalysisSnapshot.codeHash(method))) {
+                /* The method is gone or its bytecode changed: only the propagation decides. */
+                continue;
+            }
+            bb.postTask(new DebugContextRunnable() {
+                @Override
+                public void run(DebugContext ignore) {
+                    method.getTypeFlow().ensureParsed(bb, null);
+                }
+
+                @Override
+                public DebugContext getDebug(OptionValues ignored, List<DebugHandlersFactory> factories) {
+                    return DebugContext.DISABLED;
+                }
+            });
+            seededMethods++;
+        }
+        System.out.format("Seeded the analysis from %s: %d types, %d methods%n", previousSource, seededTypes, seededMethods);
+    }
+
+    private static AnalysisType lookupType(BeforeAnalysisAccessImpl access, String className) {
+        Class<?> clazz = access.findClassByName(className);
+        if (clazz == null) {
+            return null;
+        }
+        try {
+            return access.getMetaAccess().lookupJavaType(clazz);
+        } catch (UnsupportedFeatureException ex) {
+            /* The class can no longer be part of the image. */
+            return null;
+        }
+    }
+
+    private static Map<String, AnalysisMethod> declaredMethods(BeforeAnalysisAccessImpl access, String className) {
+        Map<String, AnalysisMethod> result = new HashMap<>();
+        AnalysisType type = lookupType(access, className);
+        if (type != null) {
+            for (AnalysisMethod method : type.getDeclaredMethods()) {
+                result.put(AnalysisSnapshot.methodKey(method), method);
+            }
+            for (AnalysisMethod method : type.getDeclaredConstructors()) {
+                result.put(AnalysisSnapshot.methodKey(method), method);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void afterAnalysis(AfterAnalysisAccess a) {
+        AfterAnalysisAccessImpl access = (AfterAnalysisAccessImpl) a;
+        AnalysisSnapshot current = AnalysisSnapshot.capture(access.getUniverse());
+        if (previous != null && Options.VerifyAnalysisSnapshot.getValue()) {
+            verify(current);
+        }
+        if (seeded) {
+            /* A seeded universe includes all it was seeded with, so it must not seed later builds. */
+            return;
+        }
+        if (useFile()) {
+            current.write(Paths.get(Options.AnalysisSnapshotFile.getValue()));
+        }
+        if (useWarmState()) {
+            AnalysisSnapshotCache.update(cacheContext, access.getUniverse());
+        }
+    }
+
+    /**
+     * Reports the types and methods that a seeded analysis would have included although the full
+     * analysis does not reach them. Types and methods that the full analysis reaches in addition
+     * to the snapshot are not a difference, the seeded analysis finds them as well.
+     */
+    private void verify(AnalysisSnapshot current) {
+        List<String> differences = new ArrayList<>();
+        for (String type : previous.types.keySet()) {
+            if (!current.types.containsKey(type)) {
+                differences.add("type " + type);
+            }
+        }
+        for (Map.Entry<String, String> entry : previous.methods.entrySet()) {
+            String hash = current.methods.get(entry.getKey());
+            if (hash == null) {
+                differences.add("method " + entry.getKey());
+            }
+        }
+        if (differences.isEmpty()) {
+            System.out.format("The analysis snapshot from %s matches the full analysis%n", previousSource);
+        } else {
+            System.out.format("The analysis snapshot from %s has %d types and methods that the full analysis does not reach:%n", previousSource, differences.size());
+            for (String difference : differences) {
+                System.out.println("  " + difference);
+            }
+        }
+    }
+}
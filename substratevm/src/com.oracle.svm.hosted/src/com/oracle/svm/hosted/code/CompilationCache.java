@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.code;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.Option;
+
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.core.util.VMError;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.meta.HostedType;
+import com.oracle.svm.hosted.meta.HostedUniverse;
+
+import jdk.vm.ci.meta.MetaUtil;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * An on-disk cache of the {@link CompilationResult compilation results} of methods, so that an
+ * image build can reuse the machine code of a previous build for methods whose compilation input
+ * did not change.
+ *
+ * An entry is keyed by a {@link CompilationCacheKey fingerprint} of the graph that is about to be
+ * compiled, which covers the bytecode of the method and of everything inlined into it, the
+ * results of the static analysis that were folded into the graph (stamps, profiles), the layout
+ * of all types, fields and methods the graph refers to, and the hosted option values. The entry
+ * holds the result in the form before {@link com.oracle.svm.hosted.image.NativeImageCodeCache}
+ * lays out and patches the code, so that cached and freshly compiled methods are linked the same
+ * way.
+ *
+ * Everything that cannot be described symbolically, for example an arbitrary object constant of
+ * the image heap, makes the method uncachable; such methods are just compiled as before.
+ */
+public final class CompilationCache {
+
+    public static class Options {
+        @Option(help = "Directory of the persistent compilation cache. Compilation results are reused from and stored to that directory. Disabled when empty.")//
+        public static final HostedOptionKey<String> CompilationCacheDirectory = new HostedOptionKey<>("");
+
+        @Option(help = "Compile methods with a compilation cache entry anyway and verify that the entry matches the fresh compilation.")//
+        public static final HostedOptionKey<Boolean> VerifyCompilationCache = new HostedOptionKey<>(false);
+    }
+
+    /** Changed when the format of the entries changes, to invalidate all existing entries. */
+    static final int FORMAT_VERSION = 1;
+
+    /** Thrown when a method cannot be cached; not an error. */
+    static final class UncachableException extends RuntimeException {
+        /** Every exception needs a generated serialVersionUID. */
+        private static final long serialVersionUID = -2875196475734470186L;
+
+        UncachableException(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !Options.CompilationCacheDirectory.getValue().isEmpty();
+    }
+
+    /**
+     * The key of a method in the cache and the entries. The same as the format used for profiles,
+     * so that a method can be identified across image builds.
+     */
+    static String methodKey(ResolvedJavaMethod method) {
+        return method.format("%H.%n(%P)%R");
+    }
+
+    private final Path directory;
+    private final Map<String, HostedMethod> methodsByKey;
+    private final Map<String, HostedType> typesByName;
+    private final Map<DynamicHub, HostedType> typesByHub;
+    private final String environment;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger uncachable = new AtomicInteger();
+    private final AtomicInteger writeFailures = new AtomicInteger();
+
+    public CompilationCache(HostedUniverse universe) {
+        this(Paths.get(Options.CompilationCacheDirectory.getValue()).toAbsolutePath(), methodsByKey(universe), typesByName(universe), typesByHub(universe),
+                        CompilationCacheKey.describeEnvironment());
+    }
+
+    /*
+     * Methods and types of different class loaders can have the same name. I do not know which of
+     * them an entry means, so I do not resolve such names at all.
+     */
+
+    private static Map<String, HostedMethod> methodsByKey(HostedUniverse universe) {
+        Map<String, HostedMethod> methods = new HashMap<>();
+        for (HostedMethod method : universe.getMethods()) {
+            String key = methodKey(method);
+            methods.put(key, methods.containsKey(key) ? null : method);
+        }
+        return methods;
+    }
+
+    private static Map<String, HostedType> typesByName(HostedUniverse universe) {
+        Map<String, HostedType> types = new HashMap<>();
+        for (HostedType type : universe.getTypes()) {
+            String name = type.getName();
+            types.put(name, types.containsKey(name) ? null : type);
+        }
+        return types;
+    }
+
+    private static Map<DynamicHub, HostedType> typesByHub(HostedUniverse universe) {
+        Map<DynamicHub, HostedType> hubs = new IdentityHashMap<>();
+        for (HostedType type : universe.getTypes()) {
+            hubs.put(type.getHub(), type);
+        }
+        return hubs;
+    }
+
+    /** A cache that resolves names in the given maps, also used by the unit tests. */
+    CompilationCache(Path directory, Map<String, HostedMethod> methodsByKey, Map<String, HostedType> typesByName, Map<DynamicHub, HostedType> typesByHub, String environment) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw UserError.abort("Cannot create the compilation cache directory " + directory + ": " + ex.getMessage());
+        }
+        this.methodsByKey = Collections.unmodifiableMap(methodsByKey);
+        this.typesByName = Collections.unmodifiableMap(typesByName);
+        this.typesByHub = Collections.unmodifiableMap(typesByHub);
+        this.environment = environment;
+    }
+
+    /** The part of every key that is the same for all methods of the image build. */
+    String getEnvironment() {
+        return environment;
+    }
+
+    /** Returns the method with the given key, which must be unambiguous. */
+    HostedMethod lookupMethod(String key) {
+        HostedMethod result = methodsByKey.get(key);
+        if (result == null) {
+            throw new UncachableException("unknown or ambiguous method " + key);
+        }
+        return result;
+    }
+
+    /** Returns the type with the given name, which must be unambiguous. */
+    HostedType lookupType(String name) {
+        HostedType result = typesByName.get(name);
+        if (result == null) {
+            throw new UncachableException("unknown or ambiguous type " + name);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a symbolic description of an object of the image heap that compiled code refers to,
+     * from which {@link #resolveObject} finds the same object in a later image build.
+     */
+    String describeObject(Object object) {
+        if (object instanceof String && object == ((String) object).intern()) {
+            /* Only interned strings are guaranteed to be the same object in the next build. */
+            return "S" + object;
+        } else if (object instanceof DynamicHub) {
+            HostedType type = typesByHub.get(object);
+            if (type != null && isUnambiguous(type)) {
+                return "H" + type.getName();
+            }
+        } else if (object instanceof Enum) {
+            Enum<?> value = (Enum<?>) object;
+            HostedType type = typesByName.get(MetaUtil.toInternalName(value.getDeclaringClass().getName()));
+            if (type != null && type.getWrapped().getJavaClass() == value.getDeclaringClass()) {
+                return "E" + value.ordinal() + ":" + type.getName();
+            }
+        }
+        throw new UncachableException("object constant of type " + object.getClass().getName());
+    }
+
+    Object resolveObject(String description) {
+        switch (description.charAt(0)) {
+            case 'S':
+                return description.substring(1).intern();
+            case 'H':
+                return lookupType(description.substring(1)).getHub();
+            case 'E':
+                int separator = description.indexOf(':');
+                int ordinal = Integer.parseInt(description.substring(1, separator));
+                Object[] constants = lookupType(description.substring(separator + 1)).getWrapped().getJavaClass().getEnumConstants();
+                if (constants == null || ordinal >= constants.length) {
+                    throw new UncachableException("enum constant " + description);
+                }
+                return constants[ordinal];
+            default:
+                throw new UncachableException("object " + description);
+        }
+    }
+
+    boolean isUnambiguous(HostedMethod method) {
+        return methodsByKey.get(methodKey(method)) == method;
+    }
+
+    boolean isUnambiguous(HostedType type) {
+        return typesByName.get(type.getName()) == type;
+    }
+
+    /**
+     * Computes the key of the compilation of the given graph of the method, or returns null if
+     * the method cannot be cached.
+     */
+    public String computeKey(HostedMethod method, StructuredGraph graph) {
+        if (method.compilationInfo.isDeoptTarget()) {
+            /* The deoptimization entry points need a verification that I do not want to skip. */
+            uncachable.incrementAndGet();
+            return null;
+        }
+        try {
+            return new CompilationCacheKey(this).compute(method, graph);
+        } catch (UncachableException ex) {
+            uncachable.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the cached result of the key, decoded into a new result of the factory, or null if
+     * there is no usable entry.
+     */
+    public CompilationResult lookup(String key, Supplier<CompilationResult> factory) {
+        try {
+            byte[] bytes = Files.readAllBytes(entryPath(key));
+            CompilationResult result = factory.get();
+            new CompilationResultCodec(this).decode(new DataInputStream(new ByteArrayInputStream(bytes)), result);
+            hits.incrementAndGet();
+            return result;
+        } catch (IOException | UncachableException ex) {
+            /* No entry, or an entry that refers to something that no longer exists. */
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the freshly compiled result under the key. A result that cannot be encoded is not
+     * stored. Failing to write the entry is not an error, the next build just compiles again, but
+     * I report the first failure and count all of them in the statistics.
+     */
+    public void store(String key, CompilationResult result) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            new CompilationResultCodec(this).encode(new DataOutputStream(bytes), result);
+        } catch (IOException | UncachableException ex) {
+            /* For example a string constant that is too long for the entry format. */
+            uncachable.incrementAndGet();
+            return;
+        }
+
+        Path entry = entryPath(key);
+        Path temp = null;
+        try {
+            /* Write to a temporary file first, so that a concurrent build never sees a torn entry. */
+            temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            if (writeFailures.incrementAndGet() == 1) {
+                System.out.println("Warning: cannot write the compilation cache entry " + entry + ": " + ex);
+            }
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    /* The stale temporary file is never read. */
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the entry that was used for a method matches a fresh compilation of the same
+     * graph.
+     */
+    public static void verify(HostedMethod method, CompilationResult cached, CompilationResult compiled) {
+        byte[] cachedCode = Arrays.copyOf(cached.getTargetCode(), cached.getTargetCodeSize());
+        byte[] compiledCode = Arrays.copyOf(compiled.getTargetCode(), compiled.getTargetCodeSize());
+        if (!Arrays.equals(cachedCode, compiledCode) || cached.getTotalFrameSize() != compiled.getTotalFrameSize() ||
+                        cached.getInfopoints().size() != compiled.getInfopoints().size() || cached.getDataPatches().size() != compiled.getDataPatches().size() ||
+                        cached.getExceptionHandlers().size() != compiled.getExceptionHandlers().size()) {
+            throw VMError.shouldNotReachHere("Compilation cache entry does not match the compilation of " + method.format("%H.%n(%p)"));
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key);
+    }
+
+    public void printStatistics(String imageName) {
+        System.out.format("[%s] compilation cache %s: %d hits, %d misses, %d uncachable, %d write failures%n", imageName, directory, hits.get(), misses.get(), uncachable.get(),
+                        writeFailures.get());
+    }
+}
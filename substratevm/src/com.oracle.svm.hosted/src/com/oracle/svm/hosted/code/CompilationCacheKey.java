@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.code;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.graalvm.collections.MapCursor;
+import org.graalvm.compiler.bytecode.Bytecode;
+import org.graalvm.compiler.core.common.Fields;
+import org.graalvm.compiler.core.common.type.AbstractObjectStamp;
+import org.graalvm.compiler.core.common.type.Stamp;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.Position;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.OptionKey;
+
+import com.oracle.graal.pointsto.results.StaticAnalysisResults;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.config.ObjectLayout;
+import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.core.option.HostedOptionValues;
+import com.oracle.svm.core.threadlocal.VMThreadLocalInfo;
+import com.oracle.svm.core.threadlocal.VMThreadLocalInfos;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.core.util.VMError;
+import com.oracle.svm.hosted.code.CompilationCache.UncachableException;
+import com.oracle.svm.hosted.meta.HostedField;
+import com.oracle.svm.hosted.meta.HostedInstanceClass;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.meta.HostedType;
+
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.JavaMethodProfile;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Computes the key of a compilation in the {@link CompilationCache}: a SHA-256 digest of
+ * everything that the machine code of a method depends on.
+ *
+ * Rather than hashing the inputs of the graph building and the analysis, I hash the graph right
+ * before it is compiled. It contains the bytecode of the method and of all inlined methods (via
+ * the frame states), every stamp and constant the analysis improved, and the branch
+ * probabilities. What the graph does not contain is the layout of the types, fields and methods
+ * it refers to, which is assigned after the analysis, so I add that to every such reference.
+ * Node data that I cannot describe deterministically makes the method uncachable.
+ *
+ * Everything that the lowering and the backend add to the graph is covered by the
+ * {@link #describeEnvironment environment}: the contents of the image builder itself, the object
+ * layout and the offsets of the thread locals.
+ */
+final class CompilationCacheKey {
+
+    private static final ClassValue<Boolean> HAS_OWN_TO_STRING = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("toString").getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+    };
+
+    private final CompilationCache cache;
+    private final MessageDigest digest;
+    private final StringBuilder sb = new StringBuilder();
+
+    CompilationCacheKey(CompilationCache cache) {
+        this.cache = cache;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+    }
+
+    /**
+     * Describes what is the same for all compilations of an image build: the version of the cache
+     * format and of the VM, the contents of the image builder, the object and thread local layout,
+     * and the hosted option values.
+     */
+    static String describeEnvironment() {
+        StringBuilder result = new StringBuilder();
+        result.append("format ").append(CompilationCache.FORMAT_VERSION).append('\n');
+        result.append("vm ").append(System.getProperty("java.vm.name")).append(' ').append(System.getProperty("java.vm.version")).append('\n');
+
+        /*
+         * A different image builder can compile the same graph differently. The size and the
+         * modification time of a jar file do not identify its contents, so I hash them.
+         */
+        for (Path entry : builderClasspath()) {
+            result.append("builder ").append(entry).append(' ').append(hashContents(entry)).append('\n');
+        }
+
+        /* The lowering inlines the object layout and the offsets of the thread locals. */
+        result.append(describeLayout(ConfigurationValues.getObjectLayout(), VMThreadLocalInfos.getInfos()));
+
+        List<String> options = new ArrayList<>();
+        MapCursor<OptionKey<?>, Object> cursor = HostedOptionValues.singleton().getMap().getEntries();
+        while (cursor.advance()) {
+            OptionKey<?> key = cursor.getKey();
+            if (key == CompilationCache.Options.CompilationCacheDirectory || key == CompilationCache.Options.VerifyCompilationCache) {
+                continue;
+            }
+            Object value = cursor.getValue();
+            options.add(key.getName() + "=" + (value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value)));
+        }
+        options.sort(null);
+        for (String option : options) {
+            result.append("option ").append(option).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * The class path of the image builder: the locations of the image builder and of the compiler,
+     * which may be on the class path of JVMCI, and the class path and boot class path of this VM,
+     * without the JDK itself, which is identified by the version of the VM.
+     */
+    private static Set<Path> builderClasspath() {
+        Set<Path> result = new LinkedHashSet<>();
+        for (Class<?> clazz : new Class<?>[]{CompileQueue.class, HostedOptionValues.class, StructuredGraph.class}) {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                try {
+                    result.add(Paths.get(codeSource.getLocation().toURI()).toAbsolutePath());
+                } catch (URISyntaxException ex) {
+                    throw VMError.shouldNotReachHere(ex);
+                }
+            }
+        }
+        Path jdkLibraries = Paths.get(System.getProperty("java.home"), "lib").toAbsolutePath();
+        for (String property : new String[]{"sun.boot.class.path", "jvmci.class.path.append", "java.class.path"}) {
+            String value = System.getProperty(property);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            for (String element : value.split(File.pathSeparator)) {
+                Path path = Paths.get(element).toAbsolutePath();
+                if (Files.exists(path) && !jdkLibraries.equals(path.getParent())) {
+                    result.add(path);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the SHA-256 digest of a jar file, or of all files in a directory together with their
+     * names relative to the directory.
+     */
+    static String hashContents(Path entry) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+        try {
+            if (Files.isDirectory(entry)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(entry)) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    md.update(entry.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                    md.update((byte) 0);
+                    updateDigest(md, file);
+                }
+            } else {
+                updateDigest(md, entry);
+            }
+        } catch (IOException ex) {
+            throw UserError.abort("Cannot read " + entry + " of the image builder for the compilation cache: " + ex.getMessage());
+        }
+        return toHex(md.digest());
+    }
+
+    private static void updateDigest(MessageDigest md, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        }
+    }
+
+    /** Describes the layout of objects and thread locals that the lowering depends on. */
+    static String describeLayout(ObjectLayout layout, List<VMThreadLocalInfo> threadLocals) {
+        StringBuilder result = new StringBuilder();
+        result.append("layout reference ").append(layout.getReferenceSize()).append(" alignment ").append(layout.getAlignment()).append(" hub ").append(layout.getHubOffset());
+        result.append(" fields ").append(layout.getFirstFieldOffset()).append(" length ").append(layout.getArrayLengthOffset()).append(" hashCode ").append(layout.getArrayHashCodeOffset());
+        result.append(" deoptScratch ").append(layout.getDeoptScratchSpace());
+        for (JavaKind kind : JavaKind.values()) {
+            if ((kind.isPrimitive() && kind != JavaKind.Void) || kind == JavaKind.Object) {
+                result.append(' ').append(kind.getJavaName()).append(' ').append(layout.getArrayBaseOffset(kind)).append(' ').append(layout.getArrayIndexShift(kind));
+            }
+        }
+        result.append('\n');
+        for (VMThreadLocalInfo info : threadLocals) {
+            result.append("threadLocal ").append(info.name).append(' ').append(info.threadLocalClass.getName()).append(' ').append(info.offset).append(' ').append(info.sizeInBytes).append('\n');
+        }
+        return result.toString();
+    }
+
+    String compute(HostedMethod method, StructuredGraph graph) {
+        sb.append(cache.getEnvironment());
+        describe(method);
+        sb.append(" deoptTarget ").append(method.compilationInfo.getDeoptTargetMethod() != null);
+        sb.append(" guards ").append(graph.getGuardsStage()).append('\n');
+        flush();
+
+        addProfile(method);
+        addGraph(graph);
+
+        return toHex(digest.digest());
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The compiler still consults the profile of the root method, for example for the execution
+     * count of loops, so I add the part of it that differs from the default.
+     */
+    private void addProfile(HostedMethod method) {
+        StaticAnalysisResults profile = method.getProfilingInfo();
+        if (profile == null) {
+            return;
+        }
+        for (int bci = 0; bci < method.getCodeSize(); bci++) {
+            double branch = profile.getBranchTakenProbability(bci);
+            long count = profile.getExecutionCount(bci);
+            JavaTypeProfile types = profile.getTypeProfile(bci);
+            JavaTypeProfile resultTypes = profile.getInvokeResultTypeProfile(bci);
+            JavaMethodProfile methods = profile.getMethodProfile(bci);
+            if (branch == -1 && count == -1 && types == null && resultTypes == null && methods == null) {
+                continue;
+            }
+            sb.append("profile ").append(bci).append(' ').append(branch).append(' ').append(count).append(' ');
+            describe(types);
+            sb.append(' ');
+            describe(resultTypes);
+            sb.append(' ');
+            describe(methods);
+            sb.append('\n');
+            flush();
+        }
+    }
+
+    private void addGraph(StructuredGraph graph) {
+        Map<Node, Integer> ids = new IdentityHashMap<>();
+        for (Node node : graph.getNodes()) {
+            ids.put(node, ids.size());
+        }
+
+        for (Node node : graph.getNodes()) {
+            sb.append(ids.get(node)).append(' ').append(node.getClass().getName());
+
+            Fields data = node.getNodeClass().getData();
+            for (int i = 0; i < data.getCount(); i++) {
+                sb.append(' ').append(data.getName(i)).append('=');
+                describe(data.get(node, i));
+            }
+            sb.append(" inputs");
+            for (Position position : node.inputPositions()) {
+                Node input = position.get(node);
+                sb.append(' ').append(input == null ? -1 : ids.get(input));
+            }
+            sb.append(" successors");
+            for (Position position : node.successorPositions()) {
+                Node successor = position.get(node);
+                sb.append(' ').append(successor == null ? -1 : ids.get(successor));
+            }
+            sb.append('\n');
+            flush();
+        }
+    }
+
+    private void describe(Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            sb.append('"').append(value).append('"');
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            sb.append(value);
+        } else if (value instanceof Enum) {
+            sb.append(((Enum<?>) value).getDeclaringClass().getName()).append('.').append(((Enum<?>) value).name());
+        } else if (value instanceof HostedType) {
+            describeType((HostedType) value);
+        } else if (value instanceof HostedField) {
+            describeField((HostedField) value);
+        } else if (value instanceof HostedMethod) {
+            describeMethod((HostedMethod) value);
+        } else if (value instanceof JavaConstant) {
+            describeConstant((JavaConstant) value);
+        } else if (value instanceof Stamp) {
+            sb.append(value);
+            if (value instanceof AbstractObjectStamp) {
+                ResolvedJavaType type = ((AbstractObjectStamp) value).type();
+                if (type != null) {
+                    sb.append(' ');
+                    describe(type);
+                }
+            }
+        } else if (value instanceof Bytecode) {
+            Bytecode code = (Bytecode) value;
+            describe(code.getMethod());
+            flush();
+            digest.update(code.getCode());
+        } else if (value instanceof JavaTypeProfile) {
+            JavaTypeProfile profile = (JavaTypeProfile) value;
+            sb.append("profile ").append(profile.getNullSeen()).append(' ').append(profile.getNotRecordedProbability());
+            for (JavaTypeProfile.ProfiledType type : profile.getTypes()) {
+                sb.append(' ').append(type.getProbability()).append(' ');
+                describe(type.getType());
+            }
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            for (Object element : (Collection<?>) value) {
+                describe(element);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (value.getClass().isArray()) {
+            sb.append('[');
+            for (int i = 0; i < Array.getLength(value); i++) {
+                describe(Array.get(value, i));
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (HAS_OWN_TO_STRING.get(value.getClass())) {
+            sb.append(value.getClass().getName()).append(':').append(value);
+        } else {
+            throw new UncachableException("node data of type " + value.getClass().getName());
+        }
+    }
+
+    private void describeType(HostedType type) {
+        if (!cache.isUnambiguous(type)) {
+            throw new UncachableException("ambiguous type " + type.getName());
+        }
+        sb.append("type ").append(type.getName()).append(" id ").append(type.getTypeID()).append(" instanceOf ").append(type.getInstanceOfFromTypeID()).append('+').append(type.getInstanceOfNumTypeIDs());
+        sb.append(" assignableFrom ").append(Arrays.toString(type.getAssignableFromMatches()));
+        sb.append(" layout ").append(type.getHub().getLayoutEncoding()).append(" instantiated ").append(type.isInstantiated());
+        if (type instanceof HostedInstanceClass) {
+            sb.append(" size ").append(((HostedInstanceClass) type).getInstanceSize());
+        }
+    }
+
+    private void describeField(HostedField field) {
+        sb.append("field ").append(field.getDeclaringClass().getName()).append('.').append(field.getName()).append(' ').append(field.getType().getName());
+        sb.append(" accessed ").append(field.isAccessed()).append(" written ").append(field.isWritten());
+        if (field.hasLocation()) {
+            sb.append(" location ").append(field.getLocation());
+        }
+    }
+
+    private void describeMethod(HostedMethod method) {
+        if (!cache.isUnambiguous(method)) {
+            throw new UncachableException("ambiguous method " + CompilationCache.methodKey(method));
+        }
+        sb.append("method ").append(CompilationCache.methodKey(method));
+        if (method.hasVTableIndex()) {
+            sb.append(" vtable ").append(method.getVTableIndex());
+        }
+    }
+
+    private void describeConstant(JavaConstant constant) {
+        if (constant.getJavaKind() != JavaKind.Object) {
+            sb.append(constant.getJavaKind()).append(':').append(constant.toValueString());
+        } else if (constant.isNull()) {
+            sb.append("null compressed ").append(SubstrateObjectConstant.isCompressed(constant));
+        } else if (constant instanceof SubstrateObjectConstant) {
+            sb.append(cache.describeObject(((SubstrateObjectConstant) constant).getObject())).append(" compressed ").append(SubstrateObjectConstant.isCompressed(constant));
+        } else {
+            throw new UncachableException("constant " + constant);
+        }
+    }
+
+    private void flush() {
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        sb.setLength(0);
+    }
+}
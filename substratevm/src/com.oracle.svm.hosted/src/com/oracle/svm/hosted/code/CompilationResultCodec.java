@@ -0,0 +1,605 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.code;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.code.DataSection;
+import org.graalvm.compiler.code.DataSection.Data;
+import org.graalvm.compiler.code.DataSection.RawData;
+import org.graalvm.compiler.core.common.LIRKind;
+
+import com.oracle.svm.core.code.FrameInfoEncoder;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.graal.code.SubstrateDataBuilder;
+import com.oracle.svm.core.graal.code.amd64.AMD64InstructionPatcher;
+import com.oracle.svm.core.graal.code.amd64.AMD64InstructionPatcher.OperandAnnotation;
+import com.oracle.svm.core.heap.ReferenceMapEncoder.OffsetIterator;
+import com.oracle.svm.core.heap.SubstrateReferenceMap;
+import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.hosted.code.CompilationCache.UncachableException;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.meta.HostedType;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.BytecodeFrame;
+import jdk.vm.ci.code.DebugInfo;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.RegisterValue;
+import jdk.vm.ci.code.StackSlot;
+import jdk.vm.ci.code.ValueUtil;
+import jdk.vm.ci.code.VirtualObject;
+import jdk.vm.ci.code.site.Call;
+import jdk.vm.ci.code.site.ConstantReference;
+import jdk.vm.ci.code.site.DataPatch;
+import jdk.vm.ci.code.site.DataSectionReference;
+import jdk.vm.ci.code.site.ExceptionHandler;
+import jdk.vm.ci.code.site.Infopoint;
+import jdk.vm.ci.code.site.InfopointReason;
+import jdk.vm.ci.code.site.Mark;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.JavaValue;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.Value;
+import jdk.vm.ci.meta.ValueKind;
+
+/**
+ * Writes a {@link CompilationResult} of the hosted compilation to the {@link CompilationCache}
+ * and reads it back. Methods, types and object constants are written symbolically and resolved
+ * in the universe of the image build that reads the entry.
+ *
+ * Only what {@link com.oracle.svm.hosted.image.NativeImageCodeCache} uses is written: the code,
+ * the frame size, the infopoints with their debug information and reference maps, exception
+ * handlers, marks, the data section and the data patches, and the locations of the operands that
+ * are patched when the code is linked. Anything else makes the result uncachable.
+ */
+final class CompilationResultCodec {
+
+    private static final byte INFOPOINT = 0;
+    private static final byte CALL = 1;
+
+    private static final byte DATA_OBJECT = 0;
+    private static final byte DATA_RAW = 1;
+
+    private static final byte PATCH_DATA = 0;
+    private static final byte PATCH_CONSTANT = 1;
+
+    private static final byte VALUE_ILLEGAL = 0;
+    private static final byte VALUE_PRIMITIVE = 1;
+    private static final byte VALUE_NULL = 2;
+    private static final byte VALUE_OBJECT = 3;
+    private static final byte VALUE_REGISTER = 4;
+    private static final byte VALUE_STACK_SLOT = 5;
+    private static final byte VALUE_VIRTUAL_OBJECT = 6;
+
+    private static final byte KIND_VALUE = 0;
+    private static final byte KIND_REFERENCE = 1;
+    private static final byte KIND_COMPRESSED_REFERENCE = 2;
+    private static final byte KIND_UNKNOWN_REFERENCE = 3;
+
+    private final CompilationCache cache;
+
+    /** The virtual objects of the debug info that is currently written or read, by id. */
+    private final Map<Integer, VirtualObject> virtualObjects = new HashMap<>();
+
+    CompilationResultCodec(CompilationCache cache) {
+        this.cache = cache;
+    }
+
+    void encode(DataOutputStream out, CompilationResult result) throws IOException {
+        if (result.getCustomStackArea() != null || (result.getAssumptions() != null && result.getAssumptions().length > 0)) {
+            throw new UncachableException("custom stack area or assumptions");
+        }
+        out.writeInt(CompilationCache.FORMAT_VERSION);
+        out.writeInt(result.getTargetCodeSize());
+        out.write(result.getTargetCode(), 0, result.getTargetCodeSize());
+        out.writeInt(result.getTotalFrameSize());
+
+        out.writeInt(result.getInfopoints().size());
+        for (Infopoint infopoint : result.getInfopoints()) {
+            out.writeInt(infopoint.pcOffset);
+            if (infopoint.getClass() == Call.class) {
+                Call call = (Call) infopoint;
+                out.writeByte(CALL);
+                out.writeInt(call.size);
+                out.writeBoolean(call.direct);
+                if (call.target == null) {
+                    out.writeUTF("");
+                } else if (call.target instanceof HostedMethod && cache.isUnambiguous((HostedMethod) call.target)) {
+                    out.writeUTF(CompilationCache.methodKey((HostedMethod) call.target));
+                } else {
+                    throw new UncachableException("call target " + call.target);
+                }
+            } else if (infopoint.getClass() == Infopoint.class) {
+                out.writeByte(INFOPOINT);
+                out.writeInt(infopoint.reason.ordinal());
+            } else {
+                /* For example the deoptimization entry points of deoptimization targets. */
+                throw new UncachableException("infopoint " + infopoint.getClass().getName());
+            }
+            writeDebugInfo(out, infopoint.debugInfo);
+        }
+
+        out.writeInt(result.getExceptionHandlers().size());
+        for (ExceptionHandler handler : result.getExceptionHandlers()) {
+            out.writeInt(handler.pcOffset);
+            out.writeInt(handler.handlerPos);
+        }
+
+        out.writeInt(result.getMarks().size());
+        for (Mark mark : result.getMarks()) {
+            if (!(mark.id instanceof String)) {
+                throw new UncachableException("mark " + mark.id);
+            }
+            out.writeInt(mark.pcOffset);
+            out.writeUTF((String) mark.id);
+        }
+
+        Map<Data, Integer> dataIndices = new IdentityHashMap<>();
+        List<Data> dataItems = new ArrayList<>();
+        for (Data data : result.getDataSection()) {
+            dataIndices.put(data, dataItems.size());
+            dataItems.add(data);
+        }
+        out.writeInt(dataItems.size());
+        for (Data data : dataItems) {
+            writeData(out, data);
+        }
+
+        out.writeInt(result.getDataPatches().size());
+        for (DataPatch patch : result.getDataPatches()) {
+            if (patch.note != null) {
+                throw new UncachableException("data patch note " + patch.note);
+            }
+            out.writeInt(patch.pcOffset);
+            if (patch.reference instanceof DataSectionReference) {
+                Integer index = dataIndices.get(result.getDataSection().findData((DataSectionReference) patch.reference));
+                if (index == null) {
+                    throw new UncachableException("data patch outside of the data section");
+                }
+                out.writeByte(PATCH_DATA);
+                out.writeInt(index);
+            } else if (patch.reference instanceof ConstantReference && ((ConstantReference) patch.reference).getConstant() instanceof SubstrateObjectConstant) {
+                out.writeByte(PATCH_CONSTANT);
+                writeObjectConstant(out, (SubstrateObjectConstant) ((ConstantReference) patch.reference).getConstant());
+            } else {
+                /* For example a reference to CGlobalData, which I cannot identify across builds. */
+                throw new UncachableException("data patch " + patch.reference);
+            }
+        }
+
+        List<OperandAnnotation> operands = new ArrayList<>(new AMD64InstructionPatcher(result).getOperandAnnotations());
+        out.writeInt(operands.size());
+        for (OperandAnnotation operand : operands) {
+            out.writeInt(operand.position);
+            out.writeInt(operand.operandPosition);
+            out.writeInt(operand.operandSize);
+            out.writeInt(operand.nextInstructionPosition);
+        }
+    }
+
+    void decode(DataInputStream in, CompilationResult result) throws IOException {
+        if (in.readInt() != CompilationCache.FORMAT_VERSION) {
+            throw new UncachableException("entry of another format");
+        }
+        int codeSize = in.readInt();
+        byte[] code = new byte[codeSize];
+        in.readFully(code);
+        result.setTargetCode(code, codeSize);
+        result.setTotalFrameSize(in.readInt());
+
+        int infopointCount = in.readInt();
+        for (int i = 0; i < infopointCount; i++) {
+            int pcOffset = in.readInt();
+            byte kind = in.readByte();
+            if (kind == CALL) {
+                int size = in.readInt();
+                boolean direct = in.readBoolean();
+                String targetKey = in.readUTF();
+                HostedMethod target = targetKey.isEmpty() ? null : cache.lookupMethod(targetKey);
+                result.recordCall(pcOffset, size, target, readDebugInfo(in), direct);
+            } else {
+                InfopointReason reason = InfopointReason.values()[in.readInt()];
+                result.addInfopoint(new Infopoint(pcOffset, readDebugInfo(in), reason));
+            }
+        }
+
+        int handlerCount = in.readInt();
+        for (int i = 0; i < handlerCount; i++) {
+            result.recordExceptionHandler(in.readInt(), in.readInt());
+        }
+
+        int markCount = in.readInt();
+        for (int i = 0; i < markCount; i++) {
+            result.recordMark(in.readInt(), in.readUTF().intern());
+        }
+
+        int dataCount = in.readInt();
+        List<DataSectionReference> dataReferences = new ArrayList<>(dataCount);
+        for (int i = 0; i < dataCount; i++) {
+            dataReferences.add(result.getDataSection().insertData(readData(in)));
+        }
+
+        int patchCount = in.readInt();
+        for (int i = 0; i < patchCount; i++) {
+            int pcOffset = in.readInt();
+            if (in.readByte() == PATCH_DATA) {
+                result.recordDataPatch(pcOffset, dataReferences.get(in.readInt()));
+            } else {
+                result.recordDataPatch(pcOffset, new ConstantReference((SubstrateObjectConstant) readObjectConstant(in)));
+            }
+        }
+
+        int operandCount = in.readInt();
+        for (int i = 0; i < operandCount; i++) {
+            result.addAnnotation(new OperandAnnotation(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+        }
+    }
+
+    private void writeData(DataOutputStream out, Data data) throws IOException {
+        if (data instanceof SubstrateDataBuilder.ObjectData) {
+            out.writeByte(DATA_OBJECT);
+            out.writeInt(data.getAlignment());
+            writeObjectConstant(out, ((SubstrateDataBuilder.ObjectData) data).getConstant());
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(data.getSize()).order(ConfigurationValues.getTarget().arch.getByteOrder());
+        DataSection.emit(buffer, data, (position, constant) -> {
+            throw new UncachableException("data item with a patch");
+        });
+        out.writeByte(DATA_RAW);
+        out.writeInt(data.getAlignment());
+        out.writeInt(data.getSize());
+        out.write(buffer.array());
+    }
+
+    private Data readData(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        int alignment = in.readInt();
+        Data data;
+        if (kind == DATA_OBJECT) {
+            data = new SubstrateDataBuilder().createDataItem(readObjectConstant(in));
+            data.updateAlignment(alignment);
+        } else {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            data = new RawData(bytes, alignment);
+        }
+        return data;
+    }
+
+    private void writeObjectConstant(DataOutputStream out, SubstrateObjectConstant constant) throws IOException {
+        out.writeUTF(cache.describeObject(constant.getObject()));
+        out.writeBoolean(constant.isCompressed());
+    }
+
+    private JavaConstant readObjectConstant(DataInputStream in) throws IOException {
+        Object object = cache.resolveObject(in.readUTF());
+        return SubstrateObjectConstant.forObject(object, in.readBoolean());
+    }
+
+    private void writeDebugInfo(DataOutputStream out, DebugInfo debugInfo) throws IOException {
+        if (debugInfo == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        if (!debugInfo.hasFrame() || debugInfo.getCalleeSaveInfo() != null) {
+            throw new UncachableException("debug info without frame or with callee save info");
+        }
+        out.writeBoolean(true);
+
+        virtualObjects.clear();
+        VirtualObject[] mapping = debugInfo.getVirtualObjectMapping();
+        if (mapping == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(mapping.length);
+            for (VirtualObject virtualObject : mapping) {
+                out.writeInt(virtualObject.getId());
+                writeType(out, virtualObject.getType());
+                virtualObjects.put(virtualObject.getId(), virtualObject);
+            }
+            for (VirtualObject virtualObject : mapping) {
+                JavaValue[] values = virtualObject.getValues();
+                out.writeInt(values.length);
+                for (int i = 0; i < values.length; i++) {
+                    out.writeByte(virtualObject.getSlotKind(i).ordinal());
+                    writeValue(out, values[i]);
+                }
+            }
+        }
+
+        writeFrame(out, debugInfo.frame());
+
+        if (debugInfo.getReferenceMap() == null) {
+            out.writeInt(-1);
+        } else if (debugInfo.getReferenceMap() instanceof SubstrateReferenceMap) {
+            List<Integer> offsets = new ArrayList<>();
+            OffsetIterator iterator = ((SubstrateReferenceMap) debugInfo.getReferenceMap()).getOffsets();
+            while (iterator.hasNext()) {
+                /* The compression bit must be queried before advancing to the next offset. */
+                boolean compressed = iterator.isNextCompressed();
+                int offset = iterator.nextInt();
+                offsets.add(compressed ? -offset - 1 : offset);
+            }
+            out.writeInt(offsets.size());
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+        } else {
+            throw new UncachableException("reference map " + debugInfo.getReferenceMap());
+        }
+    }
+
+    private DebugInfo readDebugInfo(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        virtualObjects.clear();
+        VirtualObject[] mapping = null;
+        int virtualObjectCount = in.readInt();
+        if (virtualObjectCount >= 0) {
+            mapping = new VirtualObject[virtualObjectCount];
+            for (int i = 0; i < virtualObjectCount; i++) {
+                int id = in.readInt();
+                mapping[i] = VirtualObject.get(readType(in), id);
+                virtualObjects.put(id, mapping[i]);
+            }
+            for (VirtualObject virtualObject : mapping) {
+                int length = in.readInt();
+                JavaValue[] values = new JavaValue[length];
+                JavaKind[] slotKinds = new JavaKind[length];
+                for (int i = 0; i < length; i++) {
+                    slotKinds[i] = JavaKind.values()[in.readByte()];
+                    values[i] = readValue(in);
+                }
+                virtualObject.setValues(values, slotKinds);
+            }
+        }
+
+        DebugInfo debugInfo = new DebugInfo(readFrame(in), mapping);
+
+        int referenceCount = in.readInt();
+        if (referenceCount >= 0) {
+            SubstrateReferenceMap referenceMap = new SubstrateReferenceMap();
+            for (int i = 0; i < referenceCount; i++) {
+                int offset = in.readInt();
+                referenceMap.markReferenceAtOffset(offset < 0 ? -offset - 1 : offset, offset < 0);
+            }
+            debugInfo.setReferenceMap(referenceMap);
+        }
+        return debugInfo;
+    }
+
+    private void writeFrame(DataOutputStream out, BytecodeFrame frame) throws IOException {
+        out.writeBoolean(frame.caller() != null);
+        if (frame.caller() != null) {
+            writeFrame(out, frame.caller());
+        }
+        if (!(frame.getMethod() instanceof HostedMethod) || !cache.isUnambiguous((HostedMethod) frame.getMethod())) {
+            throw new UncachableException("frame of " + frame.getMethod());
+        }
+        out.writeUTF(CompilationCache.methodKey(frame.getMethod()));
+        out.writeInt(frame.getBCI());
+        out.writeBoolean(frame.rethrowException);
+        out.writeBoolean(frame.duringCall);
+        out.writeInt(frame.numLocals);
+        out.writeInt(frame.numStack);
+        out.writeInt(frame.numLocks);
+        for (int i = 0; i < frame.values.length; i++) {
+            out.writeByte(FrameInfoEncoder.getFrameValueKind(frame, i).ordinal());
+            writeValue(out, frame.values[i]);
+        }
+    }
+
+    private BytecodeFrame readFrame(DataInputStream in) throws IOException {
+        BytecodeFrame caller = in.readBoolean() ? readFrame(in) : null;
+        HostedMethod method = cache.lookupMethod(in.readUTF());
+        int bci = in.readInt();
+        boolean rethrowException = in.readBoolean();
+        boolean duringCall = in.readBoolean();
+        int numLocals = in.readInt();
+        int numStack = in.readInt();
+        int numLocks = in.readInt();
+        JavaValue[] values = new JavaValue[numLocals + numStack + numLocks];
+        /* The locks have no slot kind. */
+        JavaKind[] slotKinds = new JavaKind[numLocals + numStack];
+        for (int i = 0; i < values.length; i++) {
+            JavaKind kind = JavaKind.values()[in.readByte()];
+            if (i < slotKinds.length) {
+                slotKinds[i] = kind;
+            }
+            values[i] = readValue(in);
+        }
+        return new BytecodeFrame(caller, method, bci, rethrowException, duringCall, values, slotKinds, numLocals, numStack, numLocks);
+    }
+
+    private void writeType(DataOutputStream out, ResolvedJavaType type) throws IOException {
+        if (!(type instanceof HostedType) || !cache.isUnambiguous((HostedType) type)) {
+            throw new UncachableException("type " + type);
+        }
+        out.writeUTF(type.getName());
+    }
+
+    private HostedType readType(DataInputStream in) throws IOException {
+        return cache.lookupType(in.readUTF());
+    }
+
+    private void writeValue(DataOutputStream out, JavaValue value) throws IOException {
+        if (ValueUtil.isIllegalJavaValue(value)) {
+            out.writeByte(VALUE_ILLEGAL);
+        } else if (value instanceof VirtualObject) {
+            VirtualObject virtualObject = (VirtualObject) value;
+            if (virtualObjects.get(virtualObject.getId()) != virtualObject) {
+                throw new UncachableException("virtual object outside of the mapping");
+            }
+            out.writeByte(VALUE_VIRTUAL_OBJECT);
+            out.writeInt(virtualObject.getId());
+        } else if (value instanceof JavaConstant) {
+            JavaConstant constant = (JavaConstant) value;
+            if (constant.getJavaKind().isPrimitive()) {
+                out.writeByte(VALUE_PRIMITIVE);
+                out.writeByte(constant.getJavaKind().ordinal());
+                switch (constant.getJavaKind()) {
+                    case Float:
+                        out.writeLong(Float.floatToRawIntBits(constant.asFloat()));
+                        break;
+                    case Double:
+                        out.writeLong(Double.doubleToRawLongBits(constant.asDouble()));
+                        break;
+                    default:
+                        out.writeLong(constant.asLong());
+                }
+            } else if (constant.isNull()) {
+                out.writeByte(VALUE_NULL);
+                out.writeBoolean(SubstrateObjectConstant.isCompressed(constant));
+            } else if (constant instanceof SubstrateObjectConstant) {
+                out.writeByte(VALUE_OBJECT);
+                writeObjectConstant(out, (SubstrateObjectConstant) constant);
+            } else {
+                throw new UncachableException("constant " + constant);
+            }
+        } else if (value instanceof RegisterValue) {
+            out.writeByte(VALUE_REGISTER);
+            out.writeInt(((RegisterValue) value).getRegister().number);
+            writeValueKind(out, ((RegisterValue) value).getValueKind());
+        } else if (value instanceof StackSlot) {
+            StackSlot slot = (StackSlot) value;
+            out.writeByte(VALUE_STACK_SLOT);
+            out.writeInt(slot.getRawOffset());
+            out.writeBoolean(slot.getRawAddFrameSize());
+            writeValueKind(out, slot.getValueKind());
+        } else {
+            throw new UncachableException("value " + value);
+        }
+    }
+
+    private JavaValue readValue(DataInputStream in) throws IOException {
+        switch (in.readByte()) {
+            case VALUE_ILLEGAL:
+                return Value.ILLEGAL;
+            case VALUE_VIRTUAL_OBJECT:
+                return virtualObjects.get(in.readInt());
+            case VALUE_PRIMITIVE:
+                JavaKind kind = JavaKind.values()[in.readByte()];
+                long raw = in.readLong();
+                switch (kind) {
+                    case Boolean:
+                        return JavaConstant.forBoolean(raw != 0);
+                    case Byte:
+                        return JavaConstant.forByte((byte) raw);
+                    case Short:
+                        return JavaConstant.forShort((short) raw);
+                    case Char:
+                        return JavaConstant.forChar((char) raw);
+                    case Int:
+                        return JavaConstant.forInt((int) raw);
+                    case Float:
+                        return JavaConstant.forFloat(Float.intBitsToFloat((int) raw));
+                    case Long:
+                        return JavaConstant.forLong(raw);
+                    case Double:
+                        return JavaConstant.forDouble(Double.longBitsToDouble(raw));
+                    default:
+                        throw new UncachableException("constant of kind " + kind);
+                }
+            case VALUE_NULL:
+                return SubstrateObjectConstant.forObject(null, in.readBoolean());
+            case VALUE_OBJECT:
+                return readObjectConstant(in);
+            case VALUE_REGISTER:
+                Register register = lookupRegister(in.readInt());
+                return register.asValue(readValueKind(in));
+            case VALUE_STACK_SLOT:
+                int rawOffset = in.readInt();
+                boolean addFrameSize = in.readBoolean();
+                return StackSlot.get(readValueKind(in), rawOffset, addFrameSize);
+            default:
+                throw new UncachableException("value tag");
+        }
+    }
+
+    private static Register lookupRegister(int number) {
+        for (Register register : ConfigurationValues.getTarget().arch.getRegisters()) {
+            if (register.number == number) {
+                return register;
+            }
+        }
+        throw new UncachableException("register " + number);
+    }
+
+    private static void writeValueKind(DataOutputStream out, ValueKind<?> valueKind) throws IOException {
+        if (!(valueKind instanceof LIRKind) || !(valueKind.getPlatformKind() instanceof AMD64Kind)) {
+            throw new UncachableException("value kind " + valueKind);
+        }
+        LIRKind kind = (LIRKind) valueKind;
+        byte tag;
+        if (kind.isUnknownReference()) {
+            tag = KIND_UNKNOWN_REFERENCE;
+        } else if (kind.isValue()) {
+            tag = KIND_VALUE;
+        } else if (kind.isDerivedReference()) {
+            throw new UncachableException("derived reference " + kind);
+        } else {
+            tag = kind.isCompressedReference(0) ? KIND_COMPRESSED_REFERENCE : KIND_REFERENCE;
+        }
+        AMD64Kind platformKind = (AMD64Kind) kind.getPlatformKind();
+        /* Vector kinds can have a reference in another lane, which the tag cannot express. */
+        if (!createValueKind(tag, platformKind).equals(kind)) {
+            throw new UncachableException("value kind " + kind);
+        }
+        out.writeByte(tag);
+        out.writeByte(platformKind.ordinal());
+    }
+
+    private static ValueKind<?> readValueKind(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return createValueKind(tag, AMD64Kind.values()[in.readByte()]);
+    }
+
+    private static LIRKind createValueKind(byte tag, AMD64Kind platformKind) {
+        switch (tag) {
+            case KIND_VALUE:
+                return LIRKind.value(platformKind);
+            case KIND_REFERENCE:
+                return LIRKind.reference(platformKind);
+            case KIND_COMPRESSED_REFERENCE:
+                return LIRKind.compressedReference(platformKind);
+            default:
+                return LIRKind.unknownReference(platformKind);
+        }
+    }
+}
@@ -170,6 +170,8 @@ public class CompileQueue {
     private final LIRSuites regularLIRSuites;
     private final LIRSuites deoptTargetLIRSuites;
     private final ConcurrentMap<Constant, DataSection.Data> dataCache;
+    private final CompilationCache compilationCache;
+    private final List<Timer> timers = new ArrayList<>();
 
     private volatile boolean inliningProgress;
 
@@ -236,6 +238,8 @@ public class CompileQueue {
         protected final List<CompileReason> allReasons;
         public CompilationResult result;
         public final CompilationIdentifier compilationIdentifier;
+        /** The wall clock time spent in {@link #run}, in ns. */
+        public long compileTime;
 
         public CompileTask(HostedMethod method, CompileReason reason) {
             this.method = method;
@@ -254,7 +258,9 @@ public class CompileQueue {
             if (method.compilationInfo.graph != null) {
                 method.compilationInfo.graph.resetDebug(debug);
             }
+            long start = System.nanoTime();
             result = doCompile(debug, method, compilationIdentifier, reason);
+            compileTime = System.nanoTime() - start;
         }
 
         @Override
@@ -311,6 +317,7 @@ public class CompileQueue {
         this.optimisticOpts = OptimisticOptimizations.ALL.remove(OptimisticOptimizations.Optimization.UseLoopLimitChecks);
         this.deoptimizeAll = deoptimizeAll;
         this.dataCache = new ConcurrentHashMap<>();
+        this.compilationCache = CompilationCache.isEnabled() ? new CompilationCache(universe) : null;
         this.executor = new CompletionExecutor(universe.getBigBang(), executorService);
 
         regularSuites = NativeImageGenerator.createSuites(featureHandler, runtimeConfig, snippetReflection, true);
@@ -332,7 +339,7 @@ public class CompileQueue {
     public void finish(DebugContext debug) {
         try {
             String imageName = universe.getBigBang().getHostVM().getImageName();
-            try (StopTimer t = new Timer(imageName, "(parse)").start()) {
+            try (StopTimer t = newTimer(imageName, "(parse)").start()) {
                 parseAll();
             }
             // Checking @Uninterruptible annotations does not take long enough to justify a timer.
@@ -346,13 +353,16 @@ public class CompileQueue {
             beforeCompileAll(debug);
 
             if (SubstrateOptions.AOTInline.getValue()) {
-                try (StopTimer ignored = new Timer(imageName, "(inline)").start()) {
+                try (StopTimer ignored = newTimer(imageName, "(inline)").start()) {
                     inlineTrivialMethods(debug);
                 }
             }
-            try (StopTimer t = new Timer(imageName, "(compile)").start()) {
+            try (StopTimer t = newTimer(imageName, "(compile)").start()) {
                 compileAll();
             }
+            if (compilationCache != null) {
+                compilationCache.printStatistics(imageName);
+            }
         } catch (InterruptedException ie) {
             throw new InterruptImageBuilding();
         }
@@ -361,6 +371,24 @@ public class CompileQueue {
         }
     }
 
+    private Timer newTimer(String imageName, String name) {
+        Timer timer = new Timer(imageName, name);
+        timers.add(timer);
+        return timer;
+    }
+
+    /** The timers of the phases of {@link #finish}, in the order they were started. */
+    public List<Timer> getTimers() {
+        return timers;
+    }
+
+    /** The compilations that took the most wall clock time, slowest first. */
+    public List<CompileTask> getSlowestCompilations(int count) {
+        List<CompileTask> tasks = new ArrayList<>(compilations.values());
+        tasks.sort((t1, t2) -> Long.compare(t2.compileTime, t1.compileTime));
+        return tasks.subList(0, Math.min(count, tasks.size()));
+    }
+
     private void printMethodHistogram() {
         long sizeAllMethods = 0;
         long sizeDeoptMethods = 0;
@@ -912,18 +940,23 @@ public class CompileQueue {
 
             Suites suites = method.compilationInfo.isDeoptTarget() ? deoptTargetSuites : regularSuites;
             LIRSuites lirSuites = method.compilationInfo.isDeoptTarget() ? deoptTargetLIRSuites : regularLIRSuites;
-            CompilationResult result = new CompilationResult(compilationIdentifier, method.format("%H.%n(%p)")) {
-                @Override
-                public void close() {
-                    /*
-                     * Do nothing, we do not want our CompilationResult to be closed because we
-                     * aggregate all data items and machine code in the native image heap.
-                     */
+
+            /* The cache key is a fingerprint of the graph exactly as it is handed to the compiler. */
+            String cacheKey = compilationCache == null ? null : compilationCache.computeKey(method, graph);
+            CompilationResult cached = cacheKey == null ? null : compilationCache.lookup(cacheKey, () -> createCompilationResult(method, compilationIdentifier));
+
+            CompilationResult result = cached;
+            if (cached == null || CompilationCache.Options.VerifyCompilationCache.getValue()) {
+                result = createCompilationResult(method, compilationIdentifier);
+                try (Indent indent = debug.logAndIndent("compile %s", method)) {
+                    GraalCompiler.compileGraph(graph, method, backend.getProviders(), backend, null, optimisticOpts, method.getProfilingInfo(), suites, lirSuites, result,
+                                    new HostedCompilationResultBuilderFactory(), false);
+                }
+                if (cached != null) {
+                    CompilationCache.verify(method, cached, result);
+                } else if (cacheKey != null) {
+                    compilationCache.store(cacheKey, result);
                 }
-            };
-            try (Indent indent = debug.logAndIndent("compile %s", method)) {
-                GraalCompiler.compileGraph(graph, method, backend.getProviders(), backend, null, optimisticOpts, method.getProfilingInfo(), suites, lirSuites, result,
-                                new HostedCompilationResultBuilderFactory(), false);
             }
             method.getProfilingInfo().setCompilerIRSize(StructuredGraph.class, method.compilationInfo.graph.getNodeCount());
             method.compilationInfo.numNodesAfterCompilation = graph.getNodeCount();
@@ -959,6 +992,18 @@ public class CompileQueue {
         }
     }
 
+    private static CompilationResult createCompilationResult(HostedMethod method, CompilationIdentifier compilationIdentifier) {
+        return new CompilationResult(compilationIdentifier, method.format("%H.%n(%p)")) {
+            @Override
+            public void close() {
+                /*
+                 * Do nothing, we do not want our CompilationResult to be closed because we aggregate
+                 * all data items and machine code in the native image heap.
+                 */
+            }
+        };
+    }
+
     protected void removeDeoptTargetOptimizations(Suites suites) {
         GraalConfiguration.instance().removeDeoptTargetOptimizations(suites);
 
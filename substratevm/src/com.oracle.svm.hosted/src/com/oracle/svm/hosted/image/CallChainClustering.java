@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.core.common.NumUtil;
+import org.graalvm.nativeimage.ImageSingletons;
+
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.pgo.LoadedProfiles;
+
+import jdk.vm.ci.code.site.Call;
+import jdk.vm.ci.code.site.Infopoint;
+
+/**
+ * Orders the compiled methods of the code cache so that hot callers are close to their callees,
+ * following the call-chain clustering (C3) heuristic of Ottoni and Maher.
+ *
+ * Every method starts in a cluster of its own. In the order of decreasing hotness, the cluster of
+ * a method is appended to the cluster of its most frequent caller, unless the merged cluster would
+ * exceed {@link NativeImageCodeCache.Options#CodeLayoutClusterSize}. The clusters are then laid out
+ * in the order of decreasing density, i.e., hotness per byte of code. Cold methods, which are the
+ * deoptimization targets and, with image profiles, the methods that did not run, are laid out
+ * last, so that they do not dilute the pages and cache lines of the hot code.
+ *
+ * The call graph is the one of the compiled code, i.e., after inlining. The hotness of a method is
+ * its entry count when the build uses image profiles, and otherwise the number of call sites that
+ * call it, with virtual calls distributed over their implementations.
+ */
+final class CallChainClustering {
+
+    private static final class Cluster {
+        final List<HostedMethod> methods = new ArrayList<>();
+        long size;
+        double hotness;
+
+        double density() {
+            return size == 0 ? 0 : hotness / size;
+        }
+    }
+
+    private final Map<HostedMethod, CompilationResult> compilations;
+    private final LoadedProfiles profiles;
+    /** For each method, the weight of the calls from each of its callers. */
+    private final Map<HostedMethod, Map<HostedMethod, Double>> callers = new HashMap<>();
+    private final Map<HostedMethod, Double> hotness = new HashMap<>();
+
+    private CallChainClustering(Map<HostedMethod, CompilationResult> compilations) {
+        this.compilations = compilations;
+        this.profiles = ImageSingletons.contains(LoadedProfiles.class) ? ImageSingletons.lookup(LoadedProfiles.class) : null;
+    }
+
+    static List<HostedMethod> computeOrder(Map<HostedMethod, CompilationResult> compilations, int maxClusterSize) {
+        return new CallChainClustering(compilations).computeOrder(maxClusterSize);
+    }
+
+    private List<HostedMethod> computeOrder(int maxClusterSize) {
+        buildCallGraph();
+
+        List<HostedMethod> hot = new ArrayList<>();
+        List<HostedMethod> cold = new ArrayList<>();
+        for (HostedMethod method : compilations.keySet()) {
+            (isCold(method) ? cold : hot).add(method);
+        }
+
+        Map<HostedMethod, Cluster> clusterOf = new HashMap<>();
+        List<Cluster> clusters = new ArrayList<>();
+        for (HostedMethod method : hot) {
+            Cluster cluster = new Cluster();
+            cluster.methods.add(method);
+            cluster.size = NumUtil.roundUp(compilations.get(method).getTargetCodeSize(), NativeImageCodeCache.CODE_ALIGNMENT);
+            cluster.hotness = hotness.getOrDefault(method, 0.0);
+            clusterOf.put(method, cluster);
+            clusters.add(cluster);
+        }
+
+        /* The sort is stable, so methods of equal hotness stay in the order of the code cache. */
+        List<HostedMethod> byHotness = new ArrayList<>(hot);
+        byHotness.sort(Comparator.comparingDouble((HostedMethod method) -> hotness.getOrDefault(method, 0.0)).reversed());
+        for (HostedMethod method : byHotness) {
+            HostedMethod caller = mostFrequentCaller(method, clusterOf);
+            if (caller == null) {
+                continue;
+            }
+            Cluster callerCluster = clusterOf.get(caller);
+            Cluster cluster = clusterOf.get(method);
+            if (callerCluster == cluster || callerCluster.size + cluster.size > maxClusterSize) {
+                continue;
+            }
+            for (HostedMethod member : cluster.methods) {
+                clusterOf.put(member, callerCluster);
+            }
+            callerCluster.methods.addAll(cluster.methods);
+            callerCluster.size += cluster.size;
+            callerCluster.hotness += cluster.hotness;
+            cluster.methods.clear();
+        }
+
+        clusters.removeIf(cluster -> cluster.methods.isEmpty());
+        clusters.sort(Comparator.comparingDouble(Cluster::density).reversed());
+
+        List<HostedMethod> result = new ArrayList<>(compilations.size());
+        for (Cluster cluster : clusters) {
+            result.addAll(cluster.methods);
+        }
+        result.addAll(cold);
+        return result;
+    }
+
+    private void buildCallGraph() {
+        for (Map.Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
+            HostedMethod caller = entry.getKey();
+            for (Infopoint infopoint : entry.getValue().getInfopoints()) {
+                if (!(infopoint instanceof Call) || !(((Call) infopoint).target instanceof HostedMethod)) {
+                    continue;
+                }
+                Call call = (Call) infopoint;
+                HostedMethod target = (HostedMethod) call.target;
+                HostedMethod[] targets = call.direct ? new HostedMethod[]{target} : target.getImplementations();
+                for (HostedMethod callee : targets) {
+                    if (callee != caller && compilations.containsKey(callee)) {
+                        callers.computeIfAbsent(callee, c -> new HashMap<>()).merge(caller, 1.0 / targets.length, Double::sum);
+                    }
+                }
+            }
+        }
+
+        for (HostedMethod method : compilations.keySet()) {
+            if (profiles != null) {
+                hotness.put(method, (double) profiles.getEntryCount(method));
+            } else {
+                double callSites = 0;
+                for (double weight : callers.getOrDefault(method, new HashMap<>()).values()) {
+                    callSites += weight;
+                }
+                hotness.put(method, callSites);
+            }
+        }
+    }
+
+    private boolean isCold(HostedMethod method) {
+        if (method.compilationInfo.isDeoptTarget()) {
+            return true;
+        }
+        return profiles != null && !method.isEntryPoint() && !profiles.hasRun(method);
+    }
+
+    /**
+     * The hot caller that calls the method most frequently. With image profiles, the call sites of
+     * a caller are weighted with the smaller of the entry counts of the caller and the method,
+     * which bounds how often the caller can have called the method.
+     */
+    private HostedMethod mostFrequentCaller(HostedMethod method, Map<HostedMethod, Cluster> clusterOf) {
+        HostedMethod result = null;
+        double resultWeight = 0;
+        for (Map.Entry<HostedMethod, Double> entry : callers.getOrDefault(method, new HashMap<>()).entrySet()) {
+            HostedMethod caller = entry.getKey();
+            if (!clusterOf.containsKey(caller)) {
+                /* Cold callers are not clustered. */
+                continue;
+            }
+            double weight = profiles != null ? entry.getValue() * Math.min(hotness.get(caller), hotness.get(method)) : entry.getValue();
+            if (weight > resultWeight || (weight == resultWeight && result != null && caller.compareTo(result) < 0)) {
+                result = caller;
+                resultWeight = weight;
+            }
+        }
+        return result;
+    }
+}
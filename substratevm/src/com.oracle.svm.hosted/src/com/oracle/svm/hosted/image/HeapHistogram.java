@@ -31,6 +31,7 @@ import java.util.Map;
 
 import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.image.NativeImageHeap.ObjectInfo;
+import com.oracle.svm.hosted.json.JSONWriter;
 import com.oracle.svm.hosted.meta.HostedClass;
 
 /** Debug printing of statistics about the native image heap. */
@@ -53,8 +54,6 @@ public class HeapHistogram {
     private static final Comparator<HistogramEntry> SIZE_COMPARATOR = (o1, o2) -> Long.compare(o2.size, o1.size);
 
     public void add(ObjectInfo objectInfo, long size) {
-        assert NativeImageOptions.PrintHeapHistogram.getValue();
-
         HistogramEntry entry = data.get(objectInfo.getClazz());
         if (entry == null) {
             entry = new HistogramEntry(objectInfo.getClazz());
@@ -93,6 +92,22 @@ public class HeapHistogram {
         }
     }
 
+    /** Writes the histogram as a JSON array of entries, sorted by decreasing size. */
+    public void writeJSON(JSONWriter writer) {
+        HistogramEntry[] entries = data.values().toArray(new HistogramEntry[data.size()]);
+        Arrays.sort(entries, SIZE_COMPARATOR);
+
+        writer.beginArray();
+        for (HistogramEntry entry : entries) {
+            writer.beginObject();
+            writer.name("type").value(entry.clazz.toJavaName());
+            writer.name("count").value(entry.count);
+            writer.name("size").value(entry.size);
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
     public long getTotalSize() {
         long totalSize = 0;
         for (HistogramEntry entry : data.values()) {
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.code.DataSection;
+import org.graalvm.nativeimage.ImageSingletons;
+
+import com.oracle.svm.core.graal.code.SubstrateDataBuilder;
+import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.pgo.LoadedProfiles;
+
+import jdk.vm.ci.code.site.Call;
+import jdk.vm.ci.code.site.ConstantReference;
+import jdk.vm.ci.code.site.DataPatch;
+import jdk.vm.ci.code.site.Infopoint;
+import jdk.vm.ci.meta.Constant;
+
+/**
+ * Estimates the order in which the code of an image first uses the objects it references directly,
+ * for laying out the native image heap by locality.
+ *
+ * I walk the call graph of the compiled code breadth-first from the entry points, in the order of
+ * the calls within each method, and collect the object constants of each method as I visit it.
+ * When the build uses image profiles, the walk only enters methods that ran in the instrumented
+ * run, so that the order is about what the application actually did at startup.
+ */
+final class ImageHeapStartupOrder {
+
+    private ImageHeapStartupOrder() {
+    }
+
+    static List<Object> computeStartupObjects(Map<HostedMethod, CompilationResult> compilations) {
+        LoadedProfiles profiles = ImageSingletons.contains(LoadedProfiles.class) ? ImageSingletons.lookup(LoadedProfiles.class) : null;
+
+        List<HostedMethod> entryPoints = new ArrayList<>();
+        for (HostedMethod method : compilations.keySet()) {
+            if (method.isEntryPoint()) {
+                entryPoints.add(method);
+            }
+        }
+        /* The compilations are not in a deterministic order, but the layout should be. */
+        entryPoints.sort(Comparator.comparing(method -> method.format("%H.%n(%P)")));
+
+        Set<HostedMethod> visited = new HashSet<>(entryPoints);
+        Deque<HostedMethod> worklist = new ArrayDeque<>(entryPoints);
+        List<Object> result = new ArrayList<>();
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!worklist.isEmpty()) {
+            HostedMethod method = worklist.removeFirst();
+            CompilationResult compilation = compilations.get(method);
+            if (compilation == null) {
+                continue;
+            }
+            for (DataPatch patch : compilation.getDataPatches()) {
+                if (patch.reference instanceof ConstantReference) {
+                    addObject(result, seen, ((ConstantReference) patch.reference).getConstant());
+                }
+            }
+            for (DataSection.Data data : compilation.getDataSection()) {
+                if (data instanceof SubstrateDataBuilder.ObjectData) {
+                    addObject(result, seen, ((SubstrateDataBuilder.ObjectData) data).getConstant());
+                }
+            }
+            for (Infopoint infopoint : compilation.getInfopoints()) {
+                if (infopoint instanceof Call && ((Call) infopoint).target instanceof HostedMethod) {
+                    Call call = (Call) infopoint;
+                    HostedMethod target = (HostedMethod) call.target;
+                    if (call.direct) {
+                        enqueue(worklist, visited, profiles, target);
+                    } else {
+                        for (HostedMethod implementation : target.getImplementations()) {
+                            enqueue(worklist, visited, profiles, implementation);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void enqueue(Deque<HostedMethod> worklist, Set<HostedMethod> visited, LoadedProfiles profiles, HostedMethod method) {
+        if ((profiles == null || profiles.hasRun(method)) && visited.add(method)) {
+            worklist.addLast(method);
+        }
+    }
+
+    private static void addObject(List<Object> result, Set<Object> seen, Constant constant) {
+        Object object = SubstrateObjectConstant.asObject(constant);
+        if (object != null && seen.add(object)) {
+            result.add(object);
+        }
+    }
+}
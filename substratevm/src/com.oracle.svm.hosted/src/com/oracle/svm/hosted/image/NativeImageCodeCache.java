@@ -83,6 +83,12 @@ public class NativeImageCodeCache {
     public static class Options {
         @Option(help = "Verify that all possible deoptimization entry points have been properly compiled and registered in the metadata")//
         public static final HostedOptionKey<Boolean> VerifyDeoptimizationEntryPoints = new HostedOptionKey<>(false);
+
+        @Option(help = "Lay out the compiled methods so that hot callers are close to their callees and cold methods come last")//
+        public static final HostedOptionKey<Boolean> LayoutMethodsByHotness = new HostedOptionKey<>(false);
+
+        @Option(help = "The maximum size in bytes of a cluster of methods that are laid out together by LayoutMethodsByHotness")//
+        public static final HostedOptionKey<Integer> CodeLayoutClusterSize = new HostedOptionKey<>(4096);
     }
 
     public static final int CODE_ALIGNMENT = 16;
@@ -230,13 +236,18 @@ public class NativeImageCodeCache {
 
             // Assign a location to all methods.
             assert codeCacheSize == 0;
+            List<HostedMethod> order;
+            if (Options.LayoutMethodsByHotness.getValue()) {
+                order = CallChainClustering.computeOrder(compilations, Options.CodeLayoutClusterSize.getValue());
+            } else {
+                order = new ArrayList<>(compilations.keySet());
+            }
             HostedMethod firstMethod = null;
-            for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
-                HostedMethod method = entry.getKey();
+            for (HostedMethod method : order) {
                 if (firstMethod == null) {
                     firstMethod = method;
                 }
-                CompilationResult compilation = entry.getValue();
+                CompilationResult compilation = compilations.get(method);
                 compilationsByStart.put(codeCacheSize, compilation);
                 method.setCodeAddressOffset(codeCacheSize);
                 codeCacheSize = NumUtil.roundUp(codeCacheSize + compilation.getTargetCodeSize(), CODE_ALIGNMENT);
@@ -245,10 +256,8 @@ public class NativeImageCodeCache {
             // Build run-time metadata.
             FrameInfoCustomization frameInfoCustomization = new FrameInfoCustomization();
             CodeInfoEncoder codeInfoEncoder = new CodeInfoEncoder(frameInfoCustomization, null);
-            for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
-                final HostedMethod method = entry.getKey();
-                final CompilationResult compilation = entry.getValue();
-                codeInfoEncoder.addMethod(method, compilation, method.getCodeAddressOffset());
+            for (HostedMethod method : order) {
+                codeInfoEncoder.addMethod(method, compilations.get(method), method.getCodeAddressOffset());
             }
 
             if (NativeImageOptions.PrintMethodHistogram.getValue()) {
@@ -344,6 +353,9 @@ public class NativeImageCodeCache {
     }
 
     public void addConstantsToHeap(DebugContext debug) {
+        if (NativeImageOptions.ImageHeapLayoutByLocality.getValue()) {
+            imageHeap.setStartupObjects(ImageHeapStartupOrder.computeStartupObjects(compilations));
+        }
         for (DataSection.Data data : dataSection) {
             if (data instanceof SubstrateDataBuilder.ObjectData) {
                 JavaConstant constant = ((SubstrateDataBuilder.ObjectData) data).getConstant();
@@ -404,8 +416,9 @@ public class NativeImageCodeCache {
          * by generating extra relocation records.
          */
 
-        // in each compilation result...
-        for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
+        // in each compilation result, in parallel: each one patches its own code, and adding
+        // relocations is synchronized...
+        compilations.entrySet().parallelStream().forEach(entry -> {
             HostedMethod method = entry.getKey();
             CompilationResult compilation = entry.getValue();
 
@@ -462,7 +475,7 @@ public class NativeImageCodeCache {
                     throw VMError.shouldNotReachHere("Unknown type of reference in code");
                 }
             }
-        }
+        });
     }
 
     /*
@@ -148,6 +148,60 @@ public final class NativeImageHeap {
 
         addObjectsPhase.disallow();
         assert addObjectWorklist.isEmpty();
+
+        layoutPartitions();
+    }
+
+    /**
+     * The code cache tells me which objects its code references, in the order in which it uses
+     * them first, for laying out the heap by locality.
+     */
+    void setStartupObjects(List<Object> objectsInOrderOfFirstUse) {
+        assert addObjectsPhase.isBefore() || addObjectsPhase.isAllowed() : "Startup objects are set too late: phase: " + addObjectsPhase.toString();
+        startupObjects = objectsInOrderOfFirstUse;
+    }
+
+    /**
+     * Assign the offsets of the objects within their partitions. By default, the objects are laid
+     * out in the order in which they were added. When laying out by locality, the objects used at
+     * startup come first in each partition, in the order in which they are reached breadth-first
+     * from the {@linkplain #setStartupObjects objects referenced from the code}, until
+     * {@link NativeImageOptions#ImageHeapStartupRegionSize} is exhausted. Objects that the code
+     * uses early are thereby on the same pages, and startup touches fewer pages.
+     */
+    private void layoutPartitions() {
+        if (startupReferences != null) {
+            long remaining = NativeImageOptions.ImageHeapStartupRegionSize.getValue();
+            Set<ObjectInfo> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<ObjectInfo> worklist = new ArrayDeque<>();
+            for (Object object : startupObjects) {
+                ObjectInfo info = objects.get(object);
+                if (info != null && visited.add(info)) {
+                    worklist.addLast(info);
+                }
+            }
+            while (!worklist.isEmpty() && remaining > 0) {
+                ObjectInfo info = worklist.removeFirst();
+                info.allocateInPartition(layout);
+                remaining -= info.getSize();
+                for (ObjectInfo referenced : startupReferences.getOrDefault(info, Collections.emptyList())) {
+                    if (visited.add(referenced)) {
+                        worklist.addLast(referenced);
+                    }
+                }
+            }
+            readOnlyPrimitive.markStartupRegion();
+            readOnlyReference.markStartupRegion();
+            writablePrimitive.markStartupRegion();
+            writableReference.markStartupRegion();
+            /* The references are not needed any more once the layout is done. */
+            startupReferences = null;
+        }
+        for (ObjectInfo info : objectsInOrderOfAddition) {
+            if (!info.isAllocated()) {
+                info.allocateInPartition(layout);
+            }
+        }
     }
 
     void alignRelocatablePartition(long alignment) {
@@ -276,19 +330,27 @@ public final class NativeImageHeap {
         } else {
             addObjectToBootImageHeap(original, canonical, canonicalizable, immutableFromParent, identityHashCode, reason);
         }
+        if (startupReferences != null && reason instanceof ObjectInfo) {
+            startupReferences.computeIfAbsent((ObjectInfo) reason, r -> new ArrayList<>()).add(objects.get(canonical));
+        }
     }
 
     /**
      * Write the model of the native image heap to the RelocatableBuffers that represent the native
      * image.
+     *
+     * The objects are written in parallel: each object occupies its own range of its partition, so
+     * the writes to the buffers are disjoint, and only adding relocations to a buffer needs to be
+     * synchronized. The static fields and the partition boundaries are written afterwards, because
+     * they overwrite parts of the static field arrays.
      */
     @SuppressWarnings("try")
     public void writeHeap(DebugContext debug, final RelocatableBuffer roBuffer, final RelocatableBuffer rwBuffer) {
         try (Indent perHeapIndent = debug.logAndIndent("BootImageHeap.writeHeap:")) {
-            for (ObjectInfo info : objects.values()) {
+            objectsInOrderOfAddition.parallelStream().forEach(info -> {
                 assert !blacklist.contains(info.getObject());
                 writeObject(info, roBuffer, rwBuffer);
-            }
+            });
             // Only static fields that are writable get written to the native image heap,
             // the read-only static fields have been inlined into the code.
             writeStaticFields(rwBuffer);
@@ -318,6 +380,15 @@ public final class NativeImageHeap {
         return objects.get(obj);
     }
 
+    /** A histogram of all objects in the heap, counting canonicalized objects only once. */
+    public HeapHistogram computeHistogram() {
+        HeapHistogram histogram = new HeapHistogram();
+        for (ObjectInfo info : objectsInOrderOfAddition) {
+            histogram.add(info, info.getSize());
+        }
+        return histogram;
+    }
+
     /** Did the host intern this String? */
     private static boolean hostInternedString(final String str) {
         /*
@@ -513,7 +584,8 @@ public final class NativeImageHeap {
         }
 
         final HeapPartition partition = choosePartition(!written || immutable, references, relocatable);
-        info.assignToHeapPartition(partition, layout);
+        info.assignToHeapPartition(partition);
+        objectsInOrderOfAddition.add(info);
     }
 
     /** Determine if an object in the host heap will be immutable in the native image heap. */
@@ -707,15 +779,21 @@ public final class NativeImageHeap {
     private void addDirectRelocationWithoutAddend(RelocatableBuffer buffer, int index, int size, Object target) {
         assert !spawnIsolates() || index >= readOnlyRelocatable.offsetInSection() && index < readOnlyRelocatable.offsetInSection(readOnlyRelocatable.getSize());
         buffer.addDirectRelocationWithoutAddend(index, size, target);
-        if (firstRelocatablePointerOffsetInSection == -1) {
-            firstRelocatablePointerOffsetInSection = index;
-        }
+        recordRelocatablePointer(index);
     }
 
     private void addDirectRelocationWithAddend(RelocatableBuffer buffer, int index, DynamicHub target, long objectHeaderBits) {
         assert !spawnIsolates() || index >= readOnlyRelocatable.offsetInSection() && index < readOnlyRelocatable.offsetInSection(readOnlyRelocatable.getSize());
         buffer.addDirectRelocationWithAddend(index, referenceSize(), objectHeaderBits, target);
-        if (firstRelocatablePointerOffsetInSection == -1) {
+        recordRelocatablePointer(index);
+    }
+
+    /**
+     * Objects are written in parallel, so I remember the lowest relocatable pointer rather than
+     * the first one written, which also keeps the image deterministic.
+     */
+    private synchronized void recordRelocatablePointer(int index) {
+        if (firstRelocatablePointerOffsetInSection == -1 || index < firstRelocatablePointerOffsetInSection) {
             firstRelocatablePointerOffsetInSection = index;
         }
     }
@@ -803,6 +881,11 @@ public final class NativeImageHeap {
 
         patcher.patchReference("firstWritableReferenceObject", writableReference.firstAllocatedObject);
         patcher.patchReference("lastWritableReferenceObject", writableReference.lastAllocatedObject);
+
+        patcher.patchReference("lastReadOnlyPrimitiveStartupObject", readOnlyPrimitive.lastStartupObject);
+        patcher.patchReference("lastReadOnlyReferenceStartupObject", readOnlyReference.lastStartupObject);
+        patcher.patchReference("lastWritablePrimitiveStartupObject", writablePrimitive.lastStartupObject);
+        patcher.patchReference("lastWritableReferenceStartupObject", writableReference.lastStartupObject);
     }
 
     private final class NativeImageInfoPatcher {
@@ -972,6 +1055,10 @@ public final class NativeImageHeap {
             readOnlyPrimitive.incrementSize(layout.getAlignment());
         }
 
+        if (NativeImageOptions.ImageHeapLayoutByLocality.getValue()) {
+            startupReferences = new IdentityHashMap<>();
+        }
+
         // Initialize the canonicalizable and immutable class lists.
         // Some hosted classes I know are not canonicalizable.
         knownNonCanonicalizableClasses.add(Enum.class);
@@ -1023,6 +1110,18 @@ public final class NativeImageHeap {
     /** Objects that are known to be immutable in the native image heap. */
     private final Set<Object> knownImmutableObjects = Collections.newSetFromMap(new IdentityHashMap<>());
 
+    /** The objects of the native image heap, without duplicates, in the order they were added. */
+    private final List<ObjectInfo> objectsInOrderOfAddition = new ArrayList<>();
+
+    /** The objects referenced from code, in the order of their first use. */
+    private List<Object> startupObjects = Collections.emptyList();
+
+    /**
+     * The objects each object references, to walk the heap from the startup objects. Only recorded
+     * when laying out the heap by locality, and null otherwise.
+     */
+    private Map<ObjectInfo, List<ObjectInfo>> startupReferences;
+
     private final HeapPartition readOnlyPrimitive;
     private final HeapPartition readOnlyReference;
     private final HeapPartition readOnlyRelocatable;
@@ -1158,14 +1257,23 @@ public final class NativeImageHeap {
             this.reason = reason;
         }
 
-        void assignToHeapPartition(HeapPartition objectPartition, ObjectLayout layout) {
+        void assignToHeapPartition(HeapPartition objectPartition) {
             assert partition == null;
             partition = objectPartition;
+        }
+
+        /** Assign the offset within the partition, once all objects have been added. */
+        void allocateInPartition(ObjectLayout layout) {
+            assert partition != null && !isAllocated();
             offsetInPartition = partition.allocate(this);
             assert layout.isAligned(offsetInPartition) : "start: " + offsetInPartition + " must be aligned.";
             assert layout.isAligned(size) : "size: " + size + " must be aligned.";
         }
 
+        boolean isAllocated() {
+            return offsetInPartition != -1L;
+        }
+
         private final Object object;
         private final HostedClass clazz;
         private final long size;
@@ -1217,6 +1325,11 @@ public final class NativeImageHeap {
             return position;
         }
 
+        /** The objects allocated so far are the startup-critical prefix of this partition. */
+        void markStartupRegion() {
+            lastStartupObject = lastAllocatedObject;
+        }
+
         public boolean isWritable() {
             return writable;
         }
@@ -1290,6 +1403,7 @@ public final class NativeImageHeap {
             this.count = 0L;
             this.firstAllocatedObject = null;
             this.lastAllocatedObject = null;
+            this.lastStartupObject = null;
             this.sectionName = null;
             this.sectionOffset = INVALID_SECTION_OFFSET;
         }
@@ -1307,6 +1421,8 @@ public final class NativeImageHeap {
 
         Object firstAllocatedObject;
         Object lastAllocatedObject;
+        /** The last object used at startup, when laying out by locality, or null. */
+        Object lastStartupObject;
 
         /** The name of the native image section in which this partition lives. */
         private String sectionName;
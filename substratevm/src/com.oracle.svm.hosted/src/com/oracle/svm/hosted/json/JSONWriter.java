@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.json;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A minimal streaming writer for JSON, the counterpart of {@link JSONParser}. Commas between
+ * elements are inserted automatically, and every object member is written on its own line so
+ * that the output can still be read and diffed by humans.
+ */
+public class JSONWriter {
+
+    private final PrintWriter out;
+    /** For every open object or array: true if no element has been written yet. */
+    private final Deque<Boolean> first = new ArrayDeque<>();
+    private boolean afterName;
+
+    public JSONWriter(PrintWriter out) {
+        this.out = out;
+    }
+
+    public JSONWriter beginObject() {
+        beforeValue();
+        out.print('{');
+        first.push(true);
+        return this;
+    }
+
+    public JSONWriter endObject() {
+        end('}');
+        return this;
+    }
+
+    public JSONWriter beginArray() {
+        beforeValue();
+        out.print('[');
+        first.push(true);
+        return this;
+    }
+
+    public JSONWriter endArray() {
+        end(']');
+        return this;
+    }
+
+    /** Writes the name of the next object member. It must be followed by exactly one value. */
+    public JSONWriter name(String name) {
+        assert !afterName : "value for previous name missing";
+        separate();
+        quote(name);
+        out.print(": ");
+        afterName = true;
+        return this;
+    }
+
+    public JSONWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            out.print("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    public JSONWriter value(long value) {
+        beforeValue();
+        out.print(value);
+        return this;
+    }
+
+    public JSONWriter value(double value) {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.print("null");
+        } else {
+            out.print(value);
+        }
+        return this;
+    }
+
+    public JSONWriter value(boolean value) {
+        beforeValue();
+        out.print(value);
+        return this;
+    }
+
+    public void flush() {
+        assert first.isEmpty() : "unterminated object or array";
+        out.println();
+        out.flush();
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+        } else if (!first.isEmpty()) {
+            separate();
+        }
+    }
+
+    private void separate() {
+        if (!first.pop()) {
+            out.print(',');
+        }
+        first.push(false);
+        newLine(first.size());
+    }
+
+    private void end(char c) {
+        assert !afterName : "value for previous name missing";
+        boolean empty = first.pop();
+        if (!empty) {
+            newLine(first.size());
+        }
+        out.print(c);
+    }
+
+    private void newLine(int depth) {
+        out.println();
+        for (int i = 0; i < depth; i++) {
+            out.print("  ");
+        }
+    }
+
+    private void quote(String s) {
+        out.print('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.print("\\\"");
+                    break;
+                case '\\':
+                    out.print("\\\\");
+                    break;
+                case '\n':
+                    out.print("\\n");
+                    break;
+                case '\r':
+                    out.print("\\r");
+                    break;
+                case '\t':
+                    out.print("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.print(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.print(c);
+                    }
+            }
+        }
+        out.print('"');
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.svm.core.pgo.InstrumentationProfiles;
+import com.oracle.svm.core.pgo.MethodProfile;
+import com.oracle.svm.core.util.UserError;
+
+import jdk.vm.ci.meta.MetaUtil;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * The profiles an instrumented image wrote, in the format of {@link MethodProfile}, read back for
+ * an optimized build.
+ */
+public final class LoadedProfiles {
+
+    /** The counts of one method of the instrumented run. */
+    static final class MethodCounts {
+        final int codeSize;
+        final long entryCount;
+        /** The true and false counts of the conditions of branches, by bci. */
+        final Map<Integer, long[]> branches = new HashMap<>();
+        final Map<Integer, TypeCounts> types = new HashMap<>();
+
+        MethodCounts(int codeSize, long entryCount) {
+            this.codeSize = codeSize;
+            this.entryCount = entryCount;
+        }
+    }
+
+    /** The types seen at one bytecode of the instrumented run. */
+    static final class TypeCounts {
+        final long nullCount;
+        final long otherCount;
+        /** The counts of the types, by {@link #className class name}. */
+        final Map<String, Long> counts = new LinkedHashMap<>();
+
+        TypeCounts(long nullCount, long otherCount) {
+            this.nullCount = nullCount;
+            this.otherCount = otherCount;
+        }
+
+        long total() {
+            long total = otherCount;
+            for (long count : counts.values()) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    private final Map<String, MethodCounts> methods;
+
+    private LoadedProfiles(Map<String, MethodCounts> methods) {
+        this.methods = methods;
+    }
+
+    /**
+     * The counts of a method, or {@code null} if it did not run, or if its bytecode has changed
+     * since and the counts no longer fit it.
+     */
+    MethodCounts lookup(ResolvedJavaMethod method) {
+        final MethodCounts counts = methods.get(ProfileInstrumentationRegistry.methodKey(method));
+        return counts != null && counts.codeSize == method.getCodeSize() ? counts : null;
+    }
+
+    /**
+     * The name under which the instrumented image recorded a type: {@link Class#getName()}, e.g.
+     * {@code [Ljava.lang.String;} for an array of strings.
+     */
+    static String className(ResolvedJavaType type) {
+        return MetaUtil.internalNameToJava(type.getName(), true, true);
+    }
+
+    /** Whether the method ran in the instrumented run, with the bytecode it has now. */
+    public boolean hasRun(ResolvedJavaMethod method) {
+        return getEntryCount(method) > 0;
+    }
+
+    /** How often the method was entered in the instrumented run, or 0 if it is not known. */
+    public long getEntryCount(ResolvedJavaMethod method) {
+        final MethodCounts counts = lookup(method);
+        return counts != null ? counts.entryCount : 0;
+    }
+
+    public int size() {
+        return methods.size();
+    }
+
+    public static LoadedProfiles load(Path file) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw UserError.abort("Cannot read the image profiles " + file + ": " + ex.getMessage());
+        }
+        if (lines.isEmpty() || !lines.get(0).equals(InstrumentationProfiles.FORMAT_HEADER)) {
+            throw UserError.abort("The file " + file + " does not contain image profiles: the first line is not \"" + InstrumentationProfiles.FORMAT_HEADER + "\"");
+        }
+        final Map<String, MethodCounts> methods = new HashMap<>();
+        MethodCounts current = null;
+        for (int i = 1; i < lines.size(); i++) {
+            final String line = lines.get(i);
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                if (line.startsWith("method ")) {
+                    final String[] fields = line.split(" ", 4);
+                    current = new MethodCounts(Integer.parseInt(fields[1]), Long.parseLong(fields[2]));
+                    methods.put(fields[3], current);
+                } else if (line.startsWith("branch ") && current != null) {
+                    final String[] fields = line.split(" ");
+                    current.branches.put(Integer.parseInt(fields[1]), new long[]{Long.parseLong(fields[2]), Long.parseLong(fields[3])});
+                } else if (line.startsWith("types ") && current != null) {
+                    final String[] fields = line.split(" ");
+                    final TypeCounts types = new TypeCounts(Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+                    for (int f = 4; f + 1 < fields.length; f += 2) {
+                        types.counts.put(fields[f], Long.parseLong(fields[f + 1]));
+                    }
+                    current.types.put(Integer.parseInt(fields[1]), types);
+                } else {
+                    throw new IllegalArgumentException("unexpected line");
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                throw UserError.abort("Malformed image profiles " + file + " at line " + (i + 1) + ": " + line);
+            }
+        }
+        return new LoadedProfiles(methods);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.util.Arrays;
+
+import org.graalvm.compiler.nodes.extended.BranchProbabilityNode;
+
+import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.infrastructure.Universe;
+import com.oracle.graal.pointsto.meta.AnalysisMethod;
+import com.oracle.graal.pointsto.results.StaticAnalysisResults;
+import com.oracle.graal.pointsto.results.StaticAnalysisResults.BytecodeEntry;
+import com.oracle.graal.pointsto.results.StaticAnalysisResultsBuilder;
+import com.oracle.svm.hosted.pgo.LoadedProfiles.MethodCounts;
+import com.oracle.svm.hosted.pgo.LoadedProfiles.TypeCounts;
+
+import jdk.vm.ci.meta.JavaMethodProfile;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.JavaTypeProfile.ProfiledType;
+
+/**
+ * Combines the results of the static analysis with the profiles of an instrumented run, so that
+ * the compilation sees branch probabilities and execution counts, and type profiles ordered by how
+ * often each type was seen.
+ *
+ * The static analysis stays authoritative for which types are possible: I only reweight the types
+ * of its profiles, and never add or drop one, so that code which relies on a profile being
+ * complete stays correct when the instrumented run did not see every type.
+ */
+public class ProfileGuidedAnalysisResultsBuilder extends StaticAnalysisResultsBuilder {
+
+    private final LoadedProfiles profiles;
+
+    public ProfileGuidedAnalysisResultsBuilder(BigBang bb, Universe converter, LoadedProfiles profiles) {
+        super(bb, converter);
+        this.profiles = profiles;
+    }
+
+    @Override
+    protected BytecodeEntry createBytecodeEntry(AnalysisMethod method, int bci, JavaTypeProfile typeProfile, JavaMethodProfile methodProfile, JavaTypeProfile invokeResultTypeProfile) {
+        final MethodCounts counts = profiles.lookup(method);
+        final TypeCounts types = counts == null ? null : counts.types.get(bci);
+        final JavaTypeProfile profile = typeProfile == null || types == null ? typeProfile : reweight(typeProfile, types);
+        return super.createBytecodeEntry(method, bci, profile, methodProfile, invokeResultTypeProfile);
+    }
+
+    static JavaTypeProfile reweight(JavaTypeProfile typeProfile, TypeCounts types) {
+        final long total = types.total();
+        if (total == 0 || typeProfile.getTypes().length == 0) {
+            return typeProfile;
+        }
+        final double recordedProbability = 1d - typeProfile.getNotRecordedProbability();
+        final ProfiledType[] staticTypes = typeProfile.getTypes();
+        final ProfiledType[] reweighted = new ProfiledType[staticTypes.length];
+        for (int i = 0; i < staticTypes.length; i++) {
+            final Long count = types.counts.get(LoadedProfiles.className(staticTypes[i].getType()));
+            final double probability = count == null ? 0d : recordedProbability * count / total;
+            reweighted[i] = new ProfiledType(staticTypes[i].getType(), probability);
+        }
+        /* Most likely first. */
+        Arrays.sort(reweighted);
+        return new JavaTypeProfile(typeProfile.getNullSeen(), typeProfile.getNotRecordedProbability(), reweighted);
+    }
+
+    @Override
+    protected StaticAnalysisResults createStaticAnalysisResults(AnalysisMethod method, JavaTypeProfile[] parameterTypeProfiles, JavaTypeProfile resultTypeProfile, BytecodeEntry first) {
+        final MethodCounts counts = profiles.lookup(method);
+        if (counts == null) {
+            return super.createStaticAnalysisResults(method, parameterTypeProfiles, resultTypeProfile, first);
+        }
+        return new ProfileGuidedAnalysisResults(method.getCodeSize(), parameterTypeProfiles, resultTypeProfile, first, counts);
+    }
+
+    /**
+     * The branch probabilities are those of the conditions as Graal canonicalized them, see
+     * {@link com.oracle.svm.hosted.HostedConfiguration#isUsingAOTProfiles()}.
+     */
+    static final class ProfileGuidedAnalysisResults extends StaticAnalysisResults {
+
+        /*
+         * A branch that was never or always taken still gets a sliver of probability: the parser
+         * would otherwise replace the other successor with a deoptimization, which compiled image
+         * code cannot take.
+         */
+        private static final double MIN_PROBABILITY = BranchProbabilityNode.LUDICROUSLY_SLOW_PATH_PROBABILITY;
+
+        private final MethodCounts counts;
+
+        ProfileGuidedAnalysisResults(int codeSize, JavaTypeProfile[] parameterTypeProfiles, JavaTypeProfile resultTypeProfile, BytecodeEntry first, MethodCounts counts) {
+            super(codeSize, parameterTypeProfiles, resultTypeProfile, first);
+            this.counts = counts;
+        }
+
+        @Override
+        public double getBranchTakenProbability(int bci) {
+            final long[] branch = counts.branches.get(bci);
+            if (branch == null || branch[0] + branch[1] == 0) {
+                return super.getBranchTakenProbability(bci);
+            }
+            final double probability = (double) branch[0] / (branch[0] + branch[1]);
+            return Math.min(Math.max(probability, MIN_PROBABILITY), 1d - MIN_PROBABILITY);
+        }
+
+        @Override
+        public int getExecutionCount(int bci) {
+            final long[] branch = counts.branches.get(bci);
+            final long count = branch != null ? branch[0] + branch[1] : bci == 0 ? counts.entryCount : -1;
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.nio.file.Paths;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.Feature;
+import org.graalvm.nativeimage.ImageSingletons;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.pgo.InstrumentationProfiles;
+
+/**
+ * Optimizes an image with the profiles that an image built with
+ * {@link InstrumentationProfiles.Options#PGOInstrument} collected. The profiles reach the
+ * compilation as the {@link jdk.vm.ci.meta.ProfilingInfo} of the methods, see
+ * {@link ProfileGuidedAnalysisResultsBuilder}.
+ */
+@AutomaticFeature
+public final class ProfileGuidedOptimizationFeature implements Feature {
+
+    public static class Options {
+        @Option(help = "Optimize the image with the profiles in this file, written by an image built with -H:+PGOInstrument")//
+        public static final HostedOptionKey<String> PGO = new HostedOptionKey<>("");
+    }
+
+    public static boolean isEnabled() {
+        return !Options.PGO.getValue().isEmpty();
+    }
+
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return isEnabled();
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(LoadedProfiles.class, LoadedProfiles.load(Paths.get(Options.PGO.getValue())));
+    }
+}
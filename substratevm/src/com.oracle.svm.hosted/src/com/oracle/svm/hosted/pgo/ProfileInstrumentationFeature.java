@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.util.Map;
+
+import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.phases.util.Providers;
+import org.graalvm.nativeimage.ImageSingletons;
+
+import com.oracle.svm.core.ImageProfiles;
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.graal.GraalFeature;
+import com.oracle.svm.core.graal.meta.RuntimeConfiguration;
+import com.oracle.svm.core.graal.meta.SubstrateForeignCallLinkage;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.pgo.InstrumentationProfiles;
+import com.oracle.svm.core.pgo.TypeProfileSite;
+import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
+
+/**
+ * Builds an image that collects profiles, see {@link InstrumentationProfiles}. The instrumentation
+ * itself is done by the {@link ProfileInstrumentationPlugin}.
+ */
+@AutomaticFeature
+public final class ProfileInstrumentationFeature implements GraalFeature {
+
+    @Override
+    public boolean isInConfiguration(IsInConfigurationAccess access) {
+        return InstrumentationProfiles.isEnabled();
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        ImageSingletons.add(ImageProfiles.class, new InstrumentationProfiles());
+        ImageSingletons.add(ProfileInstrumentationRegistry.class, new ProfileInstrumentationRegistry());
+        RuntimeSupport.getRuntimeSupport().addShutdownHook(InstrumentationProfiles::dumpAtExit);
+    }
+
+    @Override
+    public void registerForeignCalls(RuntimeConfiguration runtimeConfig, Providers providers, SnippetReflectionProvider snippetReflection,
+                    Map<SubstrateForeignCallDescriptor, SubstrateForeignCallLinkage> foreignCalls, boolean hosted) {
+        foreignCalls.put(TypeProfileSite.RECORD, new SubstrateForeignCallLinkage(providers, TypeProfileSite.RECORD));
+    }
+
+    @Override
+    public void duringAnalysis(DuringAnalysisAccess access) {
+        /* The profiles of newly parsed methods must be scanned into the image heap. */
+        final ProfileInstrumentationRegistry registry = ImageSingletons.lookup(ProfileInstrumentationRegistry.class);
+        final InstrumentationProfiles profiles = (InstrumentationProfiles) ImageSingletons.lookup(ImageProfiles.class);
+        if (registry.size() != profiles.getProfileCount()) {
+            profiles.setProfiles(registry.getProfiles());
+            access.requireAnalysisIteration();
+        }
+    }
+
+    @Override
+    public void afterAnalysis(AfterAnalysisAccess access) {
+        ImageSingletons.lookup(ProfileInstrumentationRegistry.class).seal();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import org.graalvm.compiler.core.common.spi.ForeignCallsProvider;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.extended.ForeignCallNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.NodePlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.ProfilingPlugin;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+
+import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.core.pgo.MethodProfile;
+import com.oracle.svm.core.pgo.TypeProfileSite;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Instruments the methods of an image to collect profiles, as they are parsed.
+ *
+ * Method entries and branch outcomes increment a {@code long[]} of counters that is embedded in the
+ * code as a constant, without a call. The receivers of virtual and interface calls and the objects
+ * of checkcast and instanceof go through a foreign call to {@link TypeProfileSite#RECORD}, because
+ * finding the slot of a type needs a loop.
+ */
+public final class ProfileInstrumentationPlugin implements ProfilingPlugin, NodePlugin {
+
+    private final MetaAccessProvider metaAccess;
+    private final ForeignCallsProvider foreignCalls;
+    private final ProfileInstrumentationRegistry registry;
+
+    public ProfileInstrumentationPlugin(MetaAccessProvider metaAccess, ForeignCallsProvider foreignCalls, ProfileInstrumentationRegistry registry) {
+        this.metaAccess = metaAccess;
+        this.foreignCalls = foreignCalls;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean shouldProfile(GraphBuilderContext builder, ResolvedJavaMethod method) {
+        return !builder.parsingIntrinsic() && ProfileInstrumentationRegistry.shouldInstrument(method);
+    }
+
+    @Override
+    public void profileInvoke(GraphBuilderContext builder, ResolvedJavaMethod method, FrameState frameState) {
+        final MethodProfile profile = registry.lookup(method);
+        if (profile != null) {
+            incrementCounter(builder, profile, ConstantNode.forInt(MethodProfile.ENTRY_COUNTER_INDEX, builder.getGraph()), frameState);
+        }
+    }
+
+    @Override
+    public void profileGoto(GraphBuilderContext builder, ResolvedJavaMethod method, int bci, int targetBci, FrameState frameState) {
+        /* Unconditional jumps tell nothing that the branches and entries do not. */
+    }
+
+    @Override
+    public void profileIf(GraphBuilderContext builder, ResolvedJavaMethod method, int bci, LogicNode condition, int trueBranchBci, int falseBranchBci, FrameState frameState) {
+        final MethodProfile profile = registry.lookup(method);
+        final int index = profile == null ? -1 : profile.getBranchCounterIndex(bci);
+        if (index < 0) {
+            return;
+        }
+        final ValueNode trueIndex = ConstantNode.forInt(index, builder.getGraph());
+        final ValueNode falseIndex = ConstantNode.forInt(index + 1, builder.getGraph());
+        incrementCounter(builder, profile, builder.add(ConditionalNode.create(condition, trueIndex, falseIndex, NodeView.DEFAULT)), frameState);
+    }
+
+    private void incrementCounter(GraphBuilderContext builder, MethodProfile profile, ValueNode index, FrameState frameState) {
+        final ValueNode counters = ConstantNode.forConstant(SubstrateObjectConstant.forObject(profile.getCounters()), metaAccess, builder.getGraph());
+        final ValueNode count = builder.add(new LoadIndexedNode(null, counters, index, null, JavaKind.Long));
+        final ValueNode incremented = builder.add(AddNode.create(count, ConstantNode.forLong(1, builder.getGraph()), NodeView.DEFAULT));
+        final StoreIndexedNode store = new StoreIndexedNode(counters, index, null, null, JavaKind.Long, incremented);
+        store.setStateAfter(frameState);
+        builder.add(store);
+    }
+
+    @Override
+    public boolean handleInvoke(GraphBuilderContext b, ResolvedJavaMethod method, ValueNode[] args) {
+        if (b.getInvokeKind().isIndirect() && !method.canBeStaticallyBound()) {
+            recordType(b, args[0]);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean handleCheckCast(GraphBuilderContext b, ValueNode object, ResolvedJavaType type, JavaTypeProfile profile) {
+        recordType(b, object);
+        return false;
+    }
+
+    @Override
+    public boolean handleInstanceOf(GraphBuilderContext b, ValueNode object, ResolvedJavaType type, JavaTypeProfile profile) {
+        recordType(b, object);
+        return false;
+    }
+
+    private void recordType(GraphBuilderContext b, ValueNode value) {
+        /* Word types are not objects, and have no type to record. */
+        if (value.getStackKind() != JavaKind.Object || !shouldProfile(b, b.getMethod())) {
+            return;
+        }
+        final MethodProfile profile = registry.lookup(b.getMethod());
+        final TypeProfileSite site = profile == null ? null : profile.getTypeProfileSite(b.bci());
+        if (site == null) {
+            return;
+        }
+        final ValueNode siteNode = ConstantNode.forConstant(SubstrateObjectConstant.forObject(site), metaAccess, b.getGraph());
+        b.add(new ForeignCallNode(foreignCalls, TypeProfileSite.RECORD, siteNode, value));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graalvm.compiler.bytecode.BytecodeStream;
+import org.graalvm.compiler.bytecode.Bytecodes;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.pgo.InstrumentationProfiles;
+import com.oracle.svm.core.pgo.MethodProfile;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * The {@link MethodProfile}s of an instrumented image, by method.
+ *
+ * Profiles are created while the analysis parses methods. The compilation parses the same methods
+ * again and must find the counters the analysis put into the image heap, so once the analysis is
+ * {@link #seal() sealed} no profiles are created anymore.
+ */
+public final class ProfileInstrumentationRegistry {
+
+    private final Map<String, MethodProfile> profiles = new ConcurrentHashMap<>();
+    private final int typeProfileWidth = InstrumentationProfiles.Options.PGOTypeProfileWidth.getValue();
+    private volatile boolean sealed;
+
+    /** The name a method is profiled under, in both the instrumented and the optimized build. */
+    public static String methodKey(ResolvedJavaMethod method) {
+        return method.format("%H.%n(%P)%R");
+    }
+
+    /**
+     * Whether to instrument a method. I leave the virtual machine and the compiler alone: their
+     * code runs where counting is unsafe, and their profiles are not what the user is after.
+     */
+    public static boolean shouldInstrument(ResolvedJavaMethod method) {
+        if (method.getCode() == null || method.getAnnotation(Uninterruptible.class) != null) {
+            return false;
+        }
+        final String className = method.getDeclaringClass().getName();
+        return !className.startsWith("Lcom/oracle/svm/") && !className.startsWith("Lcom/oracle/graal/") && !className.startsWith("Lorg/graalvm/") && !className.startsWith("Ljdk/vm/ci/");
+    }
+
+    /** The profile of the method, created on first use during the analysis. */
+    public MethodProfile lookup(ResolvedJavaMethod method) {
+        final String key = methodKey(method);
+        if (sealed) {
+            return profiles.get(key);
+        }
+        return profiles.computeIfAbsent(key, k -> createProfile(k, method));
+    }
+
+    private MethodProfile createProfile(String key, ResolvedJavaMethod method) {
+        final byte[] code = method.getCode();
+        final List<Integer> branchBcis = new ArrayList<>();
+        final List<Integer> typeProfileBcis = new ArrayList<>();
+        final BytecodeStream stream = new BytecodeStream(code);
+        while (stream.currentBC() != Bytecodes.END) {
+            final int opcode = stream.currentBC();
+            if ((opcode >= Bytecodes.IFEQ && opcode <= Bytecodes.IF_ACMPNE) || opcode == Bytecodes.IFNULL || opcode == Bytecodes.IFNONNULL) {
+                branchBcis.add(stream.currentBCI());
+            } else if (opcode == Bytecodes.INVOKEVIRTUAL || opcode == Bytecodes.INVOKEINTERFACE || opcode == Bytecodes.CHECKCAST || opcode == Bytecodes.INSTANCEOF) {
+                typeProfileBcis.add(stream.currentBCI());
+            }
+            stream.next();
+        }
+        return new MethodProfile(key, code.length, toArray(branchBcis), toArray(typeProfileBcis), typeProfileWidth);
+    }
+
+    private static int[] toArray(List<Integer> bcis) {
+        return bcis.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    /** The profiles, sorted by method so that the profile text is stable across runs. */
+    public MethodProfile[] getProfiles() {
+        final MethodProfile[] result = profiles.values().toArray(new MethodProfile[0]);
+        Arrays.sort(result, Comparator.comparing(MethodProfile::getKey));
+        return result;
+    }
+
+    public void seal() {
+        sealed = true;
+    }
+}
@@ -73,6 +73,7 @@ import com.oracle.svm.core.util.UserError;
 import com.oracle.svm.core.util.VMError;
 import com.oracle.svm.hosted.ImageBuildTask;
 import com.oracle.svm.hosted.NativeImageGeneratorRunner;
+import com.oracle.svm.hosted.analysis.AnalysisSnapshotCache;
 import com.oracle.svm.hosted.server.SubstrateServerMessage.ServerCommand;
 
 /**
@@ -114,6 +115,12 @@ public final class NativeImageBuildServer {
         this.logOutput = logOutput;
         threadPoolExecutor = new ThreadPoolExecutor(SERVER_THREAD_POOL_SIZE, SERVER_THREAD_POOL_SIZE, Long.MAX_VALUE, TimeUnit.DAYS, new LinkedBlockingQueue<>());
 
+        /*
+         * Keep the analysis results of the JDK and the libraries warm for the next builds of the
+         * same application, if the builds ask for it with -H:+UseWarmAnalysisState.
+         */
+        AnalysisSnapshotCache.enable();
+
         /*
          * Set the right classloader in the process reaper
          */
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.word.UnsignedWord;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.svm.core.genscavenge.ConcurrentMarking;
+
+/**
+ * Tests that objects stay reachable while the old generation is marked concurrently. The tests
+ * mutate an old object graph across collections, so that marking cycles start, are remarked and
+ * are aborted while the pre-write barrier logs the overwritten references. They pass without
+ * concurrent marking too. The gate also runs them in an image built with
+ * {@code -H:+UseConcurrentOldGenerationMarking}, where a marking cycle starts after every
+ * incremental collection.
+ */
+public class ConcurrentMarkingTest {
+
+    private static final int NODES = 100_000;
+    private static final int ROUNDS = 20;
+
+    /** Keeps allocations from being optimized away. */
+    static volatile Object sink;
+
+    static final class Node {
+        final int value;
+        Node next;
+        Object payload;
+
+        Node(int value) {
+            this.value = value;
+        }
+    }
+
+    /** A ring of nodes, promoted to the old generation. */
+    private static Node[] createRing(int size) {
+        final Node[] nodes = new Node[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new Node(i);
+        }
+        for (int i = 0; i < size; i++) {
+            nodes[i].next = nodes[(i + 1) % size];
+        }
+        System.gc();
+        return nodes;
+    }
+
+    /** The sum of the values of the nodes of the ring, walking from the given node. */
+    private static long sumRing(Node start, int size) {
+        long sum = 0;
+        Node cur = start;
+        for (int i = 0; i < size; i++) {
+            Assert.assertNotNull("Lost a node of the ring", cur);
+            sum += cur.value;
+            cur = cur.next;
+        }
+        Assert.assertSame("The ring is broken", start, cur);
+        return sum;
+    }
+
+    private static long expectedSum(int size) {
+        return (long) size * (size - 1) / 2;
+    }
+
+    /**
+     * Rotate the links of the ring, so that the only reference to an old node is briefly held in a
+     * local while the reference from the old generation is overwritten.
+     */
+    @Test
+    public void testOverwrittenReferencesStayReachable() {
+        Node[] nodes = createRing(NODES);
+        final Node head = nodes[0];
+        nodes = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            /* Swap each pair of nodes in the ring, twice, so that the ring is restored. */
+            for (int swap = 0; swap < 2; swap++) {
+                Node prev = head;
+                while (prev.next != head && prev.next.next != head) {
+                    final Node a = prev.next;
+                    final Node b = a.next;
+                    a.next = b.next;
+                    b.next = a;
+                    prev.next = b;
+                    prev = a;
+                }
+            }
+            /* Garbage, so that young collections happen during the mutation. */
+            for (int i = 0; i < 1_000; i++) {
+                head.payload = new byte[1024];
+            }
+            Assert.assertEquals(expectedSum(NODES), sumRing(head, NODES));
+        }
+    }
+
+    /** Object arrays are overwritten by array copies, which log the overwritten range. */
+    @Test
+    public void testArrayCopyOverwrittenElementsStayReachable() {
+        final Node[] nodes = createRing(NODES);
+        final Object[] holder = new Object[NODES];
+        System.arraycopy(nodes, 0, holder, 0, NODES);
+        System.gc();
+        for (int round = 0; round < ROUNDS; round++) {
+            final Object[] shifted = new Object[NODES];
+            System.arraycopy(holder, 1, shifted, 0, NODES - 1);
+            shifted[NODES - 1] = holder[0];
+            System.arraycopy(shifted, 0, holder, 0, NODES);
+            for (int i = 0; i < 1_000; i++) {
+                ((Node) holder[i]).payload = new byte[1024];
+            }
+        }
+        Assert.assertEquals(expectedSum(NODES), sumRing((Node) holder[0], NODES));
+        for (int i = 0; i < NODES; i++) {
+            Assert.assertEquals(nodes[(i + ROUNDS) % NODES], holder[i]);
+        }
+    }
+
+    /**
+     * Many threads overwrite many references at once, so that the preallocated SATB buffers may run
+     * out. The cycle is then aborted, and nothing must be lost.
+     */
+    @Test
+    public void testManyWritingThreads() throws InterruptedException {
+        final int threadCount = 16;
+        final Node[][] rings = new Node[threadCount][];
+        for (int t = 0; t < threadCount; t++) {
+            rings[t] = createRing(NODES / threadCount);
+        }
+        final List<Thread> threads = new ArrayList<>();
+        final Throwable[] failures = new Throwable[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int index = t;
+            final Thread thread = new Thread(() -> {
+                try {
+                    final Node[] ring = rings[index];
+                    for (int round = 0; round < ROUNDS; round++) {
+                        /* Reverse the ring, twice, overwriting every link. */
+                        for (int reverse = 0; reverse < 2; reverse++) {
+                            final Node head = ring[0];
+                            Node prev = head;
+                            Node cur = head.next;
+                            while (cur != head) {
+                                final Node next = cur.next;
+                                cur.next = prev;
+                                prev = cur;
+                                cur = next;
+                            }
+                            head.next = prev;
+                        }
+                        ring[round % ring.length].payload = new byte[64 * 1024];
+                        Assert.assertEquals(expectedSum(ring.length), sumRing(ring[0], ring.length));
+                    }
+                } catch (Throwable ex) {
+                    failures[index] = ex;
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw new AssertionError(failure);
+            }
+        }
+    }
+
+    /** Objects that become unreachable while the old generation is marked are still reclaimed. */
+    @Test
+    public void testUnreachableOldObjectsAreReclaimed() {
+        Node[] nodes = createRing(NODES);
+        final WeakReference<Node> weak = new WeakReference<>(nodes[NODES / 2]);
+        nodes = null;
+        for (int i = 0; i < 10 && weak.get() != null; i++) {
+            System.gc();
+        }
+        Assert.assertNull("The ring should have been reclaimed", weak.get());
+    }
+
+    /**
+     * Old objects that are unreachable when a marking cycle starts are reclaimed by the sweep of an
+     * incremental collection. No collection is requested after the objects are dropped, because a
+     * complete collection would abort the cycle.
+     */
+    @Test
+    public void testOldChunksAreSweptIncrementally() throws InterruptedException {
+        Assume.assumeTrue("Needs an image built with -H:+UseConcurrentOldGenerationMarking", ConcurrentMarking.isEnabled());
+        final ConcurrentMarking marking = ConcurrentMarking.get();
+        final int arrayCount = 16;
+        final int arraySize = 1024 * 1024;
+        /* Arrays this large get an unaligned chunk each, which the sweep releases as a whole. */
+        byte[][] arrays = new byte[arrayCount][];
+        for (int i = 0; i < arrayCount; i++) {
+            arrays[i] = new byte[arraySize];
+        }
+        /* Promote the arrays to the old generation. */
+        System.gc();
+        arrays = null;
+        final long cyclesBefore = marking.getCompletedCycles();
+        final UnsignedWord sweptBefore = marking.getSweptChunkBytes();
+        /*
+         * The complete collection aborted any cycle in progress, so the next cycle starts after the
+         * arrays were dropped: the first incremental collection marks, a later one remarks and
+         * sweeps. Allocate until that cycle has been completed.
+         */
+        final long deadline = System.currentTimeMillis() + 60_000;
+        while (marking.getCompletedCycles() <= cyclesBefore && System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < 1_000; i++) {
+                sink = new byte[1024];
+            }
+            /* Give the marker thread time to finish tracing. */
+            Thread.sleep(1);
+        }
+        Assert.assertTrue("No marking cycle completed", marking.getCompletedCycles() > cyclesBefore);
+        final UnsignedWord swept = marking.getSweptChunkBytes().subtract(sweptBefore);
+        Assert.assertTrue("The unreachable arrays were not swept: " + swept.rawValue() + " bytes", swept.aboveOrEqual(arrayCount * arraySize));
+    }
+}